@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.business;
+
+import fr.paris.lutece.plugins.appointment.service.metrics.QueryMetricsService;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * DAOUtil used by the DAOs of the plugin. It records the time spent in the database, the number of rows read and the number of calls of each statement.
+ * 
+ * Only the time spent executing the statement and reading its rows is measured, not the time the DAO spends between the rows.
+ */
+public class AppointmentDAOUtil extends DAOUtil
+{
+    private final String _strSQL;
+    private long _lTime;
+    private long _lRowCount;
+    private int _nExecutionCount;
+    private boolean _bRecorded;
+
+    /**
+     * Creates a new AppointmentDAOUtil object.
+     * 
+     * @param strSQL
+     *            sql query
+     */
+    public AppointmentDAOUtil( String strSQL )
+    {
+        super( strSQL );
+        _strSQL = strSQL;
+    }
+
+    /**
+     * Creates a new AppointmentDAOUtil object.
+     * 
+     * @param strSQL
+     *            sql query
+     * @param plugin
+     *            The plugin
+     */
+    public AppointmentDAOUtil( String strSQL, Plugin plugin )
+    {
+        super( strSQL, plugin );
+        _strSQL = strSQL;
+    }
+
+    /**
+     * Creates a new AppointmentDAOUtil object.
+     * 
+     * @param strSQL
+     *            sql query
+     * @param nAutoGeneratedKeys
+     *            A flag indicating whether auto-generated keys should be returned
+     * @param plugin
+     *            The plugin
+     */
+    public AppointmentDAOUtil( String strSQL, int nAutoGeneratedKeys, Plugin plugin )
+    {
+        super( strSQL, nAutoGeneratedKeys, plugin );
+        _strSQL = strSQL;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void executeQuery( )
+    {
+        long lStartTime = System.nanoTime( );
+        try
+        {
+            super.executeQuery( );
+        }
+        finally
+        {
+            _lTime += System.nanoTime( ) - lStartTime;
+            _nExecutionCount++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void executeUpdate( )
+    {
+        long lStartTime = System.nanoTime( );
+        try
+        {
+            super.executeUpdate( );
+        }
+        finally
+        {
+            _lTime += System.nanoTime( ) - lStartTime;
+            _nExecutionCount++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int [ ] executeBatch( )
+    {
+        long lStartTime = System.nanoTime( );
+        try
+        {
+            return super.executeBatch( );
+        }
+        finally
+        {
+            _lTime += System.nanoTime( ) - lStartTime;
+            _nExecutionCount++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next( )
+    {
+        long lStartTime = System.nanoTime( );
+        boolean bNext = super.next( );
+        _lTime += System.nanoTime( ) - lStartTime;
+        if ( bNext )
+        {
+            _lRowCount++;
+        }
+        return bNext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void free( )
+    {
+        try
+        {
+            super.free( );
+        }
+        finally
+        {
+            // The statement can be freed more than once, by the DAO and by the try-with-resources
+            if ( _nExecutionCount > 0 && !_bRecorded )
+            {
+                _bRecorded = true;
+                QueryMetricsService.record( _strSQL, _nExecutionCount, _lTime, _lRowCount );
+            }
+        }
+    }
+}
@@ -33,9 +33,11 @@
  */
 package fr.paris.lutece.plugins.appointment.business.appointment;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.business.user.User;
+import fr.paris.lutece.plugins.appointment.business.user.UserDAO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -88,6 +90,12 @@ public final class AppointmentDAO implements IAppointmentDAO
             + " FROM appointment_appointment app " + "INNER JOIN appointment_user user ON app.id_user = user.id_user "
             + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
             + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot WHERE id_form != 0";
+    private static final String SQL_QUERY_SELECT_LIGHT = "SELECT DISTINCT app.id_appointment, app.reference, user.first_name, user.last_name, user.email, user.phone_number, slot.id_form"
+            + " FROM appointment_appointment app INNER JOIN appointment_user user ON app.id_user = user.id_user"
+            + " INNER JOIN appointment_appointment_slot app_slot ON app.id_appointment = app_slot.id_appointment"
+            + " INNER JOIN appointment_slot slot ON app_slot.id_slot = slot.id_slot";
+    private static final String SQL_QUERY_SELECT_LIGHT_BY_ID = SQL_QUERY_SELECT_LIGHT + " WHERE app.id_appointment = ?";
+    private static final String SQL_QUERY_SELECT_LIGHT_FROM_ID = SQL_QUERY_SELECT_LIGHT + " WHERE app.id_appointment > ? ORDER BY app.id_appointment LIMIT ?";
 
     private static final String SQL_QUERY_INSERT_APPT_SLT = "INSERT INTO appointment_appointment_slot (id_appointment, id_slot, nb_places) VALUES ( ?, ?, ?)";
     private static final String SQL_QUERY_DELETE_APPT_SLT = "DELETE FROM appointment_appointment_slot WHERE id_appointment = ?";
@@ -105,10 +113,15 @@ public final class AppointmentDAO implements IAppointmentDAO
             + "JOIN appointment_category cat on cat.id_category = form.id_category and cat.id_category = ? ";
 
     private static final String SQL_QUERY_SELECT_ID = "SELECT id_appointment FROM appointment_appointment ";
-    private static final String SQL_FILTER_FIRST_NAME = "UPPER(user.first_name) LIKE ?";
-    private static final String SQL_FILTER_LAST_NAME = "UPPER(user.last_name) LIKE ?";
-    private static final String SQL_FILTER_EMAIL = "UPPER(user.email) LIKE ?";
-    private static final String SQL_FILTER_PHONE_NUMBER = "UPPER(user.phone_number) LIKE ?";
+    // Prefix searches on the normalised columns of the user, maintained by the UserDAO, which can use their indexes. When the search index is enabled, the
+    // filters search fragments instead, as the index does
+    // The escape character is not the backslash, which the databases read differently in a string literal
+    private static final String SQL_LIKE_ESCAPE = " ESCAPE '!'";
+    private static final String SQL_FILTER_FIRST_NAME = "user.first_name_search LIKE ?" + SQL_LIKE_ESCAPE;
+    private static final String SQL_FILTER_LAST_NAME = "user.last_name_search LIKE ?" + SQL_LIKE_ESCAPE;
+    private static final String SQL_FILTER_EMAIL = "user.email_search LIKE ?" + SQL_LIKE_ESCAPE;
+    private static final String SQL_FILTER_PHONE_NUMBER = "user.phone_number_search LIKE ?" + SQL_LIKE_ESCAPE;
+    private static final String SQL_FILTER_REFERENCE = "UPPER(app.reference) LIKE ?" + SQL_LIKE_ESCAPE;
     private static final String SQL_FILTER_ID_FORM = "slot.id_form = ?";
     private static final String SQL_FILTER_GUID = "user.guid = ?";
     private static final String SQL_FILTER_STATUS = "app.is_cancelled = ?";
@@ -168,7 +181,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     {
         List<AppointmentSlot> listAppointmentSlot = new ArrayList<>( );
         AppointmentSlot appointmentSlot = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_APPT_SLT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_APPT_SLT, plugin ) )
         {
             daoUtil.setInt( 1, nIdAppointment );
             daoUtil.executeQuery( );
@@ -187,7 +200,7 @@ public final class AppointmentDAO implements IAppointmentDAO
 
     private void insertAppointmentSlot( AppointmentSlot apptSlot, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT_APPT_SLT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_INSERT_APPT_SLT, plugin ) )
         {
             daoUtil.setInt( 1, apptSlot.getIdAppointment( ) );
             daoUtil.setInt( 2, apptSlot.getIdSlot( ) );
@@ -199,7 +212,7 @@ public final class AppointmentDAO implements IAppointmentDAO
 
     private void deleteAppointmentSlot( int nIdAppointment, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_APPT_SLT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_APPT_SLT, plugin ) )
         {
             daoUtil.setInt( 1, nIdAppointment );
             daoUtil.executeUpdate( );
@@ -233,7 +246,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public void delete( int nIdAppointment, Plugin plugin )
     {
         deleteAppointmentSlot( nIdAppointment, plugin );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdAppointment );
             daoUtil.executeUpdate( );
@@ -244,7 +257,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public Appointment select( int nIdAppointment, Plugin plugin )
     {
         Appointment appointment = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdAppointment );
             daoUtil.executeQuery( );
@@ -265,7 +278,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public List<Appointment> findByIdUser( int nIdUser, Plugin plugin )
     {
         List<Appointment> listAppointment = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_USER, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_USER, plugin ) )
         {
             daoUtil.setInt( 1, nIdUser );
             daoUtil.executeQuery( );
@@ -284,7 +297,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public List<Appointment> findByGuidUser( String strGuidUser, Plugin plugin )
     {
         List<Appointment> listAppointment = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_GUID_USER, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_GUID_USER, plugin ) )
         {
             daoUtil.setString( 1, strGuidUser );
             daoUtil.executeQuery( );
@@ -303,7 +316,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public List<Appointment> findByIdSlot( int nIdSlot, Plugin plugin )
     {
         List<Appointment> listAppointment = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_SLOT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_SLOT, plugin ) )
         {
             daoUtil.setInt( 1, nIdSlot );
             daoUtil.executeQuery( );
@@ -329,7 +342,7 @@ public final class AppointmentDAO implements IAppointmentDAO
         }
         String query = SQL_QUERY_SELECT_BY_LIST_ID_SLOT + listIdSlot.stream( ).distinct( ).map( i -> "?" ).collect( Collectors.joining( "," ) ) + " )";
 
-        try ( DAOUtil daoUtil = new DAOUtil( query, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( query, plugin ) )
         {
             for ( int i = 0; i < listIdSlot.size( ); i++ )
             {
@@ -355,7 +368,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public Appointment findByReference( String strReference, Plugin plugin )
     {
         Appointment appointment = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_REFERENCE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_REFERENCE, plugin ) )
         {
             daoUtil.setString( 1, strReference );
             daoUtil.executeQuery( );
@@ -373,7 +386,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     {
         Map<Integer, Appointment> mapAppointment = new HashMap<>( );
         boolean isFirst = true;
-        try ( DAOUtil daoUtil = new DAOUtil( getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_SELECT_BY_FILTER ), plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( getSqlQueryFromFilter( appointmentFilter, SQL_QUERY_SELECT_BY_FILTER ), plugin ) )
         {
             addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
             daoUtil.executeQuery( );
@@ -422,7 +435,7 @@ public final class AppointmentDAO implements IAppointmentDAO
 
         String sqlQueryFromFilter = getSqlQueryFromFilter(appointmentFilter, SQL_QUERY_SELECT_IDS_BY_FILTER);
         String sqlQuery = getOrderQuery( appointmentFilter, sqlQueryFromFilter );
-        try (DAOUtil daoUtil = new DAOUtil(sqlQuery, plugin ) )
+        try (DAOUtil daoUtil = new AppointmentDAOUtil(sqlQuery, plugin ) )
         {
             addFilterParametersToDAOUtil( appointmentFilter, daoUtil );
             daoUtil.executeQuery( );
@@ -438,12 +451,45 @@ public final class AppointmentDAO implements IAppointmentDAO
         return list;
     }
 
+    @Override
+    public List<Appointment> findLightFromId( int nIdAppointmentFrom, int nLimit, Plugin plugin )
+    {
+        List<Appointment> listAppointment = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_LIGHT_FROM_ID, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdAppointmentFrom );
+            daoUtil.setInt( 2, nLimit );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listAppointment.add( buildLightAppointment( daoUtil ) );
+            }
+        }
+        return listAppointment;
+    }
+
+    @Override
+    public Appointment findLightByPrimaryKey( int nIdAppointment, Plugin plugin )
+    {
+        Appointment appointment = null;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_LIGHT_BY_ID, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdAppointment );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                appointment = buildLightAppointment( daoUtil );
+            }
+        }
+        return appointment;
+    }
+
     @Override
     public List<Appointment> findByCategoryAndMail( int nIdCategory, String mail, Plugin plugin )
     {
         Map<Integer, Appointment> mapAppointment = new HashMap<>( );
         boolean isFirst = true;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_EMAIL_AND_CATEGORY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_EMAIL_AND_CATEGORY, plugin ) )
         {
             daoUtil.setString( 1, mail );
             daoUtil.setInt( 2, nIdCategory );
@@ -501,21 +547,26 @@ public final class AppointmentDAO implements IAppointmentDAO
         {
             daoUtil.setInt( ++nIndex, appointmentFilter.getIdForm( ) );
         }
+        boolean bFragmentSearch = appointmentFilter.isFragmentSearch( );
         if ( appointmentFilter.getFirstName( ) != null )
         {
-            daoUtil.setString( ++nIndex, CONSTANT_PERCENT + appointmentFilter.getFirstName( ).toUpperCase( ) + CONSTANT_PERCENT );
+            daoUtil.setString( ++nIndex, getSearchPattern( appointmentFilter.getFirstName( ), bFragmentSearch ) );
         }
         if ( appointmentFilter.getLastName( ) != null )
         {
-            daoUtil.setString( ++nIndex, CONSTANT_PERCENT + appointmentFilter.getLastName( ).toUpperCase( ) + CONSTANT_PERCENT );
+            daoUtil.setString( ++nIndex, getSearchPattern( appointmentFilter.getLastName( ), bFragmentSearch ) );
         }
         if ( appointmentFilter.getEmail( ) != null )
         {
-            daoUtil.setString( ++nIndex, CONSTANT_PERCENT + appointmentFilter.getEmail( ).toUpperCase( ) + CONSTANT_PERCENT );
+            daoUtil.setString( ++nIndex, getSearchPattern( appointmentFilter.getEmail( ), bFragmentSearch ) );
         }
         if ( StringUtils.isNotEmpty( appointmentFilter.getPhoneNumber( ) ) )
         {
-            daoUtil.setString( ++nIndex, CONSTANT_PERCENT + appointmentFilter.getPhoneNumber( ).toUpperCase( ) + CONSTANT_PERCENT );
+            daoUtil.setString( ++nIndex, getSearchPattern( appointmentFilter.getPhoneNumber( ), bFragmentSearch ) );
+        }
+        if ( StringUtils.isNotEmpty( appointmentFilter.getReference( ) ) )
+        {
+            daoUtil.setString( ++nIndex, getSearchPattern( appointmentFilter.getReference( ), bFragmentSearch ) );
         }
         if ( appointmentFilter.getGuid( ) != null )
         {
@@ -560,6 +611,22 @@ public final class AppointmentDAO implements IAppointmentDAO
         }
     }
 
+    /**
+     * Build the pattern of a prefix or fragment search on a search column of the user, the wildcards typed in the filter being searched literally
+     *
+     * @param strValue
+     *            the value of the filter
+     * @param bFragmentSearch
+     *            true to search the value anywhere in the column, false to search it at its start
+     * @return the pattern
+     */
+    private static String getSearchPattern( String strValue, boolean bFragmentSearch )
+    {
+        String strSearchValue = StringUtils.defaultString( UserDAO.toSearchValue( strValue ) );
+        String strPattern = strSearchValue.replace( "!", "!!" ).replace( CONSTANT_PERCENT, "!%" ).replace( "_", "!_" ) + CONSTANT_PERCENT;
+        return bFragmentSearch ? CONSTANT_PERCENT + strPattern : strPattern;
+    }
+
     /**
      * Build the sql query with the elements of the filter
      *
@@ -596,6 +663,11 @@ public final class AppointmentDAO implements IAppointmentDAO
             sbSql.append( CONSTANT_AND );
             sbSql.append( SQL_FILTER_PHONE_NUMBER );
         }
+        if ( StringUtils.isNotEmpty( appointmentFilter.getReference( ) ) )
+        {
+            sbSql.append( CONSTANT_AND );
+            sbSql.append( SQL_FILTER_REFERENCE );
+        }
         if ( appointmentFilter.getGuid( ) != null )
         {
             sbSql.append( CONSTANT_AND );
@@ -683,7 +755,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public List<Appointment> findByIdForm( int nIdForm, Plugin plugin )
     {
         List<Appointment> listAppointment = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -699,7 +771,7 @@ public final class AppointmentDAO implements IAppointmentDAO
     public List<Integer> selectAllAppointmentId( Plugin plugin )
     {
         List<Integer> list = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ID, plugin ) )
         {
             daoUtil.executeQuery( );
 
@@ -759,6 +831,32 @@ public final class AppointmentDAO implements IAppointmentDAO
         return slot;
     }
 
+    /**
+     * Build a light Appointment business object from the resultset: its reference, the names, email and phone number of its user and the form of its
+     * slots
+     *
+     * @param daoUtil
+     *            the prepare statement util object
+     * @return a new light Appointment
+     */
+    private Appointment buildLightAppointment( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        Appointment appointment = new Appointment( );
+        appointment.setIdAppointment( daoUtil.getInt( nIndex++ ) );
+        appointment.setReference( daoUtil.getString( nIndex++ ) );
+        User user = new User( );
+        user.setFirstName( daoUtil.getString( nIndex++ ) );
+        user.setLastName( daoUtil.getString( nIndex++ ) );
+        user.setEmail( daoUtil.getString( nIndex++ ) );
+        user.setPhoneNumber( daoUtil.getString( nIndex++ ) );
+        appointment.setUser( user );
+        Slot slot = new Slot( );
+        slot.setIdForm( daoUtil.getInt( nIndex ) );
+        appointment.addSlot( slot );
+        return appointment;
+    }
+
     /**
      * Build a User business object from the resultset
      *
@@ -799,11 +897,11 @@ public final class AppointmentDAO implements IAppointmentDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setString( nIndex++, appointment.getReference( ) );
         daoUtil.setInt( nIndex++, appointment.getNbPlaces( ) );
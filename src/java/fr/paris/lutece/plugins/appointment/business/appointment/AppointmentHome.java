@@ -216,6 +216,33 @@ public final class AppointmentHome
         return _dao.findIdsByFilter( appointmentFilter, _plugin );
     }
 
+    /**
+     * Returns a page of the appointments, by increasing id, with only their reference, the names, email and phone number of their user and the form of their
+     * slots
+     * 
+     * @param nIdAppointmentFrom
+     *            the appointments with an id greater than this one are returned
+     * @param nLimit
+     *            the maximum number of rows
+     * @return the list of the light appointments
+     */
+    public static List<Appointment> findLightFromId( int nIdAppointmentFrom, int nLimit )
+    {
+        return _dao.findLightFromId( nIdAppointmentFrom, nLimit, _plugin );
+    }
+
+    /**
+     * Returns an appointment, with only its reference, the names, email and phone number of its user and the form of its slots
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     * @return the light appointment, null if not found
+     */
+    public static Appointment findLightByPrimaryKey( int nIdAppointment )
+    {
+        return _dao.findLightByPrimaryKey( nIdAppointment, _plugin );
+    }
+
     /**
      * Find a list of appointments by id category and mail
      * 
@@ -37,6 +37,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -57,7 +58,7 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
     public void insertAppointmentResponse( int nIdAppointment, int nIdResponse, Plugin plugin )
     {
         int nIndex = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT_APPOINTMENT_RESPONSE, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_INSERT_APPOINTMENT_RESPONSE, Statement.RETURN_GENERATED_KEYS, plugin ) )
         {
             daoUtil.setInt( nIndex++, nIdAppointment );
             daoUtil.setInt( nIndex++, nIdResponse );
@@ -68,7 +69,7 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
     @Override
     public void removeAppointmentResponseByIdResponse( int nIdResponse, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_REMOVE_FROM_ID_RESPONSE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_REMOVE_FROM_ID_RESPONSE, plugin ) )
         {
             daoUtil.setInt( 1, nIdResponse );
             daoUtil.executeUpdate( );
@@ -79,7 +80,7 @@ public final class AppointmentResponseDAO implements IAppointmentResponseDAO
     public List<Integer> findListIdResponse( int nIdAppointment, Plugin plugin )
     {
         List<Integer> listIdResponse = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_APPOINTMENT_RESPONSE_LIST, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_APPOINTMENT_RESPONSE_LIST, plugin ) )
         {
             daoUtil.setInt( 1, nIdAppointment );
             daoUtil.executeQuery( );
@@ -186,6 +186,31 @@ public interface IAppointmentDAO
      */
     List<Integer> findIdsByFilter( AppointmentFilterDTO appointmentFilter, Plugin plugin );
 
+    /**
+     * Returns a page of the appointments, by increasing id, with only their reference, the names, email and phone number of their user and the form of their
+     * slots
+     *
+     * @param nIdAppointmentFrom
+     *            the appointments with an id greater than this one are returned
+     * @param nLimit
+     *            the maximum number of rows
+     * @param plugin
+     *            the plugin
+     * @return the list of the light appointments
+     */
+    List<Appointment> findLightFromId( int nIdAppointmentFrom, int nLimit, Plugin plugin );
+
+    /**
+     * Returns an appointment, with only its reference, the names, email and phone number of its user and the form of its slots
+     *
+     * @param nIdAppointment
+     *            the appointment id
+     * @param plugin
+     *            the plugin
+     * @return the light appointment, null if not found
+     */
+    Appointment findLightByPrimaryKey( int nIdAppointment, Plugin plugin );
+
     /**
      * Find a list of appointments by id category and mail
      * 
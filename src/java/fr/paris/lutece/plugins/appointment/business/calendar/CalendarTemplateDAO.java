@@ -37,6 +37,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -80,7 +81,7 @@ public final class CalendarTemplateDAO implements ICalendarTemplateDAO
     @Override
     public void delete( int nIdCalendarTemplate, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdCalendarTemplate );
             daoUtil.executeUpdate( );
@@ -91,7 +92,7 @@ public final class CalendarTemplateDAO implements ICalendarTemplateDAO
     public CalendarTemplate select( int nIdCalendarTemplate, Plugin plugin )
     {
         CalendarTemplate calendarTemplate = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdCalendarTemplate );
             daoUtil.executeQuery( );
@@ -107,7 +108,7 @@ public final class CalendarTemplateDAO implements ICalendarTemplateDAO
     public List<CalendarTemplate> selectAll( Plugin plugin )
     {
         List<CalendarTemplate> listTemplates = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ALL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ALL, plugin ) )
         {
             daoUtil.executeQuery( );
             while ( daoUtil.next( ) )
@@ -156,11 +157,11 @@ public final class CalendarTemplateDAO implements ICalendarTemplateDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
 
         daoUtil.setString( nIndex++, calendarTemplate.getTitle( ) );
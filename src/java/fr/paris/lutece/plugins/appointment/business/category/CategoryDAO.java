@@ -37,6 +37,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -82,7 +83,7 @@ public final class CategoryDAO implements ICategoryDAO
     @Override
     public void delete( int nIdCategory, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdCategory );
             daoUtil.executeUpdate( );
@@ -93,7 +94,7 @@ public final class CategoryDAO implements ICategoryDAO
     public Category select( int nIdCategory, Plugin plugin )
     {
         Category category = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdCategory );
             daoUtil.executeQuery( );
@@ -109,7 +110,7 @@ public final class CategoryDAO implements ICategoryDAO
     public List<Category> findAllCategories( Plugin plugin )
     {
         List<Category> listCategory = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ALL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ALL, plugin ) )
         {
             daoUtil.executeQuery( );
             while ( daoUtil.next( ) )
@@ -124,7 +125,7 @@ public final class CategoryDAO implements ICategoryDAO
     public Category findByLabel( String strLabel, Plugin plugin )
     {
         Category category = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_LABEL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_LABEL, plugin ) )
         {
             daoUtil.setString( 1, strLabel );
             daoUtil.executeQuery( );
@@ -175,11 +176,11 @@ public final class CategoryDAO implements ICategoryDAO
 
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
 
         daoUtil.setString( nIndex++, category.getLabel( ) );
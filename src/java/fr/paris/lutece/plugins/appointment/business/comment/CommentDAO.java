@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.comment;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -65,7 +66,7 @@ public final class CommentDAO implements ICommentDAO
     @Override
     public void insert( Comment comment, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
         {
             int nIndex = 1;
             daoUtil.setInt( nIndex++, comment.getIdForm( ) );
@@ -106,7 +107,7 @@ public final class CommentDAO implements ICommentDAO
     @Override
     public Comment load( int nKey, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nKey );
             daoUtil.executeQuery( );
@@ -146,7 +147,7 @@ public final class CommentDAO implements ICommentDAO
     @Override
     public void delete( int nKey, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nKey );
             daoUtil.executeUpdate( );
@@ -159,7 +160,7 @@ public final class CommentDAO implements ICommentDAO
     @Override
     public void deleteByIdFom( int nIdFom, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdFom );
             daoUtil.executeUpdate( );
@@ -172,7 +173,7 @@ public final class CommentDAO implements ICommentDAO
     @Override
     public void store( Comment comment, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE, plugin ) )
         {
             int nIndex = 1;
 
@@ -198,7 +199,7 @@ public final class CommentDAO implements ICommentDAO
     public List<Comment> selectCommentsList( Plugin plugin )
     {
         List<Comment> commentList = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTALL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECTALL, plugin ) )
         {
             daoUtil.executeQuery( );
 
@@ -239,7 +240,7 @@ public final class CommentDAO implements ICommentDAO
     public List<Comment> selectCommentsList( Plugin plugin, Date startingDate, Date endingDate, int nIdForm )
     {
         List<Comment> commentList = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BETWEEN, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BETWEEN, plugin ) )
         {
             daoUtil.setDate( 1, endingDate );
             daoUtil.setDate( 2, startingDate );
@@ -284,7 +285,7 @@ public final class CommentDAO implements ICommentDAO
     public List<Comment> selectCommentsListInclusive( Plugin plugin, Date startingDate, Date endingDate, int nIdForm )
     {
         List<Comment> commentList = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_INCLUSIVE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_INCLUSIVE, plugin ) )
         {
             daoUtil.setDate( 1, startingDate );
             daoUtil.setDate( 2, endingDate );
@@ -329,7 +330,7 @@ public final class CommentDAO implements ICommentDAO
     public List<Integer> selectIdCommentsList( Plugin plugin )
     {
         List<Integer> commentList = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTALL_ID, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECTALL_ID, plugin ) )
         {
             daoUtil.executeQuery( );
 
@@ -349,7 +350,7 @@ public final class CommentDAO implements ICommentDAO
     public ReferenceList selectCommentsReferenceList( Plugin plugin )
     {
         ReferenceList commentList = new ReferenceList( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTALL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECTALL, plugin ) )
         {
             daoUtil.executeQuery( );
 
@@ -36,6 +36,7 @@ package fr.paris.lutece.plugins.appointment.business.comment;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -57,7 +58,7 @@ public class CommentNotificationConfigDAO implements ICommentNotificationConfigD
     @Override
     public void store( CommentNotificationConfig config, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE, plugin ) )
         {
             int nPos = 0;
 
@@ -77,7 +78,7 @@ public class CommentNotificationConfigDAO implements ICommentNotificationConfigD
     public CommentNotificationConfig loadByType( String strType, Plugin plugin )
     {
         CommentNotificationConfig config = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_FIND_BY_TYPE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_FIND_BY_TYPE, plugin ) )
         {
             daoUtil.setString( 1, strType );
             daoUtil.executeQuery( );
@@ -102,7 +103,7 @@ public class CommentNotificationConfigDAO implements ICommentNotificationConfigD
     public List<CommentNotificationConfig> load( Plugin plugin )
     {
         List<CommentNotificationConfig> listCommentNotificationConfig = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_FIND, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_FIND, plugin ) )
         {
             daoUtil.executeQuery( );
 
@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.appointment.business.display;
 
 import java.sql.Statement;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.image.ImageResource;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
@@ -81,7 +82,7 @@ public final class DisplayDAO implements IDisplayDAO
     @Override
     public void delete( int nIdDisplay, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdDisplay );
             daoUtil.executeUpdate( );
@@ -91,7 +92,7 @@ public final class DisplayDAO implements IDisplayDAO
     @Override
     public void deleteByIdForm( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -102,7 +103,7 @@ public final class DisplayDAO implements IDisplayDAO
     public Display select( int nIdDisplay, Plugin plugin )
     {
         Display display = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdDisplay );
             daoUtil.executeQuery( );
@@ -118,7 +119,7 @@ public final class DisplayDAO implements IDisplayDAO
     public Display findByIdForm( int nIdForm, Plugin plugin )
     {
         Display display = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -171,11 +172,11 @@ public final class DisplayDAO implements IDisplayDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setBoolean( nIndex++, display.isDisplayTitleFo( ) );
         daoUtil.setBytes( nIndex++, display.getIcon( ).getImage( ) );
@@ -37,6 +37,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -86,7 +87,7 @@ public final class FormDAO implements IFormDAO
     @Override
     public void delete( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -97,7 +98,7 @@ public final class FormDAO implements IFormDAO
     public Form select( int nIdForm, Plugin plugin )
     {
         Form form = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -113,7 +114,7 @@ public final class FormDAO implements IFormDAO
     public List<Form> selectByCategory( int nIdCategory, Plugin plugin )
     {
         List<Form> listForms = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_CATEGORY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_CATEGORY, plugin ) )
         {
             daoUtil.setInt( 1, nIdCategory );
             daoUtil.executeQuery( );
@@ -129,7 +130,7 @@ public final class FormDAO implements IFormDAO
     public List<Form> findActiveForms( Plugin plugin )
     {
         List<Form> listForms = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ACTIVE_FORMS, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ACTIVE_FORMS, plugin ) )
         {
             daoUtil.executeQuery( );
             while ( daoUtil.next( ) )
@@ -144,7 +145,7 @@ public final class FormDAO implements IFormDAO
     public List<Form> findActiveAndDisplayedOnPortletForms( Plugin plugin )
     {
         List<Form> listForms = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ACTIVE_AND_DISPLAYED_ON_PORTLET_FORMS, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ACTIVE_AND_DISPLAYED_ON_PORTLET_FORMS, plugin ) )
         {
             daoUtil.executeQuery( );
             while ( daoUtil.next( ) )
@@ -159,7 +160,7 @@ public final class FormDAO implements IFormDAO
     public List<Form> findByTitle( String strTitle, Plugin plugin )
     {
         List<Form> listForms = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_TITLE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_TITLE, plugin ) )
         {
             daoUtil.setString( 1, strTitle );
             daoUtil.executeQuery( );
@@ -175,7 +176,7 @@ public final class FormDAO implements IFormDAO
     public List<Form> findAllForms( Plugin plugin )
     {
         List<Form> listForms = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ALL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ALL, plugin ) )
         {
             daoUtil.executeQuery( );
             while ( daoUtil.next( ) )
@@ -237,11 +238,11 @@ public final class FormDAO implements IFormDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setString( nIndex++, form.getTitle( ) );
         daoUtil.setString( nIndex++, form.getDescription( ) );
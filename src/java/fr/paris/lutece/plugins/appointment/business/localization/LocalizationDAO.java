@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.appointment.business.localization;
 
 import java.sql.Statement;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -74,7 +75,7 @@ public final class LocalizationDAO implements ILocalizationDAO
     @Override
     public void delete( int nIdLocalization, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdLocalization );
             daoUtil.executeUpdate( );
@@ -84,7 +85,7 @@ public final class LocalizationDAO implements ILocalizationDAO
     @Override
     public void deleteByIdForm( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -95,7 +96,7 @@ public final class LocalizationDAO implements ILocalizationDAO
     public Localization select( int nIdLocalization, Plugin plugin )
     {
         Localization localization = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdLocalization );
             daoUtil.executeQuery( );
@@ -111,7 +112,7 @@ public final class LocalizationDAO implements ILocalizationDAO
     public Localization findByIdForm( int nIdForm, Plugin plugin )
     {
         Localization localization = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -162,11 +163,11 @@ public final class LocalizationDAO implements ILocalizationDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         if ( localization.getLongitude( ) != null )
         {
@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.appointment.business.message;
 
 import java.sql.Statement;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -80,7 +81,7 @@ public final class FormMessageDAO implements IFormMessageDAO
     @Override
     public void delete( int nIdFormMessage, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdFormMessage );
             daoUtil.executeUpdate( );
@@ -90,7 +91,7 @@ public final class FormMessageDAO implements IFormMessageDAO
     @Override
     public void deleteByIdForm( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -101,7 +102,7 @@ public final class FormMessageDAO implements IFormMessageDAO
     public FormMessage select( int nIdFormMessage, Plugin plugin )
     {
         FormMessage formMessage = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdFormMessage );
             daoUtil.executeQuery( );
@@ -117,7 +118,7 @@ public final class FormMessageDAO implements IFormMessageDAO
     public FormMessage findByIdForm( int nIdForm, Plugin plugin )
     {
         FormMessage formMessage = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -182,11 +183,11 @@ public final class FormMessageDAO implements IFormMessageDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setString( nIndex++, formMessage.getCalendarTitle( ) );
         daoUtil.setString( nIndex++, formMessage.getFieldFirstNameTitle( ) );
@@ -39,6 +39,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -52,6 +53,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
 {
 
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_closing_day ( date_of_closing_day, id_form) VALUES (?, ?)";
+    private static final String SQL_QUERY_COPY_BY_ID_FORM = "INSERT INTO appointment_closing_day ( date_of_closing_day, id_form) SELECT date_of_closing_day, ? FROM appointment_closing_day WHERE id_form = ?";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_closing_day SET date_of_closing_day = ?, id_form = ? WHERE id_closing_day = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_closing_day WHERE id_closing_day = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_closing_day, date_of_closing_day, id_form FROM appointment_closing_day";
@@ -76,6 +78,17 @@ public final class ClosingDayDAO implements IClosingDayDAO
         }
     }
 
+    @Override
+    public void copyByIdForm( int nIdForm, int nIdNewForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_COPY_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewForm );
+            daoUtil.setInt( 2, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public void update( ClosingDay closingDay, Plugin plugin )
     {
@@ -88,7 +101,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     @Override
     public void delete( int nIdClosingDay, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdClosingDay );
             daoUtil.executeUpdate( );
@@ -99,7 +112,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     public ClosingDay select( int nIdClosingDay, Plugin plugin )
     {
         ClosingDay closingDay = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdClosingDay );
             daoUtil.executeQuery( );
@@ -115,7 +128,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     public ClosingDay findByIdFormAndDateOfClosingDay( int nIdForm, LocalDate dateOfCLosingDay, Plugin plugin )
     {
         ClosingDay closingDay = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_CLOSING_DAY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_CLOSING_DAY, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setDate( 2, Date.valueOf( dateOfCLosingDay ) );
@@ -131,7 +144,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     @Override
     public void deleteByIdFormAndDateOfClosingDay( int nIdForm, LocalDate dateOfCLosingDay, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM_AND_DATE_OF_CLOSING_DAY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM_AND_DATE_OF_CLOSING_DAY, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setDate( 2, Date.valueOf( dateOfCLosingDay ) );
@@ -142,7 +155,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     @Override
     public void deleteByIdForm( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -153,7 +166,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     public List<ClosingDay> findByIdForm( int nIdForm, Plugin plugin )
     {
         List<ClosingDay> listClosingDay = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -169,7 +182,7 @@ public final class ClosingDayDAO implements IClosingDayDAO
     public List<ClosingDay> findByIdFormAndDateRange( int nIdForm, LocalDate startingDate, LocalDate endingDate, Plugin plugin )
     {
         List<ClosingDay> listClosingDay = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setDate( 2, Date.valueOf( startingDate ) );
@@ -220,11 +233,11 @@ public final class ClosingDayDAO implements IClosingDayDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setDate( nIndex++, closingDay.getSqlDateOfClosingDay( ) );
         daoUtil.setInt( nIndex++, closingDay.getIdForm( ) );
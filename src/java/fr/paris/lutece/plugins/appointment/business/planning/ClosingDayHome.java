@@ -88,6 +88,19 @@ public final class ClosingDayHome
         return closingDay;
     }
 
+    /**
+     * Copy the closing days of a form to another form
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdNewForm
+     *            the id of the form of the copy
+     */
+    public static void copyByIdForm( int nIdForm, int nIdNewForm )
+    {
+        _dao.copyByIdForm( nIdForm, nIdNewForm, _plugin );
+    }
+
     /**
      * Delete the ClosingDay whose identifier is specified in parameter
      * 
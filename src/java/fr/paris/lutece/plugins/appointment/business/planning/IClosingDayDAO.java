@@ -66,6 +66,18 @@ public interface IClosingDayDAO
      */
     void update( ClosingDay closingDay, Plugin plugin );
 
+    /**
+     * Copy the closing days of a form to another form, in one statement
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdNewForm
+     *            the id of the form of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdForm( int nIdForm, int nIdNewForm, Plugin plugin );
+
     /**
      * Delete a record from the table
      * 
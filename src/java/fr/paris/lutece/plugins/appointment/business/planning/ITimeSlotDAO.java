@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.planning;
 
+import java.time.LocalTime;
 import java.util.List;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
@@ -66,6 +67,54 @@ public interface ITimeSlotDAO
      */
     void update( TimeSlot timeSlot, Plugin plugin );
 
+    /**
+     * Copy the time slots of a reservation rule to another reservation rule, in one statement
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            the id of the reservation rule of the copy, whose working days must already be copied
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin );
+
+    /**
+     * Insert several records in the table, in one batch. The ids generated are set on the time slots.
+     * 
+     * @param listTimeSlot
+     *            the time slots to insert
+     * @param plugin
+     *            the plugin
+     */
+    void insertList( List<TimeSlot> listTimeSlot, Plugin plugin );
+
+    /**
+     * Shift all the time slots of a working day that start after a given time, with one query and one batch of updates
+     * 
+     * @param nIdWorkingDay
+     *            the id of the working day
+     * @param startingTime
+     *            the time slots starting strictly after this time are shifted
+     * @param nSecondsToShift
+     *            the number of seconds to add to the starting and ending times (negative to shift them earlier)
+     * @param maxEndingTime
+     *            the maximum ending time of the time slots shifted
+     * @param plugin
+     *            the plugin
+     */
+    void shift( int nIdWorkingDay, LocalTime startingTime, int nSecondsToShift, LocalTime maxEndingTime, Plugin plugin );
+
+    /**
+     * Delete several records from the table, in one statement
+     * 
+     * @param listIdTimeSlot
+     *            the ids of the time slots to delete (must not be empty)
+     * @param plugin
+     *            the plugin
+     */
+    void deleteList( List<Integer> listIdTimeSlot, Plugin plugin );
+
     /**
      * Delete a record from the table
      * 
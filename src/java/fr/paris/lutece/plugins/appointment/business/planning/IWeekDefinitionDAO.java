@@ -67,6 +67,18 @@ public interface IWeekDefinitionDAO
      */
     void update( WeekDefinition weekDefinition, Plugin plugin );
 
+    /**
+     * Copy the week definitions of a reservation rule to another reservation rule, in one statement
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            the id of the reservation rule of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin );
+
     /**
      * Delete a record from the table
      * 
@@ -77,6 +89,26 @@ public interface IWeekDefinitionDAO
      */
     void delete( int nIdWeekDefinition, Plugin plugin );
 
+    /**
+     * Update several records of the table, in one batch
+     * 
+     * @param listWeekDefinition
+     *            the WeekDefinitions to update
+     * @param plugin
+     *            the plugin
+     */
+    void updateList( List<WeekDefinition> listWeekDefinition, Plugin plugin );
+
+    /**
+     * Delete several records from the table, in one batch
+     * 
+     * @param listIdWeekDefinition
+     *            identifiers of the WeekDefinitions to delete
+     * @param plugin
+     *            the plugin
+     */
+    void deleteList( List<Integer> listIdWeekDefinition, Plugin plugin );
+
     /**
      * Delete a record from the table
      * 
@@ -65,6 +65,18 @@ public interface IWorkingDayDAO
      */
     void update( WorkingDay workingDay, Plugin plugin );
 
+    /**
+     * Copy the working days of a reservation rule to another reservation rule, in one statement
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            the id of the reservation rule of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin );
+
     /**
      * Delete a record from the table
      * 
@@ -34,9 +34,14 @@
 package fr.paris.lutece.plugins.appointment.business.planning;
 
 import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -50,12 +55,18 @@ public final class TimeSlotDAO implements ITimeSlotDAO
 {
 
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_time_slot ( starting_time, ending_time, is_open, max_capacity, id_working_day) VALUES ( ?, ?, ?, ?, ?)";
+    // The working days of the copy are matched with the original ones by their day of week, unique for a reservation rule
+    private static final String SQL_QUERY_COPY_BY_ID_RESERVATION_RULE = "INSERT INTO appointment_time_slot ( starting_time, ending_time, is_open, max_capacity, id_working_day) SELECT ts.starting_time, ts.ending_time, ts.is_open, ts.max_capacity, new_wd.id_working_day FROM appointment_time_slot ts JOIN appointment_working_day wd ON ( ts.id_working_day = wd.id_working_day ) JOIN appointment_working_day new_wd ON ( new_wd.day_of_week = wd.day_of_week AND new_wd.id_reservation_rule = ? ) WHERE wd.id_reservation_rule = ?";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_time_slot SET starting_time = ?, ending_time = ?, is_open = ?, max_capacity = ?, id_working_day = ? WHERE id_time_slot = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_time_slot WHERE id_time_slot = ?";
+    private static final String SQL_QUERY_DELETE_BY_LIST_ID = "DELETE FROM appointment_time_slot WHERE id_time_slot IN ( ";
+    private static final String SQL_QUERY_UPDATE_TIMES = "UPDATE appointment_time_slot SET starting_time = ?, ending_time = ? WHERE id_time_slot = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_DAY = "DELETE FROM appointment_time_slot WHERE id_working_day = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_time_slot, starting_time, ending_time, is_open, max_capacity, id_working_day FROM appointment_time_slot";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_time_slot = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_WORKING_DAY = SQL_QUERY_SELECT_COLUMNS + " WHERE id_working_day = ?";
+    private static final String SQL_QUERY_SELECT_BY_ID_WORKING_DAY_AFTER_TIME = SQL_QUERY_SELECT_BY_ID_WORKING_DAY + " AND starting_time > ?";
+    private static final String SQL_QUERY_SELECT_ID_BY_ID_WORKING_DAY_AND_STARTING_TIME = "SELECT id_time_slot FROM appointment_time_slot WHERE id_working_day = ? AND starting_time = ?";
 
     @Override
     public void insert( TimeSlot timeSlot, Plugin plugin )
@@ -70,6 +81,17 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         }
     }
 
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_COPY_BY_ID_RESERVATION_RULE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewReservationRule );
+            daoUtil.setInt( 2, nIdReservationRule );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public void update( TimeSlot timeSlot, Plugin plugin )
     {
@@ -79,10 +101,123 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         }
     }
 
+    @Override
+    public void insertList( List<TimeSlot> listTimeSlot, Plugin plugin )
+    {
+        int nKeyCount = 0;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            for ( TimeSlot timeSlot : listTimeSlot )
+            {
+                fillDaoUtil( daoUtil, timeSlot, true );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+            for ( TimeSlot timeSlot : listTimeSlot )
+            {
+                if ( daoUtil.nextGeneratedKey( ) )
+                {
+                    timeSlot.setIdTimeSlot( daoUtil.getGeneratedKeyInt( 1 ) );
+                    nKeyCount++;
+                }
+            }
+            if ( nKeyCount == listTimeSlot.size( ) && daoUtil.nextGeneratedKey( ) )
+            {
+                nKeyCount++;
+            }
+        }
+        if ( nKeyCount != listTimeSlot.size( ) )
+        {
+            // The driver does not return one key per row of a batch: the ids are read by the unique working day and starting time
+            for ( TimeSlot timeSlot : listTimeSlot )
+            {
+                timeSlot.setIdTimeSlot( selectIdByIdWorkingDayAndStartingTime( timeSlot, plugin ) );
+            }
+        }
+    }
+
+    /**
+     * Get the id of the time slot of a working day that starts at the starting time of a time slot
+     * 
+     * @param timeSlot
+     *            the time slot
+     * @param plugin
+     *            the plugin
+     * @return the id of the time slot, 0 if not found
+     */
+    private int selectIdByIdWorkingDayAndStartingTime( TimeSlot timeSlot, Plugin plugin )
+    {
+        int nIdTimeSlot = 0;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ID_BY_ID_WORKING_DAY_AND_STARTING_TIME, plugin ) )
+        {
+            daoUtil.setInt( 1, timeSlot.getIdWorkingDay( ) );
+            daoUtil.setTime( 2, Time.valueOf( timeSlot.getStartingTime( ) ) );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nIdTimeSlot = daoUtil.getInt( 1 );
+            }
+        }
+        return nIdTimeSlot;
+    }
+
+    @Override
+    public void shift( int nIdWorkingDay, LocalTime startingTime, int nSecondsToShift, LocalTime maxEndingTime, Plugin plugin )
+    {
+        List<TimeSlot> listTimeSlot = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_WORKING_DAY_AFTER_TIME, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdWorkingDay );
+            daoUtil.setTime( 2, Time.valueOf( startingTime ) );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listTimeSlot.add( buildTimeSlot( daoUtil ) );
+            }
+        }
+        if ( listTimeSlot.isEmpty( ) )
+        {
+            return;
+        }
+        // The time slots are moved in the direction of the shift, the first one into free times, the next ones into the times freed by the previous ones,
+        // so that the unique indexes on the starting and ending times are never violated. A single UPDATE adding the shift to the times is not used: MySQL
+        // checks these indexes row by row, in no given order, and the arithmetic on TIME columns differs between the databases
+        Comparator<TimeSlot> comparator = Comparator.comparing( TimeSlot::getStartingTime );
+        listTimeSlot.sort( ( nSecondsToShift > 0 ) ? comparator.reversed( ) : comparator );
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE_TIMES, plugin ) )
+        {
+            for ( TimeSlot timeSlot : listTimeSlot )
+            {
+                LocalTime endingTime = timeSlot.getEndingTime( ).plusSeconds( nSecondsToShift );
+                int nIndex = 1;
+                daoUtil.setTime( nIndex++, Time.valueOf( timeSlot.getStartingTime( ).plusSeconds( nSecondsToShift ) ) );
+                daoUtil.setTime( nIndex++, Time.valueOf( endingTime.isAfter( maxEndingTime ) ? maxEndingTime : endingTime ) );
+                daoUtil.setInt( nIndex, timeSlot.getIdTimeSlot( ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
+    @Override
+    public void deleteList( List<Integer> listIdTimeSlot, Plugin plugin )
+    {
+        String strQuery = SQL_QUERY_DELETE_BY_LIST_ID + listIdTimeSlot.stream( ).map( nIdTimeSlot -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdTimeSlot : listIdTimeSlot )
+            {
+                daoUtil.setInt( nIndex++, nIdTimeSlot );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public void delete( int nIdTimeSlot, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdTimeSlot );
             daoUtil.executeUpdate( );
@@ -92,7 +227,7 @@ public final class TimeSlotDAO implements ITimeSlotDAO
     @Override
     public void deleteByIdWorkingDay( int nIdWorkingDay, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_DAY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_DAY, plugin ) )
         {
             daoUtil.setInt( 1, nIdWorkingDay );
             daoUtil.executeUpdate( );
@@ -103,7 +238,7 @@ public final class TimeSlotDAO implements ITimeSlotDAO
     public TimeSlot select( int nIdTimeSlot, Plugin plugin )
     {
         TimeSlot timeSlot = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdTimeSlot );
             daoUtil.executeQuery( );
@@ -119,7 +254,7 @@ public final class TimeSlotDAO implements ITimeSlotDAO
     public List<TimeSlot> findByIdWorkingDay( int nIdWorkingDay, Plugin plugin )
     {
         List<TimeSlot> listTimeSLots = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_WORKING_DAY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_WORKING_DAY, plugin ) )
         {
             daoUtil.setInt( 1, nIdWorkingDay );
             daoUtil.executeQuery( );
@@ -167,16 +302,32 @@ public final class TimeSlotDAO implements ITimeSlotDAO
      */
     private DAOUtil buildDaoUtil( String query, TimeSlot timeSlot, Plugin plugin, boolean isInsert )
     {
-        int nIndex = 1;
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
+        fillDaoUtil( daoUtil, timeSlot, isInsert );
+        return daoUtil;
+    }
+
+    /**
+     * Set the values of the time slot business object in a daoUtil object
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param timeSlot
+     *            the time slot
+     * @param isInsert
+     *            true if it is an insert query. If false, it is an update, in this case, there is a where parameter id to set
+     */
+    private void fillDaoUtil( DAOUtil daoUtil, TimeSlot timeSlot, boolean isInsert )
+    {
+        int nIndex = 1;
         daoUtil.setTime( nIndex++, timeSlot.getStartingTimeSqlTime( ) );
         daoUtil.setTime( nIndex++, timeSlot.getEndingTimeSqlTime( ) );
         daoUtil.setBoolean( nIndex++, timeSlot.getIsOpen( ) );
@@ -186,6 +337,5 @@ public final class TimeSlotDAO implements ITimeSlotDAO
         {
             daoUtil.setInt( nIndex, timeSlot.getIdTimeSlot( ) );
         }
-        return daoUtil;
     }
 }
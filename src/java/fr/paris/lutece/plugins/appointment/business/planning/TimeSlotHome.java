@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.planning;
 
+import java.time.LocalTime;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
@@ -87,6 +88,64 @@ public final class TimeSlotHome
         return timeSlot;
     }
 
+    /**
+     * Create several time slots, in one batch
+     * 
+     * @param listTimeSlot
+     *            the time slots to create, their primary keys are set
+     */
+    public static void createList( List<TimeSlot> listTimeSlot )
+    {
+        if ( !listTimeSlot.isEmpty( ) )
+        {
+            _dao.insertList( listTimeSlot, _plugin );
+        }
+    }
+
+    /**
+     * Shift all the time slots of a working day that start after a given time
+     * 
+     * @param nIdWorkingDay
+     *            the id of the working day
+     * @param startingTime
+     *            the time slots starting strictly after this time are shifted
+     * @param nSecondsToShift
+     *            the number of seconds to add (negative to shift them earlier)
+     * @param maxEndingTime
+     *            the maximum ending time of the time slots shifted
+     */
+    public static void shift( int nIdWorkingDay, LocalTime startingTime, int nSecondsToShift, LocalTime maxEndingTime )
+    {
+        _dao.shift( nIdWorkingDay, startingTime, nSecondsToShift, maxEndingTime, _plugin );
+    }
+
+    /**
+     * Delete several TimeSlots, in one statement
+     * 
+     * @param listIdTimeSlot
+     *            the TimeSlot Ids
+     */
+    public static void deleteList( List<Integer> listIdTimeSlot )
+    {
+        if ( !listIdTimeSlot.isEmpty( ) )
+        {
+            _dao.deleteList( listIdTimeSlot, _plugin );
+        }
+    }
+
+    /**
+     * Copy the time slots of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            the id of the reservation rule of the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule, _plugin );
+    }
+
     /**
      * Delete the TimeSlot whose identifier is specified in parameter
      * 
@@ -39,6 +39,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -52,6 +53,7 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
 {
 
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_week_definition ( date_of_apply, ending_date_of_apply, id_reservation_rule) VALUES ( ?, ?, ?)";
+    private static final String SQL_QUERY_COPY_BY_ID_RESERVATION_RULE = "INSERT INTO appointment_week_definition ( date_of_apply, ending_date_of_apply, id_reservation_rule) SELECT date_of_apply, ending_date_of_apply, ? FROM appointment_week_definition WHERE id_reservation_rule = ?";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_week_definition SET date_of_apply = ?, ending_date_of_apply = ?,  id_reservation_rule = ? WHERE id_week_definition = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_week_definition WHERE id_week_definition = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_RESERVATION_RULE = "DELETE FROM appointment_week_definition WHERE id_reservation_rule = ?";
@@ -76,6 +78,17 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
         }
     }
 
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_COPY_BY_ID_RESERVATION_RULE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewReservationRule );
+            daoUtil.setInt( 2, nIdReservationRule );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public void update( WeekDefinition weekDefinition, Plugin plugin )
     {
@@ -88,17 +101,49 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     @Override
     public void delete( int nIdWeekDefinition, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdWeekDefinition );
             daoUtil.executeUpdate( );
         }
     }
 
+    @Override
+    public void updateList( List<WeekDefinition> listWeekDefinition, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        {
+            for ( WeekDefinition weekDefinition : listWeekDefinition )
+            {
+                int nIndex = 1;
+                daoUtil.setDate( nIndex++, weekDefinition.getSqlDateOfApply( ) );
+                daoUtil.setDate( nIndex++, weekDefinition.getSqlEndingDateOfApply( ) );
+                daoUtil.setInt( nIndex++, weekDefinition.getIdReservationRule( ) );
+                daoUtil.setInt( nIndex, weekDefinition.getIdWeekDefinition( ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
+    @Override
+    public void deleteList( List<Integer> listIdWeekDefinition, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            for ( Integer nIdWeekDefinition : listIdWeekDefinition )
+            {
+                daoUtil.setInt( 1, nIdWeekDefinition );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
     @Override
     public void deleteByIdReservationRule( int nIdReservationRule, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_RESERVATION_RULE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_RESERVATION_RULE, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRule );
             daoUtil.executeUpdate( );
@@ -109,7 +154,7 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     public WeekDefinition select( int nIdWeekDefinition, Plugin plugin )
     {
         WeekDefinition weekDefinition = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdWeekDefinition );
             daoUtil.executeQuery( );
@@ -125,7 +170,7 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     public List<WeekDefinition> findByIdForm( int nIdForm, Plugin plugin )
     {
         List<WeekDefinition> listWeekDefinition = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -141,7 +186,7 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     public List<WeekDefinition> findByReservationRule( int nIdReservationRule, Plugin plugin )
     {
         List<WeekDefinition> listWeekDefinition = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_SELECT_BY_RULE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_SELECT_BY_RULE, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRule );
             daoUtil.executeQuery( );
@@ -157,7 +202,7 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     public WeekDefinition findByIdFormAndDateOfApply( int nIdForm, LocalDate dateOfApply, Plugin plugin )
     {
         WeekDefinition weekDefinition = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_APPLY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_APPLY, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setDate( 2, Date.valueOf( dateOfApply ) );
@@ -175,7 +220,7 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
     {
 
         WeekDefinition weekDefinition = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_RESERVATION_RULE_AND_DATE_OF_APPLY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_RESERVATION_RULE_AND_DATE_OF_APPLY, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRule );
             daoUtil.setDate( 2, Date.valueOf( dateOfApply ) );
@@ -227,11 +272,11 @@ public final class WeekDefinitionDAO implements IWeekDefinitionDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setDate( nIndex++, weekDefinition.getSqlDateOfApply( ) );
         daoUtil.setDate( nIndex++, weekDefinition.getSqlEndingDateOfApply( ) );
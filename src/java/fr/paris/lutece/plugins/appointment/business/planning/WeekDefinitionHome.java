@@ -99,6 +99,47 @@ public final class WeekDefinitionHome
         _dao.delete( nKey, _plugin );
     }
 
+    /**
+     * Copy the week definitions of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            the id of the reservation rule of the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule, _plugin );
+    }
+
+    /**
+     * Update several WeekDefinitions, in one batch
+     * 
+     * @param listWeekDefinition
+     *            the WeekDefinitions to update
+     */
+    public static void updateList( List<WeekDefinition> listWeekDefinition )
+    {
+        if ( !listWeekDefinition.isEmpty( ) )
+        {
+            _dao.updateList( listWeekDefinition, _plugin );
+        }
+    }
+
+    /**
+     * Delete several WeekDefinitions, in one batch
+     * 
+     * @param listIdWeekDefinition
+     *            the WeekDefinition Ids
+     */
+    public static void deleteList( List<Integer> listIdWeekDefinition )
+    {
+        if ( !listIdWeekDefinition.isEmpty( ) )
+        {
+            _dao.deleteList( listIdWeekDefinition, _plugin );
+        }
+    }
+
     /**
      * Delete the WeekDefinition whose identifier is specified in parameter
      * 
@@ -37,6 +37,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -50,6 +51,7 @@ public final class WorkingDayDAO implements IWorkingDayDAO
 {
 
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_working_day ( day_of_week, id_reservation_rule) VALUES ( ?, ?)";
+    private static final String SQL_QUERY_COPY_BY_ID_RESERVATION_RULE = "INSERT INTO appointment_working_day ( day_of_week, id_reservation_rule) SELECT day_of_week, ? FROM appointment_working_day WHERE id_reservation_rule = ?";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_working_day SET day_of_week = ?, id_reservation_rule = ? WHERE id_working_day = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_working_day WHERE id_working_day = ? ";
     private static final String SQL_QUERY_DELETE_BY_RESERVATION_RULE = "DELETE FROM appointment_working_day WHERE id_reservation_rule = ? ";
@@ -70,6 +72,17 @@ public final class WorkingDayDAO implements IWorkingDayDAO
         }
     }
 
+    @Override
+    public void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_COPY_BY_ID_RESERVATION_RULE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewReservationRule );
+            daoUtil.setInt( 2, nIdReservationRule );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     @Override
     public void update( WorkingDay workingDay, Plugin plugin )
     {
@@ -82,7 +95,7 @@ public final class WorkingDayDAO implements IWorkingDayDAO
     @Override
     public void delete( int nIdWorkingDay, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdWorkingDay );
             daoUtil.executeUpdate( );
@@ -92,7 +105,7 @@ public final class WorkingDayDAO implements IWorkingDayDAO
     @Override
     public void deleteByIdReservationRule( int nIdReservationRule, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_RESERVATION_RULE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_RESERVATION_RULE, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRule );
             daoUtil.executeUpdate( );
@@ -103,7 +116,7 @@ public final class WorkingDayDAO implements IWorkingDayDAO
     public WorkingDay select( int nIdWorkingDay, Plugin plugin )
     {
         WorkingDay workingDay = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdWorkingDay );
             daoUtil.executeQuery( );
@@ -119,7 +132,7 @@ public final class WorkingDayDAO implements IWorkingDayDAO
     public List<WorkingDay> findByIdReservationRule( int nIdReservationRuleRule, Plugin plugin )
     {
         List<WorkingDay> listWorkingDays = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_WEEK_DEFINITION_RULE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_WEEK_DEFINITION_RULE, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRuleRule );
             daoUtil.executeQuery( );
@@ -168,11 +181,11 @@ public final class WorkingDayDAO implements IWorkingDayDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setInt( nIndex++, workingDay.getDayOfWeek( ) );
         daoUtil.setInt( nIndex++, workingDay.getIdReservationRule( ) );
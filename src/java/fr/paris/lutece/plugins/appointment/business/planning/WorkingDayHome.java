@@ -87,6 +87,19 @@ public final class WorkingDayHome
         return workingDay;
     }
 
+    /**
+     * Copy the working days of a reservation rule to another reservation rule
+     * 
+     * @param nIdReservationRule
+     *            the id of the reservation rule to copy
+     * @param nIdNewReservationRule
+     *            the id of the reservation rule of the copy
+     */
+    public static void copyByIdReservationRule( int nIdReservationRule, int nIdNewReservationRule )
+    {
+        _dao.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule, _plugin );
+    }
+
     /**
      * Delete the WorkingDay whose identifier is specified in parameter
      * 
@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.business.portlet;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.business.portlet.Portlet;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -66,7 +67,7 @@ public final class AppointmentFormPortletDAO implements IAppointmentFormPortletD
         if ( portlet instanceof AppointmentFormPortlet )
         {
             AppointmentFormPortlet p = (AppointmentFormPortlet) portlet;
-            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT ) )
+            try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_INSERT ) )
             {
                 daoUtil.setInt( 1, p.getId( ) );
                 daoUtil.setInt( 2, p.getIdAppointmentForm( ) );
@@ -84,7 +85,7 @@ public final class AppointmentFormPortletDAO implements IAppointmentFormPortletD
     @Override
     public void delete( int nPortletId )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE ) )
         {
             daoUtil.setInt( 1, nPortletId );
             daoUtil.executeUpdate( );
@@ -103,7 +104,7 @@ public final class AppointmentFormPortletDAO implements IAppointmentFormPortletD
         if ( portlet instanceof AppointmentFormPortlet )
         {
             AppointmentFormPortlet p = (AppointmentFormPortlet) portlet;
-            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE ) )
+            try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE ) )
             {
                 daoUtil.setInt( 1, p.getIdAppointmentForm( ) );
                 daoUtil.setInt( 2, p.getId( ) );
@@ -123,7 +124,7 @@ public final class AppointmentFormPortletDAO implements IAppointmentFormPortletD
     public Portlet load( int nIdPortlet )
     {
         AppointmentFormPortlet portlet = new AppointmentFormPortlet( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT ) )
         {
             daoUtil.setInt( 1, nIdPortlet );
             daoUtil.executeQuery( );
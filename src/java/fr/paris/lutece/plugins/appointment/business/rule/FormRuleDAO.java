@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.appointment.business.rule;
 
 import java.sql.Statement;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -80,7 +81,7 @@ public final class FormRuleDAO implements IFormRuleDAO
     @Override
     public void delete( int nIdFormRule, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdFormRule );
             daoUtil.executeUpdate( );
@@ -90,7 +91,7 @@ public final class FormRuleDAO implements IFormRuleDAO
     @Override
     public void deleteByIdFom( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -101,7 +102,7 @@ public final class FormRuleDAO implements IFormRuleDAO
     public FormRule select( int nIdFormRule, Plugin plugin )
     {
         FormRule formRule = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdFormRule );
             daoUtil.executeQuery( );
@@ -117,7 +118,7 @@ public final class FormRuleDAO implements IFormRuleDAO
     public FormRule findByIdForm( int nIdForm, Plugin plugin )
     {
         FormRule formRule = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -173,11 +174,11 @@ public final class FormRuleDAO implements IFormRuleDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setBoolean( nIndex++, formRule.getIsCaptchaEnabled( ) );
         daoUtil.setBoolean( nIndex++, formRule.getIsMandatoryEmailEnabled( ) );
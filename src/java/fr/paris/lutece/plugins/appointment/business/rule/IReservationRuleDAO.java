@@ -125,4 +125,15 @@ public interface IReservationRuleDAO
      */
     ReservationRule findReservationRuleByIdFormAndClosestToDateOfApply( int nIdForm, LocalDate dateOfApply, Plugin plugin );
 
+    /**
+     * Returns all the Reservation Rule of the form given, with their working days and the time slots of their working days, loaded with a single query
+     * 
+     * @param nIdForm
+     *            the Form Id
+     * @param plugin
+     *            the plugin
+     * @return a list of reservation rule of the form
+     */
+    List<ReservationRule> findTreeByIdForm( int nIdForm, Plugin plugin );
+
 }
@@ -39,6 +39,9 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -60,6 +63,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     private static final String SQL_QUERY_SELECT_COLUMNS_JOIN = " SELECT appr.id_reservation_rule, appr.name, appr.description, appr.color, appr.enable, appr.max_capacity_per_slot, appr.max_people_per_appointment, appr.duration_appointments, appr.id_form from appointment_reservation_rule appr INNER JOIN appointment_week_definition weekd on ( appr.id_reservation_rule = weekd.id_reservation_rule ) where appr.id_form= ? ";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_APPLY = SQL_QUERY_SELECT_COLUMNS_JOIN + " AND weekd.date_of_apply = ? ";
     private static final String SQL_QUERY_SELECT_BY_DATE = SQL_QUERY_SELECT_COLUMNS_JOIN + " AND weekd.date_of_apply <= ? AND weekd.ending_date_of_apply >= ? ";
+    private static final String SQL_QUERY_SELECT_TREE_BY_ID_FORM = "SELECT appr.id_reservation_rule, appr.name, appr.description, appr.color, appr.enable, appr.max_capacity_per_slot, appr.max_people_per_appointment, appr.duration_appointments, appr.id_form, wd.id_working_day, wd.day_of_week, ts.id_time_slot, ts.starting_time, ts.ending_time, ts.is_open, ts.max_capacity FROM appointment_reservation_rule appr LEFT JOIN appointment_working_day wd ON ( appr.id_reservation_rule = wd.id_reservation_rule ) LEFT JOIN appointment_time_slot ts ON ( wd.id_working_day = ts.id_working_day ) WHERE appr.id_form = ? ORDER BY appr.id_reservation_rule, wd.id_working_day, ts.id_time_slot";
 
     @Override
     public void insert( ReservationRule reservationRule, Plugin plugin )
@@ -86,7 +90,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     @Override
     public void delete( int nIdReservationRule, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRule );
             daoUtil.executeUpdate( );
@@ -97,7 +101,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     public ReservationRule select( int nIdReservationRule, Plugin plugin )
     {
         ReservationRule reservationRule = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdReservationRule );
             daoUtil.executeQuery( );
@@ -113,7 +117,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     public List<ReservationRule> findByIdForm( int nIdForm, Plugin plugin )
     {
         List<ReservationRule> listReservationRule = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -129,7 +133,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     public ReservationRule findByIdFormAndDateOfApply( int nIdForm, LocalDate dateOfApply, Plugin plugin )
     {
         ReservationRule reservationRule = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_APPLY, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_OF_APPLY, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setDate( 2, Date.valueOf( dateOfApply ) );
@@ -146,7 +150,7 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
     public ReservationRule findReservationRuleByIdFormAndClosestToDateOfApply( int nIdForm, LocalDate dateOfApply, Plugin plugin )
     {
         ReservationRule reservationRule = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_DATE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_DATE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setDate( 2, Date.valueOf( dateOfApply ) );
@@ -160,6 +164,61 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
         return reservationRule;
     }
 
+    @Override
+    public List<ReservationRule> findTreeByIdForm( int nIdForm, Plugin plugin )
+    {
+        List<ReservationRule> listReservationRule = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_TREE_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeQuery( );
+            ReservationRule reservationRule = null;
+            WorkingDay workingDay = null;
+            // The rows are ordered by reservation rule, then by working day: each new id starts a new object
+            while ( daoUtil.next( ) )
+            {
+                int nIdReservationRule = daoUtil.getInt( 1 );
+                if ( reservationRule == null || reservationRule.getIdReservationRule( ) != nIdReservationRule )
+                {
+                    reservationRule = buildReservationRule( daoUtil );
+                    reservationRule.setListWorkingDay( new ArrayList<>( ) );
+                    listReservationRule.add( reservationRule );
+                    workingDay = null;
+                }
+                int nIndex = 10;
+                // The id is 0 (SQL NULL) when the rule has no working day, or the working day no time slot
+                int nIdWorkingDay = daoUtil.getInt( nIndex++ );
+                if ( nIdWorkingDay == 0 )
+                {
+                    continue;
+                }
+                if ( workingDay == null || workingDay.getIdWorkingDay( ) != nIdWorkingDay )
+                {
+                    workingDay = new WorkingDay( );
+                    workingDay.setIdWorkingDay( nIdWorkingDay );
+                    workingDay.setDayOfWeek( daoUtil.getInt( nIndex ) );
+                    workingDay.setIdReservationRule( nIdReservationRule );
+                    workingDay.setListTimeSlot( new ArrayList<>( ) );
+                    reservationRule.getListWorkingDay( ).add( workingDay );
+                }
+                nIndex++;
+                int nIdTimeSlot = daoUtil.getInt( nIndex++ );
+                if ( nIdTimeSlot != 0 )
+                {
+                    TimeSlot timeSlot = new TimeSlot( );
+                    timeSlot.setIdTimeSlot( nIdTimeSlot );
+                    timeSlot.setSqlStartingTime( daoUtil.getTime( nIndex++ ) );
+                    timeSlot.setSqlEndingTime( daoUtil.getTime( nIndex++ ) );
+                    timeSlot.setIsOpen( daoUtil.getBoolean( nIndex++ ) );
+                    timeSlot.setMaxCapacity( daoUtil.getInt( nIndex ) );
+                    timeSlot.setIdWorkingDay( nIdWorkingDay );
+                    workingDay.getListTimeSlot( ).add( timeSlot );
+                }
+            }
+        }
+        return listReservationRule;
+    }
+
     /**
      * Build a ReservationRule business object from the resultset
      * 
@@ -203,11 +262,11 @@ public final class ReservationRuleDAO implements IReservationRuleDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setString( nIndex++, reservationRule.getName( ) );
         daoUtil.setString( nIndex++, reservationRule.getDescriptionRule( ) );
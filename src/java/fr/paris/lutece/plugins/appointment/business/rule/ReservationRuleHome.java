@@ -154,4 +154,16 @@ public final class ReservationRuleHome
         return _dao.findReservationRuleByIdFormAndClosestToDateOfApply( nIdForm, dateOfApply, _plugin );
     }
 
+    /**
+     * Returns all the Reservation Rule of the form given, with their working days and the time slots of their working days
+     * 
+     * @param nIdForm
+     *            the Form Id
+     * @return a list of ReservationRule of the form
+     */
+    public static List<ReservationRule> findTreeByIdForm( int nIdForm )
+    {
+        return _dao.findTreeByIdForm( nIdForm, _plugin );
+    }
+
 }
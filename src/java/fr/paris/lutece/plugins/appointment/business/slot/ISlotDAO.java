@@ -33,8 +33,10 @@
  */
 package fr.paris.lutece.plugins.appointment.business.slot;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
@@ -67,6 +69,38 @@ public interface ISlotDAO
      */
     void update( Slot slot, Plugin plugin );
 
+    /**
+     * Copy the specific slots of a form to another form, in one statement. The slots copied have no places taken.
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdNewForm
+     *            the id of the form of the copy
+     * @param plugin
+     *            the plugin
+     */
+    void copySpecificSlotsByIdForm( int nIdForm, int nIdNewForm, Plugin plugin );
+
+    /**
+     * Insert several records in the table, in one batch. The ids generated are set on the slots.
+     * 
+     * @param listSlot
+     *            the slots to insert
+     * @param plugin
+     *            the plugin
+     */
+    void insertList( List<Slot> listSlot, Plugin plugin );
+
+    /**
+     * Update several records in the table, in one batch
+     * 
+     * @param listSlot
+     *            the slots to update
+     * @param plugin
+     *            the plugin
+     */
+    void updateList( List<Slot> listSlot, Plugin plugin );
+
     /**
      * Delete a appointment from the table
      * 
@@ -98,6 +132,17 @@ public interface ISlotDAO
      */
     Slot select( int nIdSlot, Plugin plugin );
 
+    /**
+     * Load the slots whose ids are given
+     * 
+     * @param listIdSlot
+     *            the ids of the slots (must not be empty)
+     * @param plugin
+     *            the plugin
+     * @return the slots found
+     */
+    List<Slot> findByListId( List<Integer> listIdSlot, Plugin plugin );
+
     /**
      * Returns all the slot for the date range
      * 
@@ -113,6 +158,30 @@ public interface ISlotDAO
      */
     List<Slot> findByIdFormAndDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin );
 
+    /**
+     * Returns the slots of the date range, on a day of week, impacted by a time slot
+     * 
+     * @param nIdForm
+     *            the Form Id
+     * @param startingDateTime
+     *            the starting date
+     * @param endingDateTime
+     *            the ending date
+     * @param dayOfWeek
+     *            the day of week of the slots
+     * @param startingTime
+     *            the starting time of the time slot
+     * @param endingTime
+     *            the ending time of the time slot
+     * @param bUntilEndOfDay
+     *            true to get all the slots of the day from the time slot, false to get only the slots that overlap the time slot
+     * @param plugin
+     *            the plugin
+     * @return a list of slots whose dates are included in the given period and impacted by the time slot
+     */
+    List<Slot> findByIdFormAndDateRangeAndTimeSlot( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, DayOfWeek dayOfWeek,
+            LocalTime startingTime, LocalTime endingTime, boolean bUntilEndOfDay, Plugin plugin );
+
     /**
      * Returns all the slot containing an appointment for the date range
      * 
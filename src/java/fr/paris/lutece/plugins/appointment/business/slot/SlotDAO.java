@@ -34,13 +34,19 @@
 package fr.paris.lutece.plugins.appointment.business.slot;
 
 import java.sql.Statement;
+import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.util.sql.DAOUtil;
 
 /**
@@ -51,20 +57,33 @@ import fr.paris.lutece.util.sql.DAOUtil;
  */
 public final class SlotDAO implements ISlotDAO
 {
+    // Whether the JDBC driver returns the generated keys of all the rows of a batch
+    private volatile boolean _bBatchGeneratedKeys = true;
+
 
     private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_slot (starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // The specific slots are copied empty: all their places are available
+    private static final String SQL_QUERY_COPY_SPECIFIC_SLOTS_BY_ID_FORM = "INSERT INTO appointment_slot (starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form) SELECT starting_date_time, ending_date_time, is_open, is_specific, max_capacity, max_capacity, max_capacity, 0, ? FROM appointment_slot WHERE id_form = ? AND is_specific = 1";
     private static final String SQL_QUERY_UPDATE = "UPDATE appointment_slot SET starting_date_time = ?, ending_date_time = ?, is_open = ?, is_specific = ?, max_capacity = ?, nb_remaining_places = ?, nb_potential_remaining_places = ?, nb_places_taken = ?, id_form = ? WHERE id_slot = ?";
     private static final String SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE = "UPDATE appointment_slot SET nb_potential_remaining_places = ? WHERE id_slot = ?";
     private static final String SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE_IF_SHUTDOWN = "UPDATE appointment_slot SET nb_potential_remaining_places = nb_remaining_places WHERE nb_potential_remaining_places < nb_remaining_places ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_slot WHERE id_slot = ?";
     private static final String SQL_QUERY_DELETE_BY_ID_FORM = "DELETE FROM appointment_slot WHERE id_form = ?";
+    private static final String SQL_QUERY_SELECT_ID_BY_ID_FORM_AND_DATES = "SELECT MAX( id_slot ) FROM appointment_slot WHERE id_form = ? AND starting_date_time = ? AND ending_date_time = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_slot, starting_date_time, ending_date_time, is_open, is_specific, max_capacity, nb_remaining_places, nb_potential_remaining_places, nb_places_taken, id_form ";
     private static final String SQL_FROM_APPOINTMENT_SLOT = "FROM appointment_slot";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_slot = ?";
+    private static final String SQL_QUERY_SELECT_BY_LIST_ID = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_slot IN ( ";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT + " WHERE id_form = ?";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_IS_SPECIFIC = SQL_QUERY_SELECT_BY_ID_FORM + " AND is_specific = 1";
     private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT
             + " WHERE id_form = ? AND starting_date_time >= ? AND ending_date_time <= ?";
+    // The day of week has no portable SQL function, it is filtered when reading the slots
+    private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE_AND_TIME_SLOT = SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE
+            + " AND ( CAST( starting_date_time AS TIME ) = ? OR ( CAST( starting_date_time AS TIME ) < ? AND CAST( ending_date_time AS TIME ) > ? )"
+            + " OR ( CAST( starting_date_time AS TIME ) > ? AND CAST( ending_date_time AS TIME ) <= ? ) )";
+    private static final String SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE_FROM_TIME_SLOT = SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE
+            + " AND ( CAST( starting_date_time AS TIME ) >= ? OR CAST( ending_date_time AS TIME ) > ? )";
     private static final String SQL_QUERY_SELECT_OPEN_SLOTS_BY_ID_FORM_AND_DATE_RANGE = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT
             + " WHERE id_form = ? AND starting_date_time >= ? AND ending_date_time <= ? AND is_open = 1";
     private static final String SQL_QUERY_SELECT_OPEN_SLOTS_BY_ID_FORM = SQL_QUERY_SELECT_COLUMNS + SQL_FROM_APPOINTMENT_SLOT
@@ -100,10 +119,107 @@ public final class SlotDAO implements ISlotDAO
         }
     }
 
+    @Override
+    public void copySpecificSlotsByIdForm( int nIdForm, int nIdNewForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_COPY_SPECIFIC_SLOTS_BY_ID_FORM, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdNewForm );
+            daoUtil.setInt( 2, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    @Override
+    public void insertList( List<Slot> listSlot, Plugin plugin )
+    {
+        if ( !_bBatchGeneratedKeys )
+        {
+            for ( Slot slot : listSlot )
+            {
+                insert( slot, plugin );
+            }
+            return;
+        }
+        int nKeyCount = 0;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            for ( Slot slot : listSlot )
+            {
+                fillDaoUtil( daoUtil, slot, true );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+            for ( Slot slot : listSlot )
+            {
+                if ( daoUtil.nextGeneratedKey( ) )
+                {
+                    slot.setIdSlot( daoUtil.getGeneratedKeyInt( 1 ) );
+                    nKeyCount++;
+                }
+            }
+            if ( nKeyCount == listSlot.size( ) && daoUtil.nextGeneratedKey( ) )
+            {
+                nKeyCount++;
+            }
+        }
+        if ( nKeyCount != listSlot.size( ) )
+        {
+            // The driver does not return one key per row of a batch: the ids of these rows are read and the next lists are inserted row by row
+            AppLogService.info( "The JDBC driver returned " + nKeyCount + " generated keys for a batch of " + listSlot.size( )
+                    + " slots, the slots are now inserted one by one" );
+            _bBatchGeneratedKeys = false;
+            for ( Slot slot : listSlot )
+            {
+                slot.setIdSlot( selectIdByIdFormAndDates( slot, plugin ) );
+            }
+        }
+    }
+
+    /**
+     * Get the id of the last slot inserted for a form with the dates of a slot
+     * 
+     * @param slot
+     *            the slot
+     * @param plugin
+     *            the plugin
+     * @return the id of the slot, 0 if not found
+     */
+    private int selectIdByIdFormAndDates( Slot slot, Plugin plugin )
+    {
+        int nIdSlot = 0;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_ID_BY_ID_FORM_AND_DATES, plugin ) )
+        {
+            daoUtil.setInt( 1, slot.getIdForm( ) );
+            daoUtil.setTimestamp( 2, Timestamp.valueOf( slot.getStartingDateTime( ) ) );
+            daoUtil.setTimestamp( 3, Timestamp.valueOf( slot.getEndingDateTime( ) ) );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nIdSlot = daoUtil.getInt( 1 );
+            }
+        }
+        return nIdSlot;
+    }
+
+    @Override
+    public void updateList( List<Slot> listSlot, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        {
+            for ( Slot slot : listSlot )
+            {
+                fillDaoUtil( daoUtil, slot, false );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
     @Override
     public void delete( int nIdSlot, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdSlot );
             daoUtil.executeUpdate( );
@@ -113,7 +229,7 @@ public final class SlotDAO implements ISlotDAO
     @Override
     public void deleteByIdForm( int nIdForm, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeUpdate( );
@@ -124,7 +240,7 @@ public final class SlotDAO implements ISlotDAO
     public Slot select( int nIdSlot, Plugin plugin )
     {
         Slot slot = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdSlot );
             daoUtil.executeQuery( );
@@ -136,11 +252,32 @@ public final class SlotDAO implements ISlotDAO
         return slot;
     }
 
+    @Override
+    public List<Slot> findByListId( List<Integer> listIdSlot, Plugin plugin )
+    {
+        List<Slot> listSlots = new ArrayList<>( );
+        String strQuery = SQL_QUERY_SELECT_BY_LIST_ID + listIdSlot.stream( ).map( nIdSlot -> "?" ).collect( Collectors.joining( "," ) ) + " )";
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdSlot : listIdSlot )
+            {
+                daoUtil.setInt( nIndex++, nIdSlot );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listSlots.add( buildSlot( daoUtil ) );
+            }
+        }
+        return listSlots;
+    }
+
     @Override
     public List<Slot> findByIdFormAndDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin )
     {
         List<Slot> listSlots = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setTimestamp( 2, Timestamp.valueOf( startingDateTime ) );
@@ -154,11 +291,49 @@ public final class SlotDAO implements ISlotDAO
         return listSlots;
     }
 
+    @Override
+    public List<Slot> findByIdFormAndDateRangeAndTimeSlot( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, DayOfWeek dayOfWeek,
+            LocalTime startingTime, LocalTime endingTime, boolean bUntilEndOfDay, Plugin plugin )
+    {
+        List<Slot> listSlots = new ArrayList<>( );
+        String strQuery = bUntilEndOfDay ? SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE_FROM_TIME_SLOT : SQL_QUERY_SELECT_BY_ID_FORM_AND_DATE_RANGE_AND_TIME_SLOT;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( strQuery, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nIdForm );
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( startingDateTime ) );
+            daoUtil.setTimestamp( nIndex++, Timestamp.valueOf( endingDateTime ) );
+            Time startingSqlTime = Time.valueOf( startingTime );
+            daoUtil.setTime( nIndex++, startingSqlTime );
+            if ( bUntilEndOfDay )
+            {
+                daoUtil.setTime( nIndex, startingSqlTime );
+            }
+            else
+            {
+                daoUtil.setTime( nIndex++, startingSqlTime );
+                daoUtil.setTime( nIndex++, startingSqlTime );
+                daoUtil.setTime( nIndex++, startingSqlTime );
+                daoUtil.setTime( nIndex, Time.valueOf( endingTime ) );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                Slot slot = buildSlot( daoUtil );
+                if ( slot.getStartingDateTime( ).getDayOfWeek( ) == dayOfWeek )
+                {
+                    listSlots.add( slot );
+                }
+            }
+        }
+        return listSlots;
+    }
+
     @Override
     public List<Slot> findSlotWithAppointmentByDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin )
     {
         List<Slot> listSlots = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_SLOT_WITH_APPOINTMNT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_SLOT_WITH_APPOINTMNT_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setTimestamp( 2, Timestamp.valueOf( startingDateTime ) );
@@ -176,7 +351,7 @@ public final class SlotDAO implements ISlotDAO
     public List<Slot> findIsSpecificByIdForm( int nIdForm, Plugin plugin )
     {
         List<Slot> listSpecificSlots = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_IS_SPECIFIC, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM_AND_IS_SPECIFIC, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -192,7 +367,7 @@ public final class SlotDAO implements ISlotDAO
     public List<Slot> findByIdForm( int nIdForm, Plugin plugin )
     {
         List<Slot> listSlot = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -208,7 +383,7 @@ public final class SlotDAO implements ISlotDAO
     public List<Slot> findOpenSlotsByIdFormAndDateRange( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime, Plugin plugin )
     {
         List<Slot> listSLot = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_OPEN_SLOTS_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_OPEN_SLOTS_BY_ID_FORM_AND_DATE_RANGE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.setTimestamp( 2, Timestamp.valueOf( startingDateTime ) );
@@ -226,7 +401,7 @@ public final class SlotDAO implements ISlotDAO
     public List<Slot> findOpenSlotsByIdForm( int nIdForm, Plugin plugin )
     {
         List<Slot> listSLot = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_OPEN_SLOTS_BY_ID_FORM, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_OPEN_SLOTS_BY_ID_FORM, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -242,7 +417,7 @@ public final class SlotDAO implements ISlotDAO
     public List<Slot> findByIdAppointment( int nIdAppointment, Plugin plugin )
     {
         List<Slot> listSlot = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_ID_APPOINTMENT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_APPOINTMENT, plugin ) )
         {
             daoUtil.setInt( 1, nIdAppointment );
             daoUtil.executeQuery( );
@@ -258,7 +433,7 @@ public final class SlotDAO implements ISlotDAO
     public Slot findSlotWithMaxDate( int nIdForm, Plugin plugin )
     {
         Slot slot = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_SLOT_WITH_MAX_DATE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_SLOT_WITH_MAX_DATE, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
@@ -273,7 +448,7 @@ public final class SlotDAO implements ISlotDAO
     @Override
     public void updatePotentialRemainingPlaces( int nbPotentialRemainingPlaces, int nIdSlot, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE, plugin ) )
         {
             daoUtil.setInt( 1, nbPotentialRemainingPlaces );
             daoUtil.setInt( 2, nIdSlot );
@@ -322,16 +497,32 @@ public final class SlotDAO implements ISlotDAO
      */
     private DAOUtil buildDaoUtil( String query, Slot slot, Plugin plugin, boolean isInsert )
     {
-        int nIndex = 1;
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
+        fillDaoUtil( daoUtil, slot, isInsert );
+        return daoUtil;
+    }
+
+    /**
+     * Set the values of the Slot business object in a daoUtil object
+     * 
+     * @param daoUtil
+     *            the daoUtil
+     * @param slot
+     *            the Slot
+     * @param isInsert
+     *            true if it is an insert query. If false, it is an update, in this case, there is a where parameter id to set
+     */
+    private void fillDaoUtil( DAOUtil daoUtil, Slot slot, boolean isInsert )
+    {
+        int nIndex = 1;
         daoUtil.setTimestamp( nIndex++, slot.getStartingTimestampDate( ) );
         daoUtil.setTimestamp( nIndex++, slot.getEndingTimestampDate( ) );
         daoUtil.setBoolean( nIndex++, slot.getIsOpen( ) );
@@ -345,13 +536,12 @@ public final class SlotDAO implements ISlotDAO
         {
             daoUtil.setInt( nIndex, slot.getIdSlot( ) );
         }
-        return daoUtil;
     }
 
     @Override
     public void resetPotentialRemainingPlaces( Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE_IF_SHUTDOWN, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE_POTENTIAL_REMAINING_PLACE_IF_SHUTDOWN, plugin ) )
         {
             daoUtil.executeUpdate( );
         }
@@ -361,7 +551,7 @@ public final class SlotDAO implements ISlotDAO
     public List<LocalDate> findSpecificSlotDates( int nIdForm, Plugin plugin )
     {
         List<LocalDate> listDate = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_SPECIFIC_DATE_SLOT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_SPECIFIC_DATE_SLOT, plugin ) )
         {
             daoUtil.setInt( 1, nIdForm );
             daoUtil.executeQuery( );
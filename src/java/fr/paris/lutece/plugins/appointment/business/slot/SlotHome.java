@@ -33,8 +33,11 @@
  */
 package fr.paris.lutece.plugins.appointment.business.slot;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentPlugin;
@@ -89,6 +92,63 @@ public final class SlotHome
         return slot;
     }
 
+    /**
+     * Create several slots, in one batch
+     * 
+     * @param listSlot
+     *            the slots to create, their primary keys are set
+     */
+    public static void createList( List<Slot> listSlot )
+    {
+        if ( !listSlot.isEmpty( ) )
+        {
+            _dao.insertList( listSlot, _plugin );
+        }
+    }
+
+    /**
+     * Update several slots, in one batch
+     * 
+     * @param listSlot
+     *            the slots to update
+     */
+    public static void updateList( List<Slot> listSlot )
+    {
+        if ( !listSlot.isEmpty( ) )
+        {
+            _dao.updateList( listSlot, _plugin );
+        }
+    }
+
+    /**
+     * Returns the slots whose ids are given
+     * 
+     * @param listIdSlot
+     *            the ids of the slots
+     * @return the slots found
+     */
+    public static List<Slot> findByListId( List<Integer> listIdSlot )
+    {
+        if ( listIdSlot.isEmpty( ) )
+        {
+            return new ArrayList<>( );
+        }
+        return _dao.findByListId( listIdSlot, _plugin );
+    }
+
+    /**
+     * Copy the specific slots of a form to another form, with no places taken
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param nIdNewForm
+     *            the id of the form of the copy
+     */
+    public static void copySpecificSlotsByIdForm( int nIdForm, int nIdNewForm )
+    {
+        _dao.copySpecificSlotsByIdForm( nIdForm, nIdNewForm, _plugin );
+    }
+
     /**
      * Delete the Slot whose identifier is specified in parameter
      * 
@@ -140,6 +200,32 @@ public final class SlotHome
         return _dao.findByIdFormAndDateRange( nIdForm, startingDateTime, endingDateTime, _plugin );
     }
 
+    /**
+     * Returns the slots of a date range, on a day of week, impacted by a time slot
+     * 
+     * @param nIdForm
+     *            the Form Id
+     * @param startingDateTime
+     *            the starting date
+     * @param endingDateTime
+     *            the ending date
+     * @param dayOfWeek
+     *            the day of week of the slots
+     * @param startingTime
+     *            the starting time of the time slot
+     * @param endingTime
+     *            the ending time of the time slot
+     * @param bUntilEndOfDay
+     *            true to get all the slots of the day from the time slot, false to get only the slots that overlap the time slot
+     * @return a list of slots whose dates are included in the given period and impacted by the time slot
+     */
+    public static List<Slot> findByIdFormAndDateRangeAndTimeSlot( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime,
+            DayOfWeek dayOfWeek, LocalTime startingTime, LocalTime endingTime, boolean bUntilEndOfDay )
+    {
+        return _dao.findByIdFormAndDateRangeAndTimeSlot( nIdForm, startingDateTime, endingDateTime, dayOfWeek, startingTime, endingTime, bUntilEndOfDay,
+                _plugin );
+    }
+
     /**
      * Returns all the slot containing an appointment for the date range
      * 
@@ -122,4 +122,36 @@ public interface IUserDAO
      * @return the user found
      */
     User findByFirstNameLastNameAndEmail( String strFirstName, String strLastName, String strEmail, Plugin plugin );
+
+    /**
+     * Return the users of a range of ids whose search values differ from the ones computed by the plugin
+     * 
+     * @param nIdUserFrom
+     *            the users with an id greater than this one are returned
+     * @param nIdUserTo
+     *            the users with an id lower than or equal to this one are returned
+     * @param plugin
+     *            the plugin
+     * @return the users found
+     */
+    List<User> findWithOtherSearchValues( int nIdUserFrom, int nIdUserTo, Plugin plugin );
+
+    /**
+     * Return the greatest id of the users
+     * 
+     * @param plugin
+     *            the plugin
+     * @return the greatest id, 0 if there is no user
+     */
+    int findMaxId( Plugin plugin );
+
+    /**
+     * Compute and store the search values of users, in one batch
+     * 
+     * @param listUser
+     *            the users
+     * @param plugin
+     *            the plugin
+     */
+    void updateSearchValues( List<User> listUser, Plugin plugin );
 }
@@ -36,7 +36,12 @@ package fr.paris.lutece.plugins.appointment.business.user;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
@@ -49,8 +54,8 @@ import fr.paris.lutece.util.sql.DAOUtil;
 public final class UserDAO implements IUserDAO
 {
 
-    private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_user ( guid, first_name, last_name, email, phone_number) VALUES ( ?, ?, ?, ?, ?)";
-    private static final String SQL_QUERY_UPDATE = "UPDATE appointment_user SET guid = ?, first_name = ?, last_name = ?, email = ?, phone_number = ? WHERE id_user = ?";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO appointment_user ( guid, first_name, last_name, email, phone_number, first_name_search, last_name_search, email_search, phone_number_search) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_QUERY_UPDATE = "UPDATE appointment_user SET guid = ?, first_name = ?, last_name = ?, email = ?, phone_number = ?, first_name_search = ?, last_name_search = ?, email_search = ?, phone_number_search = ? WHERE id_user = ?";
     private static final String SQL_QUERY_DELETE = "DELETE FROM appointment_user WHERE id_user = ?";
     private static final String SQL_QUERY_SELECT_COLUMNS = "SELECT id_user, guid, first_name, last_name, email, phone_number FROM appointment_user";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_COLUMNS + " WHERE id_user = ?";
@@ -58,6 +63,9 @@ public final class UserDAO implements IUserDAO
     private static final String SQL_QUERY_SELECT_BY_EMAIL = SQL_QUERY_SELECT_COLUMNS + " WHERE email = ?";
     private static final String SQL_QUERY_SELECT_BY_FIRSTNAME_LASTNAME_AND_EMAIL = SQL_QUERY_SELECT_COLUMNS
             + " WHERE UPPER(first_name) = ? and UPPER(last_name) = ? and UPPER(email) = ?";
+    private static final String SQL_QUERY_SELECT_BY_ID_RANGE_WITH_SEARCH_VALUES = "SELECT id_user, guid, first_name, last_name, email, phone_number, first_name_search, last_name_search, email_search, phone_number_search FROM appointment_user WHERE id_user > ? AND id_user <= ?";
+    private static final String SQL_QUERY_SELECT_MAX_ID = "SELECT MAX( id_user ) FROM appointment_user";
+    private static final String SQL_QUERY_UPDATE_SEARCH_VALUES = "UPDATE appointment_user SET first_name_search = ?, last_name_search = ?, email_search = ?, phone_number_search = ? WHERE id_user = ?";
 
     @Override
     public void insert( User user, Plugin plugin )
@@ -84,7 +92,7 @@ public final class UserDAO implements IUserDAO
     @Override
     public void delete( int nIdUser, Plugin plugin )
     {
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_DELETE, plugin ) )
         {
             daoUtil.setInt( 1, nIdUser );
             daoUtil.executeUpdate( );
@@ -95,7 +103,7 @@ public final class UserDAO implements IUserDAO
     public User select( int nIdUser, Plugin plugin )
     {
         User user = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT, plugin ) )
         {
             daoUtil.setInt( 1, nIdUser );
             daoUtil.executeQuery( );
@@ -111,7 +119,7 @@ public final class UserDAO implements IUserDAO
     public User selectByGuid( String strGuid, Plugin plugin )
     {
         User user = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_GUID, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_GUID, plugin ) )
         {
             daoUtil.setString( 1, strGuid );
             daoUtil.executeQuery( );
@@ -127,7 +135,7 @@ public final class UserDAO implements IUserDAO
     public List<User> findByEmail( String strEmail, Plugin plugin )
     {
         List<User> listUsers = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_EMAIL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_EMAIL, plugin ) )
         {
             daoUtil.setString( 1, strEmail );
             daoUtil.executeQuery( );
@@ -143,7 +151,7 @@ public final class UserDAO implements IUserDAO
     public User findByFirstNameLastNameAndEmail( String strFirstName, String strLastName, String strEmail, Plugin plugin )
     {
         User user = null;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_FIRSTNAME_LASTNAME_AND_EMAIL, plugin ) )
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_FIRSTNAME_LASTNAME_AND_EMAIL, plugin ) )
         {
             daoUtil.setString( 1, strFirstName.toUpperCase( ) );
             daoUtil.setString( 2, strLastName.toUpperCase( ) );
@@ -157,6 +165,65 @@ public final class UserDAO implements IUserDAO
         return user;
     }
 
+    @Override
+    public List<User> findWithOtherSearchValues( int nIdUserFrom, int nIdUserTo, Plugin plugin )
+    {
+        List<User> listUsers = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_BY_ID_RANGE_WITH_SEARCH_VALUES, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdUserFrom );
+            daoUtil.setInt( 2, nIdUserTo );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                User user = buildUser( daoUtil );
+                int nIndex = 7;
+                if ( !Objects.equals( daoUtil.getString( nIndex++ ), toSearchValue( user.getFirstName( ) ) )
+                        || !Objects.equals( daoUtil.getString( nIndex++ ), toSearchValue( user.getLastName( ) ) )
+                        || !Objects.equals( daoUtil.getString( nIndex++ ), toSearchValue( user.getEmail( ) ) )
+                        || !Objects.equals( daoUtil.getString( nIndex ), toSearchValue( user.getPhoneNumber( ) ) ) )
+                {
+                    listUsers.add( user );
+                }
+            }
+        }
+        return listUsers;
+    }
+
+    @Override
+    public int findMaxId( Plugin plugin )
+    {
+        int nMaxId = 0;
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_SELECT_MAX_ID, plugin ) )
+        {
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nMaxId = daoUtil.getInt( 1 );
+            }
+        }
+        return nMaxId;
+    }
+
+    @Override
+    public void updateSearchValues( List<User> listUser, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new AppointmentDAOUtil( SQL_QUERY_UPDATE_SEARCH_VALUES, plugin ) )
+        {
+            for ( User user : listUser )
+            {
+                int nIndex = 1;
+                daoUtil.setString( nIndex++, toSearchValue( user.getFirstName( ) ) );
+                daoUtil.setString( nIndex++, toSearchValue( user.getLastName( ) ) );
+                daoUtil.setString( nIndex++, toSearchValue( user.getEmail( ) ) );
+                daoUtil.setString( nIndex++, toSearchValue( user.getPhoneNumber( ) ) );
+                daoUtil.setInt( nIndex, user.getIdUser( ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
     /**
      * Build a User business object from the resultset
      * 
@@ -197,21 +264,38 @@ public final class UserDAO implements IUserDAO
         DAOUtil daoUtil = null;
         if ( isInsert )
         {
-            daoUtil = new DAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
+            daoUtil = new AppointmentDAOUtil( query, Statement.RETURN_GENERATED_KEYS, plugin );
         }
         else
         {
-            daoUtil = new DAOUtil( query, plugin );
+            daoUtil = new AppointmentDAOUtil( query, plugin );
         }
         daoUtil.setString( nIndex++, user.getGuid( ) );
         daoUtil.setString( nIndex++, user.getFirstName( ) );
         daoUtil.setString( nIndex++, user.getLastName( ) );
         daoUtil.setString( nIndex++, user.getEmail( ) );
         daoUtil.setString( nIndex++, user.getPhoneNumber( ) );
+        daoUtil.setString( nIndex++, toSearchValue( user.getFirstName( ) ) );
+        daoUtil.setString( nIndex++, toSearchValue( user.getLastName( ) ) );
+        daoUtil.setString( nIndex++, toSearchValue( user.getEmail( ) ) );
+        daoUtil.setString( nIndex++, toSearchValue( user.getPhoneNumber( ) ) );
         if ( !isInsert )
         {
             daoUtil.setInt( nIndex, user.getIdUser( ) );
         }
         return daoUtil;
     }
+
+    /**
+     * Get the value stored in the search columns of the users for a value: trimmed, without accents and upper-cased, so that the back office filters can
+     * use the indexes of these columns
+     * 
+     * @param strValue
+     *            the value
+     * @return the search value, null if the value is null
+     */
+    public static String toSearchValue( String strValue )
+    {
+        return StringUtils.upperCase( StringUtils.stripAccents( StringUtils.trim( strValue ) ), Locale.ROOT );
+    }
 }
@@ -139,6 +139,41 @@ public final class UserHome
         return _dao.findByFirstNameLastNameAndEmail( strFirstName, strLastName, strEmail, _plugin );
     }
 
+    /**
+     * Return the users of a range of ids whose search values differ from the ones computed by the plugin
+     * 
+     * @param nIdUserFrom
+     *            the users with an id greater than this one are returned
+     * @param nIdUserTo
+     *            the users with an id lower than or equal to this one are returned
+     * @return the users found
+     */
+    public static List<User> findWithOtherSearchValues( int nIdUserFrom, int nIdUserTo )
+    {
+        return _dao.findWithOtherSearchValues( nIdUserFrom, nIdUserTo, _plugin );
+    }
+
+    /**
+     * Return the greatest id of the users
+     * 
+     * @return the greatest id, 0 if there is no user
+     */
+    public static int findMaxId( )
+    {
+        return _dao.findMaxId( _plugin );
+    }
+
+    /**
+     * Compute and store the search values of users
+     * 
+     * @param listUser
+     *            the users
+     */
+    public static void updateSearchValues( List<User> listUser )
+    {
+        _dao.updateSearchValues( listUser, _plugin );
+    }
+
     /**
      * return user(s) by its email
      * 
@@ -33,30 +33,231 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
+/**
+ * Executor of the asynchronous tasks of the plugin (mainly the notifications of the listeners).
+ * 
+ * By default, the tasks are run by a fixed pool of threads with a bounded queue. When the property appointment.executor.virtual.threads is true and the JVM
+ * supports it, each task is run by a new virtual thread instead, and the number of tasks submitted and not completed is bounded by the queue capacity.
+ * 
+ * Beyond this bound, the tasks are coalesced: they are parked, in their order of submission, and given to the executor as soon as a task ends. A task
+ * submitted with the key of a parked task replaces it, so that a flash crowd of notifications of the same object is run once. When the parked tasks also
+ * reach the queue capacity, the new tasks are rejected. With the property appointment.executor.rejection.policy set to abort, the tasks are rejected as soon
+ * as the queue is full. A task is never run by the submitting thread: it may hold slot locks or an open transaction, which the listeners must not run in.
+ */
 public enum AppointmentExecutorService
 {
     INSTANCE;
     private static final String PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE = "appointment.executor.thread.pool.max.size";
-    private final ExecutorService _executorService = Executors.newFixedThreadPool(
-            AppPropertiesService.getPropertyInt( PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE, Runtime.getRuntime( ).availableProcessors( ) ),
-            new CustomizableThreadFactory( "Lutece-AppointmentExecutor-thread-" ) );
+    private static final String PROPERTY_QUEUE_CAPACITY = "appointment.executor.queue.capacity";
+    private static final String PROPERTY_REJECTION_POLICY = "appointment.executor.rejection.policy";
+    private static final String PROPERTY_VIRTUAL_THREADS = "appointment.executor.virtual.threads";
+    private static final String REJECTION_POLICY_ABORT = "abort";
+    private static final String METHOD_NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = "newVirtualThreadPerTaskExecutor";
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    // Metrics
+    private final AtomicInteger _nActiveTaskCount = new AtomicInteger( );
+    private final AtomicLong _lCompletedTaskCount = new AtomicLong( );
+    private final AtomicLong _lCoalescedTaskCount = new AtomicLong( );
+    private final AtomicLong _lRejectedTaskCount = new AtomicLong( );
+    private final AtomicLong _lTotalWaitTime = new AtomicLong( );
+    private final AtomicLong _lMaxWaitTime = new AtomicLong( );
+    private final AtomicLong _lTotalRunTime = new AtomicLong( );
+
+    private final boolean _bAbort = REJECTION_POLICY_ABORT.equals( AppPropertiesService.getProperty( PROPERTY_REJECTION_POLICY ) );
+    private final int _nQueueCapacity = AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY );
+    private final ExecutorService _executorService = createExecutorService( );
+
+    // Bound of the tasks given to the virtual threads, null with the pool of threads
+    private final Semaphore _virtualThreadPermits = ( _executorService instanceof ThreadPoolExecutor ) ? null : new Semaphore( _nQueueCapacity );
+
+    // Tasks waiting for room in the executor, by key, in their order of submission
+    private final Map<Object, Runnable> _mapParkedTask = new LinkedHashMap<>( );
+    private final AtomicInteger _nParkedTaskCount = new AtomicInteger( );
+
+    /**
+     * Create the executor service, according to the properties
+     * 
+     * @return the executor service
+     */
+    private ExecutorService createExecutorService( )
+    {
+        if ( AppPropertiesService.getPropertyBoolean( PROPERTY_VIRTUAL_THREADS, false ) )
+        {
+            try
+            {
+                // Java 21+ only, the plugin is still built for older JVMs
+                return (ExecutorService) Executors.class.getMethod( METHOD_NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR ).invoke( null );
+            }
+            catch( ReflectiveOperationException e )
+            {
+                AppLogService.error( "Virtual threads are not supported by this JVM, the appointment executor uses a pool of threads" );
+            }
+        }
+        int nThreads = AppPropertiesService.getPropertyInt( PROPERTY_THREAD_APPOINTMENT_POOL_MAX_SIZE, Runtime.getRuntime( ).availableProcessors( ) );
+        return new ThreadPoolExecutor( nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>( _nQueueCapacity ),
+                new CustomizableThreadFactory( "Lutece-AppointmentExecutor-thread-" ), new ThreadPoolExecutor.AbortPolicy( ) );
+    }
+
+    /**
+     * Wrap a task to measure its waiting and running times
+     * 
+     * @param task
+     *            the task
+     * @return the wrapped task
+     */
+    private Runnable measure( Runnable task )
+    {
+        long lSubmitTime = System.nanoTime( );
+        return ( ) -> {
+            long lStartTime = System.nanoTime( );
+            long lWaitTime = lStartTime - lSubmitTime;
+            _lTotalWaitTime.addAndGet( lWaitTime );
+            _lMaxWaitTime.accumulateAndGet( lWaitTime, Math::max );
+            _nActiveTaskCount.incrementAndGet( );
+            try
+            {
+                task.run( );
+            }
+            finally
+            {
+                _nActiveTaskCount.decrementAndGet( );
+                _lTotalRunTime.addAndGet( System.nanoTime( ) - lStartTime );
+                _lCompletedTaskCount.incrementAndGet( );
+            }
+        };
+    }
+
+    /**
+     * Give a task to the executor if it has room for it. The parked tasks are given to the executor when the task ends.
+     * 
+     * @param task
+     *            the task
+     * @return true if the task is given to the executor, false if the executor is full or shut down
+     */
+    private boolean dispatch( Runnable task )
+    {
+        if ( _virtualThreadPermits == null )
+        {
+            try
+            {
+                _executorService.execute( ( ) -> {
+                    try
+                    {
+                        task.run( );
+                    }
+                    finally
+                    {
+                        dispatchParkedTasks( );
+                    }
+                } );
+                return true;
+            }
+            catch( RejectedExecutionException e )
+            {
+                return false;
+            }
+        }
+        if ( !_virtualThreadPermits.tryAcquire( ) )
+        {
+            return false;
+        }
+        try
+        {
+            _executorService.execute( ( ) -> {
+                try
+                {
+                    task.run( );
+                }
+                finally
+                {
+                    _virtualThreadPermits.release( );
+                    dispatchParkedTasks( );
+                }
+            } );
+            return true;
+        }
+        catch( RejectedExecutionException e )
+        {
+            _virtualThreadPermits.release( );
+            return false;
+        }
+    }
+
+    /**
+     * Park a task until the executor has room for it, replacing the parked task with the same key
+     * 
+     * @param key
+     *            the key of the task
+     * @param task
+     *            the task
+     * @throws RejectedExecutionException
+     *             if the parked tasks reach the queue capacity
+     */
+    private void park( Object key, Runnable task )
+    {
+        synchronized( _mapParkedTask )
+        {
+            if ( _mapParkedTask.containsKey( key ) )
+            {
+                _mapParkedTask.put( key, task );
+                _lCoalescedTaskCount.incrementAndGet( );
+                return;
+            }
+            if ( _mapParkedTask.size( ) >= _nQueueCapacity )
+            {
+                _lRejectedTaskCount.incrementAndGet( );
+                throw new RejectedExecutionException( "Appointment task rejected, parked tasks: " + _mapParkedTask.size( ) );
+            }
+            _mapParkedTask.put( key, task );
+            _nParkedTaskCount.incrementAndGet( );
+        }
+    }
+
+    /**
+     * Give the parked tasks to the executor, in their order of submission, while it has room for them
+     */
+    private void dispatchParkedTasks( )
+    {
+        if ( _nParkedTaskCount.get( ) == 0 )
+        {
+            return;
+        }
+        synchronized( _mapParkedTask )
+        {
+            Iterator<Runnable> iteratorTask = _mapParkedTask.values( ).iterator( );
+            while ( iteratorTask.hasNext( ) && dispatch( iteratorTask.next( ) ) )
+            {
+                iteratorTask.remove( );
+                _nParkedTaskCount.decrementAndGet( );
+            }
+        }
+    }
 
     /**
-     * Executes the given command at some time in the future. The command may execute in a new thread, in a pooled thread, or in the calling thread, at the
-     * discretion of the {@code Executor} implementation.
+     * Executes the given command at some time in the future, in a pooled thread or in a new virtual thread. The command is never run by the calling thread.
      *
-     * @param command
+     * @param task
      *            the runnable task
      * @throws RejectedExecutionException
      *             if this task cannot be accepted for execution
@@ -65,11 +266,42 @@ public enum AppointmentExecutorService
      */
     public void execute( Runnable task )
     {
-        _executorService.execute( task );
+        execute( task, task );
+    }
+
+    /**
+     * Executes the given command at some time in the future, in a pooled thread or in a new virtual thread. When the executor is full, the command replaces
+     * the waiting command with the same key, so the commands with the same key must be interchangeable (e.g. a rebuild of the same data).
+     *
+     * @param key
+     *            the key of the task
+     * @param task
+     *            the runnable task
+     * @throws RejectedExecutionException
+     *             if this task cannot be accepted for execution
+     * @throws NullPointerException
+     *             if command is null
+     */
+    public void execute( Object key, Runnable task )
+    {
+        Runnable measuredTask = measure( task );
+        // The tasks already parked go first
+        if ( _nParkedTaskCount.get( ) == 0 && dispatch( measuredTask ) )
+        {
+            return;
+        }
+        if ( _bAbort || _executorService.isShutdown( ) )
+        {
+            _lRejectedTaskCount.incrementAndGet( );
+            throw new RejectedExecutionException( "Appointment task rejected, queue size: " + getQueueSize( ) );
+        }
+        park( key, measuredTask );
+        // The executor may have been emptied since the task was refused
+        dispatchParkedTasks( );
     }
 
     /**
-     * Submits a Runnable task for execution and returns a Future representing that task. The Future's ge} method will return null upon <em>successful</em>
+     * Submits a Runnable task for execution and returns a Future representing that task. The Future's get method will return null upon <em>successful</em>
      * completion.
      *
      * @param task
@@ -82,8 +314,105 @@ public enum AppointmentExecutorService
      */
     public Future<?> submit( Runnable task )
     {
+        FutureTask<?> futureTask = new FutureTask<>( task, null );
+        execute( futureTask );
+        return futureTask;
+    }
+
+    /**
+     * Get the number of tasks waiting in the queue
+     * 
+     * @return the number of waiting tasks, including the parked tasks (with virtual threads, the tasks submitted and not started yet)
+     */
+    public int getQueueSize( )
+    {
+        if ( _virtualThreadPermits == null )
+        {
+            return ( (ThreadPoolExecutor) _executorService ).getQueue( ).size( ) + _nParkedTaskCount.get( );
+        }
+        return Math.max( 0, _nQueueCapacity - _virtualThreadPermits.availablePermits( ) - _nActiveTaskCount.get( ) ) + _nParkedTaskCount.get( );
+    }
+
+    /**
+     * Get the number of tasks parked because the executor was full
+     * 
+     * @return the number of parked tasks
+     */
+    public int getParkedTaskCount( )
+    {
+        return _nParkedTaskCount.get( );
+    }
+
+    /**
+     * Get the number of tasks being run
+     * 
+     * @return the number of running tasks
+     */
+    public int getActiveTaskCount( )
+    {
+        return _nActiveTaskCount.get( );
+    }
+
+    /**
+     * Get the number of tasks completed since the start
+     * 
+     * @return the number of completed tasks
+     */
+    public long getCompletedTaskCount( )
+    {
+        return _lCompletedTaskCount.get( );
+    }
+
+    /**
+     * Get the number of tasks replaced by a task with the same key while they were parked
+     * 
+     * @return the number of coalesced tasks
+     */
+    public long getCoalescedTaskCount( )
+    {
+        return _lCoalescedTaskCount.get( );
+    }
+
+    /**
+     * Get the number of tasks rejected
+     * 
+     * @return the number of rejected tasks
+     */
+    public long getRejectedTaskCount( )
+    {
+        return _lRejectedTaskCount.get( );
+    }
+
+    /**
+     * Get the average time the completed tasks waited before being run
+     * 
+     * @return the average waiting time in milliseconds
+     */
+    public long getAverageWaitTime( )
+    {
+        long lCompletedTaskCount = _lCompletedTaskCount.get( );
+        return ( lCompletedTaskCount == 0 ) ? 0L : TimeUnit.NANOSECONDS.toMillis( _lTotalWaitTime.get( ) / lCompletedTaskCount );
+    }
 
-        return _executorService.submit( task );
+    /**
+     * Get the longest time a task waited before being run
+     * 
+     * @return the maximum waiting time in milliseconds
+     */
+    public long getMaxWaitTime( )
+    {
+        return TimeUnit.NANOSECONDS.toMillis( _lMaxWaitTime.get( ) );
+    }
+
+    /**
+     * Get the average running time of the completed tasks
+     * 
+     * @return the average running time in milliseconds
+     */
+    public long getAverageRunTime( )
+    {
+        long lCompletedTaskCount = _lCompletedTaskCount.get( );
+        return ( lCompletedTaskCount == 0 ) ? 0L : TimeUnit.NANOSECONDS.toMillis( _lTotalRunTime.get( ) / lCompletedTaskCount );
     }
 
     /**
@@ -94,6 +423,16 @@ public enum AppointmentExecutorService
     {
 
         _executorService.shutdown( );
+        synchronized( _mapParkedTask )
+        {
+            if ( !_mapParkedTask.isEmpty( ) )
+            {
+                AppLogService.error( "Appointment executor shut down, parked tasks dropped: " + _mapParkedTask.size( ) );
+                _lRejectedTaskCount.addAndGet( _mapParkedTask.size( ) );
+                _mapParkedTask.clear( );
+                _nParkedTaskCount.set( 0 );
+            }
+        }
         try
         {
             if ( !_executorService.awaitTermination( 60, TimeUnit.SECONDS ) )
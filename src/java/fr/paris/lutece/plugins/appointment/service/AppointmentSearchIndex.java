@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory index of the text values of the appointments of a form: the first name, last name, email and phone number of their user and their reference.
+ * Each value is split in trigrams, so that the appointments whose value contains a fragment are found by intersecting the appointments of the trigrams of
+ * the fragment. The values are indexed as they are stored in the search columns of the users (see
+ * {@link fr.paris.lutece.plugins.appointment.business.user.UserDAO#toSearchValue(String)}).
+ */
+public final class AppointmentSearchIndex
+{
+    public static final int FIELD_FIRST_NAME = 0;
+    public static final int FIELD_LAST_NAME = 1;
+    public static final int FIELD_EMAIL = 2;
+    public static final int FIELD_PHONE_NUMBER = 3;
+    public static final int FIELD_REFERENCE = 4;
+    public static final int NB_FIELDS = 5;
+
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * The indexed values of the appointments, by appointment id
+     */
+    private final Map<Integer, String [ ]> _mapValues = new HashMap<>( );
+
+    /**
+     * For each field, the ids of the appointments by trigram of their value
+     */
+    private final List<Map<String, Set<Integer>>> _listMapGram = new ArrayList<>( NB_FIELDS );
+
+    /**
+     * Constructor
+     */
+    public AppointmentSearchIndex( )
+    {
+        for ( int nField = 0; nField < NB_FIELDS; nField++ )
+        {
+            _listMapGram.add( new HashMap<>( ) );
+        }
+    }
+
+    /**
+     * Index the values of an appointment, replacing the values previously indexed
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     * @param values
+     *            the values of the appointment, by field
+     */
+    public synchronized void index( int nIdAppointment, String [ ] values )
+    {
+        remove( nIdAppointment );
+        add( nIdAppointment, values );
+    }
+
+    /**
+     * Index the values of an appointment if it is not already indexed
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     * @param values
+     *            the values of the appointment, by field
+     */
+    public synchronized void indexIfAbsent( int nIdAppointment, String [ ] values )
+    {
+        if ( !_mapValues.containsKey( nIdAppointment ) )
+        {
+            add( nIdAppointment, values );
+        }
+    }
+
+    /**
+     * Remove an appointment from the index
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     */
+    public synchronized void remove( int nIdAppointment )
+    {
+        String [ ] values = _mapValues.remove( nIdAppointment );
+        if ( values == null )
+        {
+            return;
+        }
+        for ( int nField = 0; nField < NB_FIELDS; nField++ )
+        {
+            Map<String, Set<Integer>> mapGram = _listMapGram.get( nField );
+            for ( String strGram : getGrams( values [nField] ) )
+            {
+                Set<Integer> setIdAppointment = mapGram.get( strGram );
+                if ( setIdAppointment != null )
+                {
+                    setIdAppointment.remove( nIdAppointment );
+                    if ( setIdAppointment.isEmpty( ) )
+                    {
+                        mapGram.remove( strGram );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the appointments whose values contain all the given fragments
+     * 
+     * @param criteria
+     *            the fragments to search, by field, null or empty for the fields not searched
+     * @return the ids of the appointments found
+     */
+    public synchronized Set<Integer> search( String [ ] criteria )
+    {
+        Set<Integer> setIdAppointment = null;
+        for ( int nField = 0; nField < NB_FIELDS; nField++ )
+        {
+            if ( criteria [nField] == null || criteria [nField].isEmpty( ) )
+            {
+                continue;
+            }
+            Set<Integer> setCandidate = findCandidates( nField, criteria [nField] );
+            if ( setIdAppointment == null )
+            {
+                setIdAppointment = setCandidate;
+            }
+            else
+            {
+                setIdAppointment.retainAll( setCandidate );
+            }
+            if ( setIdAppointment.isEmpty( ) )
+            {
+                return setIdAppointment;
+            }
+        }
+        if ( setIdAppointment == null )
+        {
+            return new HashSet<>( _mapValues.keySet( ) );
+        }
+        // The trigrams of a fragment may be found in a value in another order: the values of the candidates are checked
+        setIdAppointment.removeIf( nIdAppointment -> !matches( _mapValues.get( nIdAppointment ), criteria ) );
+        return setIdAppointment;
+    }
+
+    /**
+     * Get the number of appointments indexed
+     * 
+     * @return the number of appointments
+     */
+    public synchronized int size( )
+    {
+        return _mapValues.size( );
+    }
+
+    /**
+     * Add an appointment that is not indexed
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     * @param values
+     *            the values of the appointment, by field
+     */
+    private void add( int nIdAppointment, String [ ] values )
+    {
+        _mapValues.put( nIdAppointment, values );
+        for ( int nField = 0; nField < NB_FIELDS; nField++ )
+        {
+            Map<String, Set<Integer>> mapGram = _listMapGram.get( nField );
+            for ( String strGram : getGrams( values [nField] ) )
+            {
+                mapGram.computeIfAbsent( strGram, strKey -> new HashSet<>( ) ).add( nIdAppointment );
+            }
+        }
+    }
+
+    /**
+     * Find the appointments that may contain a fragment in a field: the appointments that have all the trigrams of the fragment, or all the appointments if
+     * the fragment is shorter than a trigram
+     * 
+     * @param nField
+     *            the field
+     * @param strFragment
+     *            the fragment
+     * @return a new set of the ids of the candidate appointments
+     */
+    private Set<Integer> findCandidates( int nField, String strFragment )
+    {
+        Set<String> setGram = getGrams( strFragment );
+        if ( setGram.isEmpty( ) )
+        {
+            return new HashSet<>( _mapValues.keySet( ) );
+        }
+        Map<String, Set<Integer>> mapGram = _listMapGram.get( nField );
+        List<Set<Integer>> listSetIdAppointment = new ArrayList<>( setGram.size( ) );
+        for ( String strGram : setGram )
+        {
+            Set<Integer> setIdAppointment = mapGram.get( strGram );
+            if ( setIdAppointment == null )
+            {
+                return new HashSet<>( );
+            }
+            listSetIdAppointment.add( setIdAppointment );
+        }
+        // Start from the rarest trigram, so that the intersection is made on the smallest sets
+        listSetIdAppointment.sort( ( set1, set2 ) -> Integer.compare( set1.size( ), set2.size( ) ) );
+        Set<Integer> setCandidate = new HashSet<>( listSetIdAppointment.get( 0 ) );
+        for ( int nIndex = 1; nIndex < listSetIdAppointment.size( ) && !setCandidate.isEmpty( ); nIndex++ )
+        {
+            setCandidate.retainAll( listSetIdAppointment.get( nIndex ) );
+        }
+        return setCandidate;
+    }
+
+    /**
+     * Check that the values of an appointment contain all the fragments searched
+     * 
+     * @param values
+     *            the values of the appointment
+     * @param criteria
+     *            the fragments searched
+     * @return true if all the fragments are found
+     */
+    private static boolean matches( String [ ] values, String [ ] criteria )
+    {
+        for ( int nField = 0; nField < NB_FIELDS; nField++ )
+        {
+            if ( criteria [nField] != null && !criteria [nField].isEmpty( ) && ( values [nField] == null || !values [nField].contains( criteria [nField] ) ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the distinct trigrams of a value
+     * 
+     * @param strValue
+     *            the value
+     * @return the trigrams, empty if the value is null or shorter than a trigram
+     */
+    private static Set<String> getGrams( String strValue )
+    {
+        Set<String> setGram = new HashSet<>( );
+        if ( strValue != null )
+        {
+            for ( int nIndex = 0; nIndex + GRAM_LENGTH <= strValue.length( ); nIndex++ )
+            {
+                setGram.add( strValue.substring( nIndex, nIndex + GRAM_LENGTH ) );
+            }
+        }
+        return setGram;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
+import fr.paris.lutece.plugins.appointment.business.appointment.AppointmentHome;
+import fr.paris.lutece.plugins.appointment.business.user.User;
+import fr.paris.lutece.plugins.appointment.business.user.UserDAO;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Service that keeps, when it is enabled, an {@link AppointmentSearchIndex} for each form, to find the appointments of the back office searches by a
+ * fragment of the name, email or phone number of their user, or of their reference, without scanning the users.
+ * 
+ * The indexes are built in background at the start of the plugin, then each appointment is indexed again when it is created, updated or removed (see
+ * {@link fr.paris.lutece.plugins.appointment.service.listeners.AppointmentSearchIndexListener}). Until the indexes are built, the searches are made in
+ * database, with the same fragment criteria.
+ */
+public final class AppointmentSearchIndexService
+{
+    private static final String PROPERTY_ENABLED = "appointment.search.index.enabled";
+    private static final String PROPERTY_MAX_CANDIDATES = "appointment.search.index.maxCandidates";
+    private static final int DEFAULT_MAX_CANDIDATES = 1000;
+    private static final int BUILD_PAGE_SIZE = 1000;
+
+    private static final boolean ENABLED = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, false );
+    private static final int MAX_CANDIDATES = AppPropertiesService.getPropertyInt( PROPERTY_MAX_CANDIDATES, DEFAULT_MAX_CANDIDATES );
+
+    private static final ConcurrentMap<Integer, AppointmentSearchIndex> _mapSearchIndex = new ConcurrentHashMap<>( );
+    private static volatile boolean _bReady;
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AppointmentSearchIndexService( )
+    {
+    }
+
+    /**
+     * Build the indexes of all the forms in background, if the index is enabled
+     */
+    public static void init( )
+    {
+        if ( ENABLED )
+        {
+            AppointmentExecutorService.INSTANCE.execute( AppointmentSearchIndexService.class, AppointmentSearchIndexService::buildIndexes );
+        }
+    }
+
+    /**
+     * Get whether the search index is enabled. The searches then look for the text criteria as fragments of the values, in the index or in database.
+     * 
+     * @return true if the index is enabled
+     */
+    public static boolean isEnabled( )
+    {
+        return ENABLED;
+    }
+
+    /**
+     * Find the appointments matching the text criteria of a filter: the first name, last name, email, phone number and reference. The criteria are
+     * searched as fragments of the values of the appointments, on the form of the filter or on all the forms.
+     * 
+     * @param appointmentFilter
+     *            the filter
+     * @return the ids of the appointments found, or null if the search must be made in database: the index is not enabled or not built yet, the filter has
+     *         no text criteria or there are too many appointments found to be given to the database
+     */
+    public static Set<Integer> findCandidates( AppointmentFilterDTO appointmentFilter )
+    {
+        if ( !_bReady )
+        {
+            return null;
+        }
+        String [ ] criteria = new String [ AppointmentSearchIndex.NB_FIELDS];
+        criteria [AppointmentSearchIndex.FIELD_FIRST_NAME] = UserDAO.toSearchValue( appointmentFilter.getFirstName( ) );
+        criteria [AppointmentSearchIndex.FIELD_LAST_NAME] = UserDAO.toSearchValue( appointmentFilter.getLastName( ) );
+        criteria [AppointmentSearchIndex.FIELD_EMAIL] = UserDAO.toSearchValue( appointmentFilter.getEmail( ) );
+        criteria [AppointmentSearchIndex.FIELD_PHONE_NUMBER] = UserDAO.toSearchValue( appointmentFilter.getPhoneNumber( ) );
+        criteria [AppointmentSearchIndex.FIELD_REFERENCE] = UserDAO.toSearchValue( appointmentFilter.getReference( ) );
+        if ( Arrays.stream( criteria ).allMatch( StringUtils::isEmpty ) )
+        {
+            return null;
+        }
+        Set<Integer> setIdAppointment;
+        if ( appointmentFilter.getIdForm( ) != 0 )
+        {
+            AppointmentSearchIndex searchIndex = _mapSearchIndex.get( appointmentFilter.getIdForm( ) );
+            setIdAppointment = searchIndex != null ? searchIndex.search( criteria ) : new HashSet<>( );
+        }
+        else
+        {
+            setIdAppointment = new HashSet<>( );
+            for ( AppointmentSearchIndex searchIndex : _mapSearchIndex.values( ) )
+            {
+                setIdAppointment.addAll( searchIndex.search( criteria ) );
+            }
+        }
+        return setIdAppointment.size( ) > MAX_CANDIDATES ? null : setIdAppointment;
+    }
+
+    /**
+     * Index again an appointment, with its current values in database
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     */
+    public static void indexAppointment( int nIdAppointment )
+    {
+        if ( !ENABLED )
+        {
+            return;
+        }
+        Appointment appointment = AppointmentHome.findLightByPrimaryKey( nIdAppointment );
+        if ( appointment == null )
+        {
+            removeAppointment( nIdAppointment );
+            return;
+        }
+        int nIdForm = appointment.getSlot( ).get( 0 ).getIdForm( );
+        for ( Map.Entry<Integer, AppointmentSearchIndex> entry : _mapSearchIndex.entrySet( ) )
+        {
+            if ( entry.getKey( ) != nIdForm )
+            {
+                entry.getValue( ).remove( nIdAppointment );
+            }
+        }
+        getSearchIndex( nIdForm ).index( nIdAppointment, getValues( appointment ) );
+    }
+
+    /**
+     * Remove an appointment from the indexes
+     * 
+     * @param nIdAppointment
+     *            the appointment id
+     */
+    public static void removeAppointment( int nIdAppointment )
+    {
+        for ( AppointmentSearchIndex searchIndex : _mapSearchIndex.values( ) )
+        {
+            searchIndex.remove( nIdAppointment );
+        }
+    }
+
+    /**
+     * Remove the index of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public static void removeForm( int nIdForm )
+    {
+        _mapSearchIndex.remove( nIdForm );
+    }
+
+    /**
+     * Build the indexes of all the forms from the database. The appointments indexed by the listeners during the build are more recent than the values
+     * loaded, they are kept.
+     */
+    private static void buildIndexes( )
+    {
+        try
+        {
+            long lStart = System.currentTimeMillis( );
+            int nNbAppointments = 0;
+            List<Appointment> listAppointment = AppointmentHome.findLightFromId( 0, BUILD_PAGE_SIZE );
+            while ( !listAppointment.isEmpty( ) )
+            {
+                for ( Appointment appointment : listAppointment )
+                {
+                    getSearchIndex( appointment.getSlot( ).get( 0 ).getIdForm( ) ).indexIfAbsent( appointment.getIdAppointment( ),
+                            getValues( appointment ) );
+                    nNbAppointments++;
+                }
+                listAppointment = AppointmentHome.findLightFromId( listAppointment.get( listAppointment.size( ) - 1 ).getIdAppointment( ), BUILD_PAGE_SIZE );
+            }
+            _bReady = true;
+            AppLogService.info( "Appointment search index built with " + nNbAppointments + " appointments in " + ( System.currentTimeMillis( ) - lStart )
+                    + " ms" );
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Error building the appointment search index, the searches are made in database", e );
+        }
+    }
+
+    /**
+     * Get the index of a form, created if it does not exist
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the index of the form
+     */
+    private static AppointmentSearchIndex getSearchIndex( int nIdForm )
+    {
+        return _mapSearchIndex.computeIfAbsent( nIdForm, nKey -> new AppointmentSearchIndex( ) );
+    }
+
+    /**
+     * Get the values to index of a light appointment
+     * 
+     * @param appointment
+     *            the appointment, with its reference and its user
+     * @return the values, by field
+     */
+    private static String [ ] getValues( Appointment appointment )
+    {
+        User user = appointment.getUser( );
+        String [ ] values = new String [ AppointmentSearchIndex.NB_FIELDS];
+        values [AppointmentSearchIndex.FIELD_FIRST_NAME] = UserDAO.toSearchValue( user.getFirstName( ) );
+        values [AppointmentSearchIndex.FIELD_LAST_NAME] = UserDAO.toSearchValue( user.getLastName( ) );
+        values [AppointmentSearchIndex.FIELD_EMAIL] = UserDAO.toSearchValue( user.getEmail( ) );
+        values [AppointmentSearchIndex.FIELD_PHONE_NUMBER] = UserDAO.toSearchValue( user.getPhoneNumber( ) );
+        values [AppointmentSearchIndex.FIELD_REFERENCE] = UserDAO.toSearchValue( appointment.getReference( ) );
+        return values;
+    }
+}
@@ -36,7 +36,9 @@ package fr.paris.lutece.plugins.appointment.service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -254,7 +256,7 @@ public final class AppointmentService
     public static List<AppointmentDTO> findListAppointmentsDTOByFilter( AppointmentFilterDTO appointmentFilter )
     {
         List<AppointmentDTO> listAppointmentsDTO = new ArrayList<>( );
-        for ( Appointment appointment : AppointmentHome.findByFilter( appointmentFilter ) )
+        for ( Appointment appointment : findByFilterWithSearchIndex( appointmentFilter, AppointmentHome::findByFilter ) )
         {
             listAppointmentsDTO.add( buildAppointmentDTO( appointment ) );
         }
@@ -288,7 +290,7 @@ public final class AppointmentService
      */
     public static List<Appointment> findListAppointmentsByFilter( AppointmentFilterDTO appointmentFilter )
     {
-        return AppointmentHome.findByFilter( appointmentFilter );
+        return findByFilterWithSearchIndex( appointmentFilter, AppointmentHome::findByFilter );
     }
 
     /**
@@ -300,7 +302,48 @@ public final class AppointmentService
      */
     public static List<Integer> findListAppointmentsIdsByFilter( AppointmentFilterDTO appointmentFilter )
     {
-        return AppointmentHome.findIdsByFilter( appointmentFilter );
+        return findByFilterWithSearchIndex( appointmentFilter, AppointmentHome::findIdsByFilter );
+    }
+
+    /**
+     * Find the results of a filter in database, after having resolved its text criteria with the search index when possible: the text criteria are then
+     * replaced by the list of the ids of the appointments found by the index. When the index is enabled but can't be used (not built yet, too many
+     * appointments found), the database searches the same fragments, so that the results do not depend on the state of the index. The filter given is
+     * not modified.
+     *
+     * @param appointmentFilter
+     *         the filter
+     * @param finder
+     *         the function that finds the results of the filter in database
+     * @return the results of the filter
+     */
+    private static <T> List<T> findByFilterWithSearchIndex( AppointmentFilterDTO appointmentFilter, Function<AppointmentFilterDTO, List<T>> finder )
+    {
+        if ( !AppointmentSearchIndexService.isEnabled( ) )
+        {
+            return finder.apply( appointmentFilter );
+        }
+        AppointmentFilterDTO searchFilter = new AppointmentFilterDTO( appointmentFilter );
+        searchFilter.setFragmentSearch( true );
+        Set<Integer> setIdAppointmentFound = AppointmentSearchIndexService.findCandidates( appointmentFilter );
+        if ( setIdAppointmentFound == null )
+        {
+            return finder.apply( searchFilter );
+        }
+        List<Integer> listIdAppointment = appointmentFilter.getListIdAppointment( );
+        List<Integer> listIdCandidate = CollectionUtils.isEmpty( listIdAppointment ) ? new ArrayList<>( setIdAppointmentFound )
+                : listIdAppointment.stream( ).filter( setIdAppointmentFound::contains ).collect( Collectors.toList( ) );
+        if ( listIdCandidate.isEmpty( ) )
+        {
+            return new ArrayList<>( );
+        }
+        searchFilter.setFirstName( null );
+        searchFilter.setLastName( null );
+        searchFilter.setEmail( null );
+        searchFilter.setPhoneNumber( null );
+        searchFilter.setReference( null );
+        searchFilter.setListIdAppointment( listIdCandidate );
+        return finder.apply( searchFilter );
     }
 
     /**
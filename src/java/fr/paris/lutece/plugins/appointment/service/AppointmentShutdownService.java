@@ -34,6 +34,8 @@
 package fr.paris.lutece.plugins.appointment.service;
 
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.service.listeners.SlotChangeDispatcher;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService;
 import fr.paris.lutece.portal.service.init.ShutdownService;
 
 public class AppointmentShutdownService implements ShutdownService
@@ -55,8 +57,13 @@ public class AppointmentShutdownService implements ShutdownService
     public void process( )
     {
         AppointmentUtilities.shutdownSecheduledExecutor( );
+        SlotChangeDispatcher.shutdown( );
         AppointmentExecutorService.INSTANCE.shutdown( );
+        AvailabilitySearchService.shutdown( );
+        FormService.shutdownFormCopyExecutor( );
+        SlotPushService.shutdown( );
         SlotHome.resetPotentialRemainingPlaces( );
+        BookingMetricsService.unregisterMBean( );
 
     }
 
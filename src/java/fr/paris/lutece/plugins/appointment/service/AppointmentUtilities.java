@@ -39,7 +39,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -71,6 +70,7 @@ import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.user.User;
 import fr.paris.lutece.plugins.appointment.service.lock.SlotEditTask;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
@@ -649,8 +649,11 @@ public final class AppointmentUtilities
         ScheduledFuture<Slot> task = (ScheduledFuture) request.getSession( ).getAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
         if ( task != null )
         {
-            if ( !task.isDone( ) )
-                task.cancel( false );
+            if ( !task.isDone( ) && task.cancel( false ) )
+            {
+                // The task will not release the hold
+                BookingMetricsService.recordHoldEnded( );
+            }
             request.getSession( ).removeAttribute( SESSION_TASK_TIMER_SLOT + idSlot );
         }
     }
@@ -691,6 +694,7 @@ public final class AppointmentUtilities
                         AppPropertiesService.getPropertyInt( PROPERTY_DEFAULT_EXPIRED_TIME_EDIT_APPOINTMENT, 1 ), TimeUnit.MINUTES );
                 appointmentDTO.setNbMaxPotentialBookedSeats( nNewNbMaxPotentialBookedSeats );
                 SlotSafeService.decrementPotentialRemainingPlaces( nbPotentialPlacesTaken, slot.getIdSlot( ) );
+                BookingMetricsService.recordHoldStarted( );
 
                 request.getSession( ).setAttribute( SESSION_TASK_TIMER_SLOT + slot.getIdSlot( ), scheduledFuture );
                 return scheduledFuture;
@@ -1004,46 +1008,16 @@ public final class AppointmentUtilities
      */
     public static List<Slot> findSlotsImpactedByThisTimeSlot( TimeSlot timeSlot, int nIdForm, int nIdWeekDefinition, boolean bShiftSlot )
     {
-        List<Slot> listSlotsImpacted = null;
         // Get the weekDefinition that is currently modified
         WeekDefinition currentModifiedWeekDefinition = WeekDefinitionService.findWeekDefinitionById( nIdWeekDefinition );
-        // We have an upper bound to search with
-        List<Slot> listSlots = SlotService.findSlotsByIdFormAndDateRange( nIdForm, currentModifiedWeekDefinition.getDateOfApply( ).atStartOfDay( ),
-                currentModifiedWeekDefinition.getEndingDateOfApply( ).atTime( LocalTime.MAX ) );
-        // Need to check if the modification of the time slot or the typical
-        // week impacts these slots
         WorkingDay workingDay = WorkingDayService.findWorkingDayLightById( timeSlot.getIdWorkingDay( ) );
-        // Filter all the slots with the working day and the starting time
-        // ending time of the time slot
-        // The begin time of the slot can be before or after the begin time
-        // of the time slot
-        // and the ending time of the slot can be before or after the ending
-        // time of the time slot (specific slot)
-
-        // If shiftTimeSlot is checked, need to check all the slots impacted
-        // until the end of the day
-        if ( bShiftSlot )
-        {
-            listSlotsImpacted = listSlots.stream( )
-                    .filter( slot -> ( ( slot.getStartingDateTime( ).getDayOfWeek( ) == DayOfWeek.of( workingDay.getDayOfWeek( ) ) )
-                            && ( !slot.getStartingTime( ).isBefore( timeSlot.getStartingTime( ) )
-                                    || ( slot.getStartingTime( ).isBefore( timeSlot.getStartingTime( ) )
-                                            && ( slot.getEndingTime( ).isAfter( timeSlot.getStartingTime( ) ) ) ) ) ) )
-                    .collect( Collectors.toList( ) );
-        }
-        else
-        {
-            listSlotsImpacted = listSlots.stream( )
-                    .filter( slot -> ( slot.getStartingDateTime( ).getDayOfWeek( ) == DayOfWeek.of( workingDay.getDayOfWeek( ) ) )
-                            && ( slot.getStartingTime( ).equals( timeSlot.getStartingTime( ) )
-                                    || ( slot.getStartingTime( ).isBefore( timeSlot.getStartingTime( ) )
-                                            && ( slot.getEndingTime( ).isAfter( timeSlot.getStartingTime( ) ) ) )
-                                    || ( slot.getStartingTime( ).isAfter( timeSlot.getStartingTime( ) )
-                                            && ( !slot.getEndingTime( ).isAfter( timeSlot.getEndingTime( ) ) ) ) ) )
-                    .collect( Collectors.toList( ) );
-        }
-
-        return listSlotsImpacted;
+        // The slots of the working day of the week definition are filtered in the database with the starting time and the ending time of the time slot.
+        // The begin time of the slot can be before or after the begin time of the time slot and the ending time of the slot can be before or after the
+        // ending time of the time slot (specific slot).
+        // If shiftTimeSlot is checked, need to get all the slots impacted until the end of the day
+        return SlotService.findSlotsByIdFormAndDateRangeAndTimeSlot( nIdForm, currentModifiedWeekDefinition.getDateOfApply( ).atStartOfDay( ),
+                currentModifiedWeekDefinition.getEndingDateOfApply( ).atTime( LocalTime.MAX ), DayOfWeek.of( workingDay.getDayOfWeek( ) ),
+                timeSlot.getStartingTime( ), timeSlot.getEndingTime( ), bShiftSlot );
     }
 
     public static LocalDateTime getStartingDateTime( Appointment appointmentDTO )
@@ -1144,8 +1118,7 @@ public final class AppointmentUtilities
             // since today
             // We calculate the number of weeks including the current week, so it
             // will end to the (n) next sunday
-            LocalDate dateOfSunday = startingDateOfDisplay.with( WeekFields.of( locale ).dayOfWeek( ), DayOfWeek.SUNDAY.getValue( ) );
-            LocalDate endingDateOfDisplay = dateOfSunday.plusWeeks( (long) appointmentFormDTO.getNbWeeksToDisplay( ) - 1 );
+            LocalDate endingDateOfDisplay = Utilities.getEndingDateOfDisplay( startingDateOfDisplay, appointmentFormDTO.getNbWeeksToDisplay( ), locale );
             Date endingValidityDate = appointmentFormDTO.getDateEndValidity( );
             if ( endingValidityDate != null && endingDateOfDisplay.isAfter( endingValidityDate.toLocalDate( ) ) )
             {
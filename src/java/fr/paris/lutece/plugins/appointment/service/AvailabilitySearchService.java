@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Service that searches the earliest available slots across several forms (for example all the forms of a category).
+ * 
+ * The forms are evaluated in parallel on a bounded fork-join pool. The first available date of each form, read from its availability index (see
+ * {@link NextAvailabilityService}), is a lower bound of its slots: the forms are evaluated by ascending lower bound, and the search stops as soon as the
+ * requested number of slots start before the lower bound of every remaining form.
+ */
+public final class AvailabilitySearchService
+{
+    private static final String PROPERTY_SEARCH_POOL_PARALLELISM = "appointment.availability.search.pool.parallelism";
+    private static final ForkJoinPool _searchPool = new ForkJoinPool(
+            AppPropertiesService.getPropertyInt( PROPERTY_SEARCH_POOL_PARALLELISM, Runtime.getRuntime( ).availableProcessors( ) ) );
+
+    private static final Comparator<Slot> COMPARATOR_SLOT = Comparator.comparing( Slot::getStartingDateTime ).thenComparingInt( Slot::getIdForm );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AvailabilitySearchService( )
+    {
+    }
+
+    /**
+     * Find the earliest available slots of the active forms of a category
+     * 
+     * @param nIdCategory
+     *            the category Id
+     * @param nNbSlots
+     *            the number of slots to find
+     * @param locale
+     *            the locale, giving the weeks of the period displayed by the forms
+     * @return the earliest available slots, sorted by starting date
+     */
+    public static List<Slot> findEarliestSlotsByCategory( int nIdCategory, int nNbSlots, Locale locale )
+    {
+        List<Integer> listIdForm = FormService.findAllActiveForms( ).stream( )
+                .filter( form -> form.getIdCategory( ) != null && form.getIdCategory( ) == nIdCategory ).map( Form::getIdForm )
+                .collect( Collectors.toList( ) );
+        return findEarliestSlots( listIdForm, nNbSlots, locale );
+    }
+
+    /**
+     * Find the earliest available slots of a list of forms. The inactive forms are ignored.
+     * 
+     * @param listIdForm
+     *            the list of the form Ids
+     * @param nNbSlots
+     *            the number of slots to find
+     * @param locale
+     *            the locale, giving the weeks of the period displayed by the forms
+     * @return the earliest available slots, sorted by starting date
+     */
+    public static List<Slot> findEarliestSlots( List<Integer> listIdForm, int nNbSlots, Locale locale )
+    {
+        if ( nNbSlots <= 0 || listIdForm.isEmpty( ) )
+        {
+            return new ArrayList<>( );
+        }
+        // Get the lower bound of each form, and keep only the forms that have an available slot
+        List<Callable<FormLowerBound>> listTaskLowerBound = listIdForm.stream( ).distinct( )
+                .map( nIdForm -> (Callable<FormLowerBound>) ( ) -> findLowerBound( nIdForm, locale ) ).collect( Collectors.toList( ) );
+        List<FormLowerBound> listLowerBound = new ArrayList<>( );
+        for ( FormLowerBound lowerBound : invokeAll( listTaskLowerBound ) )
+        {
+            if ( lowerBound != null )
+            {
+                listLowerBound.add( lowerBound );
+            }
+        }
+        listLowerBound.sort( Comparator.comparing( FormLowerBound::getFirstAvailableDate ) );
+
+        // The candidates, with the latest one at the head
+        PriorityQueue<Slot> queueCandidate = new PriorityQueue<>( nNbSlots, COMPARATOR_SLOT.reversed( ) );
+        int nIndex = 0;
+        while ( nIndex < listLowerBound.size( ) )
+        {
+            LocalDateTime dateTimeThreshold = ( queueCandidate.size( ) < nNbSlots ) ? null : queueCandidate.peek( ).getStartingDateTime( );
+            // Evaluate in parallel the next forms that may still have a slot before the threshold
+            List<Callable<List<Slot>>> listTaskSlot = new ArrayList<>( );
+            while ( nIndex < listLowerBound.size( ) && listTaskSlot.size( ) < _searchPool.getParallelism( ) )
+            {
+                FormLowerBound lowerBound = listLowerBound.get( nIndex );
+                if ( dateTimeThreshold != null && !lowerBound.getFirstAvailableDate( ).atStartOfDay( ).isBefore( dateTimeThreshold ) )
+                {
+                    // The forms are sorted by lower bound: none of the remaining forms can beat the candidates
+                    nIndex = listLowerBound.size( );
+                    break;
+                }
+                listTaskSlot.add( ( ) -> NextAvailabilityService.findFirstAvailableSlots( lowerBound.getIdForm( ), lowerBound.getDateTimeFrom( ),
+                        dateTimeThreshold, nNbSlots ) );
+                nIndex++;
+            }
+            for ( List<Slot> listSlot : invokeAll( listTaskSlot ) )
+            {
+                if ( listSlot == null )
+                {
+                    continue;
+                }
+                for ( Slot slot : listSlot )
+                {
+                    queueCandidate.add( slot );
+                    if ( queueCandidate.size( ) > nNbSlots )
+                    {
+                        queueCandidate.poll( );
+                    }
+                }
+            }
+        }
+        List<Slot> listEarliestSlot = new ArrayList<>( queueCandidate );
+        listEarliestSlot.sort( COMPARATOR_SLOT );
+        return listEarliestSlot;
+    }
+
+    /**
+     * Shutdown the pool of the search
+     */
+    public static void shutdown( )
+    {
+        _searchPool.shutdown( );
+        try
+        {
+            if ( !_searchPool.awaitTermination( 60, TimeUnit.SECONDS ) )
+            {
+                _searchPool.shutdownNow( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+            _searchPool.shutdownNow( );
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Find the lower bound of the slots of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param locale
+     *            the locale, giving the weeks of the period displayed by the form
+     * @return the lower bound, or null if the form is not active or has no available slot
+     */
+    private static FormLowerBound findLowerBound( int nIdForm, Locale locale )
+    {
+        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+        if ( form == null || !form.getIsActive( ) )
+        {
+            return null;
+        }
+        FormRule formRule = FormRuleService.findFormRuleWithFormId( nIdForm );
+        int nMinTimeBeforeAppointment = ( formRule != null ) ? formRule.getMinTimeBeforeAppointment( ) : 0;
+        LocalDateTime dateTimeFrom = LocalDateTime.now( ).plusHours( nMinTimeBeforeAppointment );
+        LocalDate firstAvailableDate = NextAvailabilityService.findFirstAvailableDate( nIdForm, dateTimeFrom, locale );
+        if ( firstAvailableDate == null )
+        {
+            return null;
+        }
+        return new FormLowerBound( nIdForm, dateTimeFrom, firstAvailableDate );
+    }
+
+    /**
+     * Execute the tasks on the pool of the search, and wait for their results
+     * 
+     * @param listTask
+     *            the tasks
+     * @return the results of the tasks, null for the tasks that failed
+     */
+    private static <T> List<T> invokeAll( List<Callable<T>> listTask )
+    {
+        List<T> listResult = new ArrayList<>( listTask.size( ) );
+        for ( Future<T> future : _searchPool.invokeAll( listTask ) )
+        {
+            try
+            {
+                listResult.add( future.get( ) );
+            }
+            catch( ExecutionException e )
+            {
+                AppLogService.error( "Error while searching the earliest available slots", e );
+                listResult.add( null );
+            }
+            catch( InterruptedException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+                Thread.currentThread( ).interrupt( );
+                listResult.add( null );
+            }
+        }
+        return listResult;
+    }
+
+    /**
+     * The lower bound of the slots of a form
+     */
+    private static final class FormLowerBound
+    {
+        private final int _nIdForm;
+        private final LocalDateTime _dateTimeFrom;
+        private final LocalDate _firstAvailableDate;
+
+        /**
+         * Constructor
+         * 
+         * @param nIdForm
+         *            the form Id
+         * @param dateTimeFrom
+         *            the slots of the form must start after this date time
+         * @param firstAvailableDate
+         *            the first available date of the form
+         */
+        FormLowerBound( int nIdForm, LocalDateTime dateTimeFrom, LocalDate firstAvailableDate )
+        {
+            _nIdForm = nIdForm;
+            _dateTimeFrom = dateTimeFrom;
+            _firstAvailableDate = firstAvailableDate;
+        }
+
+        int getIdForm( )
+        {
+            return _nIdForm;
+        }
+
+        LocalDateTime getDateTimeFrom( )
+        {
+            return _dateTimeFrom;
+        }
+
+        LocalDate getFirstAvailableDate( )
+        {
+            return _firstAvailableDate;
+        }
+    }
+}
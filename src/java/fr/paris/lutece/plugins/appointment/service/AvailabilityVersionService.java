@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that keeps, for each form, a version of its availability. The version is incremented each time a slot, a week definition or the settings of the
+ * form change, so that it can be used as an ETag by the clients that poll the availability of a form.
+ * 
+ * The versions start from the time the service is loaded, so they keep increasing after a restart of the webapp.
+ * 
+ * The versions are kept in memory and only incremented by the changes made on this webapp: they assume a single node. On a cluster, the changes made on
+ * the other nodes are not seen, so the ETag of the availability must be disabled (property appointment.availability.etag.enabled).
+ */
+public final class AvailabilityVersionService
+{
+    private static final long STARTING_VERSION = System.currentTimeMillis( );
+    private static final ConcurrentMap<Integer, AtomicLong> _mapVersion = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private AvailabilityVersionService( )
+    {
+    }
+
+    /**
+     * Get the current availability version of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the version
+     */
+    public static long getVersion( int nIdForm )
+    {
+        return getCounter( nIdForm ).get( );
+    }
+
+    /**
+     * Increment the availability version of a form, after a change of its availability
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the new version
+     */
+    public static long incrementVersion( int nIdForm )
+    {
+        return getCounter( nIdForm ).incrementAndGet( );
+    }
+
+    /**
+     * Get the counter of the version of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the counter
+     */
+    private static AtomicLong getCounter( int nIdForm )
+    {
+        return _mapVersion.computeIfAbsent( nIdForm, nId -> new AtomicLong( STARTING_VERSION ) );
+    }
+}
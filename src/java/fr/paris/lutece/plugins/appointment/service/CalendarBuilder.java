@@ -86,7 +86,6 @@ public class CalendarBuilder
         LocalTime timeTemp;
         LocalDateTime dateTimeTemp;
         Slot slotToAdd;
-        TimeSlot timeSlot;
         LocalDate dateToCompare;
         // Need to check if this date is not before the form date creation
         WeekDefinition firsWeek = listDateReservationRule.stream( ).sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) )
@@ -97,8 +96,8 @@ public class CalendarBuilder
         {
             startingDateToUse = firstDateOfReservationRule;
         }
-        // Get all the closing day of this period
-        List<LocalDate> listDateOfClosingDay = ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate );
+        // Get the closing days of the form
+        ClosingDayIndex closingDayIndex = ClosingDayService.getClosingDayIndex( nIdForm );
         // Get all the slot between these two dates
         Map<LocalDateTime, Slot> mapSlot = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ),
                 endingDate.atTime( LocalTime.MAX ) );
@@ -133,44 +132,14 @@ public class CalendarBuilder
                 minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
                 maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
                 // Check if this day is a closing day
-                if ( listDateOfClosingDay.contains( dateTemp ) )
+                if ( closingDayIndex.contains( dateTemp ) )
                 {
                     listSlot.add( SlotService.buildSlot( nIdForm, new Period( dateTemp.atTime( minTimeForThisDay ), dateTemp.atTime( maxTimeForThisDay ) ),
                             nMaxCapacity, nMaxCapacity, nMaxCapacity, 0, Boolean.FALSE, Boolean.FALSE ) );
                 }
                 else
                 {
-                    timeTemp = minTimeForThisDay;
-                    // For each slot of this day
-                    while ( timeTemp.isBefore( maxTimeForThisDay ) || !timeTemp.equals( maxTimeForThisDay ) )
-                    {
-                        // Get the LocalDateTime
-                        dateTimeTemp = dateTemp.atTime( timeTemp );
-                        // Search if there is a slot for this datetime
-                        if ( mapSlot.containsKey( dateTimeTemp ) )
-                        {
-                            slotToAdd = mapSlot.get( dateTimeTemp );
-                            timeTemp = slotToAdd.getEndingDateTime( ).toLocalTime( );
-                            listSlot.add( slotToAdd );
-                        }
-                        else
-                        {
-                            // Search the timeslot
-                            timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
-                            if ( timeSlot != null )
-                            {
-                                timeTemp = timeSlot.getEndingTime( );
-                                int nMaxCapacityToPut = timeSlot.getMaxCapacity( );
-                                slotToAdd = SlotService.buildSlot( nIdForm, new Period( dateTimeTemp, dateTemp.atTime( timeTemp ) ), nMaxCapacityToPut,
-                                        nMaxCapacityToPut, nMaxCapacityToPut, 0, timeSlot.getIsOpen( ), Boolean.FALSE );
-                                listSlot.add( slotToAdd );
-                            }
-                            else
-                            {
-                                break;
-                            }
-                        }
-                    }
+                    listSlot.addAll( buildListSlotOfWorkingDay( nIdForm, dateTemp, workingDay, mapSlot ) );
                 }
             }
             else
@@ -218,7 +187,8 @@ public class CalendarBuilder
     }
 
     /**
-     * Build all the slot for a period with all the rules (open hours ...) to apply on each day, for each slot
+     * Build all the slots of nNbPlaces consecutive slots that can be taken for a period, with all the rules (open hours ...) to apply on each day. The
+     * consecutive slots of each day are grouped by the {@link SlotWindowEngine}
      * 
      * @param nIdForm
      *            the form Id
@@ -243,26 +213,8 @@ public class CalendarBuilder
         WeekDefinition closestweeDef;
         ReservationRule reservationRuleToApply = null;
         LocalDate dateTemp = startingDate;
-        DayOfWeek dayOfWeek;
         WorkingDay workingDay;
-        LocalTime minTimeForThisDay;
-        LocalTime maxTimeForThisDay;
-        LocalTime timeTemp;
-        LocalDateTime dateTimeTemp;
-        LocalDateTime endingDateTime;
-        LocalDateTime startingDateTime = null;
-        LocalTime tempEndingDateTime = null;
         LocalDateTime localDateTimeNow = LocalDateTime.now( );
-
-        boolean isChanged = true;
-        boolean isfull = false;
-        int sumNbPotentialRemainingPlaces;
-        int sumNbRemainingPlaces;
-        int nbSlot;
-
-        Slot slotToAdd;
-        TimeSlot timeSlot;
-        LocalDate dateToCompare;
         // Need to check if this date is not before the form date creation
         WeekDefinition firsWeek = listDateReservationRule.stream( ).sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) )
                 .findFirst( ).orElse( null );
@@ -272,8 +224,8 @@ public class CalendarBuilder
         {
             startingDateToUse = firstDateOfReservationRule;
         }
-        // Get all the closing day of this period
-        List<LocalDate> listDateOfClosingDay = ClosingDayService.findListDateOfClosingDayByIdFormAndDateRange( nIdForm, startingDateToUse, endingDate );
+        // Get the closing days of the form
+        ClosingDayIndex closingDayIndex = ClosingDayService.getClosingDayIndex( nIdForm );
         // Get all the slot between these two dates
         Map<LocalDateTime, Slot> mapSlot = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, startingDateToUse.atStartOfDay( ),
                 endingDate.atTime( LocalTime.MAX ) );
@@ -281,148 +233,79 @@ public class CalendarBuilder
         // Get or build all the event for the period
         while ( !dateTemp.isAfter( endingDate ) )
         {
-            dateToCompare = dateTemp;
             // Find the closest date of apply of reservation rule with the given
             // date
             reservationRuleToApply = null;
-            closestweeDef = Utilities.getClosestWeekDefinitionInPast( listDateReservationRule, dateToCompare );
+            closestweeDef = Utilities.getClosestWeekDefinitionInPast( listDateReservationRule, dateTemp );
             if ( closestweeDef != null )
             {
-
                 reservationRuleToApply = mapReservationRule.get( closestweeDef );
-
             }
-            // Get the day of week of the date
-            dayOfWeek = dateTemp.getDayOfWeek( );
             // Get the working day of this day of week
             workingDay = null;
             if ( reservationRuleToApply != null )
             {
-                workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRuleToApply.getListWorkingDay( ), dayOfWeek );
-
+                workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRuleToApply.getListWorkingDay( ), dateTemp.getDayOfWeek( ) );
             }
-
-            if ( workingDay != null )
+            // Only the open days can have slots to take
+            if ( workingDay != null && !closingDayIndex.contains( dateTemp ) )
             {
-                minTimeForThisDay = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
-                maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
-                // Check if this day is a closing day
-                if ( !listDateOfClosingDay.contains( dateTemp ) )
-                {
-                    timeTemp = minTimeForThisDay;
-                    sumNbPotentialRemainingPlaces = 0;
-                    sumNbRemainingPlaces = 0;
-                    nbSlot = 0;
-                    isChanged = true;
-                    tempEndingDateTime = timeTemp;
-                    // For each slot of this day
-                    while ( timeTemp.isBefore( maxTimeForThisDay ) || !timeTemp.equals( maxTimeForThisDay ) )
-                    {
-
-                        // Get the LocalDateTime
-                        dateTimeTemp = dateTemp.atTime( timeTemp );
-                        // Search if there is a slot for this datetime
-                        if ( isChanged )
-                        {
-
-                            startingDateTime = dateTimeTemp;
-                            isChanged = false;
-                        }
-                        if ( mapSlot.containsKey( dateTimeTemp ) )
-                        {
-                            slotToAdd = mapSlot.get( dateTimeTemp );
-                            timeTemp = slotToAdd.getEndingDateTime( ).toLocalTime( );
-
-                        }
-                        else
-                        {
-                            // Search the timeslot
-                            timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
-                            if ( timeSlot != null )
-                            {
-                                timeTemp = timeSlot.getEndingTime( );
-                                int nMaxCapacityToPut = timeSlot.getMaxCapacity( );
-                                slotToAdd = SlotService.buildSlot( nIdForm, new Period( dateTimeTemp, dateTemp.atTime( timeTemp ) ), nMaxCapacityToPut,
-                                        nMaxCapacityToPut, nMaxCapacityToPut, 0, timeSlot.getIsOpen( ), Boolean.FALSE );
-
-                            }
-                            else
-                            {
-                                break;
-                            }
-                        }
-
-                        if ( isNewSlot( sumNbPotentialRemainingPlaces, nNbPlaces, slotToAdd, localDateTimeNow, isAllOpenSlot, nbSlot ) )
-                        {
-
-                            sumNbPotentialRemainingPlaces = 0;
-                            nbSlot = 0;
-                            sumNbRemainingPlaces = 0;
-                            startingDateTime = slotToAdd.getEndingDateTime( );
-                            tempEndingDateTime = slotToAdd.getEndingTime( );
-                        }
-                        else
-                        {
-                            if ( slotToAdd.getNbPotentialRemainingPlaces( ) <= 0 )
-                            {
-                                isfull = true;
-                            }
-                            sumNbPotentialRemainingPlaces = sumNbPotentialRemainingPlaces + 1;
-                            nbSlot = nbSlot + 1;
-                            sumNbRemainingPlaces = sumNbRemainingPlaces + 1;
-                        }
-
-                        if ( buildNewSlot( sumNbPotentialRemainingPlaces, nNbPlaces, isAllOpenSlot, nbSlot ) )
-                        {
-
-                            endingDateTime = slotToAdd.getEndingDateTime( );
-                            Slot slt = new Slot( );
-                            slt.setStartingDateTime( startingDateTime );
-                            slt.setEndingDateTime( endingDateTime );
-                            slt.setIsOpen( true );
-                            slt.setNbPotentialRemainingPlaces( sumNbPotentialRemainingPlaces );
-                            slt.setNbRemainingPlaces( sumNbRemainingPlaces );
-                            slt.setDate( slotToAdd.getDate( ) );
-                            slt.setIdForm( slotToAdd.getIdForm( ) );
-                            slt.setIsFull( isfull ? 1 : 0 );
-                            listSlotToShow.add( slt );
-                            isChanged = true;
-                            isfull = false;
-                            timeTemp = tempEndingDateTime;
-                        }
-
-                    }
-                }
+                List<Slot> listSlotOfTheDay = buildListSlotOfWorkingDay( nIdForm, dateTemp, workingDay, mapSlot );
+                listSlotToShow.addAll( SlotWindowEngine.buildListWindowSlot( listSlotOfTheDay, nNbPlaces, isAllOpenSlot, localDateTimeNow ) );
             }
-
             dateTemp = dateTemp.plusDays( 1 );
         }
         return listSlotToShow;
 
     }
 
-    private static boolean isNewSlot( int sumNbPotentialRemainingPlaces, int nNbPlaces, Slot slotToAdd, LocalDateTime localDateTimeNow, boolean isAllOpenSlot,
-            int nbSlot )
-    {
-
-        if ( isAllOpenSlot )
-        {
-
-            return nbSlot == nNbPlaces || !slotToAdd.getIsOpen( ) || slotToAdd.getEndingDateTime( ).isBefore( localDateTimeNow );
-        }
-
-        return sumNbPotentialRemainingPlaces >= nNbPlaces || !slotToAdd.getIsOpen( ) || slotToAdd.getNbPotentialRemainingPlaces( ) <= 0
-                || slotToAdd.getEndingDateTime( ).isBefore( localDateTimeNow );
-    }
-
-    private static boolean buildNewSlot( int sumNbPotentialRemainingPlaces, int nNbPlaces, boolean isAllOpenSlot, int nbSlot )
+    /**
+     * Build the ordered list of the slots of a working day, with the slots in database or built from the time slots of the working day
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param date
+     *            the date of the day
+     * @param workingDay
+     *            the working day to apply
+     * @param mapSlot
+     *            the slots in database, with their starting date time for key
+     * @return the slots of the day, in chronological order
+     */
+    private static List<Slot> buildListSlotOfWorkingDay( int nIdForm, LocalDate date, WorkingDay workingDay, Map<LocalDateTime, Slot> mapSlot )
     {
-        if ( isAllOpenSlot )
+        List<Slot> listSlotOfTheDay = new ArrayList<>( );
+        LocalTime maxTimeForThisDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
+        LocalTime timeTemp = WorkingDayService.getMinStartingTimeOfAWorkingDay( workingDay );
+        LocalDateTime dateTimeTemp;
+        Slot slotToAdd;
+        TimeSlot timeSlot;
+        // For each slot of this day
+        while ( !timeTemp.equals( maxTimeForThisDay ) )
         {
-
-            return nbSlot == nNbPlaces;
+            // Get the LocalDateTime
+            dateTimeTemp = date.atTime( timeTemp );
+            // Search if there is a slot for this datetime
+            if ( mapSlot.containsKey( dateTimeTemp ) )
+            {
+                slotToAdd = mapSlot.get( dateTimeTemp );
+                timeTemp = slotToAdd.getEndingDateTime( ).toLocalTime( );
+            }
+            else
+            {
+                // Search the timeslot
+                timeSlot = TimeSlotService.getTimeSlotInListOfTimeSlotWithStartingTime( workingDay.getListTimeSlot( ), timeTemp );
+                if ( timeSlot == null )
+                {
+                    break;
+                }
+                timeTemp = timeSlot.getEndingTime( );
+                int nMaxCapacityToPut = timeSlot.getMaxCapacity( );
+                slotToAdd = SlotService.buildSlot( nIdForm, new Period( dateTimeTemp, date.atTime( timeTemp ) ), nMaxCapacityToPut, nMaxCapacityToPut,
+                        nMaxCapacityToPut, 0, timeSlot.getIsOpen( ), Boolean.FALSE );
+            }
+            listSlotOfTheDay.add( slotToAdd );
         }
-
-        return sumNbPotentialRemainingPlaces >= nNbPlaces;
+        return listSlotOfTheDay;
     }
 }
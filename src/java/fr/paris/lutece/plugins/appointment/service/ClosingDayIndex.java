@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable index of the closing days of a form. The closing days are stored in a bitmap indexed by epoch day, so that checking if a date is a closing day
+ * does not depend on the number of closing days of the form
+ */
+public final class ClosingDayIndex
+{
+    /**
+     * The epoch day of the bit 0 of the bitmap
+     */
+    private final long _lOffset;
+
+    /**
+     * The bitmap of the closing days
+     */
+    private final BitSet _bitSetClosingDay;
+
+    /**
+     * Constructor
+     * 
+     * @param collectionDateOfClosingDay
+     *            the dates of the closing days of the form
+     */
+    public ClosingDayIndex( Collection<LocalDate> collectionDateOfClosingDay )
+    {
+        long lMinEpochDay = Long.MAX_VALUE;
+        for ( LocalDate date : collectionDateOfClosingDay )
+        {
+            lMinEpochDay = Math.min( lMinEpochDay, date.toEpochDay( ) );
+        }
+        _lOffset = collectionDateOfClosingDay.isEmpty( ) ? 0 : lMinEpochDay;
+        _bitSetClosingDay = new BitSet( );
+        for ( LocalDate date : collectionDateOfClosingDay )
+        {
+            _bitSetClosingDay.set( (int) ( date.toEpochDay( ) - _lOffset ) );
+        }
+    }
+
+    /**
+     * Check if a date is a closing day
+     * 
+     * @param date
+     *            the date
+     * @return true if the date is a closing day
+     */
+    public boolean contains( LocalDate date )
+    {
+        long lIndex = date.toEpochDay( ) - _lOffset;
+        return lIndex >= 0 && lIndex < _bitSetClosingDay.length( ) && _bitSetClosingDay.get( (int) lIndex );
+    }
+
+    /**
+     * Get the closing dates of a period
+     * 
+     * @param startingDate
+     *            the starting date of the period
+     * @param endingDate
+     *            the ending date of the period
+     * @return the closing dates of the period, in chronological order
+     */
+    public List<LocalDate> getListDateOfClosingDay( LocalDate startingDate, LocalDate endingDate )
+    {
+        List<LocalDate> listDate = new ArrayList<>( );
+        long lFromIndex = Math.max( 0, startingDate.toEpochDay( ) - _lOffset );
+        long lToIndex = endingDate.toEpochDay( ) - _lOffset;
+        if ( lToIndex < lFromIndex || lFromIndex >= _bitSetClosingDay.length( ) )
+        {
+            return listDate;
+        }
+        for ( int nIndex = _bitSetClosingDay.nextSetBit( (int) lFromIndex ); nIndex >= 0 && nIndex <= lToIndex; nIndex = _bitSetClosingDay
+                .nextSetBit( nIndex + 1 ) )
+        {
+            listDate.add( LocalDate.ofEpochDay( _lOffset + nIndex ) );
+        }
+        return listDate;
+    }
+
+    /**
+     * Check if the form has no closing day
+     * 
+     * @return true if there is no closing day
+     */
+    public boolean isEmpty( )
+    {
+        return _bitSetClosingDay.isEmpty( );
+    }
+}
@@ -42,6 +42,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.FilenameUtils;
@@ -66,6 +68,11 @@ public final class ClosingDayService
 
     private static final String MARK_EXCEL_EXTENSION_XLSX = "xlsx";
 
+    /**
+     * The closing day indexes of the forms, shared by all the calendar builds
+     */
+    private static final ConcurrentMap<Integer, ClosingDayIndex> _mapClosingDayIndex = new ConcurrentHashMap<>( );
+
     /**
      * Private constructor - this class does not need to be instantiated
      */
@@ -86,13 +93,32 @@ public final class ClosingDayService
      */
     public static List<LocalDate> findListDateOfClosingDayByIdFormAndDateRange( int nIdForm, LocalDate startingDate, LocalDate endingDate )
     {
-        List<LocalDate> listDate = new ArrayList<>( );
-        List<ClosingDay> listClosingDay = ClosingDayHome.findByIdFormAndDateRange( nIdForm, startingDate, endingDate );
-        for ( ClosingDay closingDay : listClosingDay )
-        {
-            listDate.add( closingDay.getDateOfClosingDay( ) );
-        }
-        return listDate;
+        return getClosingDayIndex( nIdForm ).getListDateOfClosingDay( startingDate, endingDate );
+    }
+
+    /**
+     * Get the index of the closing days of a form. The index is loaded once and kept in memory until a closing day of the form is saved or removed
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the index of the closing days of the form
+     */
+    public static ClosingDayIndex getClosingDayIndex( int nIdForm )
+    {
+        return _mapClosingDayIndex.computeIfAbsent( nIdForm, nKey -> new ClosingDayIndex( findListDateOfClosingDayByIdForm( nKey ) ) );
+    }
+
+    /**
+     * Reset the index of the closing days of a form, it will be reloaded at the next use
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public static void resetClosingDayIndex( int nIdForm )
+    {
+        _mapClosingDayIndex.remove( nIdForm );
+        NextAvailabilityService.resetFormAvailability( nIdForm );
+        AvailabilityVersionService.incrementVersion( nIdForm );
     }
 
     /**
@@ -170,6 +196,7 @@ public final class ClosingDayService
         closingDay.setIdForm( nIdForm );
         closingDay.setDateOfClosingDay( closingDate );
         ClosingDayHome.create( closingDay );
+        resetClosingDayIndex( nIdForm );
     }
 
     /**
@@ -181,6 +208,7 @@ public final class ClosingDayService
     public static void saveClosingDay( ClosingDay closingDay )
     {
         ClosingDayHome.create( closingDay );
+        resetClosingDayIndex( closingDay.getIdForm( ) );
     }
 
     /**
@@ -192,6 +220,33 @@ public final class ClosingDayService
     public static void removeClosingDay( ClosingDay closingDay )
     {
         ClosingDayHome.delete( closingDay.getIdClosingDay( ) );
+        resetClosingDayIndex( closingDay.getIdForm( ) );
+    }
+
+    /**
+     * Remove, if it exists, the closing day of a form for a given date
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param dateOfClosingDay
+     *            the date of the closing day
+     */
+    public static void removeClosingDay( int nIdForm, LocalDate dateOfClosingDay )
+    {
+        ClosingDayHome.deleteByIdFormAndDateOfClosingDay( nIdForm, dateOfClosingDay );
+        resetClosingDayIndex( nIdForm );
+    }
+
+    /**
+     * Remove all the closing days of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public static void removeListClosingDay( int nIdForm )
+    {
+        ClosingDayHome.deleteByIdForm( nIdForm );
+        resetClosingDayIndex( nIdForm );
     }
 
     /**
@@ -89,6 +89,7 @@ public final class DisplayService
         Display display = new Display( );
         fillInDisplayWithAppointmentForm( display, appointmentForm, nIdForm );
         DisplayHome.create( display );
+        FormService.resetFormConfiguration( display.getIdForm( ) );
         return display;
     }
 
@@ -101,6 +102,7 @@ public final class DisplayService
     public static void saveDisplay( Display display )
     {
         DisplayHome.create( display );
+        FormService.resetFormConfiguration( display.getIdForm( ) );
     }
 
     /**
@@ -117,6 +119,7 @@ public final class DisplayService
         Display display = DisplayService.findDisplayWithFormId( nIdForm );
         fillInDisplayWithAppointmentForm( display, appointmentForm, nIdForm );
         DisplayHome.update( display );
+        FormService.resetFormConfiguration( display.getIdForm( ) );
         return display;
     }
 
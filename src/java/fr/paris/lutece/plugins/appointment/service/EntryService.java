@@ -35,15 +35,21 @@ package fr.paris.lutece.plugins.appointment.service;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.collections.CollectionUtils;
 
 import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.service.entrytype.EntryTypeSelectSQL;
 import fr.paris.lutece.plugins.appointment.web.AppointmentApp;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
@@ -99,6 +105,18 @@ public final class EntryService extends RemovalListenerService implements Serial
     private static final String TEMPLATE_DIV_CONDITIONAL_ENTRY_FO = "skin/plugins/appointment/html_code_div_conditional_entry.html";
     private static final String TEMPLATE_DIV_CONDITIONAL_ENTRY_BO = "admin/plugins/appointment/html_code_div_conditional_entry.html";
 
+    private static final String KEY_SEPARATOR = "-";
+
+    /**
+     * The html of the entries, by entry id, locale and office
+     */
+    private static final ConcurrentMap<String, EntryFragment> _mapEntryFragment = new ConcurrentHashMap<>( );
+
+    /**
+     * Number of resets, to not keep an html rendered while its form was changed
+     */
+    private static final AtomicLong _lFragmentResetCount = new AtomicLong( );
+
     /**
      * Get an instance of the service
      * 
@@ -496,28 +514,92 @@ public final class EntryService extends RemovalListenerService implements Serial
     }
 
     /**
-     * Get the html part of the additional entry of the form
+     * Get the html part of the additional entry of the form. The html of an entry is kept by locale, and reused as long as the appointment has no response
+     * to display in this entry or in one of its children or conditional questions.
      * 
+     * @param model
+     *            the model
      * @param nIdEntry
      *            the entry id
      * @param stringBuffer
      *            the string buffer
      * @param locale
+     *            the locale
      * @param bDisplayFront
-     * @param request
+     *            true for the front office
+     * @param appointmentDTO
+     *            the appointment
      */
     public static void getHtmlEntry( Map<String, Object> model, int nIdEntry, StringBuilder stringBuffer, Locale locale, boolean bDisplayFront,
             AppointmentDTO appointmentDTO )
+    {
+        String strKey = nIdEntry + KEY_SEPARATOR + locale + KEY_SEPARATOR + bDisplayFront;
+        EntryFragment fragment = _mapEntryFragment.get( strKey );
+        if ( fragment != null && !fragment.isExpired( ) && !fragment.hasResponses( appointmentDTO ) )
+        {
+            stringBuffer.append( fragment._strHtml );
+            return;
+        }
+        long lResetCount = _lFragmentResetCount.get( );
+        fragment = new EntryFragment( );
+        int nStart = stringBuffer.length( );
+        buildHtmlEntry( model, nIdEntry, stringBuffer, locale, bDisplayFront, appointmentDTO, fragment );
+        if ( !fragment.hasResponses( appointmentDTO ) )
+        {
+            fragment._strHtml = stringBuffer.substring( nStart );
+            _mapEntryFragment.put( strKey, fragment );
+            // Do not keep an html that may have been rendered before a change of the form
+            if ( _lFragmentResetCount.get( ) != lResetCount )
+            {
+                _mapEntryFragment.remove( strKey, fragment );
+            }
+        }
+    }
+
+    /**
+     * Remove the html of the entries of a form kept by {@link #getHtmlEntry(Map, int, StringBuilder, Locale, boolean, AppointmentDTO)}. Has to be called after
+     * each change of an entry or a field of the form.
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public static void resetHtmlEntries( int nIdForm )
+    {
+        _lFragmentResetCount.incrementAndGet( );
+        _mapEntryFragment.values( ).removeIf( fragment -> fragment._nIdForm == nIdForm );
+    }
+
+    /**
+     * Render the html part of an entry, with its children and its conditional questions
+     * 
+     * @param model
+     *            the model
+     * @param nIdEntry
+     *            the entry id
+     * @param stringBuffer
+     *            the string buffer
+     * @param locale
+     *            the locale
+     * @param bDisplayFront
+     *            true for the front office
+     * @param appointmentDTO
+     *            the appointment
+     * @param fragment
+     *            the fragment that collects the entries rendered
+     */
+    private static void buildHtmlEntry( Map<String, Object> model, int nIdEntry, StringBuilder stringBuffer, Locale locale, boolean bDisplayFront,
+            AppointmentDTO appointmentDTO, EntryFragment fragment )
     {
         StringBuilder strConditionalQuestionStringBuffer = null;
         HtmlTemplate template;
         Entry entry = EntryHome.findByPrimaryKey( nIdEntry );
+        fragment.addEntry( entry );
         if ( Boolean.TRUE.equals( entry.getEntryType( ).getGroup( ) ) )
         {
             StringBuilder strGroupStringBuffer = new StringBuilder( );
             for ( Entry entryChild : entry.getChildren( ) )
             {
-                getHtmlEntry( model, entryChild.getIdEntry( ), strGroupStringBuffer, locale, bDisplayFront, appointmentDTO );
+                buildHtmlEntry( model, entryChild.getIdEntry( ), strGroupStringBuffer, locale, bDisplayFront, appointmentDTO, fragment );
             }
             model.put( MARK_STR_LIST_CHILDREN, strGroupStringBuffer.toString( ) );
         }
@@ -541,7 +623,7 @@ public final class EntryService extends RemovalListenerService implements Serial
                     StringBuilder strGroupStringBuffer = new StringBuilder( );
                     for ( Entry entryConditional : field.getConditionalQuestions( ) )
                     {
-                        getHtmlEntry( model, entryConditional.getIdEntry( ), strGroupStringBuffer, locale, bDisplayFront, appointmentDTO );
+                        buildHtmlEntry( model, entryConditional.getIdEntry( ), strGroupStringBuffer, locale, bDisplayFront, appointmentDTO, fragment );
                     }
                     model.put( MARK_STR_LIST_CHILDREN, strGroupStringBuffer.toString( ) );
                     model.put( MARK_FIELD, field );
@@ -567,6 +649,11 @@ public final class EntryService extends RemovalListenerService implements Serial
             model.put( MARK_UPLOAD_HANDLER, ( (AbstractEntryTypeUpload) entryTypeService ).getAsynchronousUploadHandler( ) );
         }
         template = AppTemplateService.getTemplate( entryTypeService.getTemplateHtmlForm( entry, bDisplayFront ), locale, model );
+        if ( entryTypeService instanceof EntryTypeSelectSQL )
+        {
+            // The fields of the entry come from a query that is run again after some time
+            fragment.expireAt( EntryTypeSelectSQL.getSqlQueryFieldsExpirationTime( entry.getIdEntry( ) ) );
+        }
         stringBuffer.append( template.getHtml( ) );
     }
 
@@ -749,4 +836,74 @@ public final class EntryService extends RemovalListenerService implements Serial
         return EntryHome.getEntryList( filter );
     }
 
+
+    /**
+     * The html of an entry, with its children and its conditional questions
+     */
+    private static final class EntryFragment
+    {
+        private final Set<Integer> _setIdEntry = new HashSet<>( );
+        private int _nIdForm;
+        private long _lExpirationTime = Long.MAX_VALUE;
+        private String _strHtml;
+
+        /**
+         * Add an entry rendered in the fragment
+         * 
+         * @param entry
+         *            the entry
+         */
+        private void addEntry( Entry entry )
+        {
+            if ( _setIdEntry.isEmpty( ) )
+            {
+                _nIdForm = entry.getIdResource( );
+            }
+            _setIdEntry.add( entry.getIdEntry( ) );
+        }
+
+        /**
+         * Set the time after which the fragment can't be used anymore, if it is sooner than the current one
+         * 
+         * @param lExpirationTime
+         *            the expiration time in milliseconds
+         */
+        private void expireAt( long lExpirationTime )
+        {
+            _lExpirationTime = Math.min( _lExpirationTime, lExpirationTime );
+        }
+
+        /**
+         * Check if the fragment has expired
+         * 
+         * @return true if the fragment can't be used anymore
+         */
+        private boolean isExpired( )
+        {
+            return _lExpirationTime <= System.currentTimeMillis( );
+        }
+
+        /**
+         * Check if the appointment has responses to display in the entries of the fragment
+         * 
+         * @param appointmentDTO
+         *            the appointment
+         * @return true if one of the entries has responses
+         */
+        private boolean hasResponses( AppointmentDTO appointmentDTO )
+        {
+            if ( appointmentDTO == null || appointmentDTO.getMapResponsesByIdEntry( ) == null )
+            {
+                return false;
+            }
+            for ( Integer nIdEntry : _setIdEntry )
+            {
+                if ( appointmentDTO.getMapResponsesByIdEntry( ).get( nIdEntry ) != null )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -90,6 +90,7 @@ public final class FormRuleService
         FormRule formRule = new FormRule( );
         fillInFormRule( formRule, appointmentForm, nIdForm );
         FormRuleHome.create( formRule );
+        FormService.resetFormConfiguration( formRule.getIdForm( ) );
         return formRule;
     }
 
@@ -102,6 +103,7 @@ public final class FormRuleService
     public static void saveFormRule( FormRule formRule )
     {
         FormRuleHome.create( formRule );
+        FormService.resetFormConfiguration( formRule.getIdForm( ) );
     }
 
     /**
@@ -118,6 +120,7 @@ public final class FormRuleService
         FormRule formRule = FormRuleService.findFormRuleWithFormId( nIdForm );
         fillInFormRule( formRule, appointmentForm, nIdForm );
         FormRuleHome.update( formRule );
+        FormService.resetFormConfiguration( formRule.getIdForm( ) );
         return formRule;
     }
 
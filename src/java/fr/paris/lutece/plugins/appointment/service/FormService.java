@@ -38,7 +38,15 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import org.apache.commons.collections.CollectionUtils;
 
@@ -52,11 +60,8 @@ import fr.paris.lutece.plugins.appointment.business.localization.Localization;
 import fr.paris.lutece.plugins.appointment.business.localization.LocalizationHome;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessage;
 import fr.paris.lutece.plugins.appointment.business.message.FormMessageHome;
-import fr.paris.lutece.plugins.appointment.business.planning.ClosingDay;
 import fr.paris.lutece.plugins.appointment.business.planning.ClosingDayHome;
-import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
 import fr.paris.lutece.plugins.appointment.business.planning.TimeSlotHome;
-import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinitionHome;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDayHome;
@@ -64,11 +69,11 @@ import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
 import fr.paris.lutece.plugins.appointment.business.rule.FormRuleHome;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
-import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
 import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.listeners.FormListenerManager;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.plugins.appointment.web.file.AppointmentFormIconService;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
@@ -85,6 +90,12 @@ import fr.paris.lutece.util.sql.TransactionManager;
  */
 public final class FormService
 {
+    // The configuration of the forms, used to build their appointmentForm DTO without querying the database
+    private static final ConcurrentMap<Integer, FormConfiguration> _mapFormConfiguration = new ConcurrentHashMap<>( );
+    private static final AtomicLong _lResetCount = new AtomicLong( );
+    // The copies run one at a time in their own thread, apart from the tasks of the bookings
+    private static final ExecutorService _formCopyExecutor = Executors
+            .newSingleThreadExecutor( new CustomizableThreadFactory( "Lutece-AppointmentFormCopy-thread-" ) );
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -110,104 +121,57 @@ public final class FormService
         appointmentForm.setIsActive( Boolean.FALSE );
         appointmentForm.setDateStartValidity( null );
         appointmentForm.setDateEndValidity( null );
-        // Save it
-        Form form = FormService.createForm( appointmentForm );
-        int nIdNewForm = form.getIdForm( );
-        // Add the display
-        DisplayService.createDisplay( appointmentForm, nIdNewForm );
-        // Add the localization
-        LocalizationService.createLocalization( appointmentForm, nIdNewForm );
-        // Add the form rule
-        FormRuleService.createFormRule( appointmentForm, nIdNewForm );
-        // Get all the weekDefinitions, WorkingDays and TimeSlots of the
-        // original form and set the new id
-        // of the copy of the form and save them
-        WeekDefinition copyWeekDefinition;
-        int idCopyReservationRule;
-        WorkingDay copyWorkingDay;
-        int idCopyWorkingDay;
-        TimeSlot copyTimeSlot;
-        List<WeekDefinition> listWeekDefinitions = WeekDefinitionService.findListWeekDefinition( nIdForm );
-        List<WorkingDay> listWorkingDays;
-        List<TimeSlot> listTimeSlots;
-
-        // Get all the reservation rules of the original form and set the new id
-        // of the copy of the form and save them
-        ReservationRule copyReservationRule;
-        List<ReservationRule> listReservationRules = ReservationRuleService.findListReservationRule( nIdForm );
-        for ( ReservationRule reservationRule : listReservationRules )
-        {
-            int nOldReservationRule = reservationRule.getIdReservationRule( );
-            copyReservationRule = reservationRule;
-            copyReservationRule.setIdReservationRule( 0 );
-            copyReservationRule.setIdForm( nIdNewForm );
-            ReservationRuleService.saveReservationRule( copyReservationRule );
-            listWorkingDays = copyReservationRule.getListWorkingDay( );
-            idCopyReservationRule = copyReservationRule.getIdReservationRule( );
-
-            for ( WorkingDay workingDay : listWorkingDays )
+        int nIdNewForm = 0;
+        // The form and its planning are copied in one transaction, so that a failure leaves no partial copy. The planning is copied with set based
+        // statements: the reservation rules are few and inserted one by one to get their ids, their working days, time slots and week definitions, the
+        // closing days and the specific slots are copied with one statement each
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            // Save it
+            Form form = FormService.createForm( appointmentForm );
+            nIdNewForm = form.getIdForm( );
+            // Add the display
+            DisplayService.createDisplay( appointmentForm, nIdNewForm );
+            // Add the localization
+            LocalizationService.createLocalization( appointmentForm, nIdNewForm );
+            // Add the form rule
+            FormRuleService.createFormRule( appointmentForm, nIdNewForm );
+            // Copy the messages of the original form and add them to the copy
+            FormMessage copyFormMessage = FormMessageService.findFormMessageByIdForm( nIdForm );
+            copyFormMessage.setIdFormMessage( 0 );
+            copyFormMessage.setIdForm( nIdNewForm );
+            FormMessageService.saveFormMessage( copyFormMessage );
+            for ( ReservationRule reservationRule : ReservationRuleHome.findByIdForm( nIdForm ) )
             {
-                copyWorkingDay = workingDay;
-                copyWorkingDay.setIdWorkingDay( 0 );
-                copyWorkingDay.setIdReservationRule( idCopyReservationRule );
-                copyWorkingDay = WorkingDayService.saveWorkingDay( copyWorkingDay );
-                idCopyWorkingDay = copyWorkingDay.getIdWorkingDay( );
-                listTimeSlots = workingDay.getListTimeSlot( );
-                for ( TimeSlot timeSlot : listTimeSlots )
-                {
-                    copyTimeSlot = timeSlot;
-                    copyTimeSlot.setIdTimeSlot( 0 );
-                    copyTimeSlot.setIdWorkingDay( idCopyWorkingDay );
-                    TimeSlotService.saveTimeSlot( copyTimeSlot );
-                }
-            }
-            List<WeekDefinition> listWeekDef = listWeekDefinitions.stream( ).filter( week -> week.getIdReservationRule( ) == nOldReservationRule )
-                    .collect( Collectors.toList( ) );
-            if ( CollectionUtils.isNotEmpty( listWeekDef ) )
-            {
-
-                for ( WeekDefinition weekDefinition : listWeekDef )
-                {
-                    copyWeekDefinition = weekDefinition;
-                    copyWeekDefinition.setIdWeekDefinition( 0 );
-                    copyWeekDefinition.setIdReservationRule( idCopyReservationRule );
-                    WeekDefinitionHome.create( copyWeekDefinition );
-                }
+                int nIdReservationRule = reservationRule.getIdReservationRule( );
+                reservationRule.setIdReservationRule( 0 );
+                reservationRule.setIdForm( nIdNewForm );
+                ReservationRuleHome.create( reservationRule );
+                int nIdNewReservationRule = reservationRule.getIdReservationRule( );
+                WorkingDayHome.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule );
+                TimeSlotHome.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule );
+                WeekDefinitionHome.copyByIdReservationRule( nIdReservationRule, nIdNewReservationRule );
             }
+            ClosingDayHome.copyByIdForm( nIdForm, nIdNewForm );
+            SlotHome.copySpecificSlotsByIdForm( nIdForm, nIdNewForm );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
         }
-
-        // Copy the messages of the original form and add them to the copy
-        FormMessage formMessage = FormMessageService.findFormMessageByIdForm( nIdForm );
-        FormMessage copyFormMessage = formMessage;
-        copyFormMessage.setIdFormMessage( 0 );
-        copyFormMessage.setIdForm( nIdNewForm );
-        FormMessageService.saveFormMessage( copyFormMessage );
-        // Get all the closing days of the original form and add them to the
-        // copy
-        List<ClosingDay> listClosingDays = ClosingDayService.findListClosingDay( nIdForm );
-        ClosingDay copyClosingDay;
-        for ( ClosingDay closingDay : listClosingDays )
+        catch( Exception e )
         {
-            copyClosingDay = closingDay;
-            copyClosingDay.setIdClosingDay( 0 );
-            copyClosingDay.setIdForm( nIdNewForm );
-            ClosingDayService.saveClosingDay( copyClosingDay );
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            AppLogService.error( "Error copying the form " + nIdForm, e );
+            throw new AppException( e.getMessage( ), e );
         }
-        // Get all the specific slots of the original form and copy them for the
-        // new form
-        List<Slot> listSpecificSlots = SlotService.findSpecificSlotsByIdForm( nIdForm );
-        Slot copySpecificSlot;
-        for ( Slot specificSlot : listSpecificSlots )
+        finally
         {
-            copySpecificSlot = specificSlot;
-
-            copySpecificSlot.setIdSlot( 0 );
-            copySpecificSlot.setIdForm( nIdNewForm );
-            copySpecificSlot.setNbPotentialRemainingPlaces( specificSlot.getMaxCapacity( ) );
-            copySpecificSlot.setNbRemainingPlaces( specificSlot.getMaxCapacity( ) );
-            copySpecificSlot.setNbPlacestaken( 0 );
-
-            SlotHome.create( copySpecificSlot );
+            if ( nIdNewForm != 0 )
+            {
+                // Reset once the copy is visible to the other threads
+                resetFormConfiguration( nIdNewForm );
+                ReservationRuleService.resetReservationRuleTree( nIdNewForm );
+                ClosingDayService.resetClosingDayIndex( nIdNewForm );
+            }
         }
         // Copy the entries of the original form
         EntryFilter entryFilter = new EntryFilter( );
@@ -221,10 +185,55 @@ public final class FormService
             entry.setIdResource( nIdNewForm );
             EntryHome.copy( entry );
         }
-        FormListenerManager.notifyListenersFormCreation( nIdForm );
+        FormListenerManager.notifyListenersFormCreation( nIdNewForm );
         return nIdNewForm;
     }
 
+    /**
+     * Copy a form in the background. The copies are run one at a time by a dedicated thread and their failures are logged.
+     * 
+     * @param nIdForm
+     *            the id of the form to copy
+     * @param newNameForCopy
+     *            the title of the copy
+     * @param copyCallback
+     *            called with the id of the copy once it is over
+     */
+    public static void copyFormInBackground( int nIdForm, String newNameForCopy, IntConsumer copyCallback )
+    {
+        _formCopyExecutor.execute( ( ) -> {
+            try
+            {
+                copyCallback.accept( copyForm( nIdForm, newNameForCopy ) );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error copying the form " + nIdForm + " in background", e );
+            }
+        } );
+    }
+
+    /**
+     * Shutdown the thread of the copies of the forms, waiting for the copy in progress
+     */
+    public static void shutdownFormCopyExecutor( )
+    {
+        _formCopyExecutor.shutdown( );
+        try
+        {
+            if ( !_formCopyExecutor.awaitTermination( 60, TimeUnit.SECONDS ) )
+            {
+                _formCopyExecutor.shutdownNow( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+            _formCopyExecutor.shutdownNow( );
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
     /**
      * Save a form in database
      * 
@@ -280,10 +289,28 @@ public final class FormService
     public static void updateGlobalParameters( AppointmentFormDTO appointmentForm )
     {
         int nIdForm = appointmentForm.getIdForm( );
-        DisplayService.updateDisplay( appointmentForm, nIdForm );
-        LocalizationService.updateLocalization( appointmentForm, nIdForm );
-        FormRuleService.updateFormRule( appointmentForm, nIdForm );
-        FormService.updateForm( appointmentForm );
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            DisplayService.updateDisplay( appointmentForm, nIdForm );
+            LocalizationService.updateLocalization( appointmentForm, nIdForm );
+            FormRuleService.updateFormRule( appointmentForm, nIdForm );
+            Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+            FormHome.update( fillInFormWithAppointmentForm( form, appointmentForm ) );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            AppLogService.error( "Error update global parameters of the form " + nIdForm, e );
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            // Reset once the changes are visible to the other threads
+            resetFormConfiguration( nIdForm );
+        }
+        FormListenerManager.notifyListenersFormChange( nIdForm );
     }
 
     /**
@@ -435,28 +462,54 @@ public final class FormService
      */
     public static AppointmentFormDTO buildAppointmentFormWithoutReservationRule( int nIdForm )
     {
+        FormConfiguration formConfiguration = _mapFormConfiguration.get( nIdForm );
+        if ( formConfiguration == null )
+        {
+            long lResetCount = _lResetCount.get( );
+            Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+            formConfiguration = new FormConfiguration( form, DisplayService.findDisplayWithFormId( form.getIdForm( ) ),
+                    LocalizationService.findLocalizationWithFormId( form.getIdForm( ) ), FormRuleService.findFormRuleWithFormId( form.getIdForm( ) ) );
+            _mapFormConfiguration.putIfAbsent( nIdForm, formConfiguration );
+            // Do not keep a configuration that may have been loaded before a change
+            if ( _lResetCount.get( ) != lResetCount )
+            {
+                _mapFormConfiguration.remove( nIdForm, formConfiguration );
+            }
+        }
+        // Build a new DTO each time, the callers may modify it
         AppointmentFormDTO appointmentForm = new AppointmentFormDTO( );
-        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
-        fillAppointmentFormWithFormPart( appointmentForm, form );
-        Display display = DisplayService.findDisplayWithFormId( form.getIdForm( ) );
-        if ( display != null )
+        fillAppointmentFormWithFormPart( appointmentForm, formConfiguration._form );
+        if ( formConfiguration._display != null )
         {
-            fillAppointmentFormWithDisplayPart( appointmentForm, display );
+            fillAppointmentFormWithDisplayPart( appointmentForm, formConfiguration._display );
         }
-        Localization localization = LocalizationService.findLocalizationWithFormId( form.getIdForm( ) );
-        if ( localization != null )
+        if ( formConfiguration._localization != null )
         {
-            fillAppointmentFormWithLocalizationPart( appointmentForm, localization );
+            fillAppointmentFormWithLocalizationPart( appointmentForm, formConfiguration._localization );
         }
-        FormRule formRule = FormRuleService.findFormRuleWithFormId( form.getIdForm( ) );
-        if ( formRule != null )
+        if ( formConfiguration._formRule != null )
         {
-            fillAppointmentFormWithFormRulePart( appointmentForm, formRule );
+            fillAppointmentFormWithFormRulePart( appointmentForm, formConfiguration._formRule );
         }
 
         return appointmentForm;
     }
 
+    /**
+     * Reset the configuration of a form kept to build its appointmentForm DTO. Must be called after each change of the form, its display, its localization
+     * or its form rule. The services that write them reset it once the row is written: a caller that runs them in a transaction must reset it again after
+     * the commit, otherwise a concurrent reader may keep the configuration from before the commit.
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public static void resetFormConfiguration( int nIdForm )
+    {
+        _lResetCount.incrementAndGet( );
+        _mapFormConfiguration.remove( nIdForm );
+        AppointmentFormIconService.getInstance( ).resetFormIcon( nIdForm );
+    }
+
     /**
      * Fill the appointmentForm DTO with the Reservation Rule
      * 
@@ -654,6 +707,7 @@ public final class FormService
     public static Form updateForm( Form form )
     {
         Form formUpdated = FormHome.update( form );
+        resetFormConfiguration( formUpdated.getIdForm( ) );
         FormListenerManager.notifyListenersFormChange( formUpdated.getIdForm( ) );
         return formUpdated;
     }
@@ -728,7 +782,7 @@ public final class FormService
                 ReservationRuleHome.delete( rule.getIdReservationRule( ) );
             }
 
-            ClosingDayHome.deleteByIdForm( nIdForm );
+            ClosingDayService.removeListClosingDay( nIdForm );
             FormRuleHome.deleteByIdFom( nIdForm );
             DisplayHome.deleteByIdForm( nIdForm );
             LocalizationHome.deleteByIdForm( nIdForm );
@@ -738,10 +792,6 @@ public final class FormService
             EntryService.getService( ).removeEntriesByIdAppointmentForm( nIdForm );
 
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
-
-            FormListenerManager.notifyListenersFormRemoval( nIdForm );
-            AppointmentListenerManager.notifyListenersAppointmentFormRemoval( nIdForm );
-
         }
         catch( Exception e )
         {
@@ -750,6 +800,15 @@ public final class FormService
             throw new AppException( e.getMessage( ), e );
 
         }
+        finally
+        {
+            // Reset once the changes are visible to the other threads, or rolled back
+            resetFormConfiguration( nIdForm );
+            ReservationRuleService.resetReservationRuleTree( nIdForm );
+            EntryService.resetHtmlEntries( nIdForm );
+        }
+        FormListenerManager.notifyListenersFormRemoval( nIdForm );
+        AppointmentListenerManager.notifyListenersAppointmentFormRemoval( nIdForm );
     }
 
     /**
@@ -806,4 +865,36 @@ public final class FormService
         return FormHome.findByTitle( strTitle );
     }
 
+
+    /**
+     * The configuration of a form: its form, display, localization and form rule, as loaded from the database. These objects are never given to the callers,
+     * so they are not modified once loaded.
+     */
+    private static final class FormConfiguration
+    {
+        private final Form _form;
+        private final Display _display;
+        private final Localization _localization;
+        private final FormRule _formRule;
+
+        /**
+         * Constructor
+         * 
+         * @param form
+         *            the form
+         * @param display
+         *            the display of the form (may be null)
+         * @param localization
+         *            the localization of the form (may be null)
+         * @param formRule
+         *            the form rule of the form (may be null)
+         */
+        FormConfiguration( Form form, Display display, Localization localization, FormRule formRule )
+        {
+            _form = form;
+            _display = display;
+            _localization = localization;
+            _formRule = formRule;
+        }
+    }
 }
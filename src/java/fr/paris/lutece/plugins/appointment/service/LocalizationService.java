@@ -87,6 +87,7 @@ public final class LocalizationService
         Localization localization = new Localization( );
         fillInLocalizationWithAppointmentForm( localization, appointmentForm, nIdForm );
         LocalizationHome.create( localization );
+        FormService.resetFormConfiguration( localization.getIdForm( ) );
         return localization;
     }
 
@@ -99,6 +100,7 @@ public final class LocalizationService
     public static void saveLocalization( Localization localization )
     {
         LocalizationHome.create( localization );
+        FormService.resetFormConfiguration( localization.getIdForm( ) );
     }
 
     /**
@@ -115,6 +117,7 @@ public final class LocalizationService
         Localization localization = LocalizationService.findLocalizationWithFormId( nIdForm );
         fillInLocalizationWithAppointmentForm( localization, appointmentForm, nIdForm );
         LocalizationHome.update( localization );
+        FormService.resetFormConfiguration( localization.getIdForm( ) );
         return localization;
     }
 
@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+
+/**
+ * Service that keeps, for each form, the sorted set of the dates that have at least one open slot with free places, on the period the form displays in front
+ * office. It avoids building the whole calendar of a form to find its first available slot.
+ * 
+ * The set of a form is built from the week definitions at its first use, then each day is refreshed when one of its slots changes (see
+ * {@link fr.paris.lutece.plugins.appointment.service.listeners.NextAvailabilityListener}). It is rebuilt every day, and when the form, its week definitions
+ * or its closing days change.
+ */
+public final class NextAvailabilityService
+{
+    private static final ConcurrentMap<Integer, FormAvailability> _mapFormAvailability = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private NextAvailabilityService( )
+    {
+    }
+
+    /**
+     * Find the first date, after the given date time, with an open slot that has free places. The period displayed by the form ends with the weeks of the
+     * locale of the plugin.
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param dateTimeFrom
+     *            the slots must start after this date time
+     * @return the first available date, or null if there is no available slot on the period displayed by the form
+     */
+    public static LocalDate findFirstAvailableDate( int nIdForm, LocalDateTime dateTimeFrom )
+    {
+        return findFirstAvailableDate( nIdForm, dateTimeFrom, AppointmentPlugin.getPluginLocale( ) );
+    }
+
+    /**
+     * Find the first date, after the given date time, with an open slot that has free places
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param dateTimeFrom
+     *            the slots must start after this date time
+     * @param locale
+     *            the locale, giving the weeks of the period displayed by the form, as in its calendar
+     * @return the first available date, or null if there is no available slot on the period displayed by the form
+     */
+    public static LocalDate findFirstAvailableDate( int nIdForm, LocalDateTime dateTimeFrom, Locale locale )
+    {
+        FormAvailability formAvailability = getFormAvailability( nIdForm );
+        LocalDate endingDateOfDisplay = Utilities.getEndingDateOfDisplay( formAvailability._startingDate, formAvailability._nNbWeeksToDisplay, locale );
+        if ( endingDateOfDisplay.isAfter( formAvailability._endingDate ) )
+        {
+            endingDateOfDisplay = formAvailability._endingDate;
+        }
+        if ( dateTimeFrom.toLocalDate( ).isAfter( endingDateOfDisplay ) )
+        {
+            return null;
+        }
+        for ( LocalDate date : formAvailability._setAvailableDate.subSet( dateTimeFrom.toLocalDate( ), true, endingDateOfDisplay, true ) )
+        {
+            // The slots of the first day may start before the given time
+            if ( date.isAfter( dateTimeFrom.toLocalDate( ) ) || isDayAvailable( nIdForm, date, dateTimeFrom ) )
+            {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the first open slots with free places of a form, after the given date time. Only the slots of the available dates of the form are built.
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param dateTimeFrom
+     *            the slots must start after this date time
+     * @param dateTimeTo
+     *            the slots must start before this date time, or null if there is no limit
+     * @param nNbSlots
+     *            the maximum number of slots to return
+     * @return the sorted list of the first available slots
+     */
+    public static List<Slot> findFirstAvailableSlots( int nIdForm, LocalDateTime dateTimeFrom, LocalDateTime dateTimeTo, int nNbSlots )
+    {
+        List<Slot> listSlot = new ArrayList<>( );
+        FormAvailability formAvailability = getFormAvailability( nIdForm );
+        LocalDateTime dateTimeNow = LocalDateTime.now( );
+        LocalDateTime dateTimeMin = dateTimeFrom.isAfter( dateTimeNow ) ? dateTimeFrom : dateTimeNow;
+        Map<WeekDefinition, ReservationRule> mapReservationRule = null;
+        for ( LocalDate date : formAvailability._setAvailableDate.tailSet( dateTimeMin.toLocalDate( ), true ) )
+        {
+            if ( listSlot.size( ) >= nNbSlots || ( dateTimeTo != null && date.atStartOfDay( ).isAfter( dateTimeTo ) ) )
+            {
+                break;
+            }
+            if ( mapReservationRule == null )
+            {
+                mapReservationRule = findMapReservationRule( nIdForm );
+            }
+            for ( Slot slot : buildListSlot( nIdForm, mapReservationRule, date, date ) )
+            {
+                if ( listSlot.size( ) < nNbSlots && isAvailable( slot, dateTimeMin )
+                        && ( dateTimeTo == null || slot.getStartingDateTime( ).isBefore( dateTimeTo ) ) )
+                {
+                    listSlot.add( slot );
+                }
+            }
+        }
+        return listSlot;
+    }
+
+    /**
+     * Get the dates with at least one open slot that has free places, on the period displayed by the form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the sorted set of the available dates
+     */
+    public static NavigableSet<LocalDate> findAvailableDates( int nIdForm )
+    {
+        return new ConcurrentSkipListSet<>( getFormAvailability( nIdForm )._setAvailableDate );
+    }
+
+    /**
+     * Refresh the availability of a day of a form, after a change on one of its slots
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param date
+     *            the date to refresh
+     */
+    public static void refreshDate( int nIdForm, LocalDate date )
+    {
+        FormAvailability formAvailability = _mapFormAvailability.get( nIdForm );
+        // Nothing to do if the availability of the form is not loaded, or if the date is not on its period
+        if ( formAvailability == null || date.isBefore( formAvailability._startingDate ) || date.isAfter( formAvailability._endingDate ) )
+        {
+            return;
+        }
+        if ( isDayAvailable( nIdForm, date, date.atStartOfDay( ) ) )
+        {
+            formAvailability._setAvailableDate.add( date );
+        }
+        else
+        {
+            formAvailability._setAvailableDate.remove( date );
+        }
+    }
+
+    /**
+     * Refresh the availability of the day of a slot, after a change on this slot. The day is built only when the slot is no more available on a day that was
+     * available.
+     * 
+     * @param slot
+     *            the slot, in its new state
+     */
+    public static void refreshSlot( Slot slot )
+    {
+        FormAvailability formAvailability = _mapFormAvailability.get( slot.getIdForm( ) );
+        LocalDate date = slot.getStartingDateTime( ).toLocalDate( );
+        if ( formAvailability == null || date.isBefore( formAvailability._startingDate ) || date.isAfter( formAvailability._endingDate ) )
+        {
+            return;
+        }
+        if ( isAvailable( slot, LocalDateTime.now( ) ) )
+        {
+            formAvailability._setAvailableDate.add( date );
+        }
+        else
+            if ( formAvailability._setAvailableDate.contains( date ) )
+            {
+                // Another slot of the day may still be available
+                refreshDate( slot.getIdForm( ), date );
+            }
+    }
+
+    /**
+     * Refresh the availability of a period of a form, after a change of its week definitions
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param startingDate
+     *            the first date to refresh
+     * @param endingDate
+     *            the last date to refresh
+     */
+    public static void refreshDates( int nIdForm, LocalDate startingDate, LocalDate endingDate )
+    {
+        FormAvailability formAvailability = _mapFormAvailability.get( nIdForm );
+        if ( formAvailability == null )
+        {
+            return;
+        }
+        // Only the dates on the period of the form are kept
+        LocalDate dateFrom = startingDate.isBefore( formAvailability._startingDate ) ? formAvailability._startingDate : startingDate;
+        LocalDate dateTo = endingDate.isAfter( formAvailability._endingDate ) ? formAvailability._endingDate : endingDate;
+        if ( dateFrom.isAfter( dateTo ) )
+        {
+            return;
+        }
+        LocalDateTime dateTimeNow = LocalDateTime.now( );
+        NavigableSet<LocalDate> setAvailableDate = new ConcurrentSkipListSet<>( );
+        for ( Slot slot : buildListSlot( nIdForm, findMapReservationRule( nIdForm ), dateFrom, dateTo ) )
+        {
+            if ( isAvailable( slot, dateTimeNow ) )
+            {
+                setAvailableDate.add( slot.getDate( ) );
+            }
+        }
+        formAvailability._setAvailableDate.subSet( dateFrom, true, dateTo, true ).retainAll( setAvailableDate );
+        formAvailability._setAvailableDate.addAll( setAvailableDate );
+    }
+
+    /**
+     * Reset the availability of a form, it will be rebuilt at the next use
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public static void resetFormAvailability( int nIdForm )
+    {
+        _mapFormAvailability.remove( nIdForm );
+    }
+
+    /**
+     * Get the availability of a form, and build it if it is not loaded or if it was built another day
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the availability of the form
+     */
+    private static FormAvailability getFormAvailability( int nIdForm )
+    {
+        FormAvailability formAvailability = _mapFormAvailability.computeIfAbsent( nIdForm, NextAvailabilityService::buildFormAvailability );
+        if ( !formAvailability._dateOfBuild.equals( LocalDate.now( ) ) )
+        {
+            _mapFormAvailability.remove( nIdForm, formAvailability );
+            formAvailability = _mapFormAvailability.computeIfAbsent( nIdForm, NextAvailabilityService::buildFormAvailability );
+        }
+        return formAvailability;
+    }
+
+    /**
+     * Build the availability of a form on the period it displays in front office
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the availability of the form
+     */
+    private static FormAvailability buildFormAvailability( int nIdForm )
+    {
+        LocalDate dateNow = LocalDate.now( );
+        AppointmentFormDTO appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+        if ( !appointmentForm.getIsActive( ) || appointmentForm.getDateStartValidity( ) == null )
+        {
+            return new FormAvailability( dateNow, dateNow, dateNow.minusDays( 1 ), 0 );
+        }
+        LocalDate startingDate = dateNow;
+        if ( appointmentForm.getDateStartValidity( ).toLocalDate( ).isAfter( startingDate ) )
+        {
+            startingDate = appointmentForm.getDateStartValidity( ).toLocalDate( );
+        }
+        // The first day of the week depends on the locale: cover the longest period displayed, the dates are filtered by locale when read
+        LocalDate endingDate = startingDate.plusDays( 6 ).plusWeeks( Math.max( 0, appointmentForm.getNbWeeksToDisplay( ) - 1L ) );
+        if ( appointmentForm.getDateEndValidity( ) != null && endingDate.isAfter( appointmentForm.getDateEndValidity( ).toLocalDate( ) ) )
+        {
+            endingDate = appointmentForm.getDateEndValidity( ).toLocalDate( );
+        }
+        FormAvailability formAvailability = new FormAvailability( dateNow, startingDate, endingDate, appointmentForm.getNbWeeksToDisplay( ) );
+        if ( !startingDate.isAfter( endingDate ) )
+        {
+            LocalDateTime dateTimeNow = LocalDateTime.now( );
+            for ( Slot slot : buildListSlot( nIdForm, findMapReservationRule( nIdForm ), startingDate, endingDate ) )
+            {
+                if ( isAvailable( slot, dateTimeNow ) )
+                {
+                    formAvailability._setAvailableDate.add( slot.getDate( ) );
+                }
+            }
+        }
+        return formAvailability;
+    }
+
+    /**
+     * Check if a day of a form has an open slot with free places starting after the given date time
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param date
+     *            the date
+     * @param dateTimeFrom
+     *            the slots must start after this date time
+     * @return true if the day is available
+     */
+    private static boolean isDayAvailable( int nIdForm, LocalDate date, LocalDateTime dateTimeFrom )
+    {
+        LocalDateTime dateTimeNow = LocalDateTime.now( );
+        LocalDateTime dateTimeMin = dateTimeFrom.isAfter( dateTimeNow ) ? dateTimeFrom : dateTimeNow;
+        return buildListSlot( nIdForm, findMapReservationRule( nIdForm ), date, date ).stream( ).anyMatch( slot -> isAvailable( slot, dateTimeMin ) );
+    }
+
+    /**
+     * Find the reservation rules of the week definitions of a form
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the reservation rules of the form, by week definition
+     */
+    private static Map<WeekDefinition, ReservationRule> findMapReservationRule( int nIdForm )
+    {
+        List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
+        if ( listWeekDefinition.isEmpty( ) )
+        {
+            return new HashMap<>( );
+        }
+        return ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
+    }
+
+    /**
+     * Build the slots of a form on a period
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param mapReservationRule
+     *            the reservation rules of the form, by week definition
+     * @param startingDate
+     *            the starting date
+     * @param endingDate
+     *            the ending date
+     * @return the slots of the period
+     */
+    private static List<Slot> buildListSlot( int nIdForm, Map<WeekDefinition, ReservationRule> mapReservationRule, LocalDate startingDate,
+            LocalDate endingDate )
+    {
+        if ( mapReservationRule.isEmpty( ) )
+        {
+            return new ArrayList<>( );
+        }
+        return SlotService.buildListSlot( nIdForm, mapReservationRule, startingDate, endingDate );
+    }
+
+    /**
+     * Check if a slot can be taken
+     * 
+     * @param slot
+     *            the slot
+     * @param dateTimeMin
+     *            the slot must start after this date time
+     * @return true if the slot is open, has free places and starts after the given date time
+     */
+    private static boolean isAvailable( Slot slot, LocalDateTime dateTimeMin )
+    {
+        return slot.getIsOpen( ) && slot.getNbPotentialRemainingPlaces( ) > 0 && slot.getStartingDateTime( ).isAfter( dateTimeMin );
+    }
+
+    /**
+     * The availability of a form
+     */
+    private static final class FormAvailability
+    {
+        private final LocalDate _dateOfBuild;
+        private final LocalDate _startingDate;
+        private final LocalDate _endingDate;
+        private final int _nNbWeeksToDisplay;
+        private final NavigableSet<LocalDate> _setAvailableDate = new ConcurrentSkipListSet<>( );
+
+        /**
+         * Constructor
+         * 
+         * @param dateOfBuild
+         *            the date the availability has been built
+         * @param startingDate
+         *            the starting date of the period covered
+         * @param endingDate
+         *            the ending date of the period covered
+         * @param nNbWeeksToDisplay
+         *            the nb weeks displayed by the form
+         */
+        FormAvailability( LocalDate dateOfBuild, LocalDate startingDate, LocalDate endingDate, int nNbWeeksToDisplay )
+        {
+            _dateOfBuild = dateOfBuild;
+            _startingDate = startingDate;
+            _endingDate = endingDate;
+            _nNbWeeksToDisplay = nNbWeeksToDisplay;
+        }
+    }
+}
@@ -38,9 +38,13 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections.CollectionUtils;
 
@@ -53,6 +57,7 @@ import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
 import fr.paris.lutece.plugins.appointment.service.listeners.WeekDefinitionManagerListener;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.sql.TransactionManager;
@@ -66,6 +71,12 @@ import fr.paris.lutece.util.sql.TransactionManager;
 public final class ReservationRuleService
 {
     private static final String CONST_COPY_OF_WEEK = "Copy ";
+    // The reservation rules of the forms, with their working days and time slots
+    private static final ConcurrentMap<Integer, List<ReservationRule>> _mapReservationRuleTree = new ConcurrentHashMap<>( );
+    // The forms of the reservation rules and of the working days of the kept trees, to reset only the tree of the form changed
+    private static final ConcurrentMap<Integer, Integer> _mapIdFormByIdReservationRule = new ConcurrentHashMap<>( );
+    private static final ConcurrentMap<Integer, Integer> _mapIdFormByIdWorkingDay = new ConcurrentHashMap<>( );
+    private static final AtomicLong _lResetCount = new AtomicLong( );
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -75,7 +86,8 @@ public final class ReservationRuleService
     }
 
     /**
-     * Create in database a reservation rule object from an appointmentForm DTO
+     * Create in database a reservation rule object from an appointmentForm DTO. The reservation rules kept for the form are reset once the rule is written:
+     * a caller that runs it in a transaction must reset them again after the commit, with {@link #resetReservationRuleTree(int)}
      * 
      * @param appointmentForm
      *            the appointmentForm DTO
@@ -90,6 +102,7 @@ public final class ReservationRuleService
         ReservationRule reservationRule = new ReservationRule( );
         fillInReservationRule( reservationRule, appointmentForm, nIdForm );
         ReservationRuleHome.create( reservationRule );
+        resetReservationRuleTree( nIdForm );
         return reservationRule;
     }
 
@@ -105,17 +118,33 @@ public final class ReservationRuleService
     {
 
         int nIdForm = appointmentForm.getIdForm( );
-        ReservationRule reservationRule = createReservationRule( appointmentForm, nIdForm );
-        int nMaxCapacity = reservationRule.getMaxCapacityPerSlot( );
         LocalTime startingTime = LocalTime.parse( appointmentForm.getTimeStart( ) );
         LocalTime endingTime = LocalTime.parse( appointmentForm.getTimeEnd( ) );
         int nDuration = appointmentForm.getDurationAppointments( );
-        for ( DayOfWeek dayOfWeek : WorkingDayService.getOpenDays( appointmentForm ) )
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            ReservationRule reservationRule = createReservationRule( appointmentForm, nIdForm );
+            int nMaxCapacity = reservationRule.getMaxCapacityPerSlot( );
+            for ( DayOfWeek dayOfWeek : WorkingDayService.getOpenDays( appointmentForm ) )
+            {
+                WorkingDayService.generateWorkingDayAndListTimeSlot( reservationRule.getIdReservationRule( ), dayOfWeek, startingTime, endingTime,
+                        nDuration, nMaxCapacity );
+            }
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            return reservationRule.getIdReservationRule( );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            AppLogService.error( "Error create typical week " + e.getMessage( ), e );
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
         {
-            WorkingDayService.generateWorkingDayAndListTimeSlot( reservationRule.getIdReservationRule( ), dayOfWeek, startingTime, endingTime, nDuration,
-                    nMaxCapacity );
+            // Reset once the changes are visible to the other threads
+            resetReservationRuleTree( nIdForm );
         }
-        return reservationRule.getIdReservationRule( );
     }
 
     /**
@@ -149,6 +178,7 @@ public final class ReservationRuleService
                     }
                 }
                 TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+                resetReservationRuleTree( reservationRule.getIdForm( ) );
                 return reservationRule.getIdReservationRule( );
             }
             catch( RuntimeException e )
@@ -171,25 +201,41 @@ public final class ReservationRuleService
     public static void updateAdvancedParameters( AppointmentFormDTO appointmentForm )
     {
         int nIdForm = appointmentForm.getIdForm( );
-        ReservationRule reservationRule = updateReservationRule( appointmentForm, nIdForm );
-        int nMaxCapacity = reservationRule.getMaxCapacityPerSlot( );
-        List<WorkingDay> listWorkingDay = WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) );
-
-        if ( CollectionUtils.isNotEmpty( listWorkingDay ) )
+        LocalTime startingHour = LocalTime.parse( appointmentForm.getTimeStart( ) );
+        LocalTime endingHour = LocalTime.parse( appointmentForm.getTimeEnd( ) );
+        int nDuration = appointmentForm.getDurationAppointments( );
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
         {
-            for ( WorkingDay workingDay : listWorkingDay )
+            ReservationRule reservationRule = updateReservationRule( appointmentForm, nIdForm );
+            int nMaxCapacity = reservationRule.getMaxCapacityPerSlot( );
+            List<WorkingDay> listWorkingDay = WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) );
+
+            if ( CollectionUtils.isNotEmpty( listWorkingDay ) )
+            {
+                for ( WorkingDay workingDay : listWorkingDay )
+                {
+                    TimeSlotHome.deleteByIdWorkingDay( workingDay.getIdWorkingDay( ) );
+                }
+                WorkingDayHome.deleteByIdReservationRule( reservationRule.getIdReservationRule( ) );
+            }
+            for ( DayOfWeek dayOfWeek : WorkingDayService.getOpenDays( appointmentForm ) )
             {
-                TimeSlotHome.deleteByIdWorkingDay( workingDay.getIdWorkingDay( ) );
+                WorkingDayService.generateWorkingDayAndListTimeSlot( reservationRule.getIdReservationRule( ), dayOfWeek, startingHour, endingHour,
+                        nDuration, nMaxCapacity );
             }
-            WorkingDayHome.deleteByIdReservationRule( reservationRule.getIdReservationRule( ) );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
         }
-        LocalTime startingHour = LocalTime.parse( appointmentForm.getTimeStart( ) );
-        LocalTime endingHour = LocalTime.parse( appointmentForm.getTimeEnd( ) );
-        int nDuration = appointmentForm.getDurationAppointments( );
-        for ( DayOfWeek dayOfWeek : WorkingDayService.getOpenDays( appointmentForm ) )
+        catch( Exception e )
         {
-            WorkingDayService.generateWorkingDayAndListTimeSlot( reservationRule.getIdReservationRule( ), dayOfWeek, startingHour, endingHour, nDuration,
-                    nMaxCapacity );
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            AppLogService.error( "Error update advanced parameters " + e.getMessage( ), e );
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            // Reset once the changes are visible to the other threads
+            resetReservationRuleTree( nIdForm );
         }
         List<WeekDefinition> listWeek = WeekDefinitionService.findByReservationRule( appointmentForm.getIdReservationRule( ) );
         if ( CollectionUtils.isNotEmpty( listWeek ) )
@@ -210,19 +256,35 @@ public final class ReservationRuleService
         ReservationRule rule = findReservationRuleById( nIdReservationRule );
         if ( rule != null )
         {
-            for ( WorkingDay day : rule.getListWorkingDay( ) )
+            TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+            try
             {
+                for ( WorkingDay day : rule.getListWorkingDay( ) )
+                {
 
-                TimeSlotHome.deleteByIdWorkingDay( day.getIdWorkingDay( ) );
-                WorkingDayHome.delete( day.getIdWorkingDay( ) );
+                    TimeSlotHome.deleteByIdWorkingDay( day.getIdWorkingDay( ) );
+                    WorkingDayHome.delete( day.getIdWorkingDay( ) );
 
+                }
+                ReservationRuleHome.delete( rule.getIdReservationRule( ) );
+                TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            }
+            catch( Exception e )
+            {
+                TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+                AppLogService.error( "Error remove reservation rule " + e.getMessage( ), e );
+                throw new AppException( e.getMessage( ), e );
+            }
+            finally
+            {
+                resetReservationRuleTree( rule.getIdForm( ) );
             }
-            ReservationRuleHome.delete( rule.getIdReservationRule( ) );
         }
     }
 
     /**
-     * save a reservation rule
+     * save a reservation rule. The reservation rules kept for the form are reset once the rule is written: a caller that runs it in a transaction must
+     * reset them again after the commit, with {@link #resetReservationRuleTree(int)}
      * 
      * @param reservationRule
      *            the reservation rule to save
@@ -230,6 +292,7 @@ public final class ReservationRuleService
     public static void saveReservationRule( ReservationRule reservationRule )
     {
         ReservationRuleHome.create( reservationRule );
+        resetReservationRuleTree( reservationRule.getIdForm( ) );
     }
 
     /**
@@ -252,6 +315,7 @@ public final class ReservationRuleService
         {
             fillInReservationRule( reservationRule, appointmentForm, nIdForm );
             ReservationRuleHome.update( reservationRule );
+            resetReservationRuleTree( nIdForm );
         }
         return reservationRule;
     }
@@ -355,7 +419,7 @@ public final class ReservationRuleService
     }
 
     /**
-     * Find all the reservation rule of a form
+     * Find all the reservation rule of a form. The rules are copies of the rules kept for the form, that the caller may modify.
      * 
      * @param nIdForm
      *            the form Id
@@ -365,21 +429,164 @@ public final class ReservationRuleService
     {
 
         Map<WeekDefinition, ReservationRule> mapReservationRule = new HashMap<>( );
-        List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
+        Map<Integer, ReservationRule> mapReservationRuleById = new HashMap<>( );
+        for ( ReservationRule reservationRule : findReservationRuleTree( nIdForm ) )
+        {
+            mapReservationRuleById.put( reservationRule.getIdReservationRule( ), reservationRule );
+        }
+        // The rules kept are shared: the caller gets its own copies, one for each rule used
+        Map<Integer, ReservationRule> mapReservationRuleCopy = new HashMap<>( );
         for ( WeekDefinition weekDefinition : listWeekDefinition )
         {
-            ReservationRule reservationRule = listReservationRule.stream( ).filter( p -> p.getIdReservationRule( ) == weekDefinition.getIdReservationRule( ) )
-                    .findAny( ).orElse( null );
+            ReservationRule reservationRule = mapReservationRuleById.get( weekDefinition.getIdReservationRule( ) );
             if ( reservationRule != null )
             {
-                reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
-                mapReservationRule.put( weekDefinition, reservationRule );
+                mapReservationRule.put( weekDefinition,
+                        mapReservationRuleCopy.computeIfAbsent( reservationRule.getIdReservationRule( ), nId -> copyReservationRuleTree( reservationRule ) ) );
             }
 
         }
         return mapReservationRule;
     }
 
+    /**
+     * Find the reservation rules of a form, with their working days and time slots. The rules are shared between the callers of this class and must not
+     * be modified.
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @return the reservation rules of the form
+     */
+    private static List<ReservationRule> findReservationRuleTree( int nIdForm )
+    {
+        List<ReservationRule> listReservationRule = _mapReservationRuleTree.get( nIdForm );
+        if ( listReservationRule == null )
+        {
+            long lResetCount = _lResetCount.get( );
+            listReservationRule = Collections.unmodifiableList( ReservationRuleHome.findTreeByIdForm( nIdForm ) );
+            // The forms are known before the tree is kept, so that a change of one of its working days resets it
+            for ( ReservationRule reservationRule : listReservationRule )
+            {
+                _mapIdFormByIdReservationRule.put( reservationRule.getIdReservationRule( ), nIdForm );
+                for ( WorkingDay workingDay : reservationRule.getListWorkingDay( ) )
+                {
+                    _mapIdFormByIdWorkingDay.put( workingDay.getIdWorkingDay( ), nIdForm );
+                }
+            }
+            _mapReservationRuleTree.putIfAbsent( nIdForm, listReservationRule );
+            // Do not keep rules that may have been loaded before a change
+            if ( _lResetCount.get( ) != lResetCount )
+            {
+                _mapReservationRuleTree.remove( nIdForm, listReservationRule );
+            }
+        }
+        return listReservationRule;
+    }
+
+    /**
+     * Reset the reservation rules kept for a form. Must be called after each change of a reservation rule of the form, after the commit of the transaction
+     * of the change if there is one, so that the rules can't be loaded again before the change is visible.
+     * 
+     * @param nIdForm
+     *            the form Id
+     */
+    public static void resetReservationRuleTree( int nIdForm )
+    {
+        // The forms are forgotten before the count changes: a tree loaded since then knows them again
+        _mapIdFormByIdReservationRule.values( ).removeIf( nIdFormOfRule -> nIdFormOfRule == nIdForm );
+        _mapIdFormByIdWorkingDay.values( ).removeIf( nIdFormOfWorkingDay -> nIdFormOfWorkingDay == nIdForm );
+        _lResetCount.incrementAndGet( );
+        _mapReservationRuleTree.remove( nIdForm );
+    }
+
+    /**
+     * Reset the reservation rules kept for the form of a reservation rule. Must be called after each change of a working day of the rule.
+     * 
+     * @param nIdReservationRule
+     *            the reservation rule Id
+     */
+    public static void resetReservationRuleTreeOfRule( int nIdReservationRule )
+    {
+        resetReservationRuleTreeOfForm( _mapIdFormByIdReservationRule.get( nIdReservationRule ) );
+    }
+
+    /**
+     * Reset the reservation rules kept for the form of a working day. Must be called after each change of a time slot of the working day.
+     * 
+     * @param nIdWorkingDay
+     *            the working day Id
+     */
+    public static void resetReservationRuleTreeOfWorkingDay( int nIdWorkingDay )
+    {
+        resetReservationRuleTreeOfForm( _mapIdFormByIdWorkingDay.get( nIdWorkingDay ) );
+    }
+
+    /**
+     * Reset the reservation rules kept for a form, if it is known. A rule or a working day whose form is not known is in no tree kept: only the trees
+     * being loaded, which may miss the change, are not kept.
+     * 
+     * @param nIdForm
+     *            the form Id, or null if it is not known
+     */
+    private static void resetReservationRuleTreeOfForm( Integer nIdForm )
+    {
+        if ( nIdForm != null )
+        {
+            resetReservationRuleTree( nIdForm );
+        }
+        else
+        {
+            _lResetCount.incrementAndGet( );
+        }
+    }
+
+    /**
+     * Copy a reservation rule kept, with its working days and their time slots
+     * 
+     * @param reservationRule
+     *            the reservation rule to copy
+     * @return the copy
+     */
+    private static ReservationRule copyReservationRuleTree( ReservationRule reservationRule )
+    {
+        ReservationRule reservationRuleCopy = new ReservationRule( );
+        reservationRuleCopy.setIdReservationRule( reservationRule.getIdReservationRule( ) );
+        reservationRuleCopy.setName( reservationRule.getName( ) );
+        reservationRuleCopy.setDescriptionRule( reservationRule.getDescriptionRule( ) );
+        reservationRuleCopy.setColor( reservationRule.getColor( ) );
+        reservationRuleCopy.setEnable( reservationRule.getEnable( ) );
+        reservationRuleCopy.setMaxCapacityPerSlot( reservationRule.getMaxCapacityPerSlot( ) );
+        reservationRuleCopy.setMaxPeoplePerAppointment( reservationRule.getMaxPeoplePerAppointment( ) );
+        reservationRuleCopy.setDurationAppointments( reservationRule.getDurationAppointments( ) );
+        reservationRuleCopy.setIdForm( reservationRule.getIdForm( ) );
+        List<WorkingDay> listWorkingDayCopy = new ArrayList<>( reservationRule.getListWorkingDay( ).size( ) );
+        for ( WorkingDay workingDay : reservationRule.getListWorkingDay( ) )
+        {
+            WorkingDay workingDayCopy = new WorkingDay( );
+            workingDayCopy.setIdWorkingDay( workingDay.getIdWorkingDay( ) );
+            workingDayCopy.setDayOfWeek( workingDay.getDayOfWeek( ) );
+            workingDayCopy.setIdReservationRule( workingDay.getIdReservationRule( ) );
+            List<TimeSlot> listTimeSlotCopy = new ArrayList<>( workingDay.getListTimeSlot( ).size( ) );
+            for ( TimeSlot timeSlot : workingDay.getListTimeSlot( ) )
+            {
+                TimeSlot timeSlotCopy = new TimeSlot( );
+                timeSlotCopy.setIdTimeSlot( timeSlot.getIdTimeSlot( ) );
+                timeSlotCopy.setStartingTime( timeSlot.getStartingTime( ) );
+                timeSlotCopy.setEndingTime( timeSlot.getEndingTime( ) );
+                timeSlotCopy.setStartingDateTime( timeSlot.getStartingDateTime( ) );
+                timeSlotCopy.setEndingDateTime( timeSlot.getEndingDateTime( ) );
+                timeSlotCopy.setIsOpen( timeSlot.getIsOpen( ) );
+                timeSlotCopy.setMaxCapacity( timeSlot.getMaxCapacity( ) );
+                timeSlotCopy.setIdWorkingDay( timeSlot.getIdWorkingDay( ) );
+                listTimeSlotCopy.add( timeSlotCopy );
+            }
+            workingDayCopy.setListTimeSlot( listTimeSlotCopy );
+            listWorkingDayCopy.add( workingDayCopy );
+        }
+        reservationRuleCopy.setListWorkingDay( listWorkingDayCopy );
+        return reservationRuleCopy;
+    }
+
     /**
      * Returns a list of the reservation rules of a form
      * 
@@ -390,12 +597,7 @@ public final class ReservationRuleService
     public static List<ReservationRule> findListReservationRule( int nIdForm )
     {
 
-        List<ReservationRule> listReservationRule = ReservationRuleHome.findByIdForm( nIdForm );
-        for ( ReservationRule reservationRule : listReservationRule )
-        {
-            reservationRule.setListWorkingDay( WorkingDayService.findListWorkingDayByWeekDefinitionRule( reservationRule.getIdReservationRule( ) ) );
-        }
-        return listReservationRule;
+        return ReservationRuleHome.findTreeByIdForm( nIdForm );
     }
 
     /**
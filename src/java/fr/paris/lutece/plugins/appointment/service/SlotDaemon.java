@@ -35,15 +35,20 @@ package fr.paris.lutece.plugins.appointment.service;
 
 import fr.paris.lutece.portal.service.daemon.Daemon;
 
+/**
+ * Daemon that purged the locks of the past slots. The slot locks are now striped and do not grow with the number of slots, so there is nothing left to
+ * purge: the daemon is kept so that the existing configurations still load, and will be removed in a next major version.
+ * 
+ * @deprecated nothing to do, the slot locks are striped
+ */
+@Deprecated
 public class SlotDaemon extends Daemon
 {
 
     @Override
     public void run( )
     {
-
-        SlotSafeService.cleanSlotlist( );
-
+        setLastRunLogs( "Nothing to do: the slot locks are striped" );
     }
 
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Service that pushes the changes of the slots of a form to the browsers that display its calendar, with Server-Sent Events.
+ * 
+ * The changes are coalesced: each period, the last state of each changed slot is sent in one event, as an array of [id_slot, number of remaining places,
+ * number of potential remaining places].
+ * 
+ * All the events are written by the single push thread, the response of a connection is not thread-safe.
+ * 
+ * The number of connections is capped: the connections are not authenticated and each one holds an asynchronous request for the push timeout. The
+ * calendars that can not open a connection poll the availability of their form instead.
+ */
+public final class SlotPushService
+{
+    private static final String PROPERTY_PUSH_PERIOD = "appointment.slot.push.period";
+    private static final String PROPERTY_PUSH_TIMEOUT = "appointment.slot.push.timeout";
+    private static final long PUSH_PERIOD = AppPropertiesService.getPropertyLong( PROPERTY_PUSH_PERIOD, 500L );
+    private static final long PUSH_TIMEOUT = AppPropertiesService.getPropertyLong( PROPERTY_PUSH_TIMEOUT, 300000L );
+    private static final String PROPERTY_MAX_CONNECTIONS = "appointment.slot.push.maxConnections";
+    private static final int MAX_CONNECTIONS = AppPropertiesService.getPropertyInt( PROPERTY_MAX_CONNECTIONS, 1000 );
+    // Send a comment from time to time, to detect the closed connections
+    private static final long HEARTBEAT_PERIOD = 15000L;
+
+    private static final String EVENT_SLOTS = "event: slots\ndata: [";
+    private static final String EVENT_END = "]\n\n";
+    private static final String EVENT_HEARTBEAT = ": heartbeat\n\n";
+    private static final String EVENT_RETRY = "retry: 3000\n\n";
+
+    private static final ConcurrentMap<Integer, Set<AsyncContext>> _mapSubscriber = new ConcurrentHashMap<>( );
+    private static final ConcurrentMap<Integer, Map<Integer, int [ ]>> _mapPendingChange = new ConcurrentHashMap<>( );
+    private static final AtomicBoolean _bStarted = new AtomicBoolean( );
+    private static final Semaphore _semaphoreConnection = new Semaphore( MAX_CONNECTIONS );
+    private static final ScheduledExecutorService _scheduledExecutor = Executors
+            .newSingleThreadScheduledExecutor( r -> new Thread( r, "Lutece-AppointmentSlotPush-thread" ) );
+    private static long _lLastHeartbeat = System.currentTimeMillis( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private SlotPushService( )
+    {
+    }
+
+    /**
+     * Start an asynchronous connection on a request and subscribe it to the changes of the slots of a form. The response of the request must be ready to
+     * send events.
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param request
+     *            the request, that must support the asynchronous mode
+     * @return false if the maximum number of connections is reached, the request is then left untouched
+     */
+    public static boolean subscribe( int nIdForm, HttpServletRequest request )
+    {
+        if ( !_semaphoreConnection.tryAcquire( ) )
+        {
+            return false;
+        }
+        AsyncContext asyncContext;
+        try
+        {
+            asyncContext = request.startAsync( );
+        }
+        catch( IllegalStateException e )
+        {
+            _semaphoreConnection.release( );
+            throw e;
+        }
+        if ( _bStarted.compareAndSet( false, true ) )
+        {
+            _scheduledExecutor.scheduleWithFixedDelay( SlotPushService::push, PUSH_PERIOD, PUSH_PERIOD, TimeUnit.MILLISECONDS );
+        }
+        asyncContext.setTimeout( PUSH_TIMEOUT );
+        asyncContext.addListener( new AsyncListener( )
+        {
+            @Override
+            public void onComplete( AsyncEvent event )
+            {
+                unsubscribe( nIdForm, asyncContext );
+            }
+
+            @Override
+            public void onTimeout( AsyncEvent event )
+            {
+                unsubscribe( nIdForm, asyncContext );
+                asyncContext.complete( );
+            }
+
+            @Override
+            public void onError( AsyncEvent event )
+            {
+                unsubscribe( nIdForm, asyncContext );
+            }
+
+            @Override
+            public void onStartAsync( AsyncEvent event )
+            {
+                // Nothing to do
+            }
+        } );
+        _mapSubscriber.compute( nIdForm, ( nId, setAsyncContext ) -> {
+            Set<AsyncContext> setSubscriber = ( setAsyncContext != null ) ? setAsyncContext : ConcurrentHashMap.newKeySet( );
+            setSubscriber.add( asyncContext );
+            return setSubscriber;
+        } );
+        try
+        {
+            // The events are only written by the push thread, so that the frames sent to a connection are never interleaved
+            _scheduledExecutor.execute( ( ) -> send( nIdForm, asyncContext, EVENT_RETRY ) );
+        }
+        catch( RejectedExecutionException e )
+        {
+            // The push is stopped
+            unsubscribe( nIdForm, asyncContext );
+            complete( asyncContext );
+        }
+        return true;
+    }
+
+    /**
+     * Check if some connections are subscribed to the changes of the slots
+     * 
+     * @return true if there is at least one subscribed connection
+     */
+    public static boolean hasSubscriber( )
+    {
+        return !_mapSubscriber.isEmpty( );
+    }
+
+    /**
+     * Register the change of a slot, it will be pushed at the next period to the connections subscribed to its form
+     * 
+     * @param slot
+     *            the slot that has changed
+     */
+    public static void addSlotChange( Slot slot )
+    {
+        if ( !_mapSubscriber.containsKey( slot.getIdForm( ) ) )
+        {
+            return;
+        }
+        _mapPendingChange.computeIfAbsent( slot.getIdForm( ), nId -> new ConcurrentHashMap<>( ) ).put( slot.getIdSlot( ), new int [ ] {
+                slot.getNbRemainingPlaces( ), slot.getNbPotentialRemainingPlaces( )
+        } );
+    }
+
+    /**
+     * Close all the connections and stop the push
+     */
+    public static void shutdown( )
+    {
+        _scheduledExecutor.shutdownNow( );
+        for ( Set<AsyncContext> setAsyncContext : _mapSubscriber.values( ) )
+        {
+            for ( AsyncContext asyncContext : setAsyncContext )
+            {
+                complete( asyncContext );
+            }
+        }
+        _mapSubscriber.clear( );
+    }
+
+    /**
+     * Push the pending changes to the subscribed connections, and a heartbeat if needed
+     */
+    private static void push( )
+    {
+        try
+        {
+            for ( Integer nIdForm : _mapPendingChange.keySet( ) )
+            {
+                Map<Integer, int [ ]> mapChange = _mapPendingChange.remove( nIdForm );
+                Set<AsyncContext> setAsyncContext = _mapSubscriber.get( nIdForm );
+                if ( mapChange == null || setAsyncContext == null )
+                {
+                    continue;
+                }
+                StringJoiner event = new StringJoiner( ",", EVENT_SLOTS, EVENT_END );
+                for ( Map.Entry<Integer, int [ ]> entry : mapChange.entrySet( ) )
+                {
+                    event.add( "[" + entry.getKey( ) + "," + entry.getValue( ) [0] + "," + entry.getValue( ) [1] + "]" );
+                }
+                String strEvent = event.toString( );
+                for ( AsyncContext asyncContext : setAsyncContext )
+                {
+                    send( nIdForm, asyncContext, strEvent );
+                }
+            }
+            long lNow = System.currentTimeMillis( );
+            if ( lNow - _lLastHeartbeat >= HEARTBEAT_PERIOD )
+            {
+                _lLastHeartbeat = lNow;
+                for ( Map.Entry<Integer, Set<AsyncContext>> entry : _mapSubscriber.entrySet( ) )
+                {
+                    for ( AsyncContext asyncContext : entry.getValue( ) )
+                    {
+                        send( entry.getKey( ), asyncContext, EVENT_HEARTBEAT );
+                    }
+                }
+            }
+        }
+        catch( RuntimeException e )
+        {
+            // Do not let an exception cancel the next executions
+            AppLogService.error( "Error while pushing the changes of the slots", e );
+        }
+    }
+
+    /**
+     * Send an event to a connection, and unsubscribe it if it is closed
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param asyncContext
+     *            the asynchronous context of the connection
+     * @param strEvent
+     *            the event
+     */
+    private static void send( int nIdForm, AsyncContext asyncContext, String strEvent )
+    {
+        try
+        {
+            PrintWriter writer = asyncContext.getResponse( ).getWriter( );
+            writer.write( strEvent );
+            writer.flush( );
+            if ( !writer.checkError( ) )
+            {
+                return;
+            }
+        }
+        catch( IOException | IllegalStateException e )
+        {
+            AppLogService.debug( "Slot push connection closed : " + e.getMessage( ) );
+        }
+        unsubscribe( nIdForm, asyncContext );
+        complete( asyncContext );
+    }
+
+    /**
+     * Unsubscribe a connection
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param asyncContext
+     *            the asynchronous context of the connection
+     */
+    private static void unsubscribe( int nIdForm, AsyncContext asyncContext )
+    {
+        _mapSubscriber.computeIfPresent( nIdForm, ( nId, setAsyncContext ) -> {
+            // A connection may be unsubscribed several times (closed while sending, then completed)
+            if ( setAsyncContext.remove( asyncContext ) )
+            {
+                _semaphoreConnection.release( );
+            }
+            return setAsyncContext.isEmpty( ) ? null : setAsyncContext;
+        } );
+    }
+
+    /**
+     * Complete a connection, ignoring the error if it is already completed
+     * 
+     * @param asyncContext
+     *            the asynchronous context of the connection
+     */
+    private static void complete( AsyncContext asyncContext )
+    {
+        try
+        {
+            asyncContext.complete( );
+        }
+        catch( IllegalStateException e )
+        {
+            AppLogService.debug( "Slot push connection already completed : " + e.getMessage( ) );
+        }
+    }
+}
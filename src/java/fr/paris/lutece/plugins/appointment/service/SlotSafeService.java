@@ -38,17 +38,17 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -73,12 +73,17 @@ import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
 import fr.paris.lutece.plugins.appointment.service.listeners.AppointmentListenerManager;
 import fr.paris.lutece.plugins.appointment.service.listeners.SlotListenerManager;
 import fr.paris.lutece.plugins.appointment.service.lock.SlotEditTask;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService.FailureCause;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService.Stage;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
 import fr.paris.lutece.portal.business.user.AdminUser;
 import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.service.workflow.WorkflowService;
 import fr.paris.lutece.portal.web.l10n.LocaleService;
 import fr.paris.lutece.util.sql.TransactionManager;
@@ -86,8 +91,31 @@ import fr.paris.lutece.util.sql.TransactionManager;
 public final class SlotSafeService
 {
 
-    private static final ConcurrentMap<Integer, Lock> _listSlot = new ConcurrentHashMap<>( );
-    private static final ConcurrentMap<Integer, Object> _lockFormId = new ConcurrentHashMap<>( );
+    private static final String PROPERTY_SLOT_LOCK_STRIPES = "appointment.slot.lock.stripes";
+    private static final int DEFAULT_SLOT_LOCK_STRIPES = 1024;
+    private static final int MAX_SLOT_LOCK_STRIPES = 65536;
+    private static final int SLOT_CREATION_LOCK_STRIPES = 256;
+    private static final String PROPERTY_SLOT_LOCK_TIMEOUT = "appointment.slot.lock.timeout";
+    private static final long DEFAULT_SLOT_LOCK_TIMEOUT = 3000L;
+
+    /**
+     * The locks of the slots: a slot is locked by the stripe its id is hashed to, so the memory used by the locks does not grow with the number of slots.
+     * 
+     * The price is that two unrelated slots, of any forms, may share a stripe: a booking then waits for another one it does not conflict with. With S stripes
+     * and B bookings in progress, a booking collides with another one with a probability of about B/S, and only waits for the time of that booking. Raise
+     * appointment.slot.lock.stripes when the slot lock waits grow with the load while the slots are not contended.
+     */
+    private static final Lock [ ] _arraySlotLock = createSlotLocks( );
+
+    /**
+     * The locks of the creation of the slots, hashed the same way by form and starting date time of the slot. They are ReentrantLock as the slot locks, and
+     * not monitors, so that a virtual thread waiting for them or holding them during the JDBC calls does not pin its carrier thread. They are apart from
+     * the slot locks because they are taken while holding slot locks.
+     * 
+     * They replace the stripes by form of the former getLockOnForm: the creation of a slot was the only use of the form locks, and a lock by form
+     * serialised the first bookings of all the days of a form, while only the creations of the same slot conflict. Nothing else is locked by form.
+     */
+    private static final Lock [ ] _arraySlotCreationLock = createSlotCreationLocks( );
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -96,19 +124,107 @@ public final class SlotSafeService
     {
     }
 
+    /**
+     * Create the stripes of the slot locks. Their number is rounded up to a power of two.
+     * 
+     * @return the array of the slot locks
+     */
+    private static Lock [ ] createSlotLocks( )
+    {
+        int nRequestedStripes = Math.min( MAX_SLOT_LOCK_STRIPES, AppPropertiesService.getPropertyInt( PROPERTY_SLOT_LOCK_STRIPES, DEFAULT_SLOT_LOCK_STRIPES ) );
+        int nStripes = 1;
+        while ( nStripes < nRequestedStripes )
+        {
+            nStripes <<= 1;
+        }
+        Lock [ ] arrayLock = new Lock [ nStripes];
+        for ( int i = 0; i < arrayLock.length; i++ )
+        {
+            // Fair, so that a booking waiting for several slots is not overtaken indefinitely
+            arrayLock [i] = new ReentrantLock( true );
+        }
+        return arrayLock;
+    }
+
+    /**
+     * Create the stripes of the slot creation locks
+     * 
+     * @return the array of the slot creation locks
+     */
+    private static Lock [ ] createSlotCreationLocks( )
+    {
+        Lock [ ] arrayLock = new Lock [ SLOT_CREATION_LOCK_STRIPES];
+        for ( int i = 0; i < arrayLock.length; i++ )
+        {
+            arrayLock [i] = new ReentrantLock( );
+        }
+        return arrayLock;
+    }
+
+    /**
+     * Get the index of the stripe of an id
+     * 
+     * @param nId
+     *            the id
+     * @param nStripes
+     *            the number of stripes, a power of two
+     * @return the index of the stripe
+     */
+    private static int getStripe( int nId, int nStripes )
+    {
+        // Spread the consecutive ids over the stripes
+        int nHash = nId * 0x9E3779B9;
+        return ( nHash ^ ( nHash >>> 16 ) ) & ( nStripes - 1 );
+    }
+
     /**
      * Get the slot in memory
      * 
-     * @return Map of slot
+     * @return an empty map: the locks are no longer kept per slot
+     * @deprecated the slot locks are striped, see {@link #getLockOnSlot(int)}
      */
+    @Deprecated
     public static Map<Integer, Lock> getListSlotInMemory( )
     {
+        return Collections.emptyMap( );
+    }
+
+    /**
+     * remove slot in map memory. Nothing to do: the locks are no longer kept per slot.
+     * 
+     * @param nIdSlot
+     *            the Id Slot
+     * @deprecated the slot locks are striped, see {@link #getLockOnSlot(int)}
+     */
+    @Deprecated
+    public static void removeSlotInMemory( int nIdSlot )
+    {
+        // Nothing to do
+    }
 
-        return _listSlot;
+    /**
+     * Clean slotlist. Nothing to do: the locks are no longer kept per slot.
+     * 
+     * @deprecated the slot locks are striped, see {@link #getLockOnSlot(int)}
+     */
+    @Deprecated
+    public static void cleanSlotlist( )
+    {
+        // Nothing to do
+    }
+
+    /**
+     * Get the number of stripes of the slot locks
+     * 
+     * @return the number of stripes
+     */
+    public static int getSlotLockStripeCount( )
+    {
+        return _arraySlotLock.length;
     }
 
     /**
-     * get lock for slot
+     * get lock for slot. Several slots can share the same lock, which is reentrant.
      * 
      * @param nIdSlot
      *            the Id Slot
@@ -120,33 +236,145 @@ public final class SlotSafeService
         {
             return new ReentrantLock( );
         }
-        _listSlot.putIfAbsent( nIdSlot, new ReentrantLock( ) );
-        return _listSlot.get( nIdSlot );
+        return _arraySlotLock [getStripe( nIdSlot, _arraySlotLock.length )];
     }
 
     /**
-     * remove slot in map memory
+     * Acquire the locks of the slots of a booking. The locks are acquired in the order of their stripes, so that two threads locking overlapping sets of slots
+     * can't wait for each other. All the locks have to be acquired before a total deadline, set by the property appointment.slot.lock.timeout (in ms).
      * 
-     * @param nIdSlot
-     *            the Id Slot
+     * @param collectionIdSlot
+     *            the ids of the slots
+     * @return the locks acquired, to unlock by the caller
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     * @throws SlotFullException
+     *             if the locks could not be acquired before the deadline. No lock is held then.
      */
-    public static void removeSlotInMemory( int nIdSlot )
+    public static List<Lock> lockSlots( Collection<Integer> collectionIdSlot ) throws InterruptedException
     {
+        return lockSlots( collectionIdSlot, Stage.SLOT_LOCK );
+    }
 
-        _listSlot.remove( nIdSlot );
+    /**
+     * Acquire the locks of several slots, as {@link #lockSlots(Collection)}. The waiting time is recorded in the given stage, so that the locks taken by the
+     * back office are not counted with the bookings.
+     * 
+     * @param collectionIdSlot
+     *            the ids of the slots
+     * @param stage
+     *            the stage of the metrics: {@link Stage#SLOT_LOCK} for a booking, {@link Stage#ADMIN_SLOT_LOCK} for the back office
+     * @return the locks acquired, to unlock by the caller
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     * @throws SlotFullException
+     *             if the locks could not be acquired before the deadline. No lock is held then.
+     */
+    private static List<Lock> lockSlots( Collection<Integer> collectionIdSlot, Stage stage ) throws InterruptedException
+    {
+        // Each stripe is locked once, in the order of the stripes
+        SortedSet<Integer> setStripe = new TreeSet<>( );
+        for ( Integer nIdSlot : collectionIdSlot )
+        {
+            if ( nIdSlot != 0 )
+            {
+                setStripe.add( getStripe( nIdSlot, _arraySlotLock.length ) );
+            }
+        }
+        List<Lock> listLock = new ArrayList<>( setStripe.size( ) );
+        long lStartTime = System.nanoTime( );
+        long lDeadline = lStartTime + TimeUnit.MILLISECONDS.toNanos( AppPropertiesService.getPropertyLong( PROPERTY_SLOT_LOCK_TIMEOUT, DEFAULT_SLOT_LOCK_TIMEOUT ) );
+        boolean bAcquired = false;
+        try
+        {
+            for ( Integer nStripe : setStripe )
+            {
+                Lock lock = _arraySlotLock [nStripe];
+                long lStripeStartTime = System.nanoTime( );
+                boolean bContended = !lock.tryLock( );
+                boolean bLocked = !bContended || lock.tryLock( lDeadline - lStripeStartTime, TimeUnit.NANOSECONDS );
+                BookingMetricsService.recordSlotLockWait( nStripe, System.nanoTime( ) - lStripeStartTime, bContended );
+                if ( !bLocked )
+                {
+                    BookingMetricsService.recordSlotLockTimeout( stage );
+                    throw new SlotFullException( "ERROR SLOT LOCKED" );
+                }
+                listLock.add( lock );
+            }
+            bAcquired = true;
+        }
+        finally
+        {
+            BookingMetricsService.recordStage( stage, lStartTime );
+            if ( !bAcquired )
+            {
+                for ( Lock lock : listLock )
+                {
+                    lock.unlock( );
+                }
+            }
+        }
+        return listLock;
     }
 
     /**
-     * get lock for form
+     * Get the lock for the creation of a slot. The lock only depends on the form and the starting date time of the slot, so the slots of a form that start
+     * at different times can be created at the same time.
      * 
-     * @param nIdform
-     *            Id from
+     * @param nIdForm
+     *            the form id
+     * @param startingDateTime
+     *            the starting date time of the slot
      * @return return lock
      */
-    private static Object getLockOnForm( int nIdform )
+    private static Lock getLockOnSlotCreation( int nIdForm, LocalDateTime startingDateTime )
+    {
+        return _arraySlotCreationLock [getSlotCreationStripe( nIdForm, startingDateTime )];
+    }
+
+    /**
+     * Get the stripe of the lock for the creation of a slot
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param startingDateTime
+     *            the starting date time of the slot
+     * @return the index of the lock in the creation locks
+     */
+    private static int getSlotCreationStripe( int nIdForm, LocalDateTime startingDateTime )
+    {
+        return getStripe( 31 * nIdForm + startingDateTime.hashCode( ), _arraySlotCreationLock.length );
+    }
+
+    /**
+     * Run a task holding the creation locks of a list of slots, taken in the order of their stripes so that two lists cannot wait for each other
+     * 
+     * @param listSlot
+     *            the slots to create
+     * @param task
+     *            the task
+     */
+    private static void runWithSlotCreationLocks( List<Slot> listSlot, Runnable task )
     {
-        _lockFormId.putIfAbsent( nIdform, new Object( ) );
-        return _lockFormId.get( nIdform );
+        int [ ] arrayStripe = listSlot.stream( ).mapToInt( slot -> getSlotCreationStripe( slot.getIdForm( ), slot.getStartingDateTime( ) ) ).distinct( )
+                .sorted( ).toArray( );
+        int nLocked = 0;
+        try
+        {
+            for ( int nStripe : arrayStripe )
+            {
+                _arraySlotCreationLock [nStripe].lock( );
+                nLocked++;
+            }
+            task.run( );
+        }
+        finally
+        {
+            for ( int i = nLocked - 1; i >= 0; i-- )
+            {
+                _arraySlotCreationLock [arrayStripe [i]].unlock( );
+            }
+        }
     }
 
     /**
@@ -157,8 +385,9 @@ public final class SlotSafeService
      */
     public static Slot createSlot( Slot slot )
     {
-        Object formLock = getLockOnForm( slot.getIdForm( ) );
-        synchronized( formLock )
+        Lock slotCreationLock = getLockOnSlotCreation( slot.getIdForm( ), slot.getStartingDateTime( ) );
+        slotCreationLock.lock( );
+        try
         {
             Slot slotSaved = null;
             HashMap<LocalDateTime, Slot> slotInDbMap = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( slot.getIdForm( ),
@@ -171,12 +400,16 @@ public final class SlotSafeService
             {
 
                 slotSaved = SlotHome.create( slot );
-                SlotListenerManager.notifyListenersSlotCreation( slot.getIdSlot( ) );
+                SlotListenerManager.notifyListenersSlotCreation( slot );
             }
 
             return slotSaved;
 
         }
+        finally
+        {
+            slotCreationLock.unlock( );
+        }
     }
 
     /**
@@ -280,7 +513,7 @@ public final class SlotSafeService
                 int nNewPotentialRemainingPlaces = Math.min( slot.getNbPotentialRemainingPlaces( ) + task.getNbPlacesTaken( ), slot.getNbRemainingPlaces( ) );
                 slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
                 SlotHome.updatePotentialRemainingPlaces( nNewPotentialRemainingPlaces, slot.getIdSlot( ) );
-                SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
+                SlotListenerManager.notifyListenersSlotChange( slot );
 
             }
         }
@@ -313,7 +546,7 @@ public final class SlotSafeService
                 int nNewPotentialRemainingPlaces = slot.getNbPotentialRemainingPlaces( ) - nbPotentialRemainingPlaces;
                 slot.setNbPotentialRemainingPlaces( nNewPotentialRemainingPlaces );
                 SlotHome.updatePotentialRemainingPlaces( nNewPotentialRemainingPlaces, nIdSlot );
-                SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
+                SlotListenerManager.notifyListenersSlotChange( slot );
 
             }
 
@@ -351,20 +584,27 @@ public final class SlotSafeService
             for ( Slot slt : appointmentDTO.getSlot( ) )
             {
                 if ( AppointmentUtilities.isEditSlotTaskExpiredTime( request, slt.getIdSlot( ) ) )
+                {
+                    BookingMetricsService.recordFailure( FailureCause.EXPIRED );
                     throw new SlotEditTaskExpiredTimeException( "appointment edit expired time" );
+                }
             }
         }
         AppointmentService.buildListAppointmentSlot( appointmentDTO );
+        long lStartTime = System.nanoTime( );
         TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
         try
         {
             Set<Integer> listSlotUpdated = saveSlots( appointmentDTO, listLock, request );
+            long lStageStartTime = System.nanoTime( );
             if ( !isReport )
             {
                 user = UserService.saveUser( appointmentDTO );
+                lStageStartTime = BookingMetricsService.recordStage( Stage.USER, lStageStartTime );
             }
             // Create or update the appointment
             Appointment appointment = AppointmentService.buildAndCreateAppointment( appointmentDTO, user );
+            lStageStartTime = BookingMetricsService.recordStage( Stage.APPOINTMENT, lStageStartTime );
             if ( !isReport && CollectionUtils.isNotEmpty( appointmentDTO.getListResponse( ) ) )
             {
                 for ( Response response : appointmentDTO.getListResponse( ) )
@@ -372,9 +612,13 @@ public final class SlotSafeService
                     ResponseHome.create( response );
                     AppointmentResponseService.insertAppointmentResponse( appointment.getIdAppointment( ), response.getIdResponse( ) );
                 }
+                lStageStartTime = BookingMetricsService.recordStage( Stage.RESPONSES, lStageStartTime );
             }
             processeActionWorkflow( appointment, request, locale, appointmentDTO.getIdForm( ), isReport );
+            lStageStartTime = BookingMetricsService.recordStage( Stage.WORKFLOW, lStageStartTime );
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+            BookingMetricsService.recordStage( Stage.COMMIT, lStageStartTime );
+            BookingMetricsService.recordStage( Stage.TOTAL, lStartTime );
             appointmentDTO.setIdAppointment( appointment.getIdAppointment( ) );
             appointmentDTO.setIsSaved( true );
             notifyListner( appointment, listSlotUpdated, isReport, locale );
@@ -393,6 +637,11 @@ public final class SlotSafeService
         catch( Exception e )
         {
             TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            if ( !( e instanceof SlotFullException ) )
+            {
+                // The SlotFullException are counted by cause where they are thrown
+                BookingMetricsService.recordFailure( FailureCause.OTHER );
+            }
             AppLogService.error( "Error Save appointment " + e.getMessage( ), e );
             throw new SlotFullException( e.getMessage( ), e );
         }
@@ -604,6 +853,142 @@ public final class SlotSafeService
 
     }
 
+    /**
+     * Save a list of slots of a form whose ending time has not changed (opening, capacity...). The slots are loaded in one query and locked at once, their
+     * specific flag is computed against the week definitions of the form loaded once, then they are written with batched statements and the listeners are
+     * notified once for all the slots. The slots are created holding their creation locks, as {@link #createSlot(Slot)} does; the ones created meanwhile by
+     * another thread are then saved again as updates.
+     * 
+     * @param nIdForm
+     *            the id of the form of the slots
+     * @param listSlot
+     *            the slots to save (the ones not yet in database have an id of 0)
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting for the locks
+     */
+    public static void updateListSlot( int nIdForm, List<Slot> listSlot ) throws InterruptedException
+    {
+        if ( CollectionUtils.isEmpty( listSlot ) )
+        {
+            return;
+        }
+        bindSlotsAlreadyCreated( nIdForm, listSlot );
+        Set<Integer> setIdSlot = listSlot.stream( ).map( Slot::getIdSlot ).filter( nIdSlot -> nIdSlot != 0 ).collect( Collectors.toSet( ) );
+        List<Slot> listSlotToCreate = new ArrayList<>( );
+        List<Slot> listSlotToUpdate = new ArrayList<>( );
+        List<Slot> listSlotCreatedMeanwhile = new ArrayList<>( );
+        List<Lock> listLock = lockSlots( setIdSlot, Stage.ADMIN_SLOT_LOCK );
+        try
+        {
+            // The current values are read once the slots are locked
+            Map<Integer, Slot> mapOldSlot = SlotService.findListSlot( new ArrayList<>( setIdSlot ) ).stream( )
+                    .collect( Collectors.toMap( Slot::getIdSlot, slot -> slot ) );
+            List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findListWeekDefinition( nIdForm );
+            Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
+            for ( Slot slot : listSlot )
+            {
+                Slot oldSlot = mapOldSlot.get( slot.getIdSlot( ) );
+                if ( oldSlot != null )
+                {
+                    updateRemainingPlaces( slot, oldSlot );
+                    listSlotToUpdate.add( slot );
+                }
+                else
+                {
+                    slot.setIdSlot( 0 );
+                    listSlotToCreate.add( slot );
+                }
+                slot.setIsSpecific( isSpecificSlot( slot, mapReservationRule ) );
+            }
+            // The creation locks are held until the commit, so that createSlot sees the slots created here
+            runWithSlotCreationLocks( listSlotToCreate, ( ) -> {
+                bindSlotsAlreadyCreated( nIdForm, listSlotToCreate );
+                listSlotToCreate.removeIf( slot -> slot.getIdSlot( ) != 0 && listSlotCreatedMeanwhile.add( slot ) );
+                TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+                try
+                {
+                    SlotHome.updateList( listSlotToUpdate );
+                    SlotHome.createList( listSlotToCreate );
+                    TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+                }
+                catch( Exception e )
+                {
+                    TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+                    AppLogService.error( "Error update list slot " + e.getMessage( ), e );
+                    throw new AppException( e.getMessage( ), e );
+                }
+            } );
+        }
+        finally
+        {
+            for ( Lock lock : listLock )
+            {
+                lock.unlock( );
+            }
+        }
+        SlotListenerManager.notifyListenersListSlotChange( nIdForm, listSlotToCreate, listSlotToUpdate );
+        // The slots created by another thread since they were read are locked and merged like the other existing slots
+        updateListSlot( nIdForm, listSlotCreatedMeanwhile );
+    }
+
+    /**
+     * Set the id of the slots not yet saved that have been created in database in the meantime, so that they are updated and not created twice
+     * 
+     * @param nIdForm
+     *            the id of the form of the slots
+     * @param listSlot
+     *            the slots
+     */
+    private static void bindSlotsAlreadyCreated( int nIdForm, List<Slot> listSlot )
+    {
+        List<Slot> listNewSlot = listSlot.stream( ).filter( slot -> slot.getIdSlot( ) == 0 ).collect( Collectors.toList( ) );
+        if ( listNewSlot.isEmpty( ) )
+        {
+            return;
+        }
+        LocalDateTime minStartingDateTime = listNewSlot.stream( ).map( Slot::getStartingDateTime ).min( LocalDateTime::compareTo ).orElse( null );
+        LocalDateTime maxEndingDateTime = listNewSlot.stream( ).map( Slot::getEndingDateTime ).max( LocalDateTime::compareTo ).orElse( null );
+        HashMap<LocalDateTime, Slot> mapSlotInDb = SlotService.buildMapSlotsByIdFormAndDateRangeWithDateForKey( nIdForm, minStartingDateTime,
+                maxEndingDateTime );
+        for ( Slot slot : listNewSlot )
+        {
+            Slot slotInDb = mapSlotInDb.get( slot.getStartingDateTime( ) );
+            if ( slotInDb != null )
+            {
+                slot.setIdSlot( slotInDb.getIdSlot( ) );
+            }
+        }
+    }
+
+    /**
+     * To know if it's a specific slot, with the reservation rules of the form already loaded
+     * 
+     * @param slot
+     *            the slot
+     * @param mapReservationRule
+     *            the reservation rules of the form, by week definition
+     * @return true if it's a specific slot
+     */
+    private static boolean isSpecificSlot( Slot slot, Map<WeekDefinition, ReservationRule> mapReservationRule )
+    {
+        LocalDate dateOfSlot = slot.getStartingDateTime( ).toLocalDate( );
+        ReservationRule reservationRule = mapReservationRule.entrySet( ).stream( )
+                .filter( entry -> !entry.getKey( ).getDateOfApply( ).isAfter( dateOfSlot ) && !entry.getKey( ).getEndingDateOfApply( ).isBefore( dateOfSlot ) )
+                .map( Map.Entry::getValue ).findFirst( ).orElse( null );
+        if ( reservationRule == null )
+        {
+            // No week definition on this date
+            return SlotService.isSpecificSlot( slot );
+        }
+        WorkingDay workingDay = WorkingDayService.getWorkingDayOfDayOfWeek( reservationRule.getListWorkingDay( ), dateOfSlot.getDayOfWeek( ) );
+        List<TimeSlot> listTimeSlot = null;
+        if ( workingDay != null )
+        {
+            listTimeSlot = workingDay.getListTimeSlot( );
+        }
+        return SlotService.isSpecificSlot( slot, workingDay, listTimeSlot, reservationRule.getMaxCapacityPerSlot( ) );
+    }
+
     /**
      * Update the current slot and don't shift the next slots
      * 
@@ -887,7 +1272,19 @@ public final class SlotSafeService
      */
     public static void updateRemainingPlaces( Slot slot )
     {
-        Slot oldSlot = SlotHome.findByPrimaryKey( slot.getIdSlot( ) );
+        updateRemainingPlaces( slot, SlotHome.findByPrimaryKey( slot.getIdSlot( ) ) );
+    }
+
+    /**
+     * Update the capacity of the slot from its values in database
+     * 
+     * @param slot
+     *            the slot to update
+     * @param oldSlot
+     *            the slot as it is in database
+     */
+    private static void updateRemainingPlaces( Slot slot, Slot oldSlot )
+    {
         int nNewNbMaxCapacity = slot.getMaxCapacity( );
         int nOldBnMaxCapacity = oldSlot.getMaxCapacity( );
         // If the max capacity has been modified
@@ -951,7 +1348,7 @@ public final class SlotSafeService
     public static Slot updateSlot( Slot slot )
     {
         Slot slotToReturn = SlotHome.update( slot );
-        SlotListenerManager.notifyListenersSlotChange( slot.getIdSlot( ) );
+        SlotListenerManager.notifyListenersSlotChange( slot );
         return slotToReturn;
 
     }
@@ -973,27 +1370,6 @@ public final class SlotSafeService
         }
     }
 
-    /**
-     * Clean slotlist
-     */
-    public static void cleanSlotlist( )
-    {
-
-        Iterator<Integer> it = _listSlot.keySet( ).iterator( );
-        int idSlot;
-        while ( it.hasNext( ) )
-        {
-
-            idSlot = it.next( );
-            Slot slot = SlotService.findSlotById( idSlot );
-            if ( slot == null || slot.getStartingDateTime( ).isBefore( LocalDateTime.now( ) ) || slot.getMaxCapacity( ) <= slot.getNbPlacesTaken( ) )
-            {
-                _listSlot.remove( idSlot );
-            }
-
-        }
-    }
-
     /**
      * Save and update slots
      * 
@@ -1014,20 +1390,24 @@ public final class SlotSafeService
             oldAppointment = AppointmentService.findAppointmentById( appointmentDTO.getIdAppointment( ) );
             if ( oldAppointment.getIsCancelled( ) )
             {
+                BookingMetricsService.recordFailure( FailureCause.CANCELLED );
                 throw new SlotFullException( "ERROR APPOINTMENT CANCELLED " );
             }
+        }
+        // Lock at once the old and the new slots, in a global order
+        Set<Integer> setIdSlot = new HashSet<>( );
+        if ( oldAppointment != null )
+        {
+            oldAppointment.getListAppointmentSlot( ).forEach( appointmentSlot -> setIdSlot.add( appointmentSlot.getIdSlot( ) ) );
+        }
+        appointmentDTO.getListAppointmentSlot( ).forEach( appSlot -> setIdSlot.add( appSlot.getIdSlot( ) ) );
+        listLock.addAll( lockSlots( setIdSlot ) );
+        long lStartTime = System.nanoTime( );
+        if ( oldAppointment != null )
+        {
             // Need to update the old slot
             for ( AppointmentSlot appointmentSlot : oldAppointment.getListAppointmentSlot( ) )
             {
-                Lock lock = getLockOnSlot( appointmentSlot.getIdSlot( ) );
-                if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
-                {
-                    listLock.add( lock );
-                }
-                else
-                {
-                    throw new SlotFullException( "ERROR SLOT LOCKED" );
-                }
                 Slot slt = SlotService.findSlotById( appointmentSlot.getIdSlot( ) );
                 oldAppointment.addSlot( slt.clone( ) );
                 slt = updateRemaningPlacesWithAppointmentMoved( appointmentSlot.getNbPlaces( ), slt );
@@ -1049,15 +1429,6 @@ public final class SlotSafeService
             }
             else
             {
-                Lock lock = getLockOnSlot( appSlot.getIdSlot( ) );
-                if ( lock.tryLock( 3, TimeUnit.SECONDS ) )
-                {
-                    listLock.add( lock );
-                }
-                else
-                {
-                    throw new SlotFullException( "ERROR SLOT LOCKED" );
-                }
                 slt = SlotService.findSlotById( appSlot.getIdSlot( ) );
             }
             if ( slt == null || ( ( appSlot.getNbPlaces( ) > slt.getNbRemainingPlaces( ) && !appointmentDTO.getOverbookingAllowed( ) )
@@ -1065,6 +1436,7 @@ public final class SlotSafeService
 
             {
                 AppLogService.error( "ERROR SLOT FULL, ID SLOT: " + appSlot.getIdSlot( ) );
+                BookingMetricsService.recordFailure( FailureCause.FULL );
                 throw new SlotFullException( "ERROR SLOT FULL " );
             }
             nbSumRemainingPlaces = nbSumRemainingPlaces + slt.getNbRemainingPlaces( );
@@ -1076,10 +1448,13 @@ public final class SlotSafeService
         if ( appointmentDTO.getNbBookedSeats( ) > nbSumRemainingPlaces && !appointmentDTO.getOverbookingAllowed( ) )
         {
             AppLogService.error( "ERROR SLOT FULL" );
+            BookingMetricsService.recordFailure( FailureCause.FULL );
             throw new SlotFullException( "ERROR SLOT FULL" );
         }
         listSlotToUpdate.addAll( listOldSlot );
-        return updateListSlots( listSlotToUpdate );
+        Set<Integer> setIdSlotUpdated = updateListSlots( listSlotToUpdate );
+        BookingMetricsService.recordStage( Stage.SLOT_UPDATE, lStartTime );
+        return setIdSlotUpdated;
 
     }
 
@@ -1164,6 +1539,7 @@ public final class SlotSafeService
             }
             else
             {
+                BookingMetricsService.recordFailure( FailureCause.OVERBOOK );
                 throw new SlotFullException( "case of overbooking" );
             }
         }
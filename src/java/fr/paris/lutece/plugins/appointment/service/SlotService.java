@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -89,6 +90,37 @@ public final class SlotService
         return listSlots;
     }
 
+    /**
+     * Find the slots of a form on a given period of time, on a day of week, that are impacted by a time slot
+     * 
+     * @param nIdForm
+     *            the form Id
+     * @param startingDateTime
+     *            the starting date time to search
+     * @param endingDateTime
+     *            the ending date time to search
+     * @param dayOfWeek
+     *            the day of week of the slots
+     * @param startingTime
+     *            the starting time of the time slot
+     * @param endingTime
+     *            the ending time of the time slot
+     * @param bUntilEndOfDay
+     *            true to get all the slots of the day from the time slot, false to get only the slots that overlap the time slot
+     * @return a list of the slots found
+     */
+    public static List<Slot> findSlotsByIdFormAndDateRangeAndTimeSlot( int nIdForm, LocalDateTime startingDateTime, LocalDateTime endingDateTime,
+            DayOfWeek dayOfWeek, LocalTime startingTime, LocalTime endingTime, boolean bUntilEndOfDay )
+    {
+        List<Slot> listSlots = SlotHome.findByIdFormAndDateRangeAndTimeSlot( nIdForm, startingDateTime, endingDateTime, dayOfWeek, startingTime, endingTime,
+                bUntilEndOfDay );
+        for ( Slot slot : listSlots )
+        {
+            addDateAndTimeToSlot( slot );
+        }
+        return listSlots;
+    }
+
     /**
      * Find slots with appointment of a form on a given period of time
      * 
@@ -206,6 +238,23 @@ public final class SlotService
         return slot;
     }
 
+    /**
+     * Find the slots whose ids are given, in one query
+     * 
+     * @param listIdSlot
+     *            the ids of the slots
+     * @return the slots found
+     */
+    public static List<Slot> findListSlot( List<Integer> listIdSlot )
+    {
+        List<Slot> listSlot = SlotHome.findByListId( listIdSlot );
+        for ( Slot slot : listSlot )
+        {
+            addDateAndTimeToSlot( slot );
+        }
+        return listSlot;
+    }
+
     /**
      * Build all the slot for a period with all the rules (open hours ...) to apply on each day, for each slot
      * 
@@ -482,7 +531,6 @@ public final class SlotService
 
         for ( Slot slotToDelete : listSlotToDelete )
         {
-            SlotSafeService.removeSlotInMemory( slotToDelete.getIdSlot( ) );
             SlotHome.delete( slotToDelete.getIdSlot( ) );
             SlotListenerManager.notifyListenersSlotRemoval( slotToDelete );
         }
@@ -498,7 +546,6 @@ public final class SlotService
     public static void deleteSlot( Slot slot )
     {
         int nIdSlot = slot.getIdSlot( );
-        SlotSafeService.removeSlotInMemory( nIdSlot );
         SlotHome.delete( nIdSlot );
         SlotListenerManager.notifyListenersSlotRemoval( slot );
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+
+/**
+ * Sliding window engine that groups consecutive slots of a day to build the slots of a multi-slot appointment
+ * 
+ * The slots of a day are scanned once: prefix sums of the available slots and of the full slots give, in constant time, whether a window of k consecutive
+ * slots can be booked and whether one of its slots is full.
+ */
+public final class SlotWindowEngine
+{
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private SlotWindowEngine( )
+    {
+    }
+
+    /**
+     * Build all the windows of nNbPlaces consecutive slots that can be booked in the ordered list of the slots of a day
+     * 
+     * @param listSlotOfTheDay
+     *            the slots of the day, ordered by starting date time and contiguous
+     * @param nNbPlaces
+     *            the number of consecutive slots to take
+     * @param bAllOpenSlot
+     *            true if the full slots can be part of a window (overbooking), false otherwise
+     * @param dateTimeNow
+     *            the current date time, the slots ended before it can not be part of a window
+     * @return the list of the slots built, one slot per window, in chronological order
+     */
+    public static List<Slot> buildListWindowSlot( List<Slot> listSlotOfTheDay, int nNbPlaces, boolean bAllOpenSlot, LocalDateTime dateTimeNow )
+    {
+        List<Slot> listWindowSlot = new ArrayList<>( );
+        int nNbSlots = listSlotOfTheDay.size( );
+        if ( nNbPlaces < 1 || nNbSlots < nNbPlaces )
+        {
+            return listWindowSlot;
+        }
+        // Prefix sums of the available slots and of the full slots
+        int [ ] tabAvailable = new int [ nNbSlots + 1];
+        int [ ] tabFull = new int [ nNbSlots + 1];
+        for ( int i = 0; i < nNbSlots; i++ )
+        {
+            Slot slot = listSlotOfTheDay.get( i );
+            tabAvailable [i + 1] = tabAvailable [i] + ( isAvailable( slot, bAllOpenSlot, dateTimeNow ) ? 1 : 0 );
+            tabFull [i + 1] = tabFull [i] + ( slot.getNbPotentialRemainingPlaces( ) <= 0 ? 1 : 0 );
+        }
+        for ( int nEnd = nNbPlaces; nEnd <= nNbSlots; nEnd++ )
+        {
+            int nStart = nEnd - nNbPlaces;
+            if ( tabAvailable [nEnd] - tabAvailable [nStart] == nNbPlaces )
+            {
+                listWindowSlot.add( buildWindowSlot( listSlotOfTheDay.get( nStart ), listSlotOfTheDay.get( nEnd - 1 ), nNbPlaces,
+                        tabFull [nEnd] - tabFull [nStart] > 0 ) );
+            }
+        }
+        return listWindowSlot;
+    }
+
+    /**
+     * Check if a slot can be part of a window
+     * 
+     * @param slot
+     *            the slot
+     * @param bAllOpenSlot
+     *            true if the full slots can be part of a window
+     * @param dateTimeNow
+     *            the current date time
+     * @return true if the slot can be part of a window
+     */
+    private static boolean isAvailable( Slot slot, boolean bAllOpenSlot, LocalDateTime dateTimeNow )
+    {
+        return slot.getIsOpen( ) && !slot.getEndingDateTime( ).isBefore( dateTimeNow ) && ( bAllOpenSlot || slot.getNbPotentialRemainingPlaces( ) > 0 );
+    }
+
+    /**
+     * Build the slot representing a window of consecutive slots
+     * 
+     * @param firstSlot
+     *            the first slot of the window
+     * @param lastSlot
+     *            the last slot of the window
+     * @param nNbPlaces
+     *            the number of slots of the window
+     * @param bIsFull
+     *            true if one of the slots of the window is full
+     * @return the slot built
+     */
+    private static Slot buildWindowSlot( Slot firstSlot, Slot lastSlot, int nNbPlaces, boolean bIsFull )
+    {
+        Slot slot = new Slot( );
+        slot.setStartingDateTime( firstSlot.getStartingDateTime( ) );
+        slot.setEndingDateTime( lastSlot.getEndingDateTime( ) );
+        slot.setIsOpen( true );
+        slot.setNbPotentialRemainingPlaces( nNbPlaces );
+        slot.setNbRemainingPlaces( nNbPlaces );
+        slot.setDate( lastSlot.getDate( ) );
+        slot.setIdForm( lastSlot.getIdForm( ) );
+        slot.setIsFull( bIsFull ? 1 : 0 );
+        return slot;
+    }
+}
@@ -39,8 +39,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -53,6 +53,9 @@ import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
 import fr.paris.lutece.plugins.appointment.service.listeners.WeekDefinitionManagerListener;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.util.sql.TransactionManager;
 
 /**
  * Service class for the time slot
@@ -140,7 +143,9 @@ public final class TimeSlotService
      */
     public static TimeSlot createTimeSlot( TimeSlot timeSlot )
     {
-        return TimeSlotHome.create( timeSlot );
+        TimeSlot timeSlotCreated = TimeSlotHome.create( timeSlot );
+        ReservationRuleService.resetReservationRuleTreeOfWorkingDay( timeSlot.getIdWorkingDay( ) );
+        return timeSlotCreated;
     }
 
     /**
@@ -237,7 +242,7 @@ public final class TimeSlotService
     }
 
     /**
-     * Update a time slot with shifting the next
+     * Update a time slot with shifting the next. The next time slots of the day are read with one query and shifted with one batch of updates (one per time slot), in one transaction.
      * 
      * @param timeSlot
      *            the time slot modified
@@ -265,114 +270,75 @@ public final class TimeSlotService
                 .filter( timeSlotToDelete -> timeSlotToDelete.getStartingTime( ).isAfter( timeSlot.getStartingTime( ) )
                         && !timeSlotToDelete.getEndingTime( ).isAfter( timeSlot.getEndingTime( ) ) )
                 .collect( Collectors.toList( ) );
-        deleteListTimeSlot( listTimeSlotToDelete );
         listOfAllTimeSlotsOfThisWorkingDay.removeAll( listTimeSlotToDelete );
-        // Need to order the list of time slot to shift according to the
-        // shift
-        // if the new ending time is before the previous ending time,
-        // the list has to be ordered in chronological order ascending
-        // and the first time slot to shift is the closest to the
-        // current
-        // time slot
-        // (because we have an integrity constraint for the time slot,
-        // it
-        // can't have the same starting or ending time as another time
-        // slot
-        List<TimeSlot> listTimeSlotToShift = new ArrayList<>( );
-        listTimeSlotToShift.addAll( listOfAllTimeSlotsOfThisWorkingDay );
-        listTimeSlotToShift = listTimeSlotToShift.stream( )
-                .sorted( ( timeSlot1, timeSlot2 ) -> timeSlot1.getStartingTime( ).compareTo( timeSlot2.getStartingTime( ) ) ).collect( Collectors.toList( ) );
-        boolean bNewEndingTimeIsAfterThePreviousTime = false;
         // Need to know the ending time of the day
         LocalTime endingTimeOfTheDay = WorkingDayService.getMaxEndingTimeOfAWorkingDay( workingDay );
 
-        long timeToAdd = 0;
-        long timeToSubstract = 0;
+        long timeToShift = 0;
+        List<TimeSlot> listTimeSlotToAdd = new ArrayList<>( );
         if ( previousEndingTime.isBefore( timeSlot.getEndingTime( ) ) )
         {
-            bNewEndingTimeIsAfterThePreviousTime = true;
             // Need to find the next available time slot, to know how to
             // add to the starting time of the next time slot to match
             // with
             // the new end of the current time slot
-            if ( CollectionUtils.isNotEmpty( listTimeSlotToShift ) )
+            if ( CollectionUtils.isNotEmpty( listOfAllTimeSlotsOfThisWorkingDay ) )
             {
-                TimeSlot nextTimeSlot = listTimeSlotToShift.stream( ).min( ( t1, t2 ) -> t1.getStartingTime( ).compareTo( t2.getStartingTime( ) ) )
-                        .orElse( listTimeSlotToShift.get( 0 ) );
+                TimeSlot nextTimeSlot = listOfAllTimeSlotsOfThisWorkingDay.stream( )
+                        .min( ( t1, t2 ) -> t1.getStartingTime( ).compareTo( t2.getStartingTime( ) ) ).orElse( listOfAllTimeSlotsOfThisWorkingDay.get( 0 ) );
                 if ( timeSlot.getEndingTime( ).isAfter( nextTimeSlot.getStartingTime( ) ) )
                 {
-                    timeToAdd = nextTimeSlot.getStartingTime( ).until( timeSlot.getEndingTime( ), ChronoUnit.MINUTES );
+                    timeToShift = nextTimeSlot.getStartingTime( ).until( timeSlot.getEndingTime( ), ChronoUnit.MINUTES );
                 }
                 else
                 {
-                    timeToAdd = timeSlot.getEndingTime( ).until( nextTimeSlot.getStartingTime( ), ChronoUnit.MINUTES );
+                    timeToShift = timeSlot.getEndingTime( ).until( nextTimeSlot.getStartingTime( ), ChronoUnit.MINUTES );
                 }
-                Collections.reverse( listTimeSlotToShift );
             }
             else
             {
-                timeToAdd = previousEndingTime.until( timeSlot.getEndingTime( ), ChronoUnit.MINUTES );
+                timeToShift = previousEndingTime.until( timeSlot.getEndingTime( ), ChronoUnit.MINUTES );
             }
-
-        }
-        else
-        {
-            timeToSubstract = timeSlot.getEndingTime( ).until( previousEndingTime, ChronoUnit.MINUTES );
-        }
-        updateTimeSlot( timeSlot );
-        // Need to set the new starting and ending time of all the time
-        // slots
-        // to shift and update them
-        for ( TimeSlot timeSlotToShift : listTimeSlotToShift )
-        {
-            // If the new ending time is after the previous time
-            if ( bNewEndingTimeIsAfterThePreviousTime )
+            // The time slots that would start after the ending time of the day are deleted
+            for ( TimeSlot timeSlotToShift : listOfAllTimeSlotsOfThisWorkingDay )
             {
-                // If the starting time + the time to add is before the
-                // ending time of the day
-                if ( timeSlotToShift.getStartingTime( ).plus( timeToAdd, ChronoUnit.MINUTES ).isBefore( endingTimeOfTheDay ) )
-                {
-                    timeSlotToShift.setStartingTime( timeSlotToShift.getStartingTime( ).plus( timeToAdd, ChronoUnit.MINUTES ) );
-                    // if the ending time is after the ending time of
-                    // the day, we set the new ending time to the ending
-                    // time of the day
-                    if ( timeSlotToShift.getEndingTime( ).plus( timeToAdd, ChronoUnit.MINUTES ).isAfter( endingTimeOfTheDay ) )
-                    {
-                        timeSlotToShift.setEndingTime( endingTimeOfTheDay );
-                    }
-                    else
-                    {
-                        timeSlotToShift.setEndingTime( timeSlotToShift.getEndingTime( ).plus( timeToAdd, ChronoUnit.MINUTES ) );
-                    }
-                    updateTimeSlot( timeSlotToShift );
-                }
-                else
+                if ( !timeSlotToShift.getStartingTime( ).plus( timeToShift, ChronoUnit.MINUTES ).isBefore( endingTimeOfTheDay ) )
                 {
-                    // Delete this slot (the slot can not be after the
-                    // ending time of the day)
-                    deleteTimeSlot( timeSlotToShift );
+                    listTimeSlotToDelete.add( timeSlotToShift );
                 }
             }
-            else
-            {
-                // The new ending time is before the previous ending
-                // time
-                timeSlotToShift.setStartingTime( timeSlotToShift.getStartingTime( ).minus( timeToSubstract, ChronoUnit.MINUTES ) );
-                timeSlotToShift.setEndingTime( timeSlotToShift.getEndingTime( ).minus( timeToSubstract, ChronoUnit.MINUTES ) );
-                updateTimeSlot( timeSlotToShift );
-            }
         }
-
-        if ( !bNewEndingTimeIsAfterThePreviousTime )
+        else
         {
+            long timeToSubstract = timeSlot.getEndingTime( ).until( previousEndingTime, ChronoUnit.MINUTES );
+            timeToShift = -timeToSubstract;
             // If the slots have been shift earlier,
             // there is no slot(s) between the last slot created
             // and the ending time of the day, need to create it(them)
-            List<TimeSlot> listTimeSlotToAdd = generateListTimeSlot( timeSlot.getIdWorkingDay( ), endingTimeOfTheDay.minusMinutes( timeToSubstract ),
-                    endingTimeOfTheDay, nDuration, reservationRule.getMaxCapacityPerSlot( ), Boolean.TRUE );
-            createListTimeSlot( listTimeSlotToAdd );
+            listTimeSlotToAdd = generateListTimeSlot( timeSlot.getIdWorkingDay( ), endingTimeOfTheDay.minusMinutes( timeToSubstract ), endingTimeOfTheDay,
+                    nDuration, reservationRule.getMaxCapacityPerSlot( ), Boolean.TRUE );
+        }
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            TimeSlotHome.deleteList( listTimeSlotToDelete.stream( ).map( TimeSlot::getIdTimeSlot ).collect( Collectors.toList( ) ) );
+            TimeSlotHome.update( timeSlot );
+            // The ending times of the time slots shifted can't be after the ending time of the day
+            TimeSlotHome.shift( workingDay.getIdWorkingDay( ), timeSlot.getStartingTime( ), (int) TimeUnit.MINUTES.toSeconds( timeToShift ),
+                    endingTimeOfTheDay );
+            TimeSlotHome.createList( listTimeSlotToAdd );
+            TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( AppointmentPlugin.getPlugin( ) );
+            AppLogService.error( "Error shift time slots " + e.getMessage( ), e );
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            ReservationRuleService.resetReservationRuleTreeOfRule( workingDay.getIdReservationRule( ) );
         }
-
     }
 
     /**
@@ -434,6 +400,7 @@ public final class TimeSlotService
                 reservationRule.getMaxCapacityPerSlot( ), Boolean.TRUE ) );
         TimeSlotHome.update( timeSlot );
         createListTimeSlot( listTimeSlotToCreate );
+        ReservationRuleService.resetReservationRuleTreeOfRule( workingDay.getIdReservationRule( ) );
 
     }
 
@@ -445,7 +412,9 @@ public final class TimeSlotService
      */
     public static TimeSlot updateTimeSlot( TimeSlot timeSlot )
     {
-        return TimeSlotHome.update( timeSlot );
+        TimeSlot timeSlotUpdated = TimeSlotHome.update( timeSlot );
+        ReservationRuleService.resetReservationRuleTreeOfWorkingDay( timeSlot.getIdWorkingDay( ) );
+        return timeSlotUpdated;
     }
 
     /**
@@ -462,6 +431,8 @@ public final class TimeSlotService
             {
                 TimeSlotHome.create( timeSlotTemp );
             }
+            listTimeSlotToCreate.stream( ).mapToInt( TimeSlot::getIdWorkingDay ).distinct( )
+                    .forEach( ReservationRuleService::resetReservationRuleTreeOfWorkingDay );
         }
     }
 
@@ -479,6 +450,8 @@ public final class TimeSlotService
             {
                 TimeSlotHome.update( timeSlotTemp );
             }
+            listTimeSlotToCUpdate.stream( ).mapToInt( TimeSlot::getIdWorkingDay ).distinct( )
+                    .forEach( ReservationRuleService::resetReservationRuleTreeOfWorkingDay );
         }
     }
 
@@ -518,6 +491,7 @@ public final class TimeSlotService
     public static void deleteTimeSlot( TimeSlot timeSlot )
     {
         TimeSlotHome.delete( timeSlot.getIdTimeSlot( ) );
+        ReservationRuleService.resetReservationRuleTreeOfWorkingDay( timeSlot.getIdWorkingDay( ) );
     }
 
     /**
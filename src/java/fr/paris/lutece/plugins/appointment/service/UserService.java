@@ -34,9 +34,12 @@
 package fr.paris.lutece.plugins.appointment.service;
 
 import java.util.List;
+
 import fr.paris.lutece.plugins.appointment.business.user.User;
 import fr.paris.lutece.plugins.appointment.business.user.UserHome;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
+import fr.paris.lutece.portal.service.datastore.DatastoreService;
+import fr.paris.lutece.portal.service.util.AppLogService;
 
 /**
  * Service class of a user
@@ -46,6 +49,8 @@ import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
  */
 public final class UserService
 {
+    private static final int SEARCH_VALUES_ID_RANGE = 1000;
+    private static final String DATASTORE_KEY_SEARCH_VALUES_NORMALIZED = "appointment.user.searchValuesNormalized";
 
     /**
      * Private constructor - this class does not need to be instantiated
@@ -113,4 +118,39 @@ public final class UserService
         return UserHome.findByEmail( strEmail );
     }
 
+    /**
+     * Get whether the search values of the users created before the upgrade to 3.0.9 have been normalized
+     * 
+     * @return true if they have been normalized
+     */
+    public static boolean isSearchValuesNormalized( )
+    {
+        return Boolean.parseBoolean( DatastoreService.getDataValue( DATASTORE_KEY_SEARCH_VALUES_NORMALIZED, Boolean.FALSE.toString( ) ) );
+    }
+
+    /**
+     * Normalize the search values of the users created before the upgrade to 3.0.9, once. The upgrade script fills them with the upper case of the values,
+     * so that these users can be found at once: the users whose values differ from the normalization of the plugin (the values with accents) are updated,
+     * range of ids by range of ids.
+     * 
+     * @return the number of users updated
+     */
+    public static int normalizeSearchValues( )
+    {
+        int nCount = 0;
+        int nMaxId = UserHome.findMaxId( );
+        for ( int nIdUserFrom = 0; nIdUserFrom < nMaxId; nIdUserFrom += SEARCH_VALUES_ID_RANGE )
+        {
+            List<User> listUser = UserHome.findWithOtherSearchValues( nIdUserFrom, nIdUserFrom + SEARCH_VALUES_ID_RANGE );
+            if ( !listUser.isEmpty( ) )
+            {
+                UserHome.updateSearchValues( listUser );
+                nCount += listUser.size( );
+            }
+        }
+        DatastoreService.setDataValue( DATASTORE_KEY_SEARCH_VALUES_NORMALIZED, Boolean.TRUE.toString( ) );
+        AppLogService.info( "Search values of the appointment users normalized: " + nCount + " users updated" );
+        return nCount;
+    }
+
 }
@@ -33,11 +33,14 @@
  */
 package fr.paris.lutece.plugins.appointment.service;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.time.temporal.WeekFields;
 import java.util.List;
+import java.util.Locale;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 
@@ -125,4 +128,20 @@ public final class Utilities
                 .orElse( null );
     }
 
+    /**
+     * Return the ending date of display of a form: the last day of the (n) week including the starting date, the weeks of the given locale.
+     * 
+     * @param startingDateOfDisplay
+     *            the starting date of display
+     * @param nNbWeeksToDisplay
+     *            the nb weeks to display, including the week of the starting date
+     * @param locale
+     *            the locale, giving the first day of the week
+     * @return the ending date of display
+     */
+    public static LocalDate getEndingDateOfDisplay( LocalDate startingDateOfDisplay, int nNbWeeksToDisplay, Locale locale )
+    {
+        return startingDateOfDisplay.with( WeekFields.of( locale ).dayOfWeek( ), DayOfWeek.SUNDAY.getValue( ) ).plusWeeks( (long) nNbWeeksToDisplay - 1 );
+    }
+
 }
@@ -38,7 +38,9 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -48,6 +50,7 @@ import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinitionHome;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Period;
 import fr.paris.lutece.plugins.appointment.service.listeners.WeekDefinitionManagerListener;
 import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
@@ -460,7 +463,8 @@ public final class WeekDefinitionService
     }
 
     /**
-     * Assign a week to the calendar
+     * Assign a week to the calendar. Only the week definitions that have changed are written (in batch) and the listeners are notified of the periods whose
+     * reservation rule has actually changed.
      * 
      * @param nIdForm
      *            the id from
@@ -473,6 +477,13 @@ public final class WeekDefinitionService
         LocalDate startingDate = newWeek.getDateOfApply( );
         LocalDate endingDate = newWeek.getEndingDateOfApply( );
         List<WeekDefinition> listWeek = WeekDefinitionService.findListWeekDefinition( nIdForm );
+        List<Period> listChangedPeriod = findChangedPeriods( listWeek, startingDate, endingDate, newWeek.getIdReservationRule( ) );
+        // Keep the original dates of the weeks, to write only the ones that are really modified
+        Map<Integer, WeekDefinition> mapOriginalWeek = new HashMap<>( );
+        for ( WeekDefinition week : listWeek )
+        {
+            mapOriginalWeek.put( week.getIdWeekDefinition( ), copyWeekDefinition( week ) );
+        }
 
         List<WeekDefinition> listWeekToRemove = listWeek.stream( )
                 .filter( week -> ( week.getDateOfApply( ).isAfter( startingDate ) || week.getDateOfApply( ).isEqual( startingDate ) )
@@ -529,32 +540,58 @@ public final class WeekDefinitionService
             buildListWeekToEdit.add( newWeek );
         }
 
-        assignWeekDefintion( listWeekToRemove, buildListWeekToEdit, nIdForm );
-        WeekDefinitionManagerListener.notifyListenersWeekDefinitionAssigned( newWeek );
+        assignWeekDefintion( listWeekToRemove, buildListWeekToEdit, mapOriginalWeek );
+        WeekDefinitionManagerListener.notifyListenersWeekDefinitionAssigned( nIdForm, newWeek, listChangedPeriod );
     }
 
-    private static void assignWeekDefintion( List<WeekDefinition> listWeekTodRemove, List<WeekDefinition> listWeekToEdit, int nIdForm )
+    /**
+     * Write the difference between the current week definitions and the new ones: the removed weeks are deleted, the modified weeks are updated and the new
+     * weeks reuse the ids of the removed weeks before being created. The deletes and the updates are executed in batch.
+     * 
+     * @param listWeekTodRemove
+     *            the weeks that are not in the calendar anymore
+     * @param listWeekToEdit
+     *            the weeks modified or added (with an id of 0)
+     * @param mapOriginalWeek
+     *            the weeks as they were before the assignment, by id
+     */
+    private static void assignWeekDefintion( List<WeekDefinition> listWeekTodRemove, List<WeekDefinition> listWeekToEdit,
+            Map<Integer, WeekDefinition> mapOriginalWeek )
     {
-        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
-        try
+        List<Integer> listIdWeekToDelete = listWeekTodRemove.stream( ).map( WeekDefinition::getIdWeekDefinition ).collect( Collectors.toList( ) );
+        List<WeekDefinition> listWeekToUpdate = new ArrayList<>( );
+        List<WeekDefinition> listWeekToCreate = new ArrayList<>( );
+        Iterator<Integer> iteratorIdToReuse = new ArrayList<>( listIdWeekToDelete ).iterator( );
+        for ( WeekDefinition week : listWeekToEdit )
         {
-            for ( WeekDefinition week : listWeekTodRemove )
+            if ( week.getIdWeekDefinition( ) == 0 && iteratorIdToReuse.hasNext( ) )
             {
-                WeekDefinitionHome.delete( week.getIdWeekDefinition( ) );
+                // A new week takes the row of a removed week
+                int nIdWeek = iteratorIdToReuse.next( );
+                listIdWeekToDelete.remove( Integer.valueOf( nIdWeek ) );
+                week.setIdWeekDefinition( nIdWeek );
             }
-            for ( WeekDefinition week : listWeekToEdit )
+            if ( week.getIdWeekDefinition( ) == 0 )
             {
-
-                if ( week.getIdWeekDefinition( ) != 0 )
+                listWeekToCreate.add( week );
+            }
+            else
+                if ( !isSameWeekDefinition( week, mapOriginalWeek.get( week.getIdWeekDefinition( ) ) ) )
                 {
-
-                    WeekDefinitionHome.delete( week.getIdWeekDefinition( ) );
+                    listWeekToUpdate.add( week );
                 }
-
+        }
+        TransactionManager.beginTransaction( AppointmentPlugin.getPlugin( ) );
+        try
+        {
+            WeekDefinitionHome.deleteList( listIdWeekToDelete );
+            WeekDefinitionHome.updateList( listWeekToUpdate );
+            // The inserts are kept one by one, to get back the generated ids
+            for ( WeekDefinition week : listWeekToCreate )
+            {
                 WeekDefinitionHome.create( week );
             }
             TransactionManager.commitTransaction( AppointmentPlugin.getPlugin( ) );
-            // WeekDefinitionManagerListener.notifyListenersListWeekDefinitionChanged( nIdForm, listWeekToEdit );
         }
         catch( Exception e )
         {
@@ -565,4 +602,112 @@ public final class WeekDefinitionService
         }
     }
 
+    /**
+     * Find the periods of the calendar whose reservation rule changes when a week is assigned. The adjacent periods are merged.
+     * 
+     * @param listWeek
+     *            the week definitions of the form, before the assignment
+     * @param startingDate
+     *            the starting date of the assigned week
+     * @param endingDate
+     *            the ending date of the assigned week
+     * @param nIdReservationRule
+     *            the reservation rule of the assigned week (0 if the week is unassigned)
+     * @return the changed periods, from the start of their first day to the end of their last day
+     */
+    public static List<Period> findChangedPeriods( List<WeekDefinition> listWeek, LocalDate startingDate, LocalDate endingDate, int nIdReservationRule )
+    {
+        List<LocalDate [ ]> listChangedDates = new ArrayList<>( );
+        List<WeekDefinition> listOverlappingWeek = listWeek.stream( )
+                .filter( week -> !week.getDateOfApply( ).isAfter( endingDate ) && !week.getEndingDateOfApply( ).isBefore( startingDate ) )
+                .sorted( ( week1, week2 ) -> week1.getDateOfApply( ).compareTo( week2.getDateOfApply( ) ) ).collect( Collectors.toList( ) );
+        LocalDate cursor = startingDate;
+        for ( WeekDefinition week : listOverlappingWeek )
+        {
+            LocalDate overlapStart = week.getDateOfApply( ).isBefore( startingDate ) ? startingDate : week.getDateOfApply( );
+            LocalDate overlapEnd = week.getEndingDateOfApply( ).isAfter( endingDate ) ? endingDate : week.getEndingDateOfApply( );
+            if ( nIdReservationRule != 0 && cursor.isBefore( overlapStart ) )
+            {
+                // Days without any week definition
+                addChangedDates( listChangedDates, cursor, overlapStart.minusDays( 1 ) );
+            }
+            if ( week.getIdReservationRule( ) != nIdReservationRule )
+            {
+                addChangedDates( listChangedDates, overlapStart, overlapEnd );
+            }
+            if ( overlapEnd.isAfter( cursor ) || overlapEnd.isEqual( cursor ) )
+            {
+                cursor = overlapEnd.plusDays( 1 );
+            }
+        }
+        if ( nIdReservationRule != 0 && !cursor.isAfter( endingDate ) )
+        {
+            addChangedDates( listChangedDates, cursor, endingDate );
+        }
+        List<Period> listPeriod = new ArrayList<>( );
+        for ( LocalDate [ ] changedDates : listChangedDates )
+        {
+            listPeriod.add( new Period( changedDates [0].atStartOfDay( ), changedDates [1].atTime( LocalTime.MAX ) ) );
+        }
+        return listPeriod;
+    }
+
+    /**
+     * Add a range of dates to a list of ranges, merging it with the last one if they are adjacent
+     * 
+     * @param listChangedDates
+     *            the ranges of dates, sorted
+     * @param startingDate
+     *            the first date of the range
+     * @param endingDate
+     *            the last date of the range
+     */
+    private static void addChangedDates( List<LocalDate [ ]> listChangedDates, LocalDate startingDate, LocalDate endingDate )
+    {
+        if ( !listChangedDates.isEmpty( ) )
+        {
+            LocalDate [ ] lastDates = listChangedDates.get( listChangedDates.size( ) - 1 );
+            if ( !lastDates [1].plusDays( 1 ).isBefore( startingDate ) )
+            {
+                lastDates [1] = endingDate.isAfter( lastDates [1] ) ? endingDate : lastDates [1];
+                return;
+            }
+        }
+        listChangedDates.add( new LocalDate [ ] {
+                startingDate, endingDate
+        } );
+    }
+
+    /**
+     * Copy the dates and the reservation rule of a week definition
+     * 
+     * @param week
+     *            the week definition
+     * @return the copy
+     */
+    private static WeekDefinition copyWeekDefinition( WeekDefinition week )
+    {
+        WeekDefinition copy = new WeekDefinition( );
+        copy.setIdWeekDefinition( week.getIdWeekDefinition( ) );
+        copy.setIdReservationRule( week.getIdReservationRule( ) );
+        copy.setDateOfApply( week.getDateOfApply( ) );
+        copy.setEndingDateOfApply( week.getEndingDateOfApply( ) );
+        return copy;
+    }
+
+    /**
+     * Check if a week definition has the same dates and reservation rule as another one
+     * 
+     * @param week
+     *            the week definition
+     * @param otherWeek
+     *            the other week definition (may be null)
+     * @return true if they are the same
+     */
+    private static boolean isSameWeekDefinition( WeekDefinition week, WeekDefinition otherWeek )
+    {
+        return otherWeek != null && week.getIdReservationRule( ) == otherWeek.getIdReservationRule( )
+                && week.getDateOfApply( ).isEqual( otherWeek.getDateOfApply( ) ) && week.getEndingDateOfApply( ).isEqual( otherWeek.getEndingDateOfApply( ) );
+    }
+
 }
@@ -79,6 +79,7 @@ public final class WorkingDayService
         workingDay.setIdReservationRule( nIdReservationRule );
         workingDay.setDayOfWeek( dayOfWeek.getValue( ) );
         WorkingDayHome.create( workingDay );
+        ReservationRuleService.resetReservationRuleTreeOfRule( nIdReservationRule );
         return workingDay;
     }
 
@@ -91,7 +92,9 @@ public final class WorkingDayService
      */
     public static WorkingDay saveWorkingDay( WorkingDay workingDay )
     {
-        return WorkingDayHome.create( workingDay );
+        WorkingDay workingDaySaved = WorkingDayHome.create( workingDay );
+        ReservationRuleService.resetReservationRuleTreeOfRule( workingDay.getIdReservationRule( ) );
+        return workingDaySaved;
     }
 
     /**
@@ -188,6 +191,7 @@ public final class WorkingDayService
         {
             TimeSlotHome.deleteByIdWorkingDay( workingDay.getIdWorkingDay( ) );
             WorkingDayHome.delete( workingDay.getIdWorkingDay( ) );
+            ReservationRuleService.resetReservationRuleTreeOfRule( workingDay.getIdReservationRule( ) );
         }
     }
 
@@ -33,8 +33,15 @@
  */
 package fr.paris.lutece.plugins.appointment.service.entrytype;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
 import fr.paris.lutece.plugins.genericattributes.service.entrytype.AbstractEntryTypeSelectSQL;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 /**
  *
@@ -49,6 +56,13 @@ public final class EntryTypeSelectSQL extends AbstractEntryTypeSelectSQL
     private static final String TEMPLATE_MODIFY = "admin/plugins/appointment/entries/modify_entry_type_select_sql.html";
     private static final String TEMPLATE_HTML_CODE = "skin/plugins/appointment/entries/html_code_entry_type_select_sql.html";
     private static final String TEMPLATE_HTML_CODE_ADMIN = "admin/plugins/appointment/entries/html_code_entry_type_select_sql.html";
+    private static final String PROPERTY_SQL_QUERY_CACHE_TTL = "appointment.entryTypeSelectSQL.cache.ttl";
+    private static final long DEFAULT_SQL_QUERY_CACHE_TTL = 300L;
+
+    /**
+     * The fields returned by the query of the entries, by id of entry
+     */
+    private static final ConcurrentMap<Integer, SqlQueryFields> _mapSqlQueryFields = new ConcurrentHashMap<>( );
 
     /**
      * {@inheritDoc}
@@ -56,11 +70,56 @@ public final class EntryTypeSelectSQL extends AbstractEntryTypeSelectSQL
     @Override
     public String getTemplateHtmlForm( Entry entry, boolean bDisplayFront )
     {
-        entry.setFields( getSqlQueryFields( entry ) );
+        entry.setFields( findSqlQueryFields( entry ) );
 
         return bDisplayFront ? TEMPLATE_HTML_CODE : TEMPLATE_HTML_CODE_ADMIN;
     }
 
+    /**
+     * Get the fields returned by the query of the entry. The query is run again only when its last result is older than the time to live set in the
+     * properties.
+     * 
+     * @param entry
+     *            the entry
+     * @return the list of the fields
+     */
+    private List<Field> findSqlQueryFields( Entry entry )
+    {
+        long lNow = System.currentTimeMillis( );
+        SqlQueryFields sqlQueryFields = _mapSqlQueryFields.get( entry.getIdEntry( ) );
+        if ( sqlQueryFields == null || sqlQueryFields._lExpirationTime <= lNow )
+        {
+            long lTtl = AppPropertiesService.getPropertyLong( PROPERTY_SQL_QUERY_CACHE_TTL, DEFAULT_SQL_QUERY_CACHE_TTL ) * 1000L;
+            sqlQueryFields = new SqlQueryFields( getSqlQueryFields( entry ), lNow + lTtl );
+            _mapSqlQueryFields.put( entry.getIdEntry( ), sqlQueryFields );
+        }
+        return ( sqlQueryFields._listField == null ) ? null : new ArrayList<>( sqlQueryFields._listField );
+    }
+
+    /**
+     * Get the time until which the result of the query of an entry is kept
+     * 
+     * @param nIdEntry
+     *            the entry id
+     * @return the expiration time in milliseconds, or 0 if no result is kept for this entry
+     */
+    public static long getSqlQueryFieldsExpirationTime( int nIdEntry )
+    {
+        SqlQueryFields sqlQueryFields = _mapSqlQueryFields.get( nIdEntry );
+        return ( sqlQueryFields == null ) ? 0L : sqlQueryFields._lExpirationTime;
+    }
+
+    /**
+     * Remove the result of the query of an entry. Has to be called when the entry is modified or removed.
+     * 
+     * @param nIdEntry
+     *            the entry id
+     */
+    public static void resetSqlQueryFields( int nIdEntry )
+    {
+        _mapSqlQueryFields.remove( nIdEntry );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -78,4 +137,27 @@ public final class EntryTypeSelectSQL extends AbstractEntryTypeSelectSQL
     {
         return TEMPLATE_MODIFY;
     }
+
+    /**
+     * The result of the query of an entry
+     */
+    private static final class SqlQueryFields
+    {
+        private final List<Field> _listField;
+        private final long _lExpirationTime;
+
+        /**
+         * Constructor
+         * 
+         * @param listField
+         *            the fields returned by the query
+         * @param lExpirationTime
+         *            the time until which the fields are kept
+         */
+        private SqlQueryFields( List<Field> listField, long lExpirationTime )
+        {
+            _listField = listField;
+            _lExpirationTime = lExpirationTime;
+        }
+    }
 }
@@ -40,7 +40,6 @@ import java.util.Locale;
 import org.apache.commons.lang3.StringUtils;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
 
 /**
  * Manager for appointment listeners
@@ -67,7 +66,7 @@ public final class AppointmentListenerManager
     public static void notifyListenersAppointmentRemoval( int nIdAppointment )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+            for ( IAppointmentListener appointmentRemovalListener : ListenerRegistry.getListeners( IAppointmentListener.class ) )
             {
                 appointmentRemovalListener.notifyAppointmentRemoval( nIdAppointment );
             }
@@ -84,7 +83,7 @@ public final class AppointmentListenerManager
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
 
-            for ( IAppointmentListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+            for ( IAppointmentListener appointmentListener : ListenerRegistry.getListeners( IAppointmentListener.class ) )
             {
                 appointmentListener.notifyAppointmentCreated( nIdAppointment );
             }
@@ -102,7 +101,7 @@ public final class AppointmentListenerManager
     public static void notifyListenersAppointmentUpdated( int nIdAppointment )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+            for ( IAppointmentListener appointmentListener : ListenerRegistry.getListeners( IAppointmentListener.class ) )
             {
                 appointmentListener.notifyAppointmentUpdated( nIdAppointment );
             }
@@ -124,7 +123,7 @@ public final class AppointmentListenerManager
     {
         List<String> listMessages = new ArrayList<>( );
 
-        for ( IAppointmentListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentListener.class ) )
+        for ( IAppointmentListener appointmentRemovalListener : ListenerRegistry.getListeners( IAppointmentListener.class ) )
         {
             String strMessage = appointmentRemovalListener.appointmentDateChanged( nIdAppointment, listIdSlot, locale );
 
@@ -146,7 +145,7 @@ public final class AppointmentListenerManager
     public static void notifyListenersAppointmentFormRemoval( int nIdAppointmentForm )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentFormRemovalListener appointmentRemovalListener : SpringContextService.getBeansOfType( IAppointmentFormRemovalListener.class ) )
+            for ( IAppointmentFormRemovalListener appointmentRemovalListener : ListenerRegistry.getListeners( IAppointmentFormRemovalListener.class ) )
             {
                 appointmentRemovalListener.notifyAppointmentFormRemoval( nIdAppointmentForm );
             }
@@ -164,7 +163,7 @@ public final class AppointmentListenerManager
     public static void notifyAppointmentWFActionTriggered( int nIdAppointment, int nIdAction )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IAppointmentWorkflowActionListener appointmentListener : SpringContextService.getBeansOfType( IAppointmentWorkflowActionListener.class ) )
+            for ( IAppointmentWorkflowActionListener appointmentListener : ListenerRegistry.getListeners( IAppointmentWorkflowActionListener.class ) )
             {
                 appointmentListener.notifyAppointmentWFActionTriggered( nIdAppointment, nIdAction );
             }
@@ -34,10 +34,12 @@
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.plugins.appointment.service.AvailabilityVersionService;
+import fr.paris.lutece.plugins.appointment.service.FormService;
 
 public final class FormListenerManager
 {
+    private static final String KEY_FORM_CHANGE = "appointment.formChange.";
 
     /**
      * Private default constructor
@@ -55,8 +57,10 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormCreation( int nIdForm )
     {
+        FormService.resetFormConfiguration( nIdForm );
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( IFormListener formListener : ListenerRegistry.getListeners( IFormListener.class ) )
             {
                 formListener.notifyFormCreation( nIdForm );
             }
@@ -71,8 +75,11 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormChange( int nIdForm )
     {
-        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
+        FormService.resetFormConfiguration( nIdForm );
+        // The changes of a form waiting for the executor are notified once
+        AppointmentExecutorService.INSTANCE.execute( KEY_FORM_CHANGE + nIdForm, ( ) -> {
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( IFormListener formListener : ListenerRegistry.getListeners( IFormListener.class ) )
             {
                 formListener.notifyFormChange( nIdForm );
             }
@@ -87,8 +94,10 @@ public final class FormListenerManager
      */
     public static void notifyListenersFormRemoval( int nIdForm )
     {
+        FormService.resetFormConfiguration( nIdForm );
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IFormListener formListener : SpringContextService.getBeansOfType( IFormListener.class ) )
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( IFormListener formListener : ListenerRegistry.getListeners( IFormListener.class ) )
             {
                 formListener.notifyFormRemoval( nIdForm );
             }
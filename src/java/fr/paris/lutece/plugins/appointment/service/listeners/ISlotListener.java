@@ -34,6 +34,8 @@
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 
@@ -54,6 +56,33 @@ public interface ISlotListener
      */
     void notifySlotChange( int nIdSlot );
 
+    /**
+     * Notify the listener that some slots have been changed. The changes of a slot made in a short window are merged, so each slot appears once. The
+     * default implementation notifies the slots one by one with {@link #notifySlotChange(int)}.
+     * 
+     * @param listIdSlot
+     *            The ids of the slots
+     */
+    default void notifySlotsChange( List<Integer> listIdSlot )
+    {
+        for ( Integer nIdSlot : listIdSlot )
+        {
+            notifySlotChange( nIdSlot );
+        }
+    }
+
+    /**
+     * Notify the listener that some slots have been changed, with their new state. The default implementation notifies the ids of the slots with
+     * {@link #notifySlotsChange(List)}; a listener that needs the slots overrides it to avoid reloading them.
+     * 
+     * @param listSlot
+     *            The slots
+     */
+    default void notifyListSlotChange( List<Slot> listSlot )
+    {
+        notifySlotsChange( listSlot.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
+    }
+
     /**
      * Notify the listener that a new week slot has been created
      * 
@@ -62,6 +91,43 @@ public interface ISlotListener
      */
     void notifySlotCreation( int nIdSlot );
 
+    /**
+     * Notify the listener that a new slot has been created. The default implementation notifies the id of the slot with {@link #notifySlotCreation(int)}.
+     * 
+     * @param slot
+     *            The slot
+     */
+    default void notifySlotCreation( Slot slot )
+    {
+        notifySlotCreation( slot.getIdSlot( ) );
+    }
+
+    /**
+     * Notify the listener that some slots have been created. The default implementation notifies the slots one by one with {@link #notifySlotCreation(int)}.
+     * 
+     * @param listIdSlot
+     *            The ids of the slots
+     */
+    default void notifySlotsCreation( List<Integer> listIdSlot )
+    {
+        for ( Integer nIdSlot : listIdSlot )
+        {
+            notifySlotCreation( nIdSlot );
+        }
+    }
+
+    /**
+     * Notify the listener that some slots have been created. The default implementation notifies the ids of the slots with
+     * {@link #notifySlotsCreation(List)}; a listener that needs the slots overrides it to avoid reloading them.
+     * 
+     * @param listSlot
+     *            The slots
+     */
+    default void notifyListSlotCreation( List<Slot> listSlot )
+    {
+        notifySlotsCreation( listSlot.stream( ).map( Slot::getIdSlot ).collect( Collectors.toList( ) ) );
+    }
+
     /**
      * Notify the listener that a slot has been deleted
      * 
@@ -36,6 +36,7 @@ package fr.paris.lutece.plugins.appointment.service.listeners;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.slot.Period;
 
 /**
  * Interface for listeners that should be notified when week definition has been changed or removed. <b>The listener must be a Spring bean.</b>
@@ -71,4 +72,20 @@ public interface IWeekDefinitionListener
      */
     void notifyListWeeksChanged( int nIdForm, List<WeekDefinition> listWeek );
 
+    /**
+     * Notify the listener that a week definition has been assigned to (or unassigned from) the calendar, with the periods whose reservation rule has actually
+     * changed. By default, the listener is notified that the week has been assigned.
+     * 
+     * @param nIdForm
+     *            The id of the form
+     * @param weekDefinition
+     *            The weekDefinition assigned, with a reservation rule id of 0 if it is unassigned
+     * @param listPeriod
+     *            the periods of the calendar whose reservation rule has changed, never empty
+     */
+    default void notifyWeekAssigned( int nIdForm, WeekDefinition weekDefinition, List<Period> listPeriod )
+    {
+        notifyWeekAssigned( weekDefinition );
+    }
+
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+/**
+ * Registry of the listeners of the plugin.
+ * 
+ * The listeners of a type are looked up in the Spring context the first time they are notified, and kept in an array until the next
+ * {@link #refresh()}, which is done each time a plugin is installed or uninstalled.
+ */
+public final class ListenerRegistry
+{
+    /**
+     * The listeners, by listener type
+     */
+    private static final ConcurrentMap<Class<?>, Object [ ]> _mapListeners = new ConcurrentHashMap<>( );
+
+    /**
+     * Number of refreshes, to not keep listeners looked up before a refresh
+     */
+    private static final AtomicLong _lRefreshCount = new AtomicLong( );
+
+    /**
+     * Private default constructor
+     */
+    private ListenerRegistry( )
+    {
+        // Nothing to do
+    }
+
+    /**
+     * Get the listeners of a type. The returned array is shared and must not be modified.
+     * 
+     * @param <T>
+     *            the type of the listeners
+     * @param listenerType
+     *            the class of the listeners
+     * @return the array of the listeners
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> T [ ] getListeners( Class<T> listenerType )
+    {
+        Object [ ] arrayListener = _mapListeners.get( listenerType );
+        if ( arrayListener == null )
+        {
+            long lRefreshCount = _lRefreshCount.get( );
+            List<T> listListener = SpringContextService.getBeansOfType( listenerType );
+            arrayListener = listListener.toArray( (T [ ]) Array.newInstance( listenerType, listListener.size( ) ) );
+            // The beans can only be kept once the context is started
+            if ( SpringContextService.getContext( ) != null )
+            {
+                Object [ ] arrayListenerInMap = _mapListeners.putIfAbsent( listenerType, arrayListener );
+                if ( arrayListenerInMap != null )
+                {
+                    arrayListener = arrayListenerInMap;
+                }
+                else
+                    if ( lRefreshCount != _lRefreshCount.get( ) )
+                    {
+                        _mapListeners.remove( listenerType, arrayListener );
+                    }
+            }
+        }
+        return (T [ ]) arrayListener;
+    }
+
+    /**
+     * Forget the listeners looked up, so that they are looked up again in the Spring context the next time they are notified
+     */
+    public static void refresh( )
+    {
+        _lRefreshCount.incrementAndGet( );
+        _mapListeners.clear( );
+    }
+}
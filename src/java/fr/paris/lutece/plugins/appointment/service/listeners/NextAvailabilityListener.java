@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Period;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.service.NextAvailabilityService;
+import fr.paris.lutece.plugins.appointment.service.SlotService;
+
+/**
+ * Listener that keeps the next availability of the forms up to date with the changes of their slots, week definitions and parameters
+ */
+public class NextAvailabilityListener implements ISlotListener, IWeekDefinitionListener, IFormListener
+{
+
+    @Override
+    public void notifySlotChange( int nIdSlot )
+    {
+        refreshSlot( nIdSlot );
+    }
+
+    @Override
+    public void notifyListSlotChange( List<Slot> listSlot )
+    {
+        listSlot.forEach( NextAvailabilityService::refreshSlot );
+    }
+
+    @Override
+    public void notifySlotCreation( int nIdSlot )
+    {
+        refreshSlot( nIdSlot );
+    }
+
+    @Override
+    public void notifySlotCreation( Slot slot )
+    {
+        NextAvailabilityService.refreshSlot( slot );
+    }
+
+    @Override
+    public void notifyListSlotCreation( List<Slot> listSlot )
+    {
+        listSlot.forEach( NextAvailabilityService::refreshSlot );
+    }
+
+    @Override
+    public void notifySlotRemoval( Slot slot )
+    {
+        NextAvailabilityService.refreshDate( slot.getIdForm( ), slot.getStartingDateTime( ).toLocalDate( ) );
+    }
+
+    @Override
+    public void notifySlotEndingTimeHasChanged( int nIdSlot, int nIdFom, LocalDateTime endingDateTime )
+    {
+        NextAvailabilityService.refreshDate( nIdFom, endingDateTime.toLocalDate( ) );
+    }
+
+    @Override
+    public void notifyWeekAssigned( WeekDefinition weekDefinition )
+    {
+        resetWeekDefinition( weekDefinition );
+    }
+
+    @Override
+    public void notifyWeekAssigned( int nIdForm, WeekDefinition weekDefinition, List<Period> listPeriod )
+    {
+        for ( Period period : listPeriod )
+        {
+            NextAvailabilityService.refreshDates( nIdForm, period.getStartingDateTime( ).toLocalDate( ), period.getEndingDateTime( ).toLocalDate( ) );
+        }
+    }
+
+    @Override
+    public void notifyWeekUnassigned( WeekDefinition weekDefinition )
+    {
+        resetWeekDefinition( weekDefinition );
+    }
+
+    @Override
+    public void notifyListWeeksChanged( int nIdForm, List<WeekDefinition> listWeek )
+    {
+        NextAvailabilityService.resetFormAvailability( nIdForm );
+    }
+
+    @Override
+    public void notifyFormChange( int nIdForm )
+    {
+        NextAvailabilityService.resetFormAvailability( nIdForm );
+    }
+
+    @Override
+    public void notifyFormCreation( int nIdForm )
+    {
+        NextAvailabilityService.resetFormAvailability( nIdForm );
+    }
+
+    @Override
+    public void notifyFormRemoval( int nIdForm )
+    {
+        NextAvailabilityService.resetFormAvailability( nIdForm );
+    }
+
+    /**
+     * Reset the availability of the form of a week definition
+     * 
+     * @param weekDefinition
+     *            the week definition
+     */
+    private void resetWeekDefinition( WeekDefinition weekDefinition )
+    {
+        ReservationRule reservationRule = ReservationRuleHome.findByPrimaryKey( weekDefinition.getIdReservationRule( ) );
+        if ( reservationRule != null )
+        {
+            NextAvailabilityService.resetFormAvailability( reservationRule.getIdForm( ) );
+        }
+    }
+
+    /**
+     * Refresh the availability of the day of a slot known by its id
+     * 
+     * @param nIdSlot
+     *            the slot Id
+     */
+    private void refreshSlot( int nIdSlot )
+    {
+        Slot slot = SlotService.findSlotById( nIdSlot );
+        if ( slot != null )
+        {
+            NextAvailabilityService.refreshSlot( slot );
+        }
+    }
+}
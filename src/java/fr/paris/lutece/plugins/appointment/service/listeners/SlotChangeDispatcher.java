@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.business.slot.SlotHome;
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
+import fr.paris.lutece.plugins.appointment.service.AvailabilityVersionService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Dispatcher of the slot changes.
+ * 
+ * The changes of a slot are merged during a short window, then the slots changed in the window are notified in one batch to the listeners with
+ * {@link ISlotListener#notifyListSlotChange(List)}. A burst of changes on a slot (hold, release, booking...) thus produces one notification. The last state
+ * of the slot given with the change is notified; the slots changed with their id only are loaded in one query at the flush.
+ */
+public final class SlotChangeDispatcher
+{
+    private static final String PROPERTY_WINDOW = "appointment.slot.change.window";
+    private static final long WINDOW = AppPropertiesService.getPropertyLong( PROPERTY_WINDOW, 200L );
+
+    private static final SlotChangeDispatcher INSTANCE = new SlotChangeDispatcher( WINDOW, SlotHome::findByListId, SlotChangeDispatcher::notifyListeners );
+
+    private final long _lWindow;
+    private final Function<List<Integer>, List<Slot>> _slotLoader;
+    private final Consumer<List<Slot>> _slotNotifier;
+    private final Map<Integer, Slot> _mapPendingSlot = new ConcurrentHashMap<>( );
+    private final Set<Integer> _setPendingIdSlot = ConcurrentHashMap.newKeySet( );
+    private final AtomicBoolean _bScheduled = new AtomicBoolean( );
+    private final ScheduledExecutorService _scheduledExecutor = Executors
+            .newSingleThreadScheduledExecutor( r -> new Thread( r, "Lutece-AppointmentSlotChange-thread" ) );
+
+    /**
+     * Constructor
+     * 
+     * @param lWindow
+     *            the window during which the changes of a slot are merged, in milliseconds
+     * @param slotLoader
+     *            the loader of the slots changed with their id only
+     * @param slotNotifier
+     *            the consumer of the slots changed in a window
+     */
+    SlotChangeDispatcher( long lWindow, Function<List<Integer>, List<Slot>> slotLoader, Consumer<List<Slot>> slotNotifier )
+    {
+        _lWindow = lWindow;
+        _slotLoader = slotLoader;
+        _slotNotifier = slotNotifier;
+    }
+
+    /**
+     * Register the change of a slot, it will be notified to the listeners at the end of the current window. The slot is loaded at the flush, prefer
+     * {@link #addSlotChange(Slot)} when the slot is at hand.
+     * 
+     * @param nIdSlot
+     *            the id of the slot that has changed
+     */
+    public static void addSlotChange( int nIdSlot )
+    {
+        INSTANCE.add( nIdSlot );
+    }
+
+    /**
+     * Register the change of a slot, it will be notified to the listeners at the end of the current window
+     * 
+     * @param slot
+     *            the slot that has changed, in its new state
+     */
+    public static void addSlotChange( Slot slot )
+    {
+        INSTANCE.add( slot );
+    }
+
+    /**
+     * Notify the pending slot changes and stop the dispatcher. Has to be called before the shutdown of the {@link AppointmentExecutorService}.
+     */
+    public static void shutdown( )
+    {
+        INSTANCE.stop( );
+    }
+
+    /**
+     * Register the change of a slot known by its id
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    void add( int nIdSlot )
+    {
+        _setPendingIdSlot.add( nIdSlot );
+        schedule( nIdSlot );
+    }
+
+    /**
+     * Register the change of a slot, the last state given in the window is kept
+     * 
+     * @param slot
+     *            the slot
+     */
+    void add( Slot slot )
+    {
+        _mapPendingSlot.put( slot.getIdSlot( ), slot );
+        schedule( slot.getIdSlot( ) );
+    }
+
+    /**
+     * Schedule a flush at the end of the window, if none is pending
+     * 
+     * @param nIdSlot
+     *            the id of the slot that has changed
+     */
+    private void schedule( int nIdSlot )
+    {
+        if ( _bScheduled.compareAndSet( false, true ) )
+        {
+            try
+            {
+                _scheduledExecutor.schedule( this::flush, _lWindow, TimeUnit.MILLISECONDS );
+            }
+            catch( RejectedExecutionException e )
+            {
+                // The application is stopping
+                _bScheduled.set( false );
+                AppLogService.error( "Slot change not notified: " + nIdSlot, e );
+            }
+        }
+    }
+
+    /**
+     * Notify the slots changed since the last flush
+     */
+    void flush( )
+    {
+        // Set the flag before draining, so that a slot added meanwhile is drained now or schedules another flush
+        _bScheduled.set( false );
+        List<Slot> listSlot = new ArrayList<>( );
+        Set<Integer> setIdSlot = new HashSet<>( );
+        Iterator<Slot> iteratorSlot = _mapPendingSlot.values( ).iterator( );
+        while ( iteratorSlot.hasNext( ) )
+        {
+            Slot slot = iteratorSlot.next( );
+            iteratorSlot.remove( );
+            listSlot.add( slot );
+            setIdSlot.add( slot.getIdSlot( ) );
+        }
+        List<Integer> listIdSlotToLoad = new ArrayList<>( );
+        Iterator<Integer> iteratorIdSlot = _setPendingIdSlot.iterator( );
+        while ( iteratorIdSlot.hasNext( ) )
+        {
+            Integer nIdSlot = iteratorIdSlot.next( );
+            iteratorIdSlot.remove( );
+            if ( !setIdSlot.contains( nIdSlot ) )
+            {
+                listIdSlotToLoad.add( nIdSlot );
+            }
+        }
+        if ( listSlot.isEmpty( ) && listIdSlotToLoad.isEmpty( ) )
+        {
+            return;
+        }
+        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
+            if ( !listIdSlotToLoad.isEmpty( ) )
+            {
+                listSlot.addAll( _slotLoader.apply( listIdSlotToLoad ) );
+            }
+            _slotNotifier.accept( listSlot );
+        } );
+    }
+
+    /**
+     * Notify the pending slot changes and stop the scheduler
+     */
+    void stop( )
+    {
+        _scheduledExecutor.shutdownNow( );
+        flush( );
+    }
+
+    /**
+     * Increment once the availability version of each form of the slots, then notify the listeners
+     * 
+     * @param listSlot
+     *            the slots changed
+     */
+    private static void notifyListeners( List<Slot> listSlot )
+    {
+        Set<Integer> setIdForm = new HashSet<>( );
+        for ( Slot slot : listSlot )
+        {
+            if ( setIdForm.add( slot.getIdForm( ) ) )
+            {
+                AvailabilityVersionService.incrementVersion( slot.getIdForm( ) );
+            }
+        }
+        for ( ISlotListener slotListener : ListenerRegistry.getListeners( ISlotListener.class ) )
+        {
+            slotListener.notifyListSlotChange( listSlot );
+        }
+    }
+}
@@ -34,10 +34,12 @@
 package fr.paris.lutece.plugins.appointment.service.listeners;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.plugins.appointment.service.AvailabilityVersionService;
+import fr.paris.lutece.plugins.appointment.service.SlotService;
 
 /**
  * Manager for slot listeners
@@ -56,16 +58,36 @@ public final class SlotListenerManager
         // Nothing to do
     }
 
+    /**
+     * Notify listeners that a Slot has been created
+     * 
+     * @param slot
+     *            The Slot that has been created
+     */
+    public static void notifyListenersSlotCreation( Slot slot )
+    {
+        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
+            AvailabilityVersionService.incrementVersion( slot.getIdForm( ) );
+            for ( ISlotListener slotListener : ListenerRegistry.getListeners( ISlotListener.class ) )
+            {
+                slotListener.notifySlotCreation( slot );
+            }
+        } );
+    }
+
     /**
      * Notify listeners that a Slot has been created
      * 
      * @param nIdSlot
      *            The id of the Slot that has been created
+     * @deprecated the slot is loaded to find its form, use {@link #notifyListenersSlotCreation(Slot)}
      */
+    @Deprecated
     public static void notifyListenersSlotCreation( int nIdSlot )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+            incrementAvailabilityVersion( nIdSlot );
+            for ( ISlotListener slotListener : ListenerRegistry.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotCreation( nIdSlot );
             }
@@ -74,17 +96,63 @@ public final class SlotListenerManager
     }
 
     /**
-     * Notify listeners that a Slot has been changed
+     * Notify listeners that a Slot has been changed. The changes of a slot are merged during a short window by the {@link SlotChangeDispatcher}.
      * 
      * @param nIdSlot
      *            The id of the Slot that has been changed
      */
     public static void notifyListenersSlotChange( int nIdSlot )
     {
+        SlotChangeDispatcher.addSlotChange( nIdSlot );
+    }
+
+    /**
+     * Notify listeners that a Slot has been changed, with its new state. The listeners are notified with a copy of the slot, so that it is not reloaded at the
+     * end of the window of the {@link SlotChangeDispatcher}.
+     * 
+     * @param slot
+     *            The Slot that has been changed
+     */
+    public static void notifyListenersSlotChange( Slot slot )
+    {
+        try
+        {
+            SlotChangeDispatcher.addSlotChange( slot.clone( ) );
+        }
+        catch( CloneNotSupportedException e )
+        {
+            SlotChangeDispatcher.addSlotChange( slot.getIdSlot( ) );
+        }
+    }
+
+    /**
+     * Notify listeners, in one batch, that some slots of a form have been created or changed
+     * 
+     * @param nIdForm
+     *            the id of the form of the slots
+     * @param listSlotCreated
+     *            the slots created
+     * @param listSlotChanged
+     *            the slots changed
+     */
+    public static void notifyListenersListSlotChange( int nIdForm, List<Slot> listSlotCreated, List<Slot> listSlotChanged )
+    {
+        if ( listSlotCreated.isEmpty( ) && listSlotChanged.isEmpty( ) )
+        {
+            return;
+        }
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( ISlotListener slotListener : ListenerRegistry.getListeners( ISlotListener.class ) )
             {
-                slotListener.notifySlotChange( nIdSlot );
+                if ( !listSlotCreated.isEmpty( ) )
+                {
+                    slotListener.notifyListSlotCreation( listSlotCreated );
+                }
+                if ( !listSlotChanged.isEmpty( ) )
+                {
+                    slotListener.notifyListSlotChange( listSlotChanged );
+                }
             }
         } );
     }
@@ -98,7 +166,8 @@ public final class SlotListenerManager
     public static void notifyListenersSlotRemoval( Slot slot )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+            AvailabilityVersionService.incrementVersion( slot.getIdForm( ) );
+            for ( ISlotListener slotListener : ListenerRegistry.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotRemoval( slot );
             }
@@ -116,11 +185,27 @@ public final class SlotListenerManager
     public static void notifySlotEndingTimeHasChanged( int nIdSlot, int nIdForm, LocalDateTime endingDateTime )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( ISlotListener slotListener : SpringContextService.getBeansOfType( ISlotListener.class ) )
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( ISlotListener slotListener : ListenerRegistry.getListeners( ISlotListener.class ) )
             {
                 slotListener.notifySlotEndingTimeHasChanged( nIdSlot, nIdForm, endingDateTime );
             }
         } );
     }
 
+    /**
+     * Increment the availability version of the form of a slot
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    private static void incrementAvailabilityVersion( int nIdSlot )
+    {
+        Slot slot = SlotService.findSlotById( nIdSlot );
+        if ( slot != null )
+        {
+            AvailabilityVersionService.incrementVersion( slot.getIdForm( ) );
+        }
+    }
+
 }
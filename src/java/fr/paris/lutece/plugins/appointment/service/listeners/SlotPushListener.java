@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.service.SlotPushService;
+import fr.paris.lutece.plugins.appointment.service.SlotService;
+
+/**
+ * Listener that registers the changes of the slots to push them to the calendars open in front office (see {@link SlotPushService})
+ */
+public class SlotPushListener implements ISlotListener
+{
+
+    @Override
+    public void notifySlotChange( int nIdSlot )
+    {
+        addSlotChange( nIdSlot );
+    }
+
+    @Override
+    public void notifyListSlotChange( List<Slot> listSlot )
+    {
+        listSlot.forEach( SlotPushService::addSlotChange );
+    }
+
+    @Override
+    public void notifySlotCreation( int nIdSlot )
+    {
+        addSlotChange( nIdSlot );
+    }
+
+    @Override
+    public void notifySlotCreation( Slot slot )
+    {
+        SlotPushService.addSlotChange( slot );
+    }
+
+    @Override
+    public void notifyListSlotCreation( List<Slot> listSlot )
+    {
+        listSlot.forEach( SlotPushService::addSlotChange );
+    }
+
+    @Override
+    public void notifySlotRemoval( Slot slot )
+    {
+        // Nothing to do
+    }
+
+    @Override
+    public void notifySlotEndingTimeHasChanged( int nIdSlot, int nIdFom, LocalDateTime endingDateTime )
+    {
+        // Nothing to do
+    }
+
+    /**
+     * Register the change of a slot known by its id, if a calendar is listening
+     * 
+     * @param nIdSlot
+     *            the id of the slot
+     */
+    private void addSlotChange( int nIdSlot )
+    {
+        if ( SlotPushService.hasSubscriber( ) )
+        {
+            Slot slot = SlotService.findSlotById( nIdSlot );
+            if ( slot != null )
+            {
+                SlotPushService.addSlotChange( slot );
+            }
+        }
+    }
+}
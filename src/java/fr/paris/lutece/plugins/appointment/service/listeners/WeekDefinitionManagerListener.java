@@ -36,8 +36,11 @@ package fr.paris.lutece.plugins.appointment.service.listeners;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
+import fr.paris.lutece.plugins.appointment.business.slot.Period;
 import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
-import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.plugins.appointment.service.AvailabilityVersionService;
 
 public final class WeekDefinitionManagerListener
 {
@@ -59,13 +62,39 @@ public final class WeekDefinitionManagerListener
     public static void notifyListenersWeekDefinitionAssigned( WeekDefinition weekDefinition )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
+            incrementAvailabilityVersion( weekDefinition );
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerRegistry.getListeners( IWeekDefinitionListener.class ) )
             {
                 weekDefinitionListener.notifyWeekAssigned( weekDefinition );
             }
         } );
     }
 
+    /**
+     * Notify listeners that a week definition has been assigned to (or unassigned from) the calendar of a form
+     * 
+     * @param nIdForm
+     *            The id of the form
+     * @param weekDefinition
+     *            The week definition that has been assigned
+     * @param listPeriod
+     *            the periods whose reservation rule has changed. Nothing is notified if it is empty.
+     */
+    public static void notifyListenersWeekDefinitionAssigned( int nIdForm, WeekDefinition weekDefinition, List<Period> listPeriod )
+    {
+        if ( listPeriod.isEmpty( ) )
+        {
+            return;
+        }
+        AppointmentExecutorService.INSTANCE.execute( ( ) -> {
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerRegistry.getListeners( IWeekDefinitionListener.class ) )
+            {
+                weekDefinitionListener.notifyWeekAssigned( nIdForm, weekDefinition, listPeriod );
+            }
+        } );
+    }
+
     /**
      * Notify listeners that a list of Week Definition has been changed (assign and unasign)
      * 
@@ -77,7 +106,8 @@ public final class WeekDefinitionManagerListener
     public static void notifyListenersListWeekDefinitionChanged( int nIdForm, List<WeekDefinition> listWeek )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
+            AvailabilityVersionService.incrementVersion( nIdForm );
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerRegistry.getListeners( IWeekDefinitionListener.class ) )
             {
                 weekDefinitionListener.notifyListWeeksChanged( nIdForm, listWeek );
             }
@@ -93,11 +123,27 @@ public final class WeekDefinitionManagerListener
     public static void notifyListenersWeekDefinitionUnassigned( WeekDefinition weekDefinition )
     {
         AppointmentExecutorService.INSTANCE.execute( ( ) -> {
-            for ( IWeekDefinitionListener weekDefinitionListener : SpringContextService.getBeansOfType( IWeekDefinitionListener.class ) )
+            incrementAvailabilityVersion( weekDefinition );
+            for ( IWeekDefinitionListener weekDefinitionListener : ListenerRegistry.getListeners( IWeekDefinitionListener.class ) )
             {
                 weekDefinitionListener.notifyWeekUnassigned( weekDefinition );
             }
         } );
     }
 
+    /**
+     * Increment the availability version of the form of a week definition
+     * 
+     * @param weekDefinition
+     *            the week definition
+     */
+    private static void incrementAvailabilityVersion( WeekDefinition weekDefinition )
+    {
+        ReservationRule reservationRule = ReservationRuleHome.findByPrimaryKey( weekDefinition.getIdReservationRule( ) );
+        if ( reservationRule != null )
+        {
+            AvailabilityVersionService.incrementVersion( reservationRule.getIdForm( ) );
+        }
+    }
+
 }
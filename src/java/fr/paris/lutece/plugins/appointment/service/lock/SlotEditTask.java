@@ -37,6 +37,7 @@ import java.util.concurrent.Callable;
 
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
 import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService;
 
 /**
  * Timer Task for a slot (Manage a lock the time the user fill the form
@@ -66,6 +67,7 @@ public final class SlotEditTask implements Callable<Slot>
     @Override
     public Slot call( )
     {
+        BookingMetricsService.recordHoldEnded( );
         return SlotSafeService.incrementPotentialRemainingPlaces( this );
 
     }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
+
+/**
+ * The MBean of the metrics of the booking pipeline, registered by {@link BookingMetricsService#registerMBean()}
+ */
+public class BookingMetrics implements BookingMetricsMXBean
+{
+    private static final int MOST_CONTENDED_STRIPES = 10;
+    private static final int PERCENTILE = 95;
+
+    /**
+     * Get a value of the histogram of each stage
+     * 
+     * @param function
+     *            the value to get from the histogram
+     * @return the values, by stage
+     */
+    private static Map<String, Long> getStageValues( ToLongFunction<LatencyHistogram> function )
+    {
+        Map<String, Long> mapValue = new LinkedHashMap<>( );
+        BookingMetricsService.getStageHistograms( ).forEach( ( strStage, histogram ) -> mapValue.put( strStage, function.applyAsLong( histogram ) ) );
+        return mapValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getStageCounts( )
+    {
+        return getStageValues( LatencyHistogram::getCount );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getStageAverageTimes( )
+    {
+        return getStageValues( LatencyHistogram::getAverageTime );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getStage95thPercentileTimes( )
+    {
+        return getStageValues( histogram -> histogram.getPercentileTime( PERCENTILE ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getStageMaxTimes( )
+    {
+        return getStageValues( LatencyHistogram::getMaxTime );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getFailureCounts( )
+    {
+        return BookingMetricsService.getFailureCounts( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getActiveHoldCount( )
+    {
+        return BookingMetricsService.getActiveHoldCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSlotLockAcquisitionCount( )
+    {
+        return BookingMetricsService.getStageHistogram( BookingMetricsService.Stage.SLOT_LOCK ).getCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSlotLockTimeoutCount( )
+    {
+        return BookingMetricsService.getFailureCount( BookingMetricsService.FailureCause.LOCKED );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAdminSlotLockTimeoutCount( )
+    {
+        return BookingMetricsService.getAdminSlotLockTimeoutCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getMostContendedSlotLockStripes( )
+    {
+        Map<String, Long> mapContention = new LinkedHashMap<>( );
+        for ( BookingMetricsService.StripeStatistics stripe : BookingMetricsService.getMostContendedStripes( MOST_CONTENDED_STRIPES ) )
+        {
+            mapContention.put( String.valueOf( stripe.getStripe( ) ), stripe.getContentionCount( ) );
+        }
+        return mapContention;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getExecutorQueueSize( )
+    {
+        return AppointmentExecutorService.INSTANCE.getQueueSize( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getExecutorActiveTaskCount( )
+    {
+        return AppointmentExecutorService.INSTANCE.getActiveTaskCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getExecutorRejectedTaskCount( )
+    {
+        return AppointmentExecutorService.INSTANCE.getRejectedTaskCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getExecutorCoalescedTaskCount( )
+    {
+        return AppointmentExecutorService.INSTANCE.getCoalescedTaskCount( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset( )
+    {
+        BookingMetricsService.reset( );
+    }
+}
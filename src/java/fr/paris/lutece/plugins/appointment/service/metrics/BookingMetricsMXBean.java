@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of the booking pipeline. The times are in milliseconds.
+ */
+public interface BookingMetricsMXBean
+{
+    /**
+     * Get the number of saves of each stage
+     * 
+     * @return the counts, by stage
+     */
+    Map<String, Long> getStageCounts( );
+
+    /**
+     * Get the average time of each stage
+     * 
+     * @return the average times, by stage
+     */
+    Map<String, Long> getStageAverageTimes( );
+
+    /**
+     * Get the 95th percentile of the times of each stage
+     * 
+     * @return the percentiles, by stage
+     */
+    Map<String, Long> getStage95thPercentileTimes( );
+
+    /**
+     * Get the longest time of each stage
+     * 
+     * @return the maximum times, by stage
+     */
+    Map<String, Long> getStageMaxTimes( );
+
+    /**
+     * Get the number of failed bookings of each cause
+     * 
+     * @return the counts, by cause
+     */
+    Map<String, Long> getFailureCounts( );
+
+    /**
+     * Get the number of holds of places on slots that are currently active
+     * 
+     * @return the number of active holds
+     */
+    int getActiveHoldCount( );
+
+    /**
+     * Get the number of acquisitions of the locks of the slots of a booking
+     * 
+     * @return the number of acquisitions
+     */
+    long getSlotLockAcquisitionCount( );
+
+    /**
+     * Get the number of acquisitions of the locks of the slots of a booking that timed out
+     * 
+     * @return the number of timeouts
+     */
+    long getSlotLockTimeoutCount( );
+
+    /**
+     * Get the number of acquisitions of the locks of the slots updated in the back office that timed out. Their waiting times are in the ADMIN_SLOT_LOCK
+     * stage.
+     * 
+     * @return the number of timeouts
+     */
+    long getAdminSlotLockTimeoutCount( );
+
+    /**
+     * Get the number of contended acquisitions of the slot lock stripes that had the most contention
+     * 
+     * @return the counts, by stripe
+     */
+    Map<String, Long> getMostContendedSlotLockStripes( );
+
+    /**
+     * Get the number of tasks waiting in the queue of the appointment executor
+     * 
+     * @return the queue size
+     */
+    int getExecutorQueueSize( );
+
+    /**
+     * Get the number of tasks being run by the appointment executor
+     * 
+     * @return the number of active tasks
+     */
+    int getExecutorActiveTaskCount( );
+
+    /**
+     * Get the number of tasks rejected by the appointment executor
+     * 
+     * @return the number of rejected tasks
+     */
+    long getExecutorRejectedTaskCount( );
+
+    /**
+     * Get the number of tasks replaced by a task with the same key while the queue of the appointment executor was full
+     * 
+     * @return the number of coalesced tasks
+     */
+    long getExecutorCoalescedTaskCount( );
+
+    /**
+     * Reset the metrics
+     */
+    void reset( );
+}
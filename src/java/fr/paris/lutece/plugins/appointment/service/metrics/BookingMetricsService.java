@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Metrics of the booking pipeline: the duration of each stage of the save of an appointment, the waiting times on the slot locks, the causes of the failed
+ * bookings and the number of places held on the slots while the users fill the form.
+ * 
+ * The metrics are kept in memory, by node, and exposed through JMX and the back office dashboard.
+ */
+public final class BookingMetricsService
+{
+    /**
+     * The JMX name of the metrics
+     */
+    public static final String MBEAN_NAME = "fr.paris.lutece.plugins.appointment:type=BookingMetrics";
+
+    /**
+     * The stages of the save of an appointment
+     */
+    public enum Stage
+    {
+        /** Waiting for the locks of the slots */
+        SLOT_LOCK,
+        /** Checking and updating the slots */
+        SLOT_UPDATE,
+        /** Saving the user */
+        USER,
+        /** Creating the appointment */
+        APPOINTMENT,
+        /** Saving the responses of the form */
+        RESPONSES,
+        /** Processing the workflow action */
+        WORKFLOW,
+        /** Committing the transaction */
+        COMMIT,
+        /** The whole save of a booked appointment */
+        TOTAL,
+        /** Waiting for the locks of the slots updated in the back office, outside of a booking */
+        ADMIN_SLOT_LOCK
+    }
+
+    /**
+     * The causes of the failed bookings
+     */
+    public enum FailureCause
+    {
+        /** Not enough remaining places on the slots, or slot passed */
+        FULL,
+        /** The locks of the slots could not be acquired in time */
+        LOCKED,
+        /** The places held on the slot have expired */
+        EXPIRED,
+        /** The booking would overbook a slot */
+        OVERBOOK,
+        /** The moved appointment has been cancelled */
+        CANCELLED,
+        /** Any other error */
+        OTHER
+    }
+
+    private static final Map<Stage, LatencyHistogram> _mapStageHistogram = createStageHistograms( );
+    private static final Map<FailureCause, AtomicLong> _mapFailureCount = createFailureCounts( );
+    private static final AtomicInteger _nActiveHoldCount = new AtomicInteger( );
+    private static final AtomicLong _lAdminSlotLockTimeoutCount = new AtomicLong( );
+
+    // Statistics of the slot lock stripes
+    private static final int STRIPE_COUNT = SlotSafeService.getSlotLockStripeCount( );
+    private static final AtomicLongArray _arrayStripeAcquisitionCount = new AtomicLongArray( STRIPE_COUNT );
+    private static final AtomicLongArray _arrayStripeContentionCount = new AtomicLongArray( STRIPE_COUNT );
+    private static final AtomicLongArray _arrayStripeTotalWaitTime = new AtomicLongArray( STRIPE_COUNT );
+    private static final AtomicLongArray _arrayStripeMaxWaitTime = new AtomicLongArray( STRIPE_COUNT );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private BookingMetricsService( )
+    {
+    }
+
+    /**
+     * Create the histograms of the stages
+     * 
+     * @return the histograms by stage
+     */
+    private static Map<Stage, LatencyHistogram> createStageHistograms( )
+    {
+        Map<Stage, LatencyHistogram> mapStageHistogram = new EnumMap<>( Stage.class );
+        for ( Stage stage : Stage.values( ) )
+        {
+            mapStageHistogram.put( stage, new LatencyHistogram( ) );
+        }
+        return mapStageHistogram;
+    }
+
+    /**
+     * Create the counters of the failure causes
+     * 
+     * @return the counters by cause
+     */
+    private static Map<FailureCause, AtomicLong> createFailureCounts( )
+    {
+        Map<FailureCause, AtomicLong> mapFailureCount = new EnumMap<>( FailureCause.class );
+        for ( FailureCause cause : FailureCause.values( ) )
+        {
+            mapFailureCount.put( cause, new AtomicLong( ) );
+        }
+        return mapFailureCount;
+    }
+
+    /**
+     * Record the duration of a stage, from a start time to now
+     * 
+     * @param stage
+     *            the stage
+     * @param lStartTime
+     *            the start time of the stage, as returned by {@link System#nanoTime()}
+     * @return the end time of the stage, to be used as the start time of the next stage
+     */
+    public static long recordStage( Stage stage, long lStartTime )
+    {
+        long lEndTime = System.nanoTime( );
+        _mapStageHistogram.get( stage ).record( lEndTime - lStartTime );
+        return lEndTime;
+    }
+
+    /**
+     * Record a failed booking
+     * 
+     * @param cause
+     *            the cause of the failure
+     */
+    public static void recordFailure( FailureCause cause )
+    {
+        _mapFailureCount.get( cause ).incrementAndGet( );
+    }
+
+    /**
+     * Record that the locks of some slots could not be acquired in time. For a booking, it is counted as a {@link FailureCause#LOCKED} failure.
+     * 
+     * @param stage
+     *            the stage that waited for the locks, {@link Stage#SLOT_LOCK} or {@link Stage#ADMIN_SLOT_LOCK}
+     */
+    public static void recordSlotLockTimeout( Stage stage )
+    {
+        if ( stage == Stage.ADMIN_SLOT_LOCK )
+        {
+            _lAdminSlotLockTimeoutCount.incrementAndGet( );
+        }
+        else
+        {
+            recordFailure( FailureCause.LOCKED );
+        }
+    }
+
+    /**
+     * Record the acquisition of the lock of a slot stripe
+     * 
+     * @param nStripe
+     *            the stripe
+     * @param lWaitTime
+     *            the waiting time in nanoseconds
+     * @param bContended
+     *            true if the lock was held by another thread when it was requested
+     */
+    public static void recordSlotLockWait( int nStripe, long lWaitTime, boolean bContended )
+    {
+        _arrayStripeAcquisitionCount.incrementAndGet( nStripe );
+        if ( bContended )
+        {
+            _arrayStripeContentionCount.incrementAndGet( nStripe );
+        }
+        _arrayStripeTotalWaitTime.addAndGet( nStripe, lWaitTime );
+        _arrayStripeMaxWaitTime.accumulateAndGet( nStripe, lWaitTime, Math::max );
+    }
+
+    /**
+     * Record that places are held on a slot while a user fills the form
+     */
+    public static void recordHoldStarted( )
+    {
+        _nActiveHoldCount.incrementAndGet( );
+    }
+
+    /**
+     * Record that places held on a slot have been released, by the booking, the cancellation or the expiration of the hold
+     */
+    public static void recordHoldEnded( )
+    {
+        _nActiveHoldCount.decrementAndGet( );
+    }
+
+    /**
+     * Get the histogram of a stage
+     * 
+     * @param stage
+     *            the stage
+     * @return the histogram
+     */
+    public static LatencyHistogram getStageHistogram( Stage stage )
+    {
+        return _mapStageHistogram.get( stage );
+    }
+
+    /**
+     * Get the histograms of all the stages
+     * 
+     * @return the histograms, by name of stage, in the order of the pipeline
+     */
+    public static Map<String, LatencyHistogram> getStageHistograms( )
+    {
+        return _mapStageHistogram.entrySet( ).stream( )
+                .collect( Collectors.toMap( entry -> entry.getKey( ).name( ), Map.Entry::getValue, ( h1, h2 ) -> h1, LinkedHashMap::new ) );
+    }
+
+    /**
+     * Get the number of failed bookings of a cause
+     * 
+     * @param cause
+     *            the cause
+     * @return the number of failures
+     */
+    public static long getFailureCount( FailureCause cause )
+    {
+        return _mapFailureCount.get( cause ).get( );
+    }
+
+    /**
+     * Get the number of failed bookings of all the causes
+     * 
+     * @return the number of failures, by name of cause
+     */
+    public static Map<String, Long> getFailureCounts( )
+    {
+        return _mapFailureCount.entrySet( ).stream( )
+                .collect( Collectors.toMap( entry -> entry.getKey( ).name( ), entry -> entry.getValue( ).get( ), ( l1, l2 ) -> l1, LinkedHashMap::new ) );
+    }
+
+    /**
+     * Get the number of times the locks of the slots updated in the back office could not be acquired in time
+     * 
+     * @return the number of timeouts
+     */
+    public static long getAdminSlotLockTimeoutCount( )
+    {
+        return _lAdminSlotLockTimeoutCount.get( );
+    }
+
+    /**
+     * Get the number of holds of places on slots that are currently active
+     * 
+     * @return the number of active holds
+     */
+    public static int getActiveHoldCount( )
+    {
+        return _nActiveHoldCount.get( );
+    }
+
+    /**
+     * Get the slot lock stripes that had the most contention
+     * 
+     * @param nLimit
+     *            the maximum number of stripes
+     * @return the statistics of the stripes, the most contended first. Stripes that were never contended are not returned.
+     */
+    public static List<StripeStatistics> getMostContendedStripes( int nLimit )
+    {
+        return IntStream.range( 0, STRIPE_COUNT ).filter( nStripe -> _arrayStripeContentionCount.get( nStripe ) > 0 ).mapToObj( StripeStatistics::new )
+                .sorted( Comparator.comparingLong( StripeStatistics::getContentionCount ).reversed( ) ).limit( nLimit )
+                .collect( Collectors.toCollection( ArrayList::new ) );
+    }
+
+    /**
+     * Reset all the metrics, except the number of active holds which is a gauge
+     */
+    public static void reset( )
+    {
+        _mapStageHistogram.values( ).forEach( LatencyHistogram::reset );
+        _mapFailureCount.values( ).forEach( count -> count.set( 0L ) );
+        _lAdminSlotLockTimeoutCount.set( 0L );
+        for ( int nStripe = 0; nStripe < STRIPE_COUNT; nStripe++ )
+        {
+            _arrayStripeAcquisitionCount.set( nStripe, 0L );
+            _arrayStripeContentionCount.set( nStripe, 0L );
+            _arrayStripeTotalWaitTime.set( nStripe, 0L );
+            _arrayStripeMaxWaitTime.set( nStripe, 0L );
+        }
+    }
+
+    /**
+     * Register the metrics in the platform MBean server
+     */
+    public static void registerMBean( )
+    {
+        try
+        {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer( );
+            ObjectName objectName = new ObjectName( MBEAN_NAME );
+            if ( !mbeanServer.isRegistered( objectName ) )
+            {
+                mbeanServer.registerMBean( new BookingMetrics( ), objectName );
+            }
+        }
+        catch( JMException e )
+        {
+            AppLogService.error( "Unable to register the booking metrics MBean", e );
+        }
+    }
+
+    /**
+     * Unregister the metrics from the platform MBean server
+     */
+    public static void unregisterMBean( )
+    {
+        try
+        {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer( );
+            ObjectName objectName = new ObjectName( MBEAN_NAME );
+            if ( mbeanServer.isRegistered( objectName ) )
+            {
+                mbeanServer.unregisterMBean( objectName );
+            }
+        }
+        catch( JMException e )
+        {
+            AppLogService.error( "Unable to unregister the booking metrics MBean", e );
+        }
+    }
+
+    /**
+     * The statistics of a slot lock stripe
+     */
+    public static final class StripeStatistics
+    {
+        private final int _nStripe;
+        private final long _lAcquisitionCount;
+        private final long _lContentionCount;
+        private final long _lTotalWaitTime;
+        private final long _lMaxWaitTime;
+
+        /**
+         * Constructor
+         * 
+         * @param nStripe
+         *            the stripe
+         */
+        private StripeStatistics( int nStripe )
+        {
+            _nStripe = nStripe;
+            _lAcquisitionCount = _arrayStripeAcquisitionCount.get( nStripe );
+            _lContentionCount = _arrayStripeContentionCount.get( nStripe );
+            _lTotalWaitTime = _arrayStripeTotalWaitTime.get( nStripe );
+            _lMaxWaitTime = _arrayStripeMaxWaitTime.get( nStripe );
+        }
+
+        /**
+         * Get the stripe
+         * 
+         * @return the index of the stripe
+         */
+        public int getStripe( )
+        {
+            return _nStripe;
+        }
+
+        /**
+         * Get the number of acquisitions of the lock of the stripe
+         * 
+         * @return the number of acquisitions
+         */
+        public long getAcquisitionCount( )
+        {
+            return _lAcquisitionCount;
+        }
+
+        /**
+         * Get the number of acquisitions that had to wait for another thread
+         * 
+         * @return the number of contended acquisitions
+         */
+        public long getContentionCount( )
+        {
+            return _lContentionCount;
+        }
+
+        /**
+         * Get the average waiting time of the acquisitions
+         * 
+         * @return the average waiting time in milliseconds
+         */
+        public long getAverageWaitTime( )
+        {
+            return ( _lAcquisitionCount == 0 ) ? 0L : TimeUnit.NANOSECONDS.toMillis( _lTotalWaitTime / _lAcquisitionCount );
+        }
+
+        /**
+         * Get the longest waiting time of the acquisitions
+         * 
+         * @return the maximum waiting time in milliseconds
+         */
+        public long getMaxWaitTime( )
+        {
+            return TimeUnit.NANOSECONDS.toMillis( _lMaxWaitTime );
+        }
+    }
+}
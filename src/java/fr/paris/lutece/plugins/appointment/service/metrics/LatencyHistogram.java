@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations, with fixed buckets in milliseconds. The recording is lock-free so it can be done on the booking path.
+ */
+public final class LatencyHistogram
+{
+    /**
+     * The upper bounds of the buckets, in milliseconds. The last bucket gets the longer durations.
+     */
+    private static final long [ ] BUCKET_BOUNDS = new long [ ] {
+            1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+    };
+
+    private final AtomicLongArray _arrayBucketCount = new AtomicLongArray( BUCKET_BOUNDS.length + 1 );
+    private final AtomicLong _lCount = new AtomicLong( );
+    private final AtomicLong _lTotalTime = new AtomicLong( );
+    private final AtomicLong _lMaxTime = new AtomicLong( );
+
+    /**
+     * Record a duration
+     * 
+     * @param lDurationNanos
+     *            the duration in nanoseconds
+     */
+    public void record( long lDurationNanos )
+    {
+        long lDurationMillis = TimeUnit.NANOSECONDS.toMillis( lDurationNanos );
+        int nBucket = 0;
+        while ( nBucket < BUCKET_BOUNDS.length && lDurationMillis > BUCKET_BOUNDS [nBucket] )
+        {
+            nBucket++;
+        }
+        _arrayBucketCount.incrementAndGet( nBucket );
+        _lCount.incrementAndGet( );
+        _lTotalTime.addAndGet( lDurationNanos );
+        _lMaxTime.accumulateAndGet( lDurationNanos, Math::max );
+    }
+
+    /**
+     * Get the number of durations recorded
+     * 
+     * @return the number of durations
+     */
+    public long getCount( )
+    {
+        return _lCount.get( );
+    }
+
+    /**
+     * Get the average duration
+     * 
+     * @return the average duration in milliseconds
+     */
+    public long getAverageTime( )
+    {
+        long lCount = _lCount.get( );
+        return ( lCount == 0 ) ? 0L : TimeUnit.NANOSECONDS.toMillis( _lTotalTime.get( ) / lCount );
+    }
+
+    /**
+     * Get the sum of the durations
+     * 
+     * @return the total duration in milliseconds
+     */
+    public long getTotalTime( )
+    {
+        return TimeUnit.NANOSECONDS.toMillis( _lTotalTime.get( ) );
+    }
+
+    /**
+     * Get the longest duration
+     * 
+     * @return the maximum duration in milliseconds
+     */
+    public long getMaxTime( )
+    {
+        return TimeUnit.NANOSECONDS.toMillis( _lMaxTime.get( ) );
+    }
+
+    /**
+     * Get an approximation of a percentile of the durations: the upper bound of the bucket that contains it
+     * 
+     * @param nPercentile
+     *            the percentile, between 1 and 100
+     * @return the percentile in milliseconds, bounded by the maximum duration
+     */
+    public long getPercentileTime( int nPercentile )
+    {
+        long [ ] arrayBucketCount = getBucketCounts( );
+        long lCount = 0;
+        for ( long lBucketCount : arrayBucketCount )
+        {
+            lCount += lBucketCount;
+        }
+        if ( lCount == 0 )
+        {
+            return 0L;
+        }
+        long lRank = ( lCount * nPercentile + 99 ) / 100;
+        long lCumulativeCount = 0;
+        for ( int nBucket = 0; nBucket < BUCKET_BOUNDS.length; nBucket++ )
+        {
+            lCumulativeCount += arrayBucketCount [nBucket];
+            if ( lCumulativeCount >= lRank )
+            {
+                return Math.min( BUCKET_BOUNDS [nBucket], getMaxTime( ) );
+            }
+        }
+        return getMaxTime( );
+    }
+
+    /**
+     * Get the number of durations of each bucket
+     * 
+     * @return the counts, in the order of {@link #getBucketBounds()}, plus the count of the durations above the last bound
+     */
+    public long [ ] getBucketCounts( )
+    {
+        long [ ] arrayBucketCount = new long [ _arrayBucketCount.length( )];
+        for ( int nBucket = 0; nBucket < arrayBucketCount.length; nBucket++ )
+        {
+            arrayBucketCount [nBucket] = _arrayBucketCount.get( nBucket );
+        }
+        return arrayBucketCount;
+    }
+
+    /**
+     * Get the upper bounds of the buckets
+     * 
+     * @return the upper bounds in milliseconds
+     */
+    public static long [ ] getBucketBounds( )
+    {
+        return BUCKET_BOUNDS.clone( );
+    }
+
+    /**
+     * Reset the histogram
+     */
+    public void reset( )
+    {
+        for ( int nBucket = 0; nBucket < _arrayBucketCount.length( ); nBucket++ )
+        {
+            _arrayBucketCount.set( nBucket, 0L );
+        }
+        _lCount.set( 0L );
+        _lTotalTime.set( 0L );
+        _lMaxTime.set( 0L );
+    }
+}
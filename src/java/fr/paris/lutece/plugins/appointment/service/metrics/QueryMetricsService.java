@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Metrics of the SQL statements of the DAOs of the plugin, recorded by {@link fr.paris.lutece.plugins.appointment.business.AppointmentDAOUtil}.
+ * 
+ * The statements are aggregated by their SQL, with the literals and the lists of parameters collapsed, so that the statements built dynamically share
+ * their statistics. The statements slower than a threshold are logged. Their bound parameters are never logged and their literals are redacted.
+ */
+public final class QueryMetricsService
+{
+    private static final String PROPERTY_ENABLED = "appointment.dao.metrics.enabled";
+    private static final String PROPERTY_SLOW_QUERY_THRESHOLD = "appointment.dao.slowQuery.threshold";
+    private static final String PROPERTY_MAX_STATEMENTS = "appointment.dao.metrics.maxStatements";
+    private static final long DEFAULT_SLOW_QUERY_THRESHOLD = 500L;
+    private static final int DEFAULT_MAX_STATEMENTS = 500;
+    // The raw SQL differ by their literals, so more of them than of statements are cached
+    private static final int NORMALIZED_STATEMENTS_PER_STATEMENT = 4;
+
+    /**
+     * The key of the statements recorded once the maximum number of statements is reached
+     */
+    public static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final Pattern PATTERN_STRING_LITERAL = Pattern.compile( "'(?:[^']|'')*'" );
+    private static final Pattern PATTERN_NUMBER_LITERAL = Pattern.compile( "\\b\\d+(?:\\.\\d+)?\\b" );
+    private static final Pattern PATTERN_PARAMETER_LIST = Pattern.compile( "\\?(?:\\s*,\\s*\\?)+" );
+    private static final Pattern PATTERN_WHITESPACES = Pattern.compile( "\\s+" );
+    private static final String PLACEHOLDER = "?";
+    private static final String PLACEHOLDER_LIST = "?, ...";
+    private static final String SPACE = " ";
+
+    private static final boolean ENABLED = AppPropertiesService.getPropertyBoolean( PROPERTY_ENABLED, true );
+    private static final long SLOW_QUERY_THRESHOLD = AppPropertiesService.getPropertyLong( PROPERTY_SLOW_QUERY_THRESHOLD, DEFAULT_SLOW_QUERY_THRESHOLD );
+    private static final int MAX_STATEMENTS = AppPropertiesService.getPropertyInt( PROPERTY_MAX_STATEMENTS, DEFAULT_MAX_STATEMENTS );
+
+    private static final ConcurrentMap<String, StatementStatistics> _mapStatementStatistics = new ConcurrentHashMap<>( );
+    private static final ConcurrentMap<String, String> _mapNormalizedStatement = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor - this class does not need to be instantiated
+     */
+    private QueryMetricsService( )
+    {
+    }
+
+    /**
+     * Record the use of a statement
+     * 
+     * @param strSQL
+     *            the SQL of the statement
+     * @param nExecutionCount
+     *            the number of executions of the statement
+     * @param lTime
+     *            the time spent executing the statement and reading its rows, in nanoseconds
+     * @param lRowCount
+     *            the number of rows read
+     */
+    public static void record( String strSQL, int nExecutionCount, long lTime, long lRowCount )
+    {
+        if ( !ENABLED )
+        {
+            return;
+        }
+        String strStatement = getNormalizedStatement( strSQL );
+        StatementStatistics statistics = _mapStatementStatistics.get( strStatement );
+        if ( statistics == null )
+        {
+            String strKey = ( _mapStatementStatistics.size( ) < MAX_STATEMENTS ) ? strStatement : OTHER_STATEMENTS;
+            statistics = _mapStatementStatistics.computeIfAbsent( strKey, StatementStatistics::new );
+        }
+        statistics.record( nExecutionCount, lTime, lRowCount );
+
+        // The executions of a batch are timed together, the threshold applies to their average
+        long lExecutionTimeMillis = TimeUnit.NANOSECONDS.toMillis( lTime / Math.max( 1, nExecutionCount ) );
+        if ( lExecutionTimeMillis >= SLOW_QUERY_THRESHOLD )
+        {
+            AppLogService.info( "Slow appointment query: " + lExecutionTimeMillis + " ms per execution, " + TimeUnit.NANOSECONDS.toMillis( lTime )
+                    + " ms in total, " + lRowCount + " rows, " + nExecutionCount + " executions: " + strStatement );
+        }
+    }
+
+    /**
+     * Get the normalized SQL of a statement, from the cache when the SQL was already normalized. The cache is bounded, the SQL are normalized again once it
+     * is full.
+     * 
+     * @param strSQL
+     *            the SQL
+     * @return the normalized SQL
+     */
+    private static String getNormalizedStatement( String strSQL )
+    {
+        String strStatement = _mapNormalizedStatement.get( strSQL );
+        if ( strStatement == null )
+        {
+            strStatement = normalize( strSQL );
+            if ( _mapNormalizedStatement.size( ) < MAX_STATEMENTS * NORMALIZED_STATEMENTS_PER_STATEMENT )
+            {
+                _mapNormalizedStatement.put( strSQL, strStatement );
+            }
+        }
+        return strStatement;
+    }
+
+    /**
+     * Normalize the SQL of a statement: the literals are replaced by placeholders, the lists of placeholders are collapsed and the whitespaces are reduced
+     * 
+     * @param strSQL
+     *            the SQL
+     * @return the normalized SQL
+     */
+    public static String normalize( String strSQL )
+    {
+        String strStatement = PATTERN_STRING_LITERAL.matcher( strSQL ).replaceAll( PLACEHOLDER );
+        strStatement = PATTERN_NUMBER_LITERAL.matcher( strStatement ).replaceAll( PLACEHOLDER );
+        strStatement = PATTERN_PARAMETER_LIST.matcher( strStatement ).replaceAll( PLACEHOLDER_LIST );
+        return PATTERN_WHITESPACES.matcher( strStatement ).replaceAll( SPACE ).trim( );
+    }
+
+    /**
+     * Get the statements that took the most time
+     * 
+     * @param nLimit
+     *            the maximum number of statements
+     * @return the statistics of the statements, the longest first
+     */
+    public static List<StatementStatistics> getTopStatements( int nLimit )
+    {
+        return _mapStatementStatistics.values( ).stream( ).sorted( Comparator.comparingLong( StatementStatistics::getTotalTime ).reversed( ) )
+                .limit( nLimit ).collect( Collectors.toList( ) );
+    }
+
+    /**
+     * Reset the metrics of the statements
+     */
+    public static void reset( )
+    {
+        _mapStatementStatistics.clear( );
+        _mapNormalizedStatement.clear( );
+    }
+
+    /**
+     * The statistics of a statement
+     */
+    public static final class StatementStatistics
+    {
+        private final String _strStatement;
+        private final LatencyHistogram _histogram = new LatencyHistogram( );
+        private final AtomicLong _lExecutionCount = new AtomicLong( );
+        private final AtomicLong _lRowCount = new AtomicLong( );
+
+        /**
+         * Constructor
+         * 
+         * @param strStatement
+         *            the normalized SQL of the statement
+         */
+        private StatementStatistics( String strStatement )
+        {
+            _strStatement = strStatement;
+        }
+
+        /**
+         * Record a use of the statement
+         * 
+         * @param nExecutionCount
+         *            the number of executions
+         * @param lTime
+         *            the time in nanoseconds
+         * @param lRowCount
+         *            the number of rows read
+         */
+        private void record( int nExecutionCount, long lTime, long lRowCount )
+        {
+            _histogram.record( lTime );
+            _lExecutionCount.addAndGet( nExecutionCount );
+            _lRowCount.addAndGet( lRowCount );
+        }
+
+        /**
+         * Get the normalized SQL of the statement
+         * 
+         * @return the SQL
+         */
+        public String getStatement( )
+        {
+            return _strStatement;
+        }
+
+        /**
+         * Get the number of executions of the statement
+         * 
+         * @return the number of executions
+         */
+        public long getExecutionCount( )
+        {
+            return _lExecutionCount.get( );
+        }
+
+        /**
+         * Get the number of rows read
+         * 
+         * @return the number of rows
+         */
+        public long getRowCount( )
+        {
+            return _lRowCount.get( );
+        }
+
+        /**
+         * Get the total time spent in the statement
+         * 
+         * @return the total time in milliseconds
+         */
+        public long getTotalTime( )
+        {
+            return _histogram.getTotalTime( );
+        }
+
+        /**
+         * Get the histogram of the times of the uses of the statement
+         * 
+         * @return the histogram
+         */
+        public LatencyHistogram getHistogram( )
+        {
+            return _histogram;
+        }
+    }
+}
@@ -37,8 +37,6 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.TemporalField;
-import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -53,7 +51,9 @@ import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.codec.binary.Base64;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -73,9 +73,11 @@ import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResponseService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentUtilities;
+import fr.paris.lutece.plugins.appointment.service.AvailabilitySearchService;
 import fr.paris.lutece.plugins.appointment.service.EntryService;
 import fr.paris.lutece.plugins.appointment.service.FormMessageService;
 import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.NextAvailabilityService;
 import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
 import fr.paris.lutece.plugins.appointment.service.SlotSafeService;
 import fr.paris.lutece.plugins.appointment.service.SlotService;
@@ -87,6 +89,7 @@ import fr.paris.lutece.plugins.appointment.service.upload.AppointmentAsynchronou
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFilterDTO;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.plugins.appointment.web.file.AppointmentFormIconService;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.GenericAttributeError;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
@@ -100,7 +103,6 @@ import fr.paris.lutece.portal.service.admin.AccessDeniedException;
 import fr.paris.lutece.portal.service.captcha.CaptchaSecurityService;
 import fr.paris.lutece.portal.service.datastore.DatastoreService;
 import fr.paris.lutece.portal.service.i18n.I18nService;
-import fr.paris.lutece.portal.service.image.ImageResource;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.security.LuteceUser;
 import fr.paris.lutece.portal.service.security.SecurityService;
@@ -191,6 +193,14 @@ public class AppointmentApp extends MVCApplication
     private static final String PARAMETER_DAY_OF_WEEK = "dow";
     private static final String PARAMETER_HIDDEN_DAYS = "hidden_days";
     private static final String PARAMETER_ID_FORM = "id_form";
+    private static final String PARAMETER_ID_CATEGORY = "id_category";
+    private static final String PARAMETER_NB_SLOTS = "nb_slots";
+    private static final String JSON_KEY_SLOTS = "slots";
+    private static final String JSON_KEY_STARTING_DATE_TIME = "starting_date_time";
+    private static final String JSON_KEY_ENDING_DATE_TIME = "ending_date_time";
+    private static final String JSON_KEY_NB_PLACES = "nb_places";
+    private static final int DEFAULT_NB_EARLIEST_SLOTS = 10;
+    private static final int MAX_NB_EARLIEST_SLOTS = 50;
     private static final String PARAMETER_EVENTS = "events";
     private static final String PARAMETER_MIN_DURATION = "min_duration";
     private static final String PARAMETER_MIN_TIME = "min_time";
@@ -245,11 +255,6 @@ public class AppointmentApp extends MVCApplication
     private static final String MARK_BACK_URL = "backUrl";
     private static final String MARK_FROM_URL = "fromUrl";
     private static final String MARK_LIST_RESPONSE_RECAP_DTO = "listResponseRecapDTO";
-    private static final String MARK_DATA = "data";
-    private static final String MARK_BASE_64 = "base64";
-    private static final String MARK_SEMI_COLON = ";";
-    private static final String MARK_COMMA = ",";
-    private static final String MARK_COLON = ":";
     private static final String MARK_ICONS = "icons";
     private static final String MARK_ICON_NULL = "NULL";
     private static final String MARK_ANCHOR = "#";
@@ -290,6 +295,7 @@ public class AppointmentApp extends MVCApplication
     private static final String AGENDA_DAY = "agendaDay";
     private static final String BASIC_DAY = "basicDay";
     private static final String STEP_3 = "step3";
+    private static final ObjectMapper _mapper = new ObjectMapper( );
 
     // Local variables
     private transient CaptchaSecurityService _captchaSecurityService;
@@ -374,9 +380,7 @@ public class AppointmentApp extends MVCApplication
         // since today
         // We calculate the number of weeks including the current week, so it
         // will end to the (n) next sunday
-        TemporalField fieldISO = WeekFields.of( locale ).dayOfWeek( );
-        LocalDate dateOfSunday = startingDateOfDisplay.with( fieldISO, DayOfWeek.SUNDAY.getValue( ) );
-        LocalDate endingDateOfDisplay = dateOfSunday.plusWeeks( (long) nNbWeeksToDisplay - 1 );
+        LocalDate endingDateOfDisplay = Utilities.getEndingDateOfDisplay( startingDateOfDisplay, nNbWeeksToDisplay, locale );
         // if the ending date of display is after the ending validity date of
         // the form
         // assign the ending date of display with the ending validity date of
@@ -415,21 +419,44 @@ public class AppointmentApp extends MVCApplication
 
         List<String> listStrBase0OpenDaysOfWeek = new ArrayList<>(
                 WeekDefinitionService.getSetDaysOfWeekOfAListOfWeekDefinitionForFullCalendar( listReservationRules ) );
+        CalendarTemplate calendarTemplate = CalendarTemplateHome.findByPrimaryKey( _appointmentForm.getCalendarTemplateId( ) );
         // Build the slots if no errors
         List<Slot> listSlots = new ArrayList<>( );
         if ( !bError )
         {
+            // Get the min time from now before a user can take an appointment (in hours)
+            int minTimeBeforeAppointment = _appointmentForm.getMinTimeBeforeAppointment( );
+            LocalDateTime dateTimeBeforeAppointment = LocalDateTime.now( ).plusHours( minTimeBeforeAppointment );
+            // The index of the available dates of the form gives the first date with a free place: whatever the number of places to take, no slot can be
+            // taken before it
+            LocalDate firstAvailableDate = NextAvailabilityService.findFirstAvailableDate( nIdForm, dateTimeBeforeAppointment, locale );
+            if ( firstAvailableDate != null && firstAvailableDate.isAfter( endingDateOfDisplay ) )
+            {
+                firstAvailableDate = null;
+            }
+            // The calendars that only show the free slots need no slot before this date
+            boolean bFreeSlotsOnly = isFreeSlotsOnly( calendarTemplate );
+            LocalDate startingDateOfSlots = startingDateOfDisplay;
+            if ( bFreeSlotsOnly && firstAvailableDate != null && firstAvailableDate.isAfter( startingDateOfSlots ) )
+            {
+                startingDateOfSlots = firstAvailableDate;
+            }
             boolean isNewNbPlacesToTake = ( nbPlacesToTake != null && StringUtils.isNumeric( nbPlacesToTake ) );
             if ( _appointmentForm.getIsMultislotAppointment( ) && ( _nNbPlacesToTake != 0 || isNewNbPlacesToTake ) )
             {
                 _nNbPlacesToTake = isNewNbPlacesToTake ? Integer.parseInt( nbPlacesToTake ) : _nNbPlacesToTake;
-                listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay, _nNbPlacesToTake );
-
+                if ( !bFreeSlotsOnly || firstAvailableDate != null )
+                {
+                    listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfSlots, endingDateOfDisplay, _nNbPlacesToTake );
+                }
             }
             else
             {
                 _nNbPlacesToTake = 0;
-                listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfDisplay, endingDateOfDisplay );
+                if ( !bFreeSlotsOnly || firstAvailableDate != null )
+                {
+                    listSlots = SlotService.buildListSlot( nIdForm, mapReservationRule, startingDateOfSlots, endingDateOfDisplay );
+                }
             }
             
             if ( _nNbPlacesToTake > Integer.parseInt( _strNbPlacesToTakeLength ) )
@@ -449,9 +476,6 @@ public class AppointmentApp extends MVCApplication
             	return accessControlPage;
             }
 
-            // Get the min time from now before a user can take an appointment (in hours)
-            int minTimeBeforeAppointment = _appointmentForm.getMinTimeBeforeAppointment( );
-            LocalDateTime dateTimeBeforeAppointment = LocalDateTime.now( ).plusHours( minTimeBeforeAppointment );
             // Filter the list of slots
             if ( CollectionUtils.isNotEmpty( listSlots ) )
             {
@@ -474,17 +498,14 @@ public class AppointmentApp extends MVCApplication
                 model.put( MARK_MODIFICATION_DATE_APPOINTMENT, false );
             }
 
-            LocalDate firstDateOfFreeOpenSlot = null;
-            if ( CollectionUtils.isNotEmpty( listSlots ) )
+            LocalDate firstDateOfFreeOpenSlot = firstAvailableDate;
+            if ( firstAvailableDate != null && ( _nNbPlacesToTake != 0 || _validatedAppointment != null ) )
             {
-                // Need to find the first available slot from now (with time)
-                List<Slot> listAvailableSlots = listSlots.stream( ).filter( s -> ( s.getNbPotentialRemainingPlaces( ) > 0 && s.getIsOpen( ) == Boolean.TRUE ) )
-                        .collect( Collectors.toList( ) );
-                if ( CollectionUtils.isNotEmpty( listAvailableSlots ) )
-                {
-                    firstDateOfFreeOpenSlot = listAvailableSlots.stream( ).min( ( s1, s2 ) -> s1.getStartingDateTime( ).compareTo( s2.getStartingDateTime( ) ) )
-                            .get( ).getDate( );
-                }
+                // Several places are needed: find the first slot that has them, from the first date with a free place
+                LocalDate firstDateToScan = firstAvailableDate;
+                firstDateOfFreeOpenSlot = listSlots.stream( )
+                        .filter( s -> !s.getDate( ).isBefore( firstDateToScan ) && s.getNbPotentialRemainingPlaces( ) > 0 && s.getIsOpen( ) == Boolean.TRUE )
+                        .min( Comparator.comparing( Slot::getStartingDateTime ) ).map( Slot::getDate ).orElse( null );
             }
             if (firstDateOfFreeOpenSlot == null) {
                 if (formMessages != null && StringUtils.isNotEmpty(formMessages.getNoAvailableSlot())) {
@@ -516,7 +537,6 @@ public class AppointmentApp extends MVCApplication
             listInfos.add( message );
         }
 
-        CalendarTemplate calendarTemplate = CalendarTemplateHome.findByPrimaryKey( _appointmentForm.getCalendarTemplateId( ) );
         List<String> listHiddenDays = Stream.of( "0", "1", "2", "3", "4", "5", "6" ).collect( Collectors.toList( ) );
 
         /**
@@ -1419,6 +1439,52 @@ public class AppointmentApp extends MVCApplication
         return xpage;
     }
 
+    /**
+     * Get the earliest available slots of the active forms of a category, in JSON format. It lets the citizen book the first slot of any form of the
+     * category without opening the calendar of each form.
+     * 
+     * @param request
+     *            The request
+     * @return the JSON content, with the category Id and the earliest available slots, sorted by starting date time
+     */
+    public String getEarliestSlots( HttpServletRequest request )
+    {
+        String strIdCategory = request.getParameter( PARAMETER_ID_CATEGORY );
+        if ( !StringUtils.isNumeric( strIdCategory ) )
+        {
+            return StringUtils.EMPTY;
+        }
+        int nIdCategory = Integer.parseInt( strIdCategory );
+        int nNbSlots = DEFAULT_NB_EARLIEST_SLOTS;
+        String strNbSlots = request.getParameter( PARAMETER_NB_SLOTS );
+        if ( StringUtils.isNumeric( strNbSlots ) && strNbSlots.length( ) < 4 )
+        {
+            nNbSlots = Math.min( Integer.parseInt( strNbSlots ), MAX_NB_EARLIEST_SLOTS );
+        }
+        List<Map<String, Object>> listJsonSlot = new ArrayList<>( );
+        for ( Slot slot : AvailabilitySearchService.findEarliestSlotsByCategory( nIdCategory, nNbSlots, getLocale( request ) ) )
+        {
+            Map<String, Object> mapSlot = new LinkedHashMap<>( );
+            mapSlot.put( PARAMETER_ID_FORM, slot.getIdForm( ) );
+            mapSlot.put( JSON_KEY_STARTING_DATE_TIME, slot.getStartingDateTime( ).toString( ) );
+            mapSlot.put( JSON_KEY_ENDING_DATE_TIME, slot.getEndingDateTime( ).toString( ) );
+            mapSlot.put( JSON_KEY_NB_PLACES, slot.getNbPotentialRemainingPlaces( ) );
+            listJsonSlot.add( mapSlot );
+        }
+        Map<String, Object> mapEarliestSlots = new LinkedHashMap<>( );
+        mapEarliestSlots.put( PARAMETER_ID_CATEGORY, nIdCategory );
+        mapEarliestSlots.put( JSON_KEY_SLOTS, listJsonSlot );
+        try
+        {
+            return _mapper.writeValueAsString( mapEarliestSlots );
+        }
+        catch( JsonProcessingException e )
+        {
+            AppLogService.error( "Error while writing the earliest available slots of the category " + nIdCategory, e );
+            return StringUtils.EMPTY;
+        }
+    }
+
     /**
      * Get the HTML content of the my appointment page of a user
      * 
@@ -1490,20 +1556,9 @@ public class AppointmentApp extends MVCApplication
         List<String> icons = new ArrayList<>( );
         for ( AppointmentFormDTO form : listAppointmentForm )
         {
-            ImageResource img = form.getIcon( );
-            if ( img == null || img.getImage( ) == null || StringUtils.isEmpty( img.getMimeType( ) )
-                    || StringUtils.equals( img.getMimeType( ), MARK_ICON_NULL ) )
-            {
-                icons.add( MARK_ICON_NULL );
-            }
-            else
-            {
-                byte [ ] imgBytesAsBase64 = Base64.encodeBase64( img.getImage( ) );
-                String imgDataAsBase64 = new String( imgBytesAsBase64 );
-                String strMimeType = img.getMimeType( );
-                String imgAsBase64 = MARK_DATA + MARK_COLON + strMimeType + MARK_SEMI_COLON + MARK_BASE_64 + MARK_COMMA + imgDataAsBase64;
-                icons.add( imgAsBase64 );
-            }
+            // The icons are served by their own URL, that the browsers can cache
+            String strIconUrl = AppointmentFormIconService.getInstance( ).getIconUrl( form.getIdForm( ) );
+            icons.add( ( strIconUrl == null ) ? MARK_ICON_NULL : strIconUrl );
         }
         model.put( MARK_ICONS, icons );
         model.put( MARK_FORM_LIST, listAppointmentForm );
@@ -1657,6 +1712,19 @@ public class AppointmentApp extends MVCApplication
         return getMyAppointments( request );
     }
     
+    /**
+     * Check if a calendar template only shows the free slots
+     * 
+     * @param calendarTemplate
+     *            the calendar template
+     * @return true if the slots without free places are not displayed
+     */
+    private static boolean isFreeSlotsOnly( CalendarTemplate calendarTemplate )
+    {
+        return CalendarTemplate.FREE_SLOTS.equals( calendarTemplate.getTitle( ) )
+                || CalendarTemplate.FREE_SLOTS_ON_OPEN_DAYS.equals( calendarTemplate.getTitle( ) );
+    }
+
     /**
      * Get the captcha security service
      * 
@@ -1829,8 +1897,7 @@ public class AppointmentApp extends MVCApplication
         }
         // Calculate the ending date of display with the nb weeks to display since today
         // We calculate the number of weeks including the current week, so it and will end to the (n) next sunday
-        LocalDate endingDateOfDisplay = startingDateOfDisplay.toLocalDate( ).with( WeekFields.of( locale ).dayOfWeek( ), DayOfWeek.SUNDAY.getValue( ) )
-                .plusWeeks( (long) _appointmentForm.getNbWeeksToDisplay( ) - 1 );
+        LocalDate endingDateOfDisplay = Utilities.getEndingDateOfDisplay( startingDateOfDisplay.toLocalDate( ), _appointmentForm.getNbWeeksToDisplay( ), locale );
         return !( date.toLocalDate( ).isAfter( endingDateOfDisplay ) || date.isBefore( startingDateOfDisplay ) );
 
     }
@@ -47,6 +47,7 @@ import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
 import fr.paris.lutece.plugins.appointment.service.EntryService;
 import fr.paris.lutece.plugins.appointment.service.EntryTypeService;
 import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.entrytype.EntryTypeSelectSQL;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
@@ -279,6 +280,7 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
                     FieldHome.create( field );
                 }
             }
+            EntryService.resetHtmlEntries( nIdForm );
             if ( request.getParameter( PARAMETER_APPLY ) != null )
             {
                 return redirect( request, VIEW_GET_MODIFY_ENTRY, PARAMETER_ID_ENTRY, entry.getIdEntry( ) );
@@ -385,6 +387,8 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
                         }
                     }
                 }
+                EntryTypeSelectSQL.resetSqlQueryFields( nIdEntry );
+                EntryService.resetHtmlEntries( entry.getIdResource( ) );
             }
             if ( request.getParameter( PARAMETER_APPLY ) != null )
             {
@@ -474,6 +478,8 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
                 EntryHome.decrementOrderByOne( entry.getPosition( ), entry.getFieldDepend( ).getIdField( ), entry.getIdResource( ), entry.getResourceType( ) );
             }
             EntryHome.remove( nIdEntry );
+            EntryTypeSelectSQL.resetSqlQueryFields( nIdEntry );
+            EntryService.resetHtmlEntries( entry.getIdResource( ) );
             if ( entry.getFieldDepend( ) != null )
             {
                 return redirect( request, AppointmentFormFieldJspBean.getUrlModifyField( request, entry.getFieldDepend( ).getIdField( ) ) );
@@ -536,6 +542,7 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
                     EntryHome.update( entryToMove );
                     entry.setPosition( nNewPosition );
                     EntryHome.update( entry );
+                    EntryService.resetHtmlEntries( entry.getIdResource( ) );
                 }
             }
             return redirect( request, AppointmentFormFieldJspBean.getUrlModifyField( request, entry.getFieldDepend( ).getIdField( ) ) );
@@ -582,6 +589,7 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
                 Entry entryParent = EntryHome.findByPrimaryKey( entry.getParent( ).getIdEntry( ) );
                 _entryService.moveUpEntryOrder( entryParent.getPosition( ) + entryParent.getChildren( ).size( ), entry );
             }
+            EntryService.resetHtmlEntries( entry.getIdResource( ) );
             if ( entry.getFieldDepend( ) != null )
             {
                 return redirect( request, AppointmentFormFieldJspBean.getUrlModifyField( request, entry.getFieldDepend( ).getIdField( ) ) );
@@ -648,6 +656,7 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
                 }
             }
         }
+        EntryService.resetHtmlEntries( nIdForm );
         return redirect( request, getURLModifyAppointmentForm( request, nIdForm ) );
     }
 
@@ -669,6 +678,7 @@ public class AppointmentFormEntryJspBean extends MVCAdminJspBean
             if ( entry.getParent( ) != null )
             {
                 _entryService.moveOutEntryFromGroup( entry );
+                EntryService.resetHtmlEntries( entry.getIdResource( ) );
             }
             return redirect( request, getURLModifyAppointmentForm( request, entry.getIdResource( ) ) );
         }
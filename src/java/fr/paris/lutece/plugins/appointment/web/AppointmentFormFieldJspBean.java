@@ -41,6 +41,7 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
 
+import fr.paris.lutece.plugins.appointment.service.EntryService;
 import fr.paris.lutece.plugins.appointment.service.EntryTypeService;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
@@ -239,6 +240,7 @@ public class AppointmentFormFieldJspBean extends MVCAdminJspBean
             }
 
             FieldHome.create( field );
+            resetHtmlEntries( nIdEntry );
         }
 
         return redirect( request, AppointmentFormEntryJspBean.getURLModifyEntry( request, nIdEntry ) );
@@ -305,6 +307,7 @@ public class AppointmentFormFieldJspBean extends MVCAdminJspBean
             }
 
             FieldHome.update( field );
+            resetHtmlEntries( field.getParentEntry( ).getIdEntry( ) );
         }
 
         if ( request.getParameter( PARAMETER_APPLY ) == null )
@@ -366,6 +369,7 @@ public class AppointmentFormFieldJspBean extends MVCAdminJspBean
             if ( field != null )
             {
                 FieldHome.remove( nIdField );
+                resetHtmlEntries( field.getParentEntry( ).getIdEntry( ) );
 
                 return redirect( request, AppointmentFormEntryJspBean.getURLModifyEntry( request, field.getParentEntry( ).getIdEntry( ) ) );
             }
@@ -435,6 +439,7 @@ public class AppointmentFormFieldJspBean extends MVCAdminJspBean
         field.setPosition( nNewPosition );
         FieldHome.update( field );
         FieldHome.update( fieldToInversePosition );
+        resetHtmlEntries( field.getParentEntry( ).getIdEntry( ) );
 
         return redirect( request, AppointmentFormEntryJspBean.getURLModifyEntry( request, field.getParentEntry( ).getIdEntry( ) ) );
     }
@@ -494,6 +499,21 @@ public class AppointmentFormFieldJspBean extends MVCAdminJspBean
         return null; // No error
     }
 
+    /**
+     * Remove the html kept for the entries of the form of an entry
+     * 
+     * @param nIdEntry
+     *            the id of the entry whose fields changed
+     */
+    private static void resetHtmlEntries( int nIdEntry )
+    {
+        Entry entry = EntryHome.findByPrimaryKey( nIdEntry );
+        if ( entry != null )
+        {
+            EntryService.resetHtmlEntries( entry.getIdResource( ) );
+        }
+    }
+
     /**
      * Return the index in the list of the field whose key is specified in parameter
      * 
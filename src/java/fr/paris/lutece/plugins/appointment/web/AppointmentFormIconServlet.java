@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import fr.paris.lutece.plugins.appointment.web.file.AppointmentFormIconService;
+import fr.paris.lutece.plugins.appointment.web.file.AppointmentFormIconService.FormIcon;
+
+/**
+ * Servlet that returns the icon of a form.
+ * 
+ * The URL of the icon contains the hash of its content (see {@link AppointmentFormIconService#getIconUrl(int)}): when the hash matches, the icon is
+ * returned with a long max-age, otherwise the browser has to revalidate it with its strong ETag.
+ */
+public class AppointmentFormIconServlet extends HttpServlet
+{
+    private static final long serialVersionUID = 5870286473527153468L;
+
+    // Parameters
+    private static final String PARAMETER_ID_FORM = "id_form";
+    private static final String PARAMETER_VERSION = "v";
+
+    // Headers
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String CACHE_CONTROL_IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CACHE_CONTROL_NO_CACHE = "public, no-cache";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+    {
+        int nIdForm;
+        try
+        {
+            nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
+        }
+        catch( NumberFormatException e )
+        {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        FormIcon formIcon = AppointmentFormIconService.getInstance( ).getFormIcon( nIdForm );
+        if ( formIcon == null )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        String strETag = "\"" + formIcon.getHash( ) + "\"";
+        response.setHeader( HEADER_ETAG, strETag );
+        // An URL with an old hash must not keep the new icon for a year
+        response.setHeader( HEADER_CACHE_CONTROL,
+                formIcon.getHash( ).equals( request.getParameter( PARAMETER_VERSION ) ) ? CACHE_CONTROL_IMMUTABLE : CACHE_CONTROL_NO_CACHE );
+        if ( strETag.equals( request.getHeader( HEADER_IF_NONE_MATCH ) ) )
+        {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return;
+        }
+        response.setContentType( formIcon.getMimeType( ) );
+        response.setContentLength( formIcon.getImage( ).length );
+        response.getOutputStream( ).write( formIcon.getImage( ) );
+    }
+}
@@ -153,6 +153,7 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
     private static final String VALIDATION_ATTRIBUTES_PREFIX = "appointment.model.entity.appointmentform.attribute.";
 
     private static final String PROPERTY_COPY_OF_FORM = "appointment.manageAppointmentForms.Copy";
+    private static final String PROPERTY_COPY_FORM_ASYNC = "appointment.form.copy.async";
     private static final String MESSAGE_ERROR_EMPTY_FILE = "appointment.message.error.closingDayErrorImport";
     private static final String MESSAGE_ERROR_OPEN_SLOTS = "appointment.message.error.openSlots";
     private static final String MESSAGE_INFO_IMPORTED_CLOSING_DAYS = "appointment.info.appointmentform.closingDayImport";
@@ -180,6 +181,7 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
     private static final String INFO_APPOINTMENTFORM_UPDATED = "appointment.info.appointmentform.updated";
     private static final String INFO_APPOINTMENTFORM_REMOVED = "appointment.info.appointmentform.removed";
     private static final String INFO_APPOINTMENTFORM_MESSAGES_MODIFIED = "appointment.info.appointmentFormMessages.updated";
+    private static final String INFO_APPOINTMENTFORM_COPY_IN_PROGRESS = "appointment.info.appointmentform.copyInProgress";
     private static final String ERROR_APPOINTMENTFORM_ENDING_VALIDITY_DATE_BEFORE_NOW = "appointment.error.appointmentform.endingValidityDateBeforeNow";
 
     private static final String DEFAULT_CURRENT_PAGE = "1";
@@ -584,8 +586,19 @@ public class AppointmentFormJspBean extends AbstractAppointmentFormAndSlotJspBea
         if ( formToCopy != null )
         {
             String newNameForCopy = I18nService.getLocalizedString( PROPERTY_COPY_OF_FORM, request.getLocale( ) ) + formToCopy.getTitle( );
-            int nIdCopyForm = FormService.copyForm( nIdForm, newNameForCopy );
-            AppLogService.info( LogUtilities.buildLog( ACTION_DO_COPY_FORM, String.valueOf( nIdCopyForm ), getUser( ) ) );
+            if ( AppPropertiesService.getPropertyBoolean( PROPERTY_COPY_FORM_ASYNC, false ) )
+            {
+                // The copy of a large planning can take a while: it is done in background and the copy appears in the list once it is over
+                AdminUser user = getUser( );
+                FormService.copyFormInBackground( nIdForm, newNameForCopy,
+                        nIdCopyForm -> AppLogService.info( LogUtilities.buildLog( ACTION_DO_COPY_FORM, String.valueOf( nIdCopyForm ), user ) ) );
+                addInfo( INFO_APPOINTMENTFORM_COPY_IN_PROGRESS, getLocale( ) );
+            }
+            else
+            {
+                int nIdCopyForm = FormService.copyForm( nIdForm, newNameForCopy );
+                AppLogService.info( LogUtilities.buildLog( ACTION_DO_COPY_FORM, String.valueOf( nIdCopyForm ), getUser( ) ) );
+            }
         }
         return getManageAppointmentForms( request );
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import fr.paris.lutece.plugins.appointment.service.AppointmentExecutorService;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService.FailureCause;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService.Stage;
+import fr.paris.lutece.portal.business.user.AdminUser;
+import fr.paris.lutece.portal.service.admin.AdminUserService;
+import fr.paris.lutece.portal.service.dashboard.DashboardComponent;
+import fr.paris.lutece.portal.service.template.AppTemplateService;
+import fr.paris.lutece.util.html.HtmlTemplate;
+
+/**
+ * Dashboard component of the metrics of the booking pipeline
+ */
+public class BookingMetricsDashboardComponent extends DashboardComponent
+{
+    private static final int MOST_CONTENDED_STRIPES = 10;
+
+    // MARKS
+    private static final String MARK_STAGES = "stages";
+    private static final String MARK_FAILURES = "failures";
+    private static final String MARK_ACTIVE_HOLDS = "active_holds";
+    private static final String MARK_STRIPES = "stripes";
+    private static final String MARK_LOCK_ACQUISITIONS = "lock_acquisitions";
+    private static final String MARK_LOCK_TIMEOUTS = "lock_timeouts";
+    private static final String MARK_ADMIN_LOCK_TIMEOUTS = "admin_lock_timeouts";
+    private static final String MARK_EXECUTOR = "executor";
+
+    // TEMPLATES
+    private static final String TEMPLATE_DASHBOARD = "/admin/plugins/appointment/booking_metrics_dashboard.html";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDashboardData( AdminUser user, HttpServletRequest request )
+    {
+        Map<String, Object> model = new HashMap<>( );
+        model.put( MARK_STAGES, BookingMetricsService.getStageHistograms( ) );
+        model.put( MARK_FAILURES, BookingMetricsService.getFailureCounts( ) );
+        model.put( MARK_ACTIVE_HOLDS, BookingMetricsService.getActiveHoldCount( ) );
+        model.put( MARK_STRIPES, BookingMetricsService.getMostContendedStripes( MOST_CONTENDED_STRIPES ) );
+        model.put( MARK_LOCK_ACQUISITIONS, BookingMetricsService.getStageHistogram( Stage.SLOT_LOCK ).getCount( ) );
+        model.put( MARK_LOCK_TIMEOUTS, BookingMetricsService.getFailureCount( FailureCause.LOCKED ) );
+        model.put( MARK_ADMIN_LOCK_TIMEOUTS, BookingMetricsService.getAdminSlotLockTimeoutCount( ) );
+        model.put( MARK_EXECUTOR, AppointmentExecutorService.INSTANCE );
+        HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_DASHBOARD, AdminUserService.getLocale( request ), model );
+        return template.getHtml( );
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.business.rule.FormRule;
+import fr.paris.lutece.plugins.appointment.service.FormRuleService;
+import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.NextAvailabilityService;
+import fr.paris.lutece.portal.web.l10n.LocaleService;
+
+/**
+ * Servlet that returns the first date with an available slot of a form, in JSON format, from the index of the {@link NextAvailabilityService}. It lets the
+ * calendar jump straight to the first open week. The date is null if the form is not active or has no available slot on the weeks it displays.
+ */
+public class NextAvailabilityServlet extends HttpServlet
+{
+    private static final long serialVersionUID = 4125877094562180813L;
+
+    // Parameters
+    private static final String PARAMETER_ID_FORM = "id_form";
+
+    // JSON keys
+    private static final String JSON_KEY_ID_FORM = "id_form";
+    private static final String JSON_KEY_FIRST_AVAILABLE_DATE = "first_available_date";
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String CHARACTER_ENCODING_UTF8 = "UTF-8";
+
+    private static final ObjectMapper _mapper = new ObjectMapper( );
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+    {
+        int nIdForm;
+        try
+        {
+            nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
+        }
+        catch( NumberFormatException e )
+        {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+        if ( form == null )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        LocalDate firstAvailableDate = null;
+        if ( form.getIsActive( ) )
+        {
+            FormRule formRule = FormRuleService.findFormRuleWithFormId( nIdForm );
+            int nMinTimeBeforeAppointment = ( formRule != null ) ? formRule.getMinTimeBeforeAppointment( ) : 0;
+            firstAvailableDate = NextAvailabilityService.findFirstAvailableDate( nIdForm, LocalDateTime.now( ).plusHours( nMinTimeBeforeAppointment ),
+                    LocaleService.getContextUserLocale( request ) );
+        }
+        Map<String, Object> mapAvailability = new LinkedHashMap<>( );
+        mapAvailability.put( JSON_KEY_ID_FORM, nIdForm );
+        mapAvailability.put( JSON_KEY_FIRST_AVAILABLE_DATE, ( firstAvailableDate != null ) ? firstAvailableDate.toString( ) : null );
+
+        response.setContentType( CONTENT_TYPE_JSON );
+        response.setCharacterEncoding( CHARACTER_ENCODING_UTF8 );
+        _mapper.writeValue( response.getOutputStream( ), mapAvailability );
+    }
+}
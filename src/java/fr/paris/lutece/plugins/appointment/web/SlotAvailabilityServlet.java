@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
+import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.service.AvailabilityVersionService;
+import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
+import fr.paris.lutece.plugins.appointment.service.SlotService;
+import fr.paris.lutece.plugins.appointment.service.Utilities;
+import fr.paris.lutece.plugins.appointment.service.WeekDefinitionService;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.web.l10n.LocaleService;
+
+/**
+ * Servlet that returns the slots of a form on a date range, in a compact JSON format: each slot is an array [starting date time, ending time, number of
+ * available places, open (1) or closed (0), number of remaining places]. The range is limited to the weeks displayed by the calendar of the form, in the
+ * locale of the user.
+ * 
+ * The response has an ETag built from the availability version of the form (see {@link AvailabilityVersionService}) and the dates of the range, so the
+ * clients that poll the availability of a form get a 304 response while nothing has changed. The response must then only depend on them: the slots that
+ * start before the minimum time before an appointment are not filtered out (the calendar only updates the slots it displays, and the booking checks this
+ * time).
+ * 
+ * The versions are kept by each webapp: on a cluster, where a change made on a node is not seen by the versions of the others, the ETag must be disabled
+ * with the property appointment.availability.etag.enabled, otherwise a node could answer 304 for slots changed on another node.
+ */
+public class SlotAvailabilityServlet extends HttpServlet
+{
+    private static final long serialVersionUID = -3318745061920364217L;
+
+    // Parameters
+    private static final String PARAMETER_ID_FORM = "id_form";
+    private static final String PARAMETER_STARTING_DATE = "starting_date";
+    private static final String PARAMETER_ENDING_DATE = "ending_date";
+
+    // Headers
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String CACHE_CONTROL_NO_CACHE = "no-cache";
+
+    // JSON keys
+    private static final String JSON_KEY_ID_FORM = "id_form";
+    private static final String JSON_KEY_VERSION = "version";
+    private static final String JSON_KEY_SLOTS = "slots";
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String CHARACTER_ENCODING_UTF8 = "UTF-8";
+
+    // Properties
+    private static final String PROPERTY_ETAG_ENABLED = "appointment.availability.etag.enabled";
+    private static final boolean ETAG_ENABLED = AppPropertiesService.getPropertyBoolean( PROPERTY_ETAG_ENABLED, true );
+
+    private static final ObjectMapper _mapper = new ObjectMapper( );
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+    {
+        int nIdForm;
+        try
+        {
+            nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
+        }
+        catch( NumberFormatException e )
+        {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        if ( FormService.findFormLightByPrimaryKey( nIdForm ) == null )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        AppointmentFormDTO appointmentForm = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+        if ( !appointmentForm.getIsActive( ) || appointmentForm.getDateStartValidity( ) == null )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        LocalDate startingDate;
+        LocalDate endingDate;
+        try
+        {
+            startingDate = getStartingDate( request, appointmentForm );
+            endingDate = getEndingDate( request, appointmentForm );
+        }
+        catch( DateTimeParseException e )
+        {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        // Read the version before building the slots: a change made meanwhile will be sent at the next request
+        long lVersion = AvailabilityVersionService.getVersion( nIdForm );
+        response.setHeader( HEADER_CACHE_CONTROL, CACHE_CONTROL_NO_CACHE );
+        if ( ETAG_ENABLED )
+        {
+            String strETag = "\"" + nIdForm + "-" + lVersion + "-" + startingDate + "-" + endingDate + "\"";
+            response.setHeader( HEADER_ETAG, strETag );
+            if ( strETag.equals( request.getHeader( HEADER_IF_NONE_MATCH ) ) )
+            {
+                response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                return;
+            }
+        }
+
+        List<Object [ ]> listCompactSlot = new ArrayList<>( );
+        if ( !startingDate.isAfter( endingDate ) )
+        {
+            List<WeekDefinition> listWeekDefinition = WeekDefinitionService.findWeekDefinitionByDateOfApply( nIdForm, startingDate, endingDate );
+            Map<WeekDefinition, ReservationRule> mapReservationRule = ReservationRuleService.findAllReservationRule( nIdForm, listWeekDefinition );
+            for ( Slot slot : SlotService.buildListSlot( nIdForm, mapReservationRule, startingDate, endingDate ) )
+            {
+                listCompactSlot.add( new Object [ ] {
+                        slot.getStartingDateTime( ).toString( ), slot.getEndingTime( ).toString( ), Math.max( 0, slot.getNbPotentialRemainingPlaces( ) ),
+                        slot.getIsOpen( ) ? 1 : 0, Math.max( 0, slot.getNbRemainingPlaces( ) )
+                } );
+            }
+        }
+        Map<String, Object> mapAvailability = new LinkedHashMap<>( );
+        mapAvailability.put( JSON_KEY_ID_FORM, nIdForm );
+        mapAvailability.put( JSON_KEY_VERSION, lVersion );
+        mapAvailability.put( JSON_KEY_SLOTS, listCompactSlot );
+
+        response.setContentType( CONTENT_TYPE_JSON );
+        response.setCharacterEncoding( CHARACTER_ENCODING_UTF8 );
+        _mapper.writeValue( response.getOutputStream( ), mapAvailability );
+    }
+
+    /**
+     * Get the starting date of the range, not before today nor before the starting validity date of the form
+     * 
+     * @param request
+     *            the request
+     * @param appointmentForm
+     *            the form
+     * @return the starting date
+     */
+    private static LocalDate getStartingDate( HttpServletRequest request, AppointmentFormDTO appointmentForm )
+    {
+        LocalDate startingDate = LocalDate.now( );
+        LocalDate startingValidityDate = appointmentForm.getDateStartValidity( ).toLocalDate( );
+        if ( startingValidityDate.isAfter( startingDate ) )
+        {
+            startingDate = startingValidityDate;
+        }
+        String strStartingDate = request.getParameter( PARAMETER_STARTING_DATE );
+        if ( StringUtils.isNotEmpty( strStartingDate ) )
+        {
+            LocalDate requestedStartingDate = LocalDate.parse( strStartingDate );
+            if ( requestedStartingDate.isAfter( startingDate ) )
+            {
+                startingDate = requestedStartingDate;
+            }
+        }
+        return startingDate;
+    }
+
+    /**
+     * Get the ending date of the range, not after the weeks displayed by the form in the locale of the user nor after its ending validity date
+     * 
+     * @param request
+     *            the request
+     * @param appointmentForm
+     *            the form
+     * @return the ending date
+     */
+    private static LocalDate getEndingDate( HttpServletRequest request, AppointmentFormDTO appointmentForm )
+    {
+        LocalDate startingDateOfDisplay = LocalDate.now( );
+        if ( appointmentForm.getDateStartValidity( ).toLocalDate( ).isAfter( startingDateOfDisplay ) )
+        {
+            startingDateOfDisplay = appointmentForm.getDateStartValidity( ).toLocalDate( );
+        }
+        LocalDate endingDate = Utilities.getEndingDateOfDisplay( startingDateOfDisplay, appointmentForm.getNbWeeksToDisplay( ),
+                LocaleService.getContextUserLocale( request ) );
+        if ( appointmentForm.getDateEndValidity( ) != null && endingDate.isAfter( appointmentForm.getDateEndValidity( ).toLocalDate( ) ) )
+        {
+            endingDate = appointmentForm.getDateEndValidity( ).toLocalDate( );
+        }
+        String strEndingDate = request.getParameter( PARAMETER_ENDING_DATE );
+        if ( StringUtils.isNotEmpty( strEndingDate ) )
+        {
+            LocalDate requestedEndingDate = LocalDate.parse( strEndingDate );
+            if ( requestedEndingDate.isBefore( endingDate ) )
+            {
+                endingDate = requestedEndingDate;
+            }
+        }
+        return endingDate;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.web;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import fr.paris.lutece.plugins.appointment.business.form.Form;
+import fr.paris.lutece.plugins.appointment.service.FormService;
+import fr.paris.lutece.plugins.appointment.service.SlotPushService;
+
+/**
+ * Servlet that opens a Server-Sent Events connection on which the changes of the slots of a form are pushed (see {@link SlotPushService}).
+ * 
+ * When the connection can not be kept open (no asynchronous mode, too many connections), the response is not an event stream: the browser does not reconnect
+ * and the calendar polls the availability of the form instead.
+ */
+public class SlotPushServlet extends HttpServlet
+{
+    private static final long serialVersionUID = 4385921276431903117L;
+
+    // Parameters
+    private static final String PARAMETER_ID_FORM = "id_form";
+
+    // Headers
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String CACHE_CONTROL_NO_CACHE = "no-cache";
+
+    private static final String CONTENT_TYPE_EVENT_STREAM = "text/event-stream";
+    private static final String CHARACTER_ENCODING_UTF8 = "UTF-8";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException
+    {
+        int nIdForm;
+        try
+        {
+            nIdForm = Integer.parseInt( request.getParameter( PARAMETER_ID_FORM ) );
+        }
+        catch( NumberFormatException e )
+        {
+            response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+            return;
+        }
+        Form form = FormService.findFormLightByPrimaryKey( nIdForm );
+        if ( form == null || !form.getIsActive( ) )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+        if ( !request.isAsyncSupported( ) )
+        {
+            // The connection would hold a thread of the container: a 204 response tells the browser not to reconnect
+            response.setStatus( HttpServletResponse.SC_NO_CONTENT );
+            return;
+        }
+        response.setContentType( CONTENT_TYPE_EVENT_STREAM );
+        response.setCharacterEncoding( CHARACTER_ENCODING_UTF8 );
+        response.setHeader( HEADER_CACHE_CONTROL, CACHE_CONTROL_NO_CACHE );
+        if ( !SlotPushService.subscribe( nIdForm, request ) )
+        {
+            response.reset( );
+            response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+        }
+    }
+}
@@ -40,8 +40,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
@@ -60,12 +62,12 @@ import fr.paris.lutece.plugins.appointment.business.appointment.Appointment;
 import fr.paris.lutece.plugins.appointment.business.display.Display;
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.planning.ClosingDay;
-import fr.paris.lutece.plugins.appointment.business.planning.ClosingDayHome;
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.slot.Period;
 import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.exception.SlotFullException;
 import fr.paris.lutece.plugins.appointment.log.LogUtilities;
 import fr.paris.lutece.plugins.appointment.service.AppointmentResourceIdService;
 import fr.paris.lutece.plugins.appointment.service.AppointmentService;
@@ -114,6 +116,7 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
     private static final String MESSAGE_ERROR_TIME_END_BEFORE_TIME_START = "appointment.modifyCalendarSlots.errorTimeEndBeforeTimeStart";
     private static final String MESSAGE_SLOT_CAN_NOT_END_AFTER_DAY_OR_FORM = "appointment.message.error.slotCanNotEndAfterDayOrForm";
     private static final String MESSAGE_ERROR_APPOINTMENT_ON_SLOT = "appointment.message.error.appointmentOnSlot";
+    private static final String MESSAGE_ERROR_SLOTS_BUSY = "appointment.message.error.slotsBusy";
     private static final String MESSAGE_INFO_SLOT_UPDATED = "appointment.modifyCalendarSlots.messageSlotUpdated";
     private static final String MESSAGE_INFO_VALIDATED_APPOINTMENTS_IMPACTED = "appointment.modifyCalendarSlots.messageValidatedAppointmentsImpacted";
     private static final String MESSAGE_INFO_SURBOOKING = "appointment.modifyCalendarSlots.messageSurbooking";
@@ -459,13 +462,16 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
             listSlot = mapper.readValue( strJson, new TypeReference<List<Slot>>( )
             {
             } );
+            // The slots already in database are loaded in one query
+            Map<Integer, Slot> mapSlotInDb = SlotService
+                    .findListSlot( listSlot.stream( ).map( Slot::getIdSlot ).filter( nIdSlot -> nIdSlot != 0 ).distinct( ).collect( Collectors.toList( ) ) )
+                    .stream( ).collect( Collectors.toMap( Slot::getIdSlot, slot -> slot ) );
             for ( Slot slt : listSlot )
             {
-
-                if ( slt.getIdSlot( ) != 0 )
+                Slot slot = mapSlotInDb.get( slt.getIdSlot( ) );
+                if ( slot != null )
                 {
 
-                    Slot slot = SlotService.findSlotById( slt.getIdSlot( ) );
                     slt.setNbPlacestaken( slot.getNbPlacesTaken( ) );
                     slt.setNbRemainingPlaces( slot.getNbRemainingPlaces( ) );
                     slt.setNbPotentialRemainingPlaces( slot.getNbPotentialRemainingPlaces( ) );
@@ -600,76 +606,67 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         int nNewMaxCapacity = 0;
         boolean bOpeningHasChanged = false;
         boolean appointmentsImpacted = false;
-        boolean bEndingTimeHasChanged = false;
         boolean bNoApptImpacted = true;
-        LocalDate dateSlot = null;
+        boolean bSlotsBusy = false;
+        Set<LocalDate> setDateSlot = new HashSet<>( );
         StringBuilder sbAlert = new StringBuilder( );
+        List<Slot> listSlotSaved = new ArrayList<>( );
+        // The slots whose ending time doesn't change are saved together
+        List<Slot> listSlotToSave = new ArrayList<>( );
 
         for ( Slot slot : listSlot )
         {
+            if ( bStateHasChanged && bIsOpen != slot.getIsOpen( ) )
+            {
+                slot.setIsOpen( bIsOpen );
+                bOpeningHasChanged = true;
+            }
+            if ( setDateSlot.add( slot.getDate( ) ) )
+            {
+                // If we edit the slot, we need to check if this slot is not a closing day
+                // If the slot is a closing day, we need to remove it from the table
+                // closing day so that the slot is not in conflict with the
+                // definition of the closing days
+                ClosingDayService.removeClosingDay( slot.getIdForm( ), slot.getDate( ) );
+            }
+            if ( nVarMaxCapacity != 0 || ( nMaxCapacity >= 0 && nMaxCapacity != slot.getMaxCapacity( ) ) )
+            {
+                nNewMaxCapacity = ( nVarMaxCapacity != 0 ) ? ( slot.getMaxCapacity( ) + nVarMaxCapacity ) : nMaxCapacity;
+                if ( nNewMaxCapacity < 0 )
+                {
+                    nNewMaxCapacity = 0;
+                }
+                slot.setMaxCapacity( nNewMaxCapacity );
+                // Need to set also the nb remaining places and the nb potential
+                // remaining places
+                // If the slot already exist, the good values will be set at the
+                // update of the slot with taking the old values
+                // If it is a new slot, the value set here will be good
+                slot.setNbRemainingPlaces( nNewMaxCapacity );
+                slot.setNbPotentialRemainingPlaces( nNewMaxCapacity );
+            }
+            LocalTime previousEndingTime = slot.getEndingTime( );
+            if ( endingTime == null || endingTime.equals( previousEndingTime ) )
+            {
+                listSlotToSave.add( slot );
+                continue;
+            }
+            // The ending time has changed, the next slots may be impacted
             Lock lock = SlotSafeService.getLockOnSlot( slot.getIdSlot( ) );
             lock.lock( );
             try
             {
-                if ( bStateHasChanged && bIsOpen != slot.getIsOpen( ) )
-                {
-                    slot.setIsOpen( bIsOpen );
-                    bOpeningHasChanged = true;
-                }
-                if ( dateSlot == null || !dateSlot.isEqual( slot.getDate( ) ) )
-                {
-                    dateSlot = slot.getDate( );
-                    // If we edit the slot, we need to check if this slot is not a closing day
-                    // If the slot is a closing day, we need to remove it from the table
-                    // closing day so that the slot is not in conflict with the
-                    // definition of the closing days
-                    ClosingDayHome.deleteByIdFormAndDateOfClosingDay( slot.getIdForm( ), dateSlot );
-                }
-                if ( nVarMaxCapacity != 0 || ( nMaxCapacity >= 0 && nMaxCapacity != slot.getMaxCapacity( ) ) )
-                {
-                    nNewMaxCapacity = ( nVarMaxCapacity != 0 ) ? ( slot.getMaxCapacity( ) + nVarMaxCapacity ) : nMaxCapacity;
-                    if ( nNewMaxCapacity < 0 )
-                    {
-                        nNewMaxCapacity = 0;
-                    }
-                    slot.setMaxCapacity( nNewMaxCapacity );
-                    // Need to set also the nb remaining places and the nb potential
-                    // remaining places
-                    // If the slot already exist, the good values will be set at the
-                    // update of the slot with taking the old values
-                    // If it is a new slot, the value set here will be good
-                    slot.setNbRemainingPlaces( nNewMaxCapacity );
-                    slot.setNbPotentialRemainingPlaces( nNewMaxCapacity );
-                }
-                LocalTime previousEndingTime = slot.getEndingTime( );
-                if ( endingTime != null && !endingTime.equals( previousEndingTime ) )
-                {
-                    bNoApptImpacted = checkNoAppointmentsOnThisSlotOrOnTheSlotsImpacted( slot, bShiftSlot );
-                    slot.setEndingTime( endingTime );
-                    slot.setEndingDateTime( slot.getDate( ).atTime( endingTime ) );
-                    bEndingTimeHasChanged = true;
-                }
-                if ( ( bEndingTimeHasChanged && !bNoApptImpacted ) || ( bEndingTimeHasChanged && !checkEndingTimeOfSlot( endingTime, slot ) ) )
+                bNoApptImpacted = checkNoAppointmentsOnThisSlotOrOnTheSlotsImpacted( slot, bShiftSlot );
+                slot.setEndingTime( endingTime );
+                slot.setEndingDateTime( slot.getDate( ).atTime( endingTime ) );
+                if ( !bNoApptImpacted || !checkEndingTimeOfSlot( endingTime, slot ) )
                 {
                     addWarning( MESSAGE_ERROR_APPOINTMENT_ON_SLOT, getLocale( ) );
-
                 }
                 else
                 {
-                    SlotSafeService.updateSlot( slot, bEndingTimeHasChanged, previousEndingTime, bShiftSlot );
-                    if ( !appointmentsImpacted && slot.getNbPlacesTaken( ) > 0 )
-                    {
-                        appointmentsImpacted = true;
-                    }
-                    AppLogService.info( LogUtilities.buildLog( ACTION_DO_MODIFY_SLOT, String.valueOf( slot.getIdSlot( ) ), getUser( ) ) );
-
-                    if ( slot.getMaxCapacity( ) < slot.getNbPlacesTaken( ) )
-                    {
-                        sbAlert.append( slot.getStartingDateTime( ) );
-                        sbAlert.append( "-" );
-                        sbAlert.append( slot.getEndingDateTime( ) );
-                        sbAlert.append( ", " );
-                    }
+                    SlotSafeService.updateSlot( slot, true, previousEndingTime, bShiftSlot );
+                    listSlotSaved.add( slot );
                 }
             }
             finally
@@ -677,22 +674,53 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
                 lock.unlock( );
             }
         }
+        if ( !listSlotToSave.isEmpty( ) )
+        {
+            try
+            {
+                SlotSafeService.updateListSlot( listSlotToSave.get( 0 ).getIdForm( ), listSlotToSave );
+                listSlotSaved.addAll( listSlotToSave );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                AppLogService.error( "Error update list slot " + e.getMessage( ), e );
+                addError( MESSAGE_ERROR_SLOTS_BUSY, getLocale( ) );
+                bSlotsBusy = true;
+            }
+            catch( SlotFullException e )
+            {
+                // The locks of the slots could not be acquired in time, the slots are being booked or modified
+                AppLogService.error( "Error update list slot " + e.getMessage( ), e );
+                addError( MESSAGE_ERROR_SLOTS_BUSY, getLocale( ) );
+                bSlotsBusy = true;
+            }
+        }
+        for ( Slot slot : listSlotSaved )
+        {
+            if ( !appointmentsImpacted && slot.getNbPlacesTaken( ) > 0 )
+            {
+                appointmentsImpacted = true;
+            }
+            AppLogService.info( LogUtilities.buildLog( ACTION_DO_MODIFY_SLOT, String.valueOf( slot.getIdSlot( ) ), getUser( ) ) );
+
+            if ( slot.getMaxCapacity( ) < slot.getNbPlacesTaken( ) )
+            {
+                sbAlert.append( slot.getStartingDateTime( ) );
+                sbAlert.append( "-" );
+                sbAlert.append( slot.getEndingDateTime( ) );
+                sbAlert.append( ", " );
+            }
+        }
 
         if ( appointmentsImpacted && bOpeningHasChanged )
         {
             addError( MESSAGE_INFO_VALIDATED_APPOINTMENTS_IMPACTED, getLocale( ) );
         }
         else
-            if ( CollectionUtils.isNotEmpty( listSlot ) )
+            if ( !bSlotsBusy && CollectionUtils.isNotEmpty( listSlot ) && checkNoAppointmentsOnTheSlotsImpacted( listSlot, bShiftSlot ) )
             {
-                boolean bNoSlotImpacted = true;
-                for ( Slot slt : listSlot )
-                {
-                    if ( !checkNoAppointmentsOnThisSlotOrOnTheSlotsImpacted( slt, bShiftSlot ) )
-                        bNoSlotImpacted = false;
-                }
-                if ( bNoSlotImpacted )
-                    addInfo( MESSAGE_INFO_SLOT_UPDATED, getLocale( ) );
+                addInfo( MESSAGE_INFO_SLOT_UPDATED, getLocale( ) );
             }
 
         if ( !StringUtils.isEmpty( sbAlert.toString( ) ) )
@@ -704,6 +732,36 @@ public class SpecificWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         }
     }
 
+    /**
+     * Check that there is no appointment on a list of slots or on the slots impacted, with one query for the slots and one for the appointments
+     * 
+     * @param listSlot
+     *            the slots
+     * @param bShiftSLot
+     *            true if the next slots will be modified
+     * @return false if there is an appointment
+     */
+    private boolean checkNoAppointmentsOnTheSlotsImpacted( List<Slot> listSlot, boolean bShiftSLot )
+    {
+        int nIdForm = listSlot.get( 0 ).getIdForm( );
+        List<Period> listPeriod = new ArrayList<>( );
+        for ( Slot slot : listSlot )
+        {
+            // If all the slot will be shifted,
+            // Need to check if there is no appointment until the end of the day
+            LocalDateTime endingDateTime = bShiftSLot ? slot.getDate( ).atTime( LocalTime.MAX ) : slot.getEndingDateTime( );
+            listPeriod.add( new Period( slot.getStartingDateTime( ), endingDateTime ) );
+        }
+        LocalDateTime minDateTime = listPeriod.stream( ).map( Period::getStartingDateTime ).min( LocalDateTime::compareTo ).orElse( null );
+        LocalDateTime maxDateTime = listPeriod.stream( ).map( Period::getEndingDateTime ).max( LocalDateTime::compareTo ).orElse( null );
+        List<Slot> listSlotImpacted = SlotService.findSlotsByIdFormAndDateRange( nIdForm, minDateTime, maxDateTime ).stream( )
+                .filter( slotImpacted -> listPeriod.stream( )
+                        .anyMatch( period -> !slotImpacted.getStartingDateTime( ).isBefore( period.getStartingDateTime( ) )
+                                && !slotImpacted.getEndingDateTime( ).isAfter( period.getEndingDateTime( ) ) ) )
+                .collect( Collectors.toList( ) );
+        return listSlotImpacted.isEmpty( ) || CollectionUtils.isEmpty( AppointmentService.findListAppointmentByListSlot( listSlotImpacted ) );
+    }
+
     /**
      * Build list of slot
      * 
@@ -395,6 +395,7 @@ public class TypicalWeekJspBean extends AbstractAppointmentFormAndSlotJspBean
         }
 
         ReservationRuleHome.update( reservationRule );
+        ReservationRuleService.resetReservationRuleTree( reservationRule.getIdForm( ) );
         addInfo( INFO_GLOBAL_PARAMETERS_UPDATED, getLocale( ) );
         return redirect( request, VIEW_MANAGE_TYPICAL_WEEK, PARAMETER_ID_FORM, _appointmentForm.getIdForm( ), PARAMETER_ID_RULE,
                 _appointmentForm.getIdReservationRule( ) );
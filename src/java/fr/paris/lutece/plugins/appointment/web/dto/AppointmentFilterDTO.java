@@ -90,6 +90,47 @@ public class AppointmentFilterDTO extends User
 
     private boolean _orderAsc = true;
 
+    /**
+     * True to search the text criteria as fragments of the values, false to search them as their prefixes
+     */
+    private boolean _bFragmentSearch;
+
+    /**
+     * Constructor
+     */
+    public AppointmentFilterDTO( )
+    {
+        super( );
+    }
+
+    /**
+     * Copy constructor
+     * 
+     * @param appointmentFilter
+     *            the filter to copy
+     */
+    public AppointmentFilterDTO( AppointmentFilterDTO appointmentFilter )
+    {
+        super( );
+        setIdUser( appointmentFilter.getIdUser( ) );
+        setGuid( appointmentFilter.getGuid( ) );
+        setFirstName( appointmentFilter.getFirstName( ) );
+        setLastName( appointmentFilter.getLastName( ) );
+        setEmail( appointmentFilter.getEmail( ) );
+        setPhoneNumber( appointmentFilter.getPhoneNumber( ) );
+        _nIdForm = appointmentFilter._nIdForm;
+        _startingDateOfSearch = appointmentFilter.getStartingDateOfSearch( );
+        _endingDateOfSearch = appointmentFilter.getEndingDateOfSearch( );
+        _strStartingTimeOfSearch = appointmentFilter._strStartingTimeOfSearch;
+        _strEndingTimeOfSearch = appointmentFilter._strEndingTimeOfSearch;
+        _strReference = appointmentFilter._strReference;
+        _status = appointmentFilter._status;
+        _listIdAppointment = appointmentFilter.getListIdAppointment( );
+        _orderBy = appointmentFilter._orderBy;
+        _orderAsc = appointmentFilter._orderAsc;
+        _bFragmentSearch = appointmentFilter._bFragmentSearch;
+    }
+
     /**
      * Get the form id
      * 
@@ -298,4 +339,25 @@ public class AppointmentFilterDTO extends User
     public void setOrderAsc(boolean orderAsc) {
         this._orderAsc = orderAsc;
     }
+
+    /**
+     * Get whether the text criteria are searched as fragments of the values of the appointments, as the search index does, or as their prefixes
+     * 
+     * @return true to search the fragments
+     */
+    public boolean isFragmentSearch( )
+    {
+        return _bFragmentSearch;
+    }
+
+    /**
+     * Set whether the text criteria are searched as fragments of the values of the appointments or as their prefixes
+     * 
+     * @param bFragmentSearch
+     *            true to search the fragments
+     */
+    public void setFragmentSearch( boolean bFragmentSearch )
+    {
+        _bFragmentSearch = bFragmentSearch;
+    }
 }
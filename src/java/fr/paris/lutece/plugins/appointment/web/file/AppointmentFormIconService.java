@@ -1,20 +1,48 @@
 package fr.paris.lutece.plugins.appointment.web.file;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import fr.paris.lutece.plugins.appointment.business.display.Display;
 import fr.paris.lutece.plugins.appointment.service.DisplayService;
 import fr.paris.lutece.portal.service.image.ImageResource;
 import fr.paris.lutece.portal.service.image.ImageResourceManager;
 import fr.paris.lutece.portal.service.image.ImageResourceProvider;
 import fr.paris.lutece.portal.service.init.LuteceInitException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.lang3.StringUtils;
 
 /**
- * Image Resource Service for the appointment form icon
+ * Image Resource Service for the appointment form icon.
+ * 
+ * The icons are served by the {@link fr.paris.lutece.plugins.appointment.web.AppointmentFormIconServlet} on an URL that contains the hash of their content,
+ * so that the browsers can keep them as long as the icon of the form does not change. The icons are kept in memory until the configuration of their form
+ * changes.
  */
 public class AppointmentFormIconService implements ImageResourceProvider
 {
     private static AppointmentFormIconService _singleton = new AppointmentFormIconService( );
     private static final String IMAGE_RESOURCE_TYPE_ID = "appointmentForm_icon";
+    private static final String MIME_TYPE_NULL = "NULL";
+    private static final String URL_ICON = "servlet/plugins/appointment/icon?id_form=";
+    private static final String URL_PARAMETER_VERSION = "&v=";
+
+    /**
+     * Entry kept for the forms without icon
+     */
+    private static final FormIcon NO_ICON = new FormIcon( null, null );
+
+    /**
+     * The icons of the forms, by id of form
+     */
+    private static final ConcurrentMap<Integer, FormIcon> _mapFormIcon = new ConcurrentHashMap<>( );
+
+    /**
+     * Number of resets, to not keep an icon loaded while its form was changed
+     */
+    private static final AtomicLong _lResetCount = new AtomicLong( );
 
     /**
      * Creates a new instance of AppointmentFormIconService
@@ -93,5 +121,146 @@ public class AppointmentFormIconService implements ImageResourceProvider
         return null;
     }
 
+    /**
+     * Get the icon of a form, from the memory if it has already been loaded
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the icon of the form, or null if the form has no icon
+     */
+    public FormIcon getFormIcon( int nIdForm )
+    {
+        FormIcon formIcon = _mapFormIcon.get( nIdForm );
+        if ( formIcon == null )
+        {
+            long lResetCount = _lResetCount.get( );
+            formIcon = loadFormIcon( nIdForm );
+            if ( formIcon == null )
+            {
+                // Nothing is kept for an unknown form, so that the requests of any id do not fill the memory
+                return null;
+            }
+            FormIcon formIconInMap = _mapFormIcon.putIfAbsent( nIdForm, formIcon );
+            if ( formIconInMap != null )
+            {
+                formIcon = formIconInMap;
+            }
+            else
+                if ( lResetCount != _lResetCount.get( ) )
+                {
+                    // The form has been changed while its icon was loaded
+                    _mapFormIcon.remove( nIdForm, formIcon );
+                }
+        }
+        return ( formIcon == NO_ICON ) ? null : formIcon;
+    }
+
+    /**
+     * Get the URL of the icon of a form. The URL changes with the content of the icon, so it can be cached by the browsers without limit of time.
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the URL of the icon, or null if the form has no icon
+     */
+    public String getIconUrl( int nIdForm )
+    {
+        FormIcon formIcon = getFormIcon( nIdForm );
+        if ( formIcon == null )
+        {
+            return null;
+        }
+        return URL_ICON + nIdForm + URL_PARAMETER_VERSION + formIcon.getHash( );
+    }
+
+    /**
+     * Remove the icon of a form from the memory. Has to be called when the display of the form is changed.
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public void resetFormIcon( int nIdForm )
+    {
+        _lResetCount.incrementAndGet( );
+        _mapFormIcon.remove( nIdForm );
+    }
+
+    /**
+     * Load the icon of a form from the database
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the icon of the form, NO_ICON if the form has no icon, or null if the form does not exist
+     */
+    private FormIcon loadFormIcon( int nIdForm )
+    {
+        Display display = DisplayService.findDisplayWithFormId( nIdForm );
+        if ( display == null )
+        {
+            return null;
+        }
+        ImageResource img = display.getIcon( );
+        if ( img == null || img.getImage( ) == null || img.getImage( ).length == 0 || StringUtils.isEmpty( img.getMimeType( ) )
+                || StringUtils.equals( img.getMimeType( ), MIME_TYPE_NULL ) )
+        {
+            return NO_ICON;
+        }
+        return new FormIcon( img.getImage( ), img.getMimeType( ) );
+    }
+
+    /**
+     * The icon of a form, with the hash of its content
+     */
+    public static final class FormIcon
+    {
+        private final byte [ ] _image;
+        private final String _strMimeType;
+        private final String _strHash;
+
+        /**
+         * Constructor
+         * 
+         * @param image
+         *            the content of the icon
+         * @param strMimeType
+         *            the mime type of the icon
+         */
+        private FormIcon( byte [ ] image, String strMimeType )
+        {
+            _image = image;
+            _strMimeType = strMimeType;
+            _strHash = ( image == null ) ? null : DigestUtils.sha256Hex( image );
+        }
+
+        /**
+         * Get the content of the icon. The returned array must not be modified.
+         * 
+         * @return the content of the icon
+         */
+        public byte [ ] getImage( )
+        {
+            return _image;
+        }
+
+        /**
+         * Get the mime type of the icon
+         * 
+         * @return the mime type
+         */
+        public String getMimeType( )
+        {
+            return _strMimeType;
+        }
+
+        /**
+         * Get the hash of the content of the icon
+         * 
+         * @return the hexadecimal SHA-256 hash of the content
+         */
+        public String getHash( )
+        {
+            return _strHash;
+        }
+    }
+
 }
 
@@ -42,9 +42,17 @@ CREATE TABLE IF NOT EXISTS appointment_user (
   last_name VARCHAR(255) NOT NULL,
   email VARCHAR(255) NULL,
   phone_number VARCHAR(255) NULL,
+  first_name_search VARCHAR(255) NULL,
+  last_name_search VARCHAR(255) NULL,
+  email_search VARCHAR(255) NULL,
+  phone_number_search VARCHAR(255) NULL,
   PRIMARY KEY (id_user)
 );
 CREATE INDEX email_idx ON appointment_user (email ASC);
+CREATE INDEX first_name_search_idx ON appointment_user (first_name_search(50));
+CREATE INDEX last_name_search_idx ON appointment_user (last_name_search(50));
+CREATE INDEX email_search_idx ON appointment_user (email_search(50));
+CREATE INDEX phone_number_search_idx ON appointment_user (phone_number_search(20));
 
 -- -----------------------------------------------------
 -- Table appointment_form
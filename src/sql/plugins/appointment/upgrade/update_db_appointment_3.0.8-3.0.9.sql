@@ -0,0 +1,11 @@
+ALTER TABLE appointment_user ADD COLUMN first_name_search VARCHAR(255) NULL;
+ALTER TABLE appointment_user ADD COLUMN last_name_search VARCHAR(255) NULL;
+ALTER TABLE appointment_user ADD COLUMN email_search VARCHAR(255) NULL;
+ALTER TABLE appointment_user ADD COLUMN phone_number_search VARCHAR(255) NULL;
+-- The existing users get the upper case of their values at once, so that they can be found after the upgrade. The values with accents are then
+-- normalized once by the daemon userSearchValuesDaemon, as the users saved since
+UPDATE appointment_user SET first_name_search = UPPER(TRIM(first_name)), last_name_search = UPPER(TRIM(last_name)), email_search = UPPER(TRIM(email)), phone_number_search = UPPER(TRIM(phone_number));
+CREATE INDEX first_name_search_idx ON appointment_user (first_name_search(50));
+CREATE INDEX last_name_search_idx ON appointment_user (last_name_search(50));
+CREATE INDEX email_search_idx ON appointment_user (email_search(50));
+CREATE INDEX phone_number_search_idx ON appointment_user (phone_number_search(20));
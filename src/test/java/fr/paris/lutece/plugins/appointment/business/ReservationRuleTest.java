@@ -33,11 +33,17 @@
  */
 package fr.paris.lutece.plugins.appointment.business;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.form.Form;
 import fr.paris.lutece.plugins.appointment.business.form.FormHome;
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlot;
+import fr.paris.lutece.plugins.appointment.business.planning.TimeSlotHome;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDay;
+import fr.paris.lutece.plugins.appointment.business.planning.WorkingDayHome;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRuleHome;
 import fr.paris.lutece.plugins.appointment.service.ReservationRuleService;
@@ -127,6 +133,63 @@ public final class ReservationRuleTest extends LuteceTestCase
 
     }
 
+    /**
+     * Test of findTreeByIdForm method
+     */
+    public void testFindTreeByIdForm( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        ReservationRule reservationRule = buildReservationRule( );
+        reservationRule.setIdForm( form.getIdForm( ) );
+        reservationRule.setName( "Name" );
+        ReservationRuleHome.create( reservationRule );
+        ReservationRule reservationRuleWithoutDay = buildReservationRule2( );
+        reservationRuleWithoutDay.setIdForm( form.getIdForm( ) );
+        reservationRuleWithoutDay.setName( "Name 2" );
+        ReservationRuleHome.create( reservationRuleWithoutDay );
+
+        WorkingDay workingDay = new WorkingDay( );
+        workingDay.setDayOfWeek( DayOfWeek.MONDAY.getValue( ) );
+        workingDay.setIdReservationRule( reservationRule.getIdReservationRule( ) );
+        WorkingDayHome.create( workingDay );
+        WorkingDay workingDayWithoutSlot = new WorkingDay( );
+        workingDayWithoutSlot.setDayOfWeek( DayOfWeek.TUESDAY.getValue( ) );
+        workingDayWithoutSlot.setIdReservationRule( reservationRule.getIdReservationRule( ) );
+        WorkingDayHome.create( workingDayWithoutSlot );
+        LocalTime startingTime = LocalTime.parse( "09:00" );
+        for ( int i = 0; i < 2; i++ )
+        {
+            TimeSlot timeSlot = new TimeSlot( );
+            timeSlot.setStartingTime( startingTime.plusMinutes( 30L * i ) );
+            timeSlot.setEndingTime( startingTime.plusMinutes( 30L * ( i + 1 ) ) );
+            timeSlot.setIsOpen( true );
+            timeSlot.setMaxCapacity( MAX_CAPACITY_PER_SLOT_1 );
+            timeSlot.setIdWorkingDay( workingDay.getIdWorkingDay( ) );
+            TimeSlotHome.create( timeSlot );
+        }
+
+        List<ReservationRule> listReservationRuleStored = ReservationRuleHome.findTreeByIdForm( form.getIdForm( ) );
+        assertEquals( 2, listReservationRuleStored.size( ) );
+        checkAsserts( listReservationRuleStored.get( 0 ), reservationRule );
+        assertEquals( 2, listReservationRuleStored.get( 0 ).getListWorkingDay( ).size( ) );
+        WorkingDay workingDayStored = listReservationRuleStored.get( 0 ).getListWorkingDay( ).get( 0 );
+        assertEquals( DayOfWeek.MONDAY.getValue( ), workingDayStored.getDayOfWeek( ) );
+        assertEquals( 2, workingDayStored.getListTimeSlot( ).size( ) );
+        assertEquals( startingTime, workingDayStored.getListTimeSlot( ).get( 0 ).getStartingTime( ) );
+        assertTrue( listReservationRuleStored.get( 0 ).getListWorkingDay( ).get( 1 ).getListTimeSlot( ).isEmpty( ) );
+        checkAsserts( listReservationRuleStored.get( 1 ), reservationRuleWithoutDay );
+        assertTrue( listReservationRuleStored.get( 1 ).getListWorkingDay( ).isEmpty( ) );
+
+        // Clean
+        TimeSlotHome.deleteByIdWorkingDay( workingDay.getIdWorkingDay( ) );
+        WorkingDayHome.deleteByIdReservationRule( reservationRule.getIdReservationRule( ) );
+        ReservationRuleHome.delete( reservationRule.getIdReservationRule( ) );
+        ReservationRuleHome.delete( reservationRuleWithoutDay.getIdReservationRule( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
     /**
      * Test of findByIdFormAndDateOfApply method
      */
@@ -34,6 +34,8 @@
 package fr.paris.lutece.plugins.appointment.business;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.form.Form;
@@ -189,6 +191,41 @@ public final class SlotTest extends LuteceTestCase
 
     }
 
+    /**
+     * Test of the batched creation, update and load of a list of slots
+     */
+    public void testListSlot( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        Slot slot1 = buildSlot( form.getIdForm( ), Constants.STARTING_DATE_1, Constants.ENDING_DATE_1, Constants.NB_REMAINING_PLACES_1,
+                Constants.NB_REMAINING_PLACES_1, 0, Constants.NB_REMAINING_PLACES_1, Boolean.TRUE, Boolean.TRUE );
+        Slot slot2 = buildSlot( form.getIdForm( ), Constants.STARTING_DATE_2, Constants.ENDING_DATE_2, Constants.NB_REMAINING_PLACES_2,
+                Constants.NB_REMAINING_PLACES_2, 0, Constants.NB_REMAINING_PLACES_2, Boolean.TRUE, Boolean.TRUE );
+        List<Slot> listSlot = Arrays.asList( slot1, slot2 );
+        // Create the Slots in database, their ids are set
+        SlotHome.createList( listSlot );
+        assertTrue( slot1.getIdSlot( ) != 0 );
+        assertTrue( slot2.getIdSlot( ) != 0 );
+
+        // Update the Slots in database
+        slot1.setIsOpen( Boolean.FALSE );
+        slot2.setNbRemainingPlaces( Constants.NB_REMAINING_PLACES_1 );
+        SlotHome.updateList( listSlot );
+        checkAsserts( SlotHome.findByPrimaryKey( slot1.getIdSlot( ) ), slot1 );
+        checkAsserts( SlotHome.findByPrimaryKey( slot2.getIdSlot( ) ), slot2 );
+
+        // Find the Slots by their ids
+        assertEquals( 2, SlotHome.findByListId( Arrays.asList( slot1.getIdSlot( ), slot2.getIdSlot( ) ) ).size( ) );
+        assertTrue( SlotHome.findByListId( new ArrayList<>( ) ).isEmpty( ) );
+
+        // Clean
+        SlotHome.delete( slot1.getIdSlot( ) );
+        SlotHome.delete( slot2.getIdSlot( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
     /**
      * Build a SLot Business Object
      * 
@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.appointment.business;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.form.Form;
@@ -163,6 +164,48 @@ public final class TimeSlotTest extends LuteceTestCase
 
     }
 
+    /**
+     * Test of the shift of the time slots of a working day
+     */
+    public void testShift( )
+    {
+        Form form = FormTest.buildForm1( );
+        FormHome.create( form );
+
+        ReservationRule reservationRule1 = Commons.buildReservationRule( form.getIdForm( ) );
+        ReservationRuleHome.create( reservationRule1 );
+        WorkingDay workingDay = WorkingDayTest.buildWorkingDay( );
+        workingDay.setIdReservationRule( reservationRule1.getIdReservationRule( ) );
+        WorkingDayHome.create( workingDay );
+
+        // Three contiguous time slots, created in one batch
+        TimeSlot timeSlot1 = buildTimeSlot( LocalTime.parse( "09:00" ), LocalTime.parse( "09:30" ), IS_OPEN_1, MAX_CAPACITY_1, workingDay.getIdWorkingDay( ) );
+        TimeSlot timeSlot2 = buildTimeSlot( LocalTime.parse( "09:30" ), LocalTime.parse( "10:00" ), IS_OPEN_1, MAX_CAPACITY_1, workingDay.getIdWorkingDay( ) );
+        TimeSlot timeSlot3 = buildTimeSlot( LocalTime.parse( "10:00" ), LocalTime.parse( "10:30" ), IS_OPEN_1, MAX_CAPACITY_1, workingDay.getIdWorkingDay( ) );
+        TimeSlotHome.createList( Arrays.asList( timeSlot1, timeSlot2, timeSlot3 ) );
+        assertTrue( timeSlot3.getIdTimeSlot( ) != 0 );
+
+        // Shift the time slots after the first one 30 minutes later: they overlap their old times, and the last one is cut at the end of the day
+        TimeSlotHome.shift( workingDay.getIdWorkingDay( ), LocalTime.parse( "09:00" ), 1800, LocalTime.parse( "10:45" ) );
+        timeSlot2.setStartingTime( LocalTime.parse( "10:00" ) );
+        timeSlot2.setEndingTime( LocalTime.parse( "10:30" ) );
+        timeSlot3.setStartingTime( LocalTime.parse( "10:30" ) );
+        timeSlot3.setEndingTime( LocalTime.parse( "10:45" ) );
+        checkAsserts( TimeSlotHome.findByPrimaryKey( timeSlot1.getIdTimeSlot( ) ), timeSlot1 );
+        checkAsserts( TimeSlotHome.findByPrimaryKey( timeSlot2.getIdTimeSlot( ) ), timeSlot2 );
+        checkAsserts( TimeSlotHome.findByPrimaryKey( timeSlot3.getIdTimeSlot( ) ), timeSlot3 );
+
+        // Delete the shifted time slots in one statement
+        TimeSlotHome.deleteList( Arrays.asList( timeSlot2.getIdTimeSlot( ), timeSlot3.getIdTimeSlot( ) ) );
+        assertEquals( 1, TimeSlotHome.findByIdWorkingDay( workingDay.getIdWorkingDay( ) ).size( ) );
+
+        // Clean
+        TimeSlotHome.delete( timeSlot1.getIdTimeSlot( ) );
+        WorkingDayHome.delete( workingDay.getIdWorkingDay( ) );
+        ReservationRuleHome.delete( reservationRule1.getIdReservationRule( ) );
+        FormHome.delete( form.getIdForm( ) );
+    }
+
     /**
      * build a TimeSlot Business Object
      * 
@@ -34,6 +34,7 @@
 package fr.paris.lutece.plugins.appointment.business;
 
 import fr.paris.lutece.plugins.appointment.business.user.User;
+import fr.paris.lutece.plugins.appointment.business.user.UserDAO;
 import fr.paris.lutece.plugins.appointment.business.user.UserHome;
 import fr.paris.lutece.test.LuteceTestCase;
 
@@ -80,6 +81,16 @@ public final class UserTest extends LuteceTestCase
         assertNull( userStored );
     }
 
+    /**
+     * Test the values of the search columns of the users
+     */
+    public void testToSearchValue( )
+    {
+        assertEquals( "HELENE", UserDAO.toSearchValue( " H\u00e9l\u00e8ne " ) );
+        assertEquals( "FRANCOIS.DUPONT@LUTECE.FR", UserDAO.toSearchValue( "Fran\u00e7ois.Dupont@lutece.fr" ) );
+        assertNull( UserDAO.toSearchValue( null ) );
+    }
+
     /**
      * Build a User Business Object
      * 
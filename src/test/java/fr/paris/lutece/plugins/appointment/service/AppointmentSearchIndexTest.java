@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.Set;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class AppointmentSearchIndexTest extends LuteceTestCase
+{
+
+    /**
+     * Search the appointments of an index by fragments of their values
+     */
+    public void testSearch( )
+    {
+        AppointmentSearchIndex searchIndex = new AppointmentSearchIndex( );
+        searchIndex.index( 1, buildValues( "HELENE", "DUPONT", "HELENE.DUPONT@LUTECE.FR", "0601020304", "REF1" ) );
+        searchIndex.index( 2, buildValues( "JEAN", "DUPOND", "JEAN@LUTECE.FR", null, "REF2" ) );
+
+        Set<Integer> setIdAppointment = searchIndex.search( buildValues( null, "DUPO", null, null, null ) );
+        assertEquals( 2, setIdAppointment.size( ) );
+        setIdAppointment = searchIndex.search( buildValues( null, "PONT", null, null, null ) );
+        assertEquals( 1, setIdAppointment.size( ) );
+        assertTrue( setIdAppointment.contains( 1 ) );
+        // The fragments shorter than a trigram are searched in all the values
+        setIdAppointment = searchIndex.search( buildValues( "JE", null, null, null, null ) );
+        assertEquals( 1, setIdAppointment.size( ) );
+        assertTrue( setIdAppointment.contains( 2 ) );
+        // The trigrams of the fragment are found, but not the fragment
+        searchIndex.index( 3, buildValues( "PAUL", "ANANAS", null, null, "REF3" ) );
+        assertTrue( searchIndex.search( buildValues( null, "NANAN", null, null, null ) ).isEmpty( ) );
+        searchIndex.remove( 3 );
+        assertTrue( searchIndex.search( buildValues( "JEAN", "DUPONT", null, null, null ) ).isEmpty( ) );
+
+        searchIndex.index( 2, buildValues( "JEAN", "DURAND", "JEAN@LUTECE.FR", null, "REF2" ) );
+        assertEquals( 1, searchIndex.search( buildValues( null, "DUPO", null, null, null ) ).size( ) );
+        searchIndex.indexIfAbsent( 2, buildValues( "JEAN", "DUPOND", "JEAN@LUTECE.FR", null, "REF2" ) );
+        assertEquals( 1, searchIndex.search( buildValues( null, "DUPO", null, null, null ) ).size( ) );
+        searchIndex.remove( 1 );
+        assertTrue( searchIndex.search( buildValues( null, "DUPO", null, null, null ) ).isEmpty( ) );
+        assertEquals( 1, searchIndex.size( ) );
+    }
+
+    private static String [ ] buildValues( String strFirstName, String strLastName, String strEmail, String strPhoneNumber, String strReference )
+    {
+        String [ ] values = new String [ AppointmentSearchIndex.NB_FIELDS];
+        values [AppointmentSearchIndex.FIELD_FIRST_NAME] = strFirstName;
+        values [AppointmentSearchIndex.FIELD_LAST_NAME] = strLastName;
+        values [AppointmentSearchIndex.FIELD_EMAIL] = strEmail;
+        values [AppointmentSearchIndex.FIELD_PHONE_NUMBER] = strPhoneNumber;
+        values [AppointmentSearchIndex.FIELD_REFERENCE] = strReference;
+        return values;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class AvailabilitySearchServiceTest extends LuteceTestCase
+{
+
+    /**
+     * The earliest slots are taken from the form that opens first, whatever the order of the forms
+     */
+    public void testFindEarliestSlots( )
+    {
+        // After the minimum time before an appointment of the forms
+        LocalDate firstMonday = LocalDate.now( ).with( TemporalAdjusters.next( DayOfWeek.MONDAY ) ).plusWeeks( 1 );
+        int nIdLateForm = createForm( firstMonday.plusWeeks( 1 ) );
+        int nIdEarlyForm = createForm( firstMonday );
+        try
+        {
+            List<Slot> listSlot = AvailabilitySearchService.findEarliestSlots( Arrays.asList( nIdLateForm, nIdEarlyForm ), 3, Locale.FRANCE );
+            assertEquals( 3, listSlot.size( ) );
+            LocalTime time = LocalTime.of( 9, 0 );
+            for ( Slot slot : listSlot )
+            {
+                assertEquals( nIdEarlyForm, slot.getIdForm( ) );
+                assertEquals( firstMonday.atTime( time ), slot.getStartingDateTime( ) );
+                time = time.plusMinutes( 30 );
+            }
+
+            listSlot = AvailabilitySearchService.findEarliestSlots( Arrays.asList( nIdLateForm ), 1, Locale.FRANCE );
+            assertEquals( 1, listSlot.size( ) );
+            assertEquals( firstMonday.plusWeeks( 1 ).atTime( 9, 0 ), listSlot.get( 0 ).getStartingDateTime( ) );
+
+            assertTrue( AvailabilitySearchService.findEarliestSlots( Arrays.asList( nIdLateForm, nIdEarlyForm ), 0, Locale.FRANCE ).isEmpty( ) );
+        }
+        finally
+        {
+            FormServiceTest.cleanForm( nIdLateForm );
+            FormServiceTest.cleanForm( nIdEarlyForm );
+        }
+    }
+
+    private static int createForm( LocalDate dateStartValidity )
+    {
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        appointmentForm.setDateStartValidity( Date.valueOf( dateStartValidity ) );
+        appointmentForm.setDateEndValidity( Date.valueOf( dateStartValidity.plusWeeks( 3 ) ) );
+        return FormService.createAppointmentForm( appointmentForm );
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class AvailabilityVersionServiceTest extends LuteceTestCase
+{
+
+    /**
+     * The version of a form changes only with its own changes
+     */
+    public void testIncrementVersion( )
+    {
+        int nIdForm = Integer.MAX_VALUE - 1;
+        int nIdOtherForm = Integer.MAX_VALUE;
+        long lVersion = AvailabilityVersionService.getVersion( nIdForm );
+        long lOtherVersion = AvailabilityVersionService.getVersion( nIdOtherForm );
+        assertEquals( lVersion, AvailabilityVersionService.getVersion( nIdForm ) );
+
+        assertEquals( lVersion + 1, AvailabilityVersionService.incrementVersion( nIdForm ) );
+        assertEquals( lVersion + 1, AvailabilityVersionService.getVersion( nIdForm ) );
+        assertEquals( lOtherVersion, AvailabilityVersionService.getVersion( nIdOtherForm ) );
+    }
+
+    /**
+     * The versions start from the loading time of the service, so that they keep increasing after a restart
+     */
+    public void testStartingVersion( )
+    {
+        long lVersion = AvailabilityVersionService.getVersion( Integer.MAX_VALUE - 2 );
+        assertTrue( lVersion > 0 );
+        assertTrue( lVersion <= System.currentTimeMillis( ) );
+    }
+}
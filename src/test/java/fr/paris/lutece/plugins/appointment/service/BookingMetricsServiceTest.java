@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService;
+import fr.paris.lutece.plugins.appointment.service.metrics.BookingMetricsService.FailureCause;
+import fr.paris.lutece.plugins.appointment.service.metrics.LatencyHistogram;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class BookingMetricsServiceTest extends LuteceTestCase
+{
+
+    /**
+     * Check the statistics of a latency histogram
+     */
+    public void testLatencyHistogram( )
+    {
+        LatencyHistogram histogram = new LatencyHistogram( );
+        assertEquals( 0L, histogram.getPercentileTime( 95 ) );
+        for ( int i = 0; i < 95; i++ )
+        {
+            histogram.record( TimeUnit.MILLISECONDS.toNanos( 3 ) );
+        }
+        for ( int i = 0; i < 5; i++ )
+        {
+            histogram.record( TimeUnit.MILLISECONDS.toNanos( 700 ) );
+        }
+        assertEquals( 100L, histogram.getCount( ) );
+        assertEquals( 700L, histogram.getMaxTime( ) );
+        assertEquals( 37L, histogram.getAverageTime( ) );
+        // The durations of 3 ms are in the bucket up to 5 ms
+        assertEquals( 5L, histogram.getPercentileTime( 95 ) );
+        assertEquals( 700L, histogram.getPercentileTime( 96 ) );
+        histogram.reset( );
+        assertEquals( 0L, histogram.getCount( ) );
+        assertEquals( 0L, histogram.getMaxTime( ) );
+    }
+
+    /**
+     * Check the counters of the failures and of the holds
+     */
+    public void testFailureAndHoldCounts( )
+    {
+        long lLockedCount = BookingMetricsService.getFailureCount( FailureCause.LOCKED );
+        BookingMetricsService.recordFailure( FailureCause.LOCKED );
+        assertEquals( lLockedCount + 1, BookingMetricsService.getFailureCount( FailureCause.LOCKED ) );
+        assertEquals( Long.valueOf( lLockedCount + 1 ), BookingMetricsService.getFailureCounts( ).get( FailureCause.LOCKED.name( ) ) );
+
+        int nActiveHoldCount = BookingMetricsService.getActiveHoldCount( );
+        BookingMetricsService.recordHoldStarted( );
+        assertEquals( nActiveHoldCount + 1, BookingMetricsService.getActiveHoldCount( ) );
+        BookingMetricsService.recordHoldEnded( );
+        assertEquals( nActiveHoldCount, BookingMetricsService.getActiveHoldCount( ) );
+    }
+
+}
@@ -71,4 +71,25 @@ public class ClosingDayServiceTest extends LuteceTestCase
         FormServiceTest.cleanForm( nIdForm );
     }
 
+    /**
+     * Check that the closing day index of a form is refreshed when a closing day is saved or removed
+     */
+    public void testClosingDayIndexRefresh( )
+    {
+        // Build the form
+        AppointmentFormDTO formDto = FormServiceTest.buildAppointmentForm( );
+        formDto.setName( "appointment_form" );
+        int nIdForm = FormService.createAppointmentForm( formDto );
+        LocalDate closingDate = LocalDate.parse( "2018-05-01" );
+        assertFalse( ClosingDayService.getClosingDayIndex( nIdForm ).contains( closingDate ) );
+
+        ClosingDayService.saveClosingDay( nIdForm, closingDate );
+        assertTrue( ClosingDayService.getClosingDayIndex( nIdForm ).contains( closingDate ) );
+        assertFalse( ClosingDayService.getClosingDayIndex( nIdForm ).contains( closingDate.plusDays( 1 ) ) );
+
+        ClosingDayService.removeClosingDay( nIdForm, closingDate );
+        assertFalse( ClosingDayService.getClosingDayIndex( nIdForm ).contains( closingDate ) );
+        FormServiceTest.cleanForm( nIdForm );
+    }
+
 }
@@ -172,18 +172,46 @@ public class FormServiceTest extends LuteceTestCase
         // Build the form
         AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
         int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        ClosingDayService.saveClosingDay( nIdForm, LocalDate.parse( "2018-05-01" ) );
         int nIdCopyForm = FormService.copyForm( nIdForm, "Copie" );
         List<DayOfWeek> listopenDays = WorkingDayService.getOpenDays( appointmentForm );
         AppointmentFormDTO copyAppointmentForm = FormService.buildAppointmentForm( nIdCopyForm, 0 );
         assertEquals( WeekDefinitionService.findListWeekDefinition( nIdForm ).size( ), WeekDefinitionService.findListWeekDefinition( nIdCopyForm ).size( ) );
         assertEquals( WorkingDayService.getOpenDays( appointmentForm ), WorkingDayService.getOpenDays( copyAppointmentForm ) );
         assertEquals( "Copie", copyAppointmentForm.getTitle( ) );
+        assertEquals( ClosingDayService.findListDateOfClosingDayByIdForm( nIdForm ), ClosingDayService.findListDateOfClosingDayByIdForm( nIdCopyForm ) );
 
         cleanForm( nIdCopyForm );
         assertEquals( listopenDays, WorkingDayService.getOpenDays( appointmentForm ) );
         cleanForm( nIdForm );
     }
 
+    /**
+     * Check that the appointmentForm DTO built is up to date after a change of the form parameters
+     */
+    public void testBuildAppointmentFormAfterUpdate( )
+    {
+        AppointmentFormDTO appointmentForm = FormServiceTest.buildAppointmentForm( );
+        int nIdForm = FormService.createAppointmentForm( appointmentForm );
+        AppointmentFormDTO appointmentFormBuilt = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+        assertEquals( 3, appointmentFormBuilt.getNbWeeksToDisplay( ) );
+        assertEquals( 30, appointmentFormBuilt.getMinTimeBeforeAppointment( ) );
+
+        // The DTO built must not be shared between the callers
+        appointmentFormBuilt.setTitle( "Modified title" );
+        assertEquals( TITLE_FORM, FormService.buildAppointmentFormWithoutReservationRule( nIdForm ).getTitle( ) );
+
+        appointmentFormBuilt.setTitle( TITLE_FORM );
+        appointmentFormBuilt.setNbWeeksToDisplay( 5 );
+        appointmentFormBuilt.setMinTimeBeforeAppointment( 2 );
+        FormService.updateGlobalParameters( appointmentFormBuilt );
+        appointmentFormBuilt = FormService.buildAppointmentFormWithoutReservationRule( nIdForm );
+        assertEquals( 5, appointmentFormBuilt.getNbWeeksToDisplay( ) );
+        assertEquals( 2, appointmentFormBuilt.getMinTimeBeforeAppointment( ) );
+
+        cleanForm( nIdForm );
+    }
+
     public static void cleanForm( int nIdForm )
     {
         if ( nIdForm != -1 )
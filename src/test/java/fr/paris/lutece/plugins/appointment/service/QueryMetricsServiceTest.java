@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.plugins.appointment.service.metrics.QueryMetricsService;
+import fr.paris.lutece.plugins.appointment.service.metrics.QueryMetricsService.StatementStatistics;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class QueryMetricsServiceTest extends LuteceTestCase
+{
+
+    /**
+     * Check that the literals and the lists of parameters are redacted
+     */
+    public void testNormalize( )
+    {
+        assertEquals( "SELECT id_slot FROM appointment_slot WHERE id_form = ? AND id_slot IN ( ?, ... ) AND is_open = ?",
+                QueryMetricsService.normalize( "SELECT id_slot FROM  appointment_slot\n WHERE id_form = 12 AND id_slot IN ( ?, ?,? ) AND is_open = 'it''s'" ) );
+    }
+
+    /**
+     * Check the aggregation of the statements
+     */
+    public void testTopStatements( )
+    {
+        QueryMetricsService.reset( );
+        QueryMetricsService.record( "SELECT 1 FROM appointment_form WHERE id_form = ?", 1, TimeUnit.MILLISECONDS.toNanos( 2 ), 1 );
+        QueryMetricsService.record( "SELECT 1 FROM appointment_form WHERE id_form = ?", 1, TimeUnit.MILLISECONDS.toNanos( 3 ), 0 );
+        QueryMetricsService.record( "SELECT 1 FROM appointment_slot WHERE id_slot IN ( ?, ? )", 2, TimeUnit.MILLISECONDS.toNanos( 20 ), 4 );
+
+        List<StatementStatistics> listStatistics = QueryMetricsService.getTopStatements( 10 );
+        assertEquals( 2, listStatistics.size( ) );
+        assertEquals( "SELECT ? FROM appointment_slot WHERE id_slot IN ( ?, ... )", listStatistics.get( 0 ).getStatement( ) );
+        assertEquals( 2L, listStatistics.get( 0 ).getExecutionCount( ) );
+        assertEquals( 2L, listStatistics.get( 1 ).getExecutionCount( ) );
+        assertEquals( 1L, listStatistics.get( 1 ).getRowCount( ) );
+        assertEquals( 5L, listStatistics.get( 1 ).getTotalTime( ) );
+        assertEquals( 1, QueryMetricsService.getTopStatements( 1 ).size( ) );
+        QueryMetricsService.reset( );
+    }
+
+}
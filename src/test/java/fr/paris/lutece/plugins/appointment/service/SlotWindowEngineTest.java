@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.plugins.appointment.business.SlotTest;
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class SlotWindowEngineTest extends LuteceTestCase
+{
+    private LocalDateTime _startingDateTime = LocalDateTime.now( ).plusDays( 7 ).withHour( 9 ).withMinute( 0 ).withSecond( 0 ).withNano( 0 );
+
+    /**
+     * Build a list of contiguous slots of 30 minutes
+     * 
+     * @param tabPotentialRemainingPlaces
+     *            the potential remaining places of each slot
+     * @param tabIsOpen
+     *            the opening of each slot
+     * @return the list of slots
+     */
+    private List<Slot> buildListSlot( int [ ] tabPotentialRemainingPlaces, boolean [ ] tabIsOpen )
+    {
+        List<Slot> listSlot = new ArrayList<>( );
+        for ( int i = 0; i < tabPotentialRemainingPlaces.length; i++ )
+        {
+            listSlot.add( SlotTest.buildSlot( 1, _startingDateTime.plusMinutes( 30L * i ), _startingDateTime.plusMinutes( 30L * ( i + 1 ) ),
+                    tabPotentialRemainingPlaces [i], tabPotentialRemainingPlaces [i], 0, 1, tabIsOpen [i], false ) );
+        }
+        return listSlot;
+    }
+
+    /**
+     * Check that all the windows of consecutive available slots are built, the full and closed slots breaking the windows
+     */
+    public void testBuildListWindowSlot( )
+    {
+        List<Slot> listSlot = buildListSlot( new int [ ] {
+                1, 1, 1, 0, 1, 1, 1
+        }, new boolean [ ] {
+                true, true, true, true, true, false, true
+        } );
+
+        List<Slot> listWindow = SlotWindowEngine.buildListWindowSlot( listSlot, 2, false, LocalDateTime.now( ) );
+
+        assertEquals( 2, listWindow.size( ) );
+        assertEquals( _startingDateTime, listWindow.get( 0 ).getStartingDateTime( ) );
+        assertEquals( _startingDateTime.plusMinutes( 60 ), listWindow.get( 0 ).getEndingDateTime( ) );
+        assertEquals( _startingDateTime.plusMinutes( 30 ), listWindow.get( 1 ).getStartingDateTime( ) );
+        assertEquals( _startingDateTime.plusMinutes( 90 ), listWindow.get( 1 ).getEndingDateTime( ) );
+        assertEquals( 2, listWindow.get( 0 ).getNbPotentialRemainingPlaces( ) );
+        assertFalse( listWindow.get( 0 ).getIsFull( ) );
+    }
+
+    /**
+     * Check that the full slots can be part of a window when all the open slots are allowed, and that the window is flagged full
+     */
+    public void testBuildListWindowSlotWithAllOpenSlot( )
+    {
+        List<Slot> listSlot = buildListSlot( new int [ ] {
+                1, 0, 1
+        }, new boolean [ ] {
+                true, true, true
+        } );
+
+        List<Slot> listWindow = SlotWindowEngine.buildListWindowSlot( listSlot, 2, true, LocalDateTime.now( ) );
+
+        assertEquals( 2, listWindow.size( ) );
+        assertTrue( listWindow.get( 0 ).getIsFull( ) );
+        assertTrue( listWindow.get( 1 ).getIsFull( ) );
+        assertEquals( 0, SlotWindowEngine.buildListWindowSlot( listSlot, 4, true, LocalDateTime.now( ) ).size( ) );
+    }
+
+    /**
+     * Check that the slots already ended can not be part of a window
+     */
+    public void testBuildListWindowSlotWithPassedSlots( )
+    {
+        List<Slot> listSlot = buildListSlot( new int [ ] {
+                1, 1, 1
+        }, new boolean [ ] {
+                true, true, true
+        } );
+
+        List<Slot> listWindow = SlotWindowEngine.buildListWindowSlot( listSlot, 2, false, _startingDateTime.plusMinutes( 45 ) );
+
+        assertEquals( 1, listWindow.size( ) );
+        assertEquals( _startingDateTime.plusMinutes( 30 ), listWindow.get( 0 ).getStartingDateTime( ) );
+    }
+}
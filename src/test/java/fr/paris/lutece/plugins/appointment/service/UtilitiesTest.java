@@ -104,4 +104,18 @@ public class UtilitiesTest extends LuteceTestCase
 
     }
 
+    /**
+     * Return the ending date of display of a form with the weeks of the locale
+     */
+    @Test
+    public void testGetEndingDateOfDisplay( )
+    {
+        // Wednesday 2018-06-06
+        LocalDate startingDate = LocalDate.parse( "2018-06-06" );
+        // The week ends on Sunday in France, on Saturday in the United States
+        assertEquals( LocalDate.parse( "2018-06-10" ), Utilities.getEndingDateOfDisplay( startingDate, 1, Locale.FRANCE ) );
+        assertEquals( LocalDate.parse( "2018-06-09" ), Utilities.getEndingDateOfDisplay( startingDate, 1, Locale.US ) );
+        assertEquals( LocalDate.parse( "2018-06-24" ), Utilities.getEndingDateOfDisplay( startingDate, 3, Locale.FRANCE ) );
+    }
+
 }
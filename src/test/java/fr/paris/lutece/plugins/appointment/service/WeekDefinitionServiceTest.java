@@ -41,6 +41,7 @@ import java.util.List;
 
 import fr.paris.lutece.plugins.appointment.business.planning.WeekDefinition;
 import fr.paris.lutece.plugins.appointment.business.rule.ReservationRule;
+import fr.paris.lutece.plugins.appointment.business.slot.Period;
 import fr.paris.lutece.plugins.appointment.web.dto.AppointmentFormDTO;
 import fr.paris.lutece.test.LuteceTestCase;
 
@@ -282,4 +283,39 @@ public class WeekDefinitionServiceTest extends LuteceTestCase
         assertEquals( 5, WeekDefinitionService.getOpenDaysOfWeek( openDays ).size( ) );
         FormServiceTest.cleanForm( nIdForm );
     }
+
+    /**
+     * Find the periods whose reservation rule changes when a week is assigned
+     */
+    public void testFindChangedPeriods( )
+    {
+        List<WeekDefinition> listWeek = new ArrayList<>( );
+        listWeek.add( buildWeekDefinition( 1, "2018-01-01", "2018-01-31" ) );
+        listWeek.add( buildWeekDefinition( 2, "2018-02-01", "2018-02-28" ) );
+        listWeek.add( buildWeekDefinition( 1, "2018-04-01", "2018-04-30" ) );
+
+        // Only the days of the rule 2 and the days without week change
+        List<Period> listPeriod = WeekDefinitionService.findChangedPeriods( listWeek, LocalDate.parse( "2018-01-15" ), LocalDate.parse( "2018-04-15" ), 1 );
+        assertEquals( 1, listPeriod.size( ) );
+        assertEquals( LocalDate.parse( "2018-02-01" ).atStartOfDay( ), listPeriod.get( 0 ).getStartingDateTime( ) );
+        assertEquals( LocalDate.parse( "2018-03-31" ).atTime( LocalTime.MAX ), listPeriod.get( 0 ).getEndingDateTime( ) );
+
+        // Unassigning a period changes only the days that had a week
+        listPeriod = WeekDefinitionService.findChangedPeriods( listWeek, LocalDate.parse( "2018-02-15" ), LocalDate.parse( "2018-04-15" ), 0 );
+        assertEquals( 2, listPeriod.size( ) );
+        assertEquals( LocalDate.parse( "2018-02-28" ).atTime( LocalTime.MAX ), listPeriod.get( 0 ).getEndingDateTime( ) );
+        assertEquals( LocalDate.parse( "2018-04-01" ).atStartOfDay( ), listPeriod.get( 1 ).getStartingDateTime( ) );
+
+        // Assigning the same rule changes nothing
+        assertTrue( WeekDefinitionService.findChangedPeriods( listWeek, LocalDate.parse( "2018-01-10" ), LocalDate.parse( "2018-01-20" ), 1 ).isEmpty( ) );
+    }
+
+    private static WeekDefinition buildWeekDefinition( int nIdReservationRule, String strDateOfApply, String strEndingDateOfApply )
+    {
+        WeekDefinition week = new WeekDefinition( );
+        week.setIdReservationRule( nIdReservationRule );
+        week.setDateOfApply( LocalDate.parse( strDateOfApply ) );
+        week.setEndingDateOfApply( LocalDate.parse( strEndingDateOfApply ) );
+        return week;
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2022, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.appointment.service.listeners;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import fr.paris.lutece.plugins.appointment.business.slot.Slot;
+import fr.paris.lutece.test.LuteceTestCase;
+
+public class SlotChangeDispatcherTest extends LuteceTestCase
+{
+    private static final long WINDOW = 200L;
+
+    /**
+     * The changes of a slot in a window are merged into one notification with the last state of the slot
+     */
+    public void testCoalescing( ) throws InterruptedException
+    {
+        BlockingQueue<List<Slot>> queueNotification = new LinkedBlockingQueue<>( );
+        List<List<Integer>> listLoadedIds = Collections.synchronizedList( new ArrayList<>( ) );
+        SlotChangeDispatcher dispatcher = new SlotChangeDispatcher( WINDOW, listIdSlot -> {
+            listLoadedIds.add( listIdSlot );
+            List<Slot> listSlot = new ArrayList<>( );
+            for ( Integer nIdSlot : listIdSlot )
+            {
+                listSlot.add( buildSlot( nIdSlot, 0 ) );
+            }
+            return listSlot;
+        }, queueNotification::add );
+        try
+        {
+            dispatcher.add( buildSlot( 1, 5 ) );
+            dispatcher.add( 2 );
+            dispatcher.add( 1 );
+            dispatcher.add( buildSlot( 1, 4 ) );
+
+            List<Slot> listSlot = queueNotification.poll( 5, TimeUnit.SECONDS );
+            assertNotNull( listSlot );
+            assertEquals( 2, listSlot.size( ) );
+            Slot slot = listSlot.stream( ).filter( s -> s.getIdSlot( ) == 1 ).findFirst( ).orElse( null );
+            assertNotNull( slot );
+            assertEquals( 4, slot.getNbPotentialRemainingPlaces( ) );
+            // Only the slot changed with its id only is loaded
+            assertEquals( 1, listLoadedIds.size( ) );
+            assertEquals( Collections.singletonList( 2 ), listLoadedIds.get( 0 ) );
+            // No other notification for the merged changes
+            assertNull( queueNotification.poll( 2 * WINDOW, TimeUnit.MILLISECONDS ) );
+
+            // A change after the flush opens a new window
+            dispatcher.add( buildSlot( 1, 3 ) );
+            listSlot = queueNotification.poll( 5, TimeUnit.SECONDS );
+            assertNotNull( listSlot );
+            assertEquals( 1, listSlot.size( ) );
+            assertEquals( 3, listSlot.get( 0 ).getNbPotentialRemainingPlaces( ) );
+        }
+        finally
+        {
+            dispatcher.stop( );
+        }
+    }
+
+    /**
+     * The pending changes are notified when the dispatcher stops, before the end of the window
+     */
+    public void testFlushOnStop( ) throws InterruptedException
+    {
+        BlockingQueue<List<Slot>> queueNotification = new LinkedBlockingQueue<>( );
+        SlotChangeDispatcher dispatcher = new SlotChangeDispatcher( 60_000L, listIdSlot -> new ArrayList<>( ), queueNotification::add );
+        dispatcher.add( buildSlot( 1, 5 ) );
+        dispatcher.add( buildSlot( 2, 5 ) );
+        assertNull( queueNotification.poll( WINDOW, TimeUnit.MILLISECONDS ) );
+
+        dispatcher.stop( );
+        List<Slot> listSlot = queueNotification.poll( 5, TimeUnit.SECONDS );
+        assertNotNull( listSlot );
+        assertEquals( 2, listSlot.size( ) );
+        // Changes registered after the stop are not scheduled any more
+        dispatcher.add( buildSlot( 3, 5 ) );
+        assertNull( queueNotification.poll( WINDOW, TimeUnit.MILLISECONDS ) );
+    }
+
+    private static Slot buildSlot( int nIdSlot, int nNbPotentialRemainingPlaces )
+    {
+        Slot slot = new Slot( );
+        slot.setIdSlot( nIdSlot );
+        slot.setIdForm( 1 );
+        slot.setNbPotentialRemainingPlaces( nNbPotentialRemainingPlaces );
+        return slot;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Keep the slots of the calendar of a form up to date with its availability.
+ *
+ * The changes of the slots of the form are pushed by the server on a Server-Sent Events connection; each push
+ * reloads the availability of the form. When the connection can not be opened (no EventSource in the browser, push
+ * refused by the server), the availability endpoint is polled instead.
+ * The availability is loaded with the ETag of its last response (jQuery ifModified option): it answers
+ * 304 Not Modified while nothing has changed on the form, so a poll only costs a request.
+ * The polls are skipped while the page is hidden.
+ */
+var AppointmentAvailability = (function () {
+
+	var AVAILABILITY_URL = 'servlet/plugins/appointment/availability';
+	var PUSH_URL = 'servlet/plugins/appointment/push';
+	var DEFAULT_POLL_PERIOD = 30000;
+
+	/*
+	 * Load the slots of a form if they have changed since the last load
+	 * idForm: the id of the form
+	 * onSlots: called with the array of the slots [starting date time, ending time, available places, open (1/0), remaining places]
+	 */
+	function load( idForm, onSlots ) {
+		$.ajax({
+			url: AVAILABILITY_URL,
+			data: { id_form: idForm },
+			dataType: 'json',
+			ifModified: true,
+			success: function( data, status ) {
+				if ( status !== 'notmodified' && data && data.slots ) {
+					onSlots( data.slots );
+				}
+			}
+		});
+	}
+
+	/*
+	 * Watch the availability of a form
+	 * idForm: the id of the form
+	 * onSlots: called with the slots of the form each time they change
+	 * pollPeriod: the period of the polls, in milliseconds
+	 */
+	function watch( idForm, onSlots, pollPeriod ) {
+		// The first load only gets the ETag: the slots of the page are up to date
+		$.ajax({ url: AVAILABILITY_URL, data: { id_form: idForm }, dataType: 'json', ifModified: true });
+		if ( !window.EventSource ) {
+			poll( idForm, onSlots, pollPeriod );
+			return;
+		}
+		var eventSource = new EventSource( PUSH_URL + '?id_form=' + encodeURIComponent( idForm ) );
+		eventSource.addEventListener( 'slots', function() {
+			load( idForm, onSlots );
+		});
+		eventSource.onerror = function() {
+			// The browser reconnects by itself after a network error, but not when the server refused the connection
+			if ( eventSource.readyState === EventSource.CLOSED ) {
+				poll( idForm, onSlots, pollPeriod );
+			}
+		};
+	}
+
+	/*
+	 * Poll the availability of a form
+	 */
+	function poll( idForm, onSlots, pollPeriod ) {
+		setInterval( function() {
+			if ( !document.hidden ) {
+				load( idForm, onSlots );
+			}
+		}, pollPeriod || DEFAULT_POLL_PERIOD );
+	}
+
+	return {
+		load: load,
+		watch: watch
+	};
+})();